@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import com.openshift.internal.client.OpenShiftFutureTask;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * The base for the facades that run resource operations asynchronously.
+ * 
+ * @author agent
+ * 
+ * @see AsyncApplication
+ * @see AsyncDomain
+ * @see AsyncConnection
+ */
+public abstract class AbstractAsyncFacade {
+
+	private final ExecutorService executor;
+
+	protected AbstractAsyncFacade(ExecutorService executor) {
+		Assert.notNull(executor);
+		this.executor = executor;
+	}
+
+	protected <V> IOpenShiftFuture<V> submit(Callable<V> operation) {
+		return OpenShiftFutureTask.submit(operation, executor);
+	}
+
+	public ExecutorService getExecutorService() {
+		return executor;
+	}
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.openshift.client.ProvisioningReport.Outcome;
+import com.openshift.client.ProvisioningReport.Status;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * Creates a batch of applications in a domain. The gear quota of the user is
+ * checked up front: the applications are admitted in the given order as long
+ * as the gears that they require fit into the gears that are left, the
+ * remaining ones are reported as {@link Status#QUOTA_EXCEEDED} without
+ * sending them to the server. The admitted applications are created in the
+ * given executor with a bounded number of concurrent creations. The waits for
+ * the created applications to become accessible run concurrently in the
+ * (shared) readiness scheduler and do not occupy a creation slot:
+ * 
+ * <pre>
+ * ProvisioningReport report = new ApplicationProvisioner(connection)
+ * 		.provision(domain, Arrays.asList(
+ * 				new ApplicationSpec("shop", jbossas, mysql),
+ * 				new ApplicationSpec("blog", php)));
+ * </pre>
+ * 
+ * The user is refreshed before the quota is checked so that the check is
+ * based on the current gear counts.
+ * 
+ * @author agent
+ * 
+ * @see ProvisioningReport
+ * @see IUser#getMaxGears()
+ * @see IUser#getConsumedGears()
+ */
+public class ApplicationProvisioner {
+
+	/** the default number of applications that are created concurrently */
+	public static final int DEFAULT_CONCURRENCY = 4;
+	/** the default time in milliseconds to wait for an application to become accessible */
+	public static final long DEFAULT_READINESS_TIMEOUT = 3 * 60 * 1000;
+
+	private final ExecutorService executor;
+	private final int concurrency;
+	private final long readinessTimeout;
+
+	/**
+	 * Creates a provisioner that runs in the executor of the given connection
+	 * with the default concurrency and readiness timeout.
+	 * 
+	 * @param connection
+	 *            the connection whose executor shall be used
+	 * 
+	 * @see IOpenShiftConnection#getExecutorService()
+	 */
+	public ApplicationProvisioner(IOpenShiftConnection connection) {
+		this(connection.getExecutorService(), DEFAULT_CONCURRENCY, DEFAULT_READINESS_TIMEOUT);
+	}
+
+	/**
+	 * Creates a provisioner that runs in the given executor.
+	 * 
+	 * @param executor
+	 *            the executor to create the applications in
+	 * @param concurrency
+	 *            the maximum number of applications that are created at the
+	 *            same time
+	 * @param readinessTimeout
+	 *            the time in milliseconds to wait for a created application
+	 *            to become accessible, <code>0</code> to not wait at all
+	 */
+	public ApplicationProvisioner(ExecutorService executor, int concurrency, long readinessTimeout) {
+		Assert.notNull(executor);
+		Assert.isTrue(concurrency > 0);
+		Assert.isTrue(readinessTimeout >= 0);
+
+		this.executor = executor;
+		this.concurrency = concurrency;
+		this.readinessTimeout = readinessTimeout;
+	}
+
+	/**
+	 * Creates the given applications in the given domain and blocks until all
+	 * of them were created (or failed) and are ready (or did not get ready in
+	 * time). If the calling thread is interrupted, the pending creations and
+	 * waits are cancelled and the applications that were not done are
+	 * reported as failed.
+	 * 
+	 * @param domain
+	 *            the domain to create the applications in
+	 * @param specs
+	 *            the specifications of the applications to create
+	 * @return the report with an outcome per application
+	 * @throws OpenShiftException
+	 *             if the user (and its gear quota) could not be refreshed
+	 */
+	public ProvisioningReport provision(final IDomain domain, Collection<ApplicationSpec> specs)
+			throws OpenShiftException {
+		Assert.notNull(domain);
+		Assert.notNull(specs);
+
+		IUser user = domain.getUser();
+		// the cached gear counts may be outdated
+		user.refresh();
+		int availableGears = Math.max(0, user.getMaxGears() - user.getConsumedGears());
+		AtomicReferenceArray<Outcome> outcomes = new AtomicReferenceArray<Outcome>(specs.size());
+		List<Provisioning> admitted = admit(specs, availableGears, outcomes);
+
+		CountDownLatch done = new CountDownLatch(admitted.size());
+		CompletionService<IApplication> completionService = new ExecutorCompletionService<IApplication>(executor);
+		Map<Future<IApplication>, Provisioning> creating = new HashMap<Future<IApplication>, Provisioning>();
+		List<Future<Boolean>> waiting = new ArrayList<Future<Boolean>>();
+		int next = 0;
+		try {
+			while (next < admitted.size()
+					|| !creating.isEmpty()) {
+				while (creating.size() < concurrency
+						&& next < admitted.size()) {
+					final Provisioning provisioning = admitted.get(next++);
+					Future<IApplication> future = completionService.submit(new Callable<IApplication>() {
+
+						@Override
+						public IApplication call() throws Exception {
+							provisioning.startedAt = System.currentTimeMillis();
+							return provisioning.spec.create(domain);
+						}
+					});
+					creating.put(future, provisioning);
+				}
+
+				Future<IApplication> future = completionService.take();
+				Provisioning provisioning = creating.remove(future);
+				provisioning.createdAt = System.currentTimeMillis();
+				try {
+					provisioning.application = future.get();
+				} catch (ExecutionException e) {
+					provisioning.complete(Status.FAILED, e.getCause(), outcomes, done);
+					continue;
+				}
+				if (readinessTimeout == 0) {
+					provisioning.complete(Status.CREATED, null, outcomes, done);
+					continue;
+				}
+				waiting.add(provisioning.waitForAccessible(readinessTimeout, outcomes, done));
+			}
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			for (Future<IApplication> future : creating.keySet()) {
+				future.cancel(true);
+			}
+			for (Future<Boolean> future : waiting) {
+				future.cancel(true);
+			}
+			for (Provisioning provisioning : admitted) {
+				provisioning.complete(Status.FAILED, e, outcomes, done);
+			}
+		}
+
+		List<Outcome> report = new ArrayList<Outcome>(outcomes.length());
+		for (int i = 0; i < outcomes.length(); i++) {
+			report.add(outcomes.get(i));
+		}
+		return new ProvisioningReport(availableGears, report);
+	}
+
+	/**
+	 * Admits the given specs in their order as long as there are enough gears
+	 * left. The ones that do not fit are reported right away.
+	 */
+	private List<Provisioning> admit(Collection<ApplicationSpec> specs, int availableGears,
+			AtomicReferenceArray<Outcome> outcomes) {
+		List<Provisioning> admitted = new ArrayList<Provisioning>(specs.size());
+		int remainingGears = availableGears;
+		int index = 0;
+		for (ApplicationSpec spec : specs) {
+			Assert.notNull(spec);
+			int requiredGears = spec.getRequiredGears();
+			if (requiredGears > remainingGears) {
+				outcomes.set(index, new Outcome(spec, null, Status.QUOTA_EXCEEDED,
+						new OpenShiftException("Application {0} requires {1} gear(s), only {2} of {3} are left",
+								spec.getName(), requiredGears, remainingGears, availableGears), 0, 0));
+			} else {
+				remainingGears -= requiredGears;
+				admitted.add(new Provisioning(index, spec));
+			}
+			index++;
+		}
+		return admitted;
+	}
+
+	/**
+	 * The provisioning of a single application. It completes once the
+	 * application is created and ready, it is notified of the readiness by
+	 * the scheduler.
+	 */
+	private static class Provisioning {
+
+		private final int index;
+		private final ApplicationSpec spec;
+		private volatile long startedAt;
+		private volatile long createdAt;
+		private volatile IApplication application;
+
+		private Provisioning(int index, ApplicationSpec spec) {
+			this.index = index;
+			this.spec = spec;
+		}
+
+		private Future<Boolean> waitForAccessible(long timeout, final AtomicReferenceArray<Outcome> outcomes,
+				final CountDownLatch done) {
+			return application.waitForAccessibleAsync(timeout)
+					.addCallback(new IFutureCallback<Boolean>() {
+
+						@Override
+						public void onSuccess(Boolean ready) {
+							complete(Boolean.TRUE.equals(ready) ? Status.READY : Status.NOT_READY, null, outcomes, done);
+						}
+
+						@Override
+						public void onFailure(Throwable error) {
+							complete(Status.NOT_READY, error, outcomes, done);
+						}
+					});
+		}
+
+		/**
+		 * Completes this provisioning unless it was completed before.
+		 */
+		private void complete(Status status, Throwable error, AtomicReferenceArray<Outcome> outcomes,
+				CountDownLatch done) {
+			long now = System.currentTimeMillis();
+			long creationDuration = 0;
+			long readinessDuration = 0;
+			if (startedAt > 0) {
+				creationDuration = (createdAt > 0 ? createdAt : now) - startedAt;
+			}
+			if (createdAt > 0
+					&& application != null) {
+				readinessDuration = now - createdAt;
+			}
+			Outcome outcome = new Outcome(spec, application, status, error, creationDuration, readinessDuration);
+			if (outcomes.compareAndSet(index, null, outcome)) {
+				done.countDown();
+			}
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.internal.client.CartridgeType;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * The specification of an application that shall be created: its name,
+ * cartridges and (optional) scaling, gear profile, initial git url,
+ * environment variables and request timeout.
+ * 
+ * <pre>
+ * new ApplicationSpec("shop", jbossas, mysql)
+ * 		.scale(ApplicationScale.SCALE)
+ * 		.gearProfile(new GearProfile("medium"));
+ * </pre>
+ * 
+ * @author agent
+ * 
+ * @see ApplicationProvisioner
+ */
+public class ApplicationSpec {
+
+	private final String name;
+	private final List<ICartridge> cartridges;
+	private ApplicationScale scale;
+	private IGearProfile gearProfile;
+	private String initialGitUrl;
+	private int timeout = IHttpClient.NO_TIMEOUT;
+	private Map<String, String> environmentVariables;
+	private int requiredGears = -1;
+
+	/**
+	 * Creates the specification of an application with the given name and
+	 * cartridges. The cartridges must contain at least 1 standalone
+	 * cartridge.
+	 * 
+	 * @param name
+	 *            the name of the application
+	 * @param cartridges
+	 *            all (the standalone- and the embeddable) cartridges
+	 */
+	public ApplicationSpec(String name, ICartridge... cartridges) {
+		Assert.notNull(name);
+		Assert.isTrue(cartridges != null
+				&& cartridges.length > 0);
+
+		this.name = name;
+		this.cartridges = Collections.unmodifiableList(Arrays.asList(cartridges));
+	}
+
+	public ApplicationSpec scale(ApplicationScale scale) {
+		this.scale = scale;
+		return this;
+	}
+
+	public ApplicationSpec gearProfile(IGearProfile gearProfile) {
+		this.gearProfile = gearProfile;
+		return this;
+	}
+
+	public ApplicationSpec initialGitUrl(String initialGitUrl) {
+		this.initialGitUrl = initialGitUrl;
+		return this;
+	}
+
+	public ApplicationSpec timeout(int timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+
+	public ApplicationSpec environmentVariables(Map<String, String> environmentVariables) {
+		this.environmentVariables = environmentVariables;
+		return this;
+	}
+
+	/**
+	 * Sets the number of gears that the application will consume once it is
+	 * created. Overrides the estimate.
+	 * 
+	 * @param requiredGears
+	 *            the number of gears
+	 * @return this specification
+	 * 
+	 * @see #getRequiredGears()
+	 */
+	public ApplicationSpec requiredGears(int requiredGears) {
+		Assert.isTrue(requiredGears >= 0);
+		this.requiredGears = requiredGears;
+		return this;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public List<ICartridge> getCartridges() {
+		return cartridges;
+	}
+
+	public ApplicationScale getScale() {
+		return scale;
+	}
+
+	public IGearProfile getGearProfile() {
+		return gearProfile;
+	}
+
+	public String getInitialGitUrl() {
+		return initialGitUrl;
+	}
+
+	public int getTimeout() {
+		return timeout;
+	}
+
+	public Map<String, String> getEnvironmentVariables() {
+		return environmentVariables;
+	}
+
+	/**
+	 * Returns the number of gears that the application will consume once it
+	 * is created. Unless it was set explicitly, it is estimated: a non-scalable
+	 * application takes a single gear, a scalable one may get an additional
+	 * gear for each of its embedded cartridges (ex. a database). The estimate
+	 * is an upper bound.
+	 * 
+	 * @return the number of gears that the application requires
+	 */
+	public int getRequiredGears() {
+		if (requiredGears >= 0) {
+			return requiredGears;
+		}
+		if (scale != ApplicationScale.SCALE) {
+			return 1;
+		}
+		int gears = 1;
+		for (ICartridge cartridge : cartridges) {
+			if (cartridge.getType() != CartridgeType.STANDALONE) {
+				gears++;
+			}
+		}
+		return gears;
+	}
+
+	/**
+	 * Creates the application that this specification describes in the given
+	 * domain.
+	 * 
+	 * @param domain
+	 *            the domain to create the application in
+	 * @return the new application
+	 * @throws OpenShiftException
+	 */
+	public IApplication create(IDomain domain) throws OpenShiftException {
+		return domain.createApplication(name, scale, gearProfile, initialGitUrl, timeout, environmentVariables,
+				cartridges.toArray(new ICartridge[cartridges.size()]));
+	}
+
+	@Override
+	public String toString() {
+		return "ApplicationSpec ["
+				+ "name=" + name
+				+ ", cartridges=" + cartridges
+				+ ", scale=" + scale
+				+ "]";
+	}
+}
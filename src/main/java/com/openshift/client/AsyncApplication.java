@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.client.cartridge.IEmbeddableCartridge;
+import com.openshift.client.cartridge.IEmbeddedCartridge;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * Runs the lifecycle operations of an application asynchronously. The
+ * operations that have no result return the application so that further
+ * operations may be chained in a callback:
+ * 
+ * <pre>
+ * new AsyncApplication(application).stopAsync(false)
+ * 		.addCallback(new IFutureCallback&lt;IApplication&gt;() { ... });
+ * </pre>
+ * 
+ * @author agent
+ * 
+ * @see IApplication
+ */
+public class AsyncApplication extends AbstractAsyncFacade {
+
+	private final IApplication application;
+
+	/**
+	 * Creates an async facade that runs the operations in the executor of the
+	 * connection of the given application.
+	 * 
+	 * @param application
+	 *            the application to operate on
+	 * 
+	 * @see IOpenShiftConnection#getExecutorService()
+	 */
+	public AsyncApplication(IApplication application) {
+		this(application, application.getDomain().getUser().getConnection().getExecutorService());
+	}
+
+	public AsyncApplication(IApplication application, ExecutorService executor) {
+		super(executor);
+		Assert.notNull(application);
+		this.application = application;
+	}
+
+	public IApplication getApplication() {
+		return application;
+	}
+
+	public IOpenShiftFuture<IApplication> startAsync() {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				application.start();
+				return application;
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IApplication> stopAsync(final boolean force) {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				application.stop(force);
+				return application;
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IApplication> restartAsync() {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				application.restart();
+				return application;
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IApplication> scaleUpAsync() {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				application.scaleUp();
+				return application;
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IApplication> scaleDownAsync() {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				application.scaleDown();
+				return application;
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IApplication> refreshAsync() {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				application.refresh();
+				return application;
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IApplication> destroyAsync() {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				application.destroy();
+				return application;
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IEmbeddedCartridge> addEmbeddableCartridgeAsync(final ICartridge cartridge) {
+		return submit(new Callable<IEmbeddedCartridge>() {
+
+			@Override
+			public IEmbeddedCartridge call() throws Exception {
+				return application.addEmbeddableCartridge(cartridge);
+			}
+		});
+	}
+
+	public IOpenShiftFuture<List<IEmbeddedCartridge>> addEmbeddableCartridgesAsync(final ICartridge... cartridges) {
+		return submit(new Callable<List<IEmbeddedCartridge>>() {
+
+			@Override
+			public List<IEmbeddedCartridge> call() throws Exception {
+				return application.addEmbeddableCartridges(cartridges);
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IApplication> removeEmbeddedCartridgeAsync(final IEmbeddableCartridge cartridge) {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				application.removeEmbeddedCartridge(cartridge);
+				return application;
+			}
+		});
+	}
+}
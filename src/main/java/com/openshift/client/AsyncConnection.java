@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * Runs the operations of a connection asynchronously.
+ * 
+ * @author agent
+ * 
+ * @see IOpenShiftConnection
+ * @see AsyncDomain
+ */
+public class AsyncConnection extends AbstractAsyncFacade {
+
+	private final IOpenShiftConnection connection;
+
+	/**
+	 * Creates an async facade that runs the operations in the executor of the
+	 * given connection.
+	 * 
+	 * @param connection
+	 *            the connection to operate on
+	 * 
+	 * @see IOpenShiftConnection#getExecutorService()
+	 */
+	public AsyncConnection(IOpenShiftConnection connection) {
+		this(connection, connection.getExecutorService());
+	}
+
+	public AsyncConnection(IOpenShiftConnection connection, ExecutorService executor) {
+		super(executor);
+		Assert.notNull(connection);
+		this.connection = connection;
+	}
+
+	public IOpenShiftConnection getConnection() {
+		return connection;
+	}
+
+	public IOpenShiftFuture<IUser> getUserAsync() {
+		return submit(new Callable<IUser>() {
+
+			@Override
+			public IUser call() throws Exception {
+				return connection.getUser();
+			}
+		});
+	}
+
+	public IOpenShiftFuture<List<IDomain>> getDomainsAsync() {
+		return submit(new Callable<List<IDomain>>() {
+
+			@Override
+			public List<IDomain> call() throws Exception {
+				return connection.getDomains();
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IDomain> createDomainAsync(final String id) {
+		return submit(new Callable<IDomain>() {
+
+			@Override
+			public IDomain call() throws Exception {
+				return connection.getUser().createDomain(id);
+			}
+		});
+	}
+
+	public IOpenShiftFuture<List<ICartridge>> getCartridgesAsync() {
+		return submit(new Callable<List<ICartridge>>() {
+
+			@Override
+			public List<ICartridge> call() throws Exception {
+				return connection.getCartridges();
+			}
+		});
+	}
+
+	public IOpenShiftFuture<List<IQuickstart>> getQuickstartsAsync() {
+		return submit(new Callable<List<IQuickstart>>() {
+
+			@Override
+			public List<IQuickstart> call() throws Exception {
+				return connection.getQuickstarts();
+			}
+		});
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.client.cartridge.IEmbeddableCartridge;
+import com.openshift.client.cartridge.IStandaloneCartridge;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * Runs the operations of a domain asynchronously.
+ * 
+ * @author agent
+ * 
+ * @see IDomain
+ * @see AsyncApplication
+ */
+public class AsyncDomain extends AbstractAsyncFacade {
+
+	private final IDomain domain;
+
+	/**
+	 * Creates an async facade that runs the operations in the executor of the
+	 * connection of the given domain.
+	 * 
+	 * @param domain
+	 *            the domain to operate on
+	 * 
+	 * @see IOpenShiftConnection#getExecutorService()
+	 */
+	public AsyncDomain(IDomain domain) {
+		this(domain, domain.getUser().getConnection().getExecutorService());
+	}
+
+	public AsyncDomain(IDomain domain, ExecutorService executor) {
+		super(executor);
+		Assert.notNull(domain);
+		this.domain = domain;
+	}
+
+	public IDomain getDomain() {
+		return domain;
+	}
+
+	public IOpenShiftFuture<IApplication> createApplicationAsync(String name, IStandaloneCartridge cartridge) {
+		return createApplicationAsync(name, cartridge, null, null, null);
+	}
+
+	public IOpenShiftFuture<IApplication> createApplicationAsync(String name, IStandaloneCartridge cartridge,
+			ApplicationScale scale, IGearProfile gearProfile) {
+		return createApplicationAsync(name, cartridge, scale, gearProfile, null);
+	}
+
+	public IOpenShiftFuture<IApplication> createApplicationAsync(final String name,
+			final IStandaloneCartridge cartridge, final ApplicationScale scale, final IGearProfile gearProfile,
+			final String initialGitUrl) {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				return domain.createApplication(name, cartridge, scale, gearProfile, initialGitUrl);
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IApplication> createApplicationAsync(final String name,
+			final IStandaloneCartridge cartridge, final ApplicationScale scale, final IGearProfile gearProfile,
+			final String initialGitUrl, final int timeout, final IEmbeddableCartridge... cartridges) {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				return domain.createApplication(name, cartridge, scale, gearProfile, initialGitUrl, timeout,
+						cartridges);
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IApplication> createApplicationAsync(final String name, final ApplicationScale scale,
+			final IGearProfile gearProfile, final String initialGitUrl, final int timeout,
+			final Map<String, String> environmentVariables, final ICartridge... cartridges) {
+		return submit(new Callable<IApplication>() {
+
+			@Override
+			public IApplication call() throws Exception {
+				return domain.createApplication(name, scale, gearProfile, initialGitUrl, timeout,
+						environmentVariables, cartridges);
+			}
+		});
+	}
+
+	public IOpenShiftFuture<List<IApplication>> getApplicationsAsync() {
+		return submit(new Callable<List<IApplication>>() {
+
+			@Override
+			public List<IApplication> call() throws Exception {
+				return domain.getApplications();
+			}
+		});
+	}
+
+	public IOpenShiftFuture<IDomain> destroyAsync(final boolean force) {
+		return submit(new Callable<IDomain>() {
+
+			@Override
+			public IDomain call() throws Exception {
+				domain.destroy(force);
+				return domain;
+			}
+		});
+	}
+}
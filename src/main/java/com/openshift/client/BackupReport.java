@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.openshift.client.BulkOperationReport.Status;
+
+/**
+ * The outcome of a backup, one snapshot per application in the order in which
+ * the applications were given, and the manifest that was written for them.
+ * 
+ * @author agent
+ * 
+ * @see DomainBackup
+ */
+public class BackupReport {
+
+	private final List<Snapshot> snapshots;
+	private final File manifest;
+
+	BackupReport(List<Snapshot> snapshots, File manifest) {
+		this.snapshots = Collections.unmodifiableList(snapshots);
+		this.manifest = manifest;
+	}
+
+	public List<Snapshot> getSnapshots() {
+		return snapshots;
+	}
+
+	/**
+	 * Returns the snapshot of the given application or <code>null</code> if it
+	 * was not part of the backup.
+	 * 
+	 * @param application
+	 *            the application to get the snapshot for
+	 * @return the snapshot of the given application
+	 */
+	public Snapshot getSnapshot(IApplication application) {
+		for (Snapshot snapshot : snapshots) {
+			if (snapshot.getApplication() == application) {
+				return snapshot;
+			}
+		}
+		return null;
+	}
+
+	public List<Snapshot> getSnapshots(Status status) {
+		List<Snapshot> snapshots = new ArrayList<Snapshot>();
+		for (Snapshot snapshot : this.snapshots) {
+			if (snapshot.getStatus() == status) {
+				snapshots.add(snapshot);
+			}
+		}
+		return snapshots;
+	}
+
+	/**
+	 * Returns the manifest file that lists all snapshots with their sizes,
+	 * durations and checksums.
+	 * 
+	 * @return the manifest file
+	 */
+	public File getManifest() {
+		return manifest;
+	}
+
+	/**
+	 * Returns <code>true</code> if all applications were backed up.
+	 * 
+	 * @return true if all snapshots succeeded
+	 */
+	public boolean isSuccessful() {
+		for (Snapshot snapshot : snapshots) {
+			if (snapshot.getStatus() != Status.SUCCEEDED) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "BackupReport ["
+				+ "succeeded=" + getSnapshots(Status.SUCCEEDED).size()
+				+ ", failed=" + getSnapshots(Status.FAILED).size()
+				+ ", timedOut=" + getSnapshots(Status.TIMED_OUT).size()
+				+ ", manifest=" + manifest
+				+ "]";
+	}
+
+	/**
+	 * The snapshot of a single application.
+	 */
+	public static class Snapshot {
+
+		private final IApplication application;
+		private final Status status;
+		private final File file;
+		private final long size;
+		private final long duration;
+		private final String checksum;
+		private final int attempts;
+		private final Throwable error;
+
+		Snapshot(IApplication application, Status status, File file, long size, long duration, String checksum,
+				int attempts, Throwable error) {
+			this.application = application;
+			this.status = status;
+			this.file = file;
+			this.size = size;
+			this.duration = duration;
+			this.checksum = checksum;
+			this.attempts = attempts;
+			this.error = error;
+		}
+
+		public IApplication getApplication() {
+			return application;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * Returns the file that the snapshot was saved to.
+		 * 
+		 * @return the snapshot file
+		 */
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * Returns the size in bytes of the snapshot or 0 if it failed.
+		 * 
+		 * @return the size
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns the time in milliseconds that the transfer of the snapshot
+		 * took or that the application took until it failed.
+		 * 
+		 * @return the duration
+		 */
+		public long getDuration() {
+			return duration;
+		}
+
+		/**
+		 * Returns the SHA-256 checksum (hex) of the snapshot or
+		 * <code>null</code> if it failed.
+		 * 
+		 * @return the checksum
+		 */
+		public String getChecksum() {
+			return checksum;
+		}
+
+		/**
+		 * Returns the number of times that the snapshot was attempted.
+		 * 
+		 * @return the number of attempts
+		 */
+		public int getAttempts() {
+			return attempts;
+		}
+
+		/**
+		 * Returns the error that the last attempt failed with or
+		 * <code>null</code> if the snapshot succeeded or timed out.
+		 * 
+		 * @return the error
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot ["
+					+ "application=" + (application == null ? null : application.getName())
+					+ ", status=" + status
+					+ ", size=" + size
+					+ ", duration=" + duration
+					+ ", attempts=" + attempts
+					+ "]";
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The results of a bulk operation, one result per application in the order in
+ * which the applications were given.
+ * 
+ * @author agent
+ * 
+ * @see BulkOperations
+ */
+public class BulkOperationReport {
+
+	public enum Status {
+		SUCCEEDED, FAILED, TIMED_OUT
+	}
+
+	private final List<Result> results;
+
+	BulkOperationReport(List<Result> results) {
+		this.results = Collections.unmodifiableList(results);
+	}
+
+	public List<Result> getResults() {
+		return results;
+	}
+
+	/**
+	 * Returns the result for the given application or <code>null</code> if it
+	 * was not part of the bulk operation.
+	 * 
+	 * @param application
+	 *            the application to get the result for
+	 * @return the result for the given application
+	 */
+	public Result getResult(IApplication application) {
+		for (Result result : results) {
+			if (result.getApplication() == application) {
+				return result;
+			}
+		}
+		return null;
+	}
+
+	public List<Result> getResults(Status status) {
+		List<Result> results = new ArrayList<Result>();
+		for (Result result : this.results) {
+			if (result.getStatus() == status) {
+				results.add(result);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns <code>true</code> if the operation succeeded on all
+	 * applications.
+	 * 
+	 * @return true if all applications succeeded
+	 */
+	public boolean isSuccessful() {
+		for (Result result : results) {
+			if (result.getStatus() != Status.SUCCEEDED) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkOperationReport ["
+				+ "succeeded=" + getResults(Status.SUCCEEDED).size()
+				+ ", failed=" + getResults(Status.FAILED).size()
+				+ ", timedOut=" + getResults(Status.TIMED_OUT).size()
+				+ "]";
+	}
+
+	/**
+	 * The result of a bulk operation on a single application.
+	 */
+	public static class Result {
+
+		final int index;
+		private final IApplication application;
+		private final Status status;
+		private final Throwable error;
+		private final long duration;
+
+		Result(int index, IApplication application, Status status, Throwable error, long duration) {
+			this.index = index;
+			this.application = application;
+			this.status = status;
+			this.error = error;
+			this.duration = duration;
+		}
+
+		public IApplication getApplication() {
+			return application;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * Returns the error that the operation failed with or
+		 * <code>null</code> if it succeeded or timed out.
+		 * 
+		 * @return the error
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		/**
+		 * Returns the time in milliseconds that the operation took.
+		 * 
+		 * @return the duration
+		 */
+		public long getDuration() {
+			return duration;
+		}
+
+		@Override
+		public String toString() {
+			return "Result ["
+					+ "application=" + (application == null ? null : application.getName())
+					+ ", status=" + status
+					+ ", error=" + (error == null ? null : error.getMessage())
+					+ ", duration=" + duration
+					+ "]";
+		}
+	}
+}
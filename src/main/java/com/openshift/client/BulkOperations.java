@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.openshift.client.BulkOperationReport.Result;
+import com.openshift.client.BulkOperationReport.Status;
+import com.openshift.internal.client.OpenShiftFutureTask;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * Runs lifecycle operations (start, stop, restart, scale) on many
+ * applications at once. The operations are run in the given executor with a
+ * bounded number of concurrent operations and a timeout per application.
+ * Failures do not abort the bulk operation, they're reported in the
+ * resulting report:
+ * 
+ * <pre>
+ * BulkOperationReport report = new BulkOperations(connection)
+ * 		.restart(domain.getApplications());
+ * for (Result failed : report.getResults(Status.FAILED)) {
+ * 	...
+ * }
+ * </pre>
+ * 
+ * @author agent
+ * 
+ * @see BulkOperationReport
+ */
+public class BulkOperations {
+
+	/** the default number of operations that are run concurrently */
+	public static final int DEFAULT_CONCURRENCY = 4;
+	/** the default time in milliseconds that an application may take */
+	public static final long DEFAULT_TIMEOUT = 3 * 60 * 1000;
+
+	public static final IApplicationOperation START = new IApplicationOperation() {
+
+		@Override
+		public void execute(IApplication application) throws OpenShiftException {
+			application.start();
+		}
+	};
+
+	public static final IApplicationOperation STOP = new IApplicationOperation() {
+
+		@Override
+		public void execute(IApplication application) throws OpenShiftException {
+			application.stop();
+		}
+	};
+
+	public static final IApplicationOperation FORCE_STOP = new IApplicationOperation() {
+
+		@Override
+		public void execute(IApplication application) throws OpenShiftException {
+			application.stop(true);
+		}
+	};
+
+	public static final IApplicationOperation RESTART = new IApplicationOperation() {
+
+		@Override
+		public void execute(IApplication application) throws OpenShiftException {
+			application.restart();
+		}
+	};
+
+	public static final IApplicationOperation SCALE_UP = new IApplicationOperation() {
+
+		@Override
+		public void execute(IApplication application) throws OpenShiftException {
+			application.scaleUp();
+		}
+	};
+
+	public static final IApplicationOperation SCALE_DOWN = new IApplicationOperation() {
+
+		@Override
+		public void execute(IApplication application) throws OpenShiftException {
+			application.scaleDown();
+		}
+	};
+
+	private final ExecutorService executor;
+	private final int concurrency;
+	private final long timeout;
+	private IBulkOperationListener listener;
+
+	/**
+	 * Creates bulk operations that run in the executor of the given connection
+	 * with the default concurrency and timeout.
+	 * 
+	 * @param connection
+	 *            the connection whose executor shall be used
+	 * 
+	 * @see IOpenShiftConnection#getExecutorService()
+	 */
+	public BulkOperations(IOpenShiftConnection connection) {
+		this(connection.getExecutorService(), DEFAULT_CONCURRENCY, DEFAULT_TIMEOUT);
+	}
+
+	/**
+	 * Creates bulk operations that run in the given executor.
+	 * 
+	 * @param executor
+	 *            the executor to run the operations in
+	 * @param concurrency
+	 *            the maximum number of operations that run at the same time
+	 * @param timeout
+	 *            the time in milliseconds that the operation on a single
+	 *            application may take at most
+	 */
+	public BulkOperations(ExecutorService executor, int concurrency, long timeout) {
+		Assert.notNull(executor);
+		Assert.isTrue(concurrency > 0);
+		Assert.isTrue(timeout > 0);
+
+		this.executor = executor;
+		this.concurrency = concurrency;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Sets the listener that gets notified each time an application completed.
+	 * 
+	 * @param listener
+	 *            the listener to notify
+	 * @return this bulk operations
+	 */
+	public BulkOperations listener(IBulkOperationListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	public BulkOperationReport start(Collection<? extends IApplication> applications) {
+		return run(applications, START);
+	}
+
+	public BulkOperationReport stop(Collection<? extends IApplication> applications, boolean force) {
+		return run(applications, force ? FORCE_STOP : STOP);
+	}
+
+	public BulkOperationReport restart(Collection<? extends IApplication> applications) {
+		return run(applications, RESTART);
+	}
+
+	public BulkOperationReport scaleUp(Collection<? extends IApplication> applications) {
+		return run(applications, SCALE_UP);
+	}
+
+	public BulkOperationReport scaleDown(Collection<? extends IApplication> applications) {
+		return run(applications, SCALE_DOWN);
+	}
+
+	/**
+	 * Runs the given operation on all applications of the given domain.
+	 * 
+	 * @param domain
+	 *            the domain whose applications shall be operated on
+	 * @param operation
+	 *            the operation to run
+	 * @return the report with a result per application
+	 * @throws OpenShiftException
+	 *             if the applications of the domain could not be loaded
+	 */
+	public BulkOperationReport run(IDomain domain, IApplicationOperation operation) throws OpenShiftException {
+		return run(domain.getApplications(), operation);
+	}
+
+	/**
+	 * Runs the given operation on the given applications and blocks until all
+	 * of them succeeded, failed or timed out. The timeout of an application
+	 * starts once its operation is running, not while it's queued in the
+	 * executor. Applications that time out are cancelled, which interrupts
+	 * them and aborts the io they're blocked on. If the calling thread is
+	 * interrupted or the executor rejects an operation, the running operations
+	 * are cancelled and all the applications that did not complete are
+	 * reported as failed.
+	 * 
+	 * @param applications
+	 *            the applications to operate on
+	 * @param operation
+	 *            the operation to run
+	 * @return the report with a result per application
+	 */
+	public BulkOperationReport run(Collection<? extends IApplication> applications,
+			IApplicationOperation operation) {
+		Assert.notNull(applications);
+		Assert.notNull(operation);
+
+		List<IApplication> pending = new ArrayList<IApplication>(applications);
+		Result[] results = new Result[pending.size()];
+		// dispatched operations are queued once they started and once they're done
+		BlockingQueue<Dispatched> events = new LinkedBlockingQueue<Dispatched>();
+		List<Dispatched> running = new ArrayList<Dispatched>();
+		int next = 0;
+		int completed = 0;
+		try {
+			while (completed < results.length) {
+				while (running.size() < concurrency
+						&& next < results.length) {
+					Dispatched dispatched = new Dispatched(next, pending.get(next), operation, events);
+					try {
+						executor.execute(dispatched.task);
+					} catch (RejectedExecutionException e) {
+						abort(running, pending, results, e);
+						return new BulkOperationReport(Arrays.asList(results));
+					}
+					next++;
+					running.add(dispatched);
+				}
+
+				long wait = timeout;
+				long now = System.currentTimeMillis();
+				for (Iterator<Dispatched> it = running.iterator(); it.hasNext();) {
+					Dispatched dispatched = it.next();
+					if (!dispatched.isStarted()) {
+						// queued in the executor, times out once it started
+						continue;
+					}
+					long remaining = dispatched.startedAt + timeout - now;
+					if (remaining <= 0) {
+						dispatched.task.cancel(true);
+						it.remove();
+						complete(dispatched.toResult(Status.TIMED_OUT, null), results, ++completed);
+					} else {
+						wait = Math.min(wait, remaining);
+					}
+				}
+				if (running.isEmpty()) {
+					continue;
+				}
+
+				Dispatched dispatched = events.poll(wait, TimeUnit.MILLISECONDS);
+				if (dispatched == null
+						|| !dispatched.task.isDone()
+						|| !running.remove(dispatched)) {
+					// started, or timed out and cancelled before
+					continue;
+				}
+				complete(toResult(dispatched), results, ++completed);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			abort(running, pending, results, e);
+		}
+		return new BulkOperationReport(Arrays.asList(results));
+	}
+
+	/**
+	 * Cancels the running operations and reports all the applications that
+	 * did not complete as failed with the given error.
+	 */
+	private void abort(List<Dispatched> running, List<IApplication> pending, Result[] results, Throwable error) {
+		for (Dispatched dispatched : running) {
+			dispatched.task.cancel(true);
+		}
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] == null) {
+				results[i] = new Result(i, pending.get(i), Status.FAILED, error, 0);
+			}
+		}
+	}
+
+	private Result toResult(Dispatched dispatched) throws InterruptedException {
+		try {
+			dispatched.task.get();
+			return dispatched.toResult(Status.SUCCEEDED, null);
+		} catch (ExecutionException e) {
+			return dispatched.toResult(Status.FAILED, e.getCause());
+		}
+	}
+
+	private void complete(Result result, Result[] results, int completed) {
+		results[result.index] = result;
+		if (listener != null) {
+			listener.onCompleted(result, completed, results.length);
+		}
+	}
+
+	/**
+	 * An operation that was handed to the executor. It's run in an
+	 * {@link OpenShiftFutureTask} so that cancelling it aborts blocking io.
+	 * Its timeout starts once it's actually running, not while it's queued.
+	 */
+	private static class Dispatched implements Callable<Void> {
+
+		private final int index;
+		private final IApplication application;
+		private final IApplicationOperation operation;
+		private final BlockingQueue<Dispatched> events;
+		private final OpenShiftFutureTask<Void> task;
+		private volatile long startedAt;
+
+		private Dispatched(int index, IApplication application, IApplicationOperation operation,
+				final BlockingQueue<Dispatched> events) {
+			this.index = index;
+			this.application = application;
+			this.operation = operation;
+			this.events = events;
+			this.task = new OpenShiftFutureTask<Void>(this) {
+
+				@Override
+				protected void done() {
+					super.done();
+					events.offer(Dispatched.this);
+				}
+			};
+		}
+
+		@Override
+		public Void call() throws Exception {
+			this.startedAt = System.currentTimeMillis();
+			events.offer(this);
+			operation.execute(application);
+			return null;
+		}
+
+		private boolean isStarted() {
+			return startedAt > 0;
+		}
+
+		private Result toResult(Status status, Throwable error) {
+			long duration = 0;
+			if (isStarted()) {
+				duration = System.currentTimeMillis() - startedAt;
+			}
+			return new Result(index, application, status, error, duration);
+		}
+	}
+}
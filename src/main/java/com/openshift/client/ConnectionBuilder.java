@@ -10,9 +10,11 @@
  ******************************************************************************/
 package com.openshift.client;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import com.openshift.client.IHttpClient.ISSLCertificateCallback;
 import com.openshift.client.configuration.AbstractOpenshiftConfiguration.ConfigurationOptions;
@@ -20,14 +22,19 @@ import com.openshift.client.configuration.IOpenShiftConfiguration;
 import com.openshift.client.configuration.OpenShiftConfiguration;
 import com.openshift.client.utils.SSLUtils;
 import com.openshift.internal.client.APIResource;
+import com.openshift.internal.client.BrokerContext;
+import com.openshift.internal.client.CatalogCache;
+import com.openshift.internal.client.ConcurrencyLimiter;
 import com.openshift.internal.client.IRestService;
 import com.openshift.internal.client.RestService;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClient;
 import com.openshift.internal.client.httpclient.UrlConnectionHttpClientBuilder;
 import com.openshift.internal.client.httpclient.request.JsonMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.response.Link;
 import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
 import com.openshift.internal.client.response.RestResponse;
+import com.openshift.internal.client.utils.ExecutorServiceUtils;
 
 /**
  * A builder for a connection to OpenShift.
@@ -178,6 +185,13 @@ public class ConnectionBuilder {
 		protected String sslCipherExclusionRegex;
 		protected IOpenShiftConfiguration configuration;
 		protected int timeout;
+		protected boolean catalogCache;
+		protected File catalogCacheDirectory;
+		protected ExecutorService executorService;
+		protected boolean sharedBrokerContext;
+		protected boolean defaultConcurrencyLimits;
+		protected ConcurrencyLimiter readLimiter;
+		protected ConcurrencyLimiter mutationLimiter;
 
 		protected AbstractConnectionBuilder(String serverUrl, IOpenShiftConfiguration configuration) {
 			this.serverUrl = serverUrl;
@@ -214,6 +228,121 @@ public class ConnectionBuilder {
 			return this;
 		}
 
+		/**
+		 * Enables the persistent cache for the cartridges and quickstarts
+		 * catalogs. Cached catalogs are served immediately and get
+		 * revalidated in the background. The cache is stored in the user
+		 * configuration folder (ex. ~/.openshift/cache).
+		 * 
+		 * @return this builder
+		 * 
+		 * @see CatalogCache
+		 */
+		public AbstractConnectionBuilder catalogCache() {
+			this.catalogCache = true;
+			return this;
+		}
+
+		/**
+		 * Enables the persistent cache for the cartridges and quickstarts
+		 * catalogs and stores it in the given directory.
+		 * 
+		 * @param directory
+		 *            the directory to store the cached catalogs to
+		 * @return this builder
+		 * 
+		 * @see CatalogCache
+		 */
+		public AbstractConnectionBuilder catalogCache(File directory) {
+			this.catalogCache = true;
+			this.catalogCacheDirectory = directory;
+			return this;
+		}
+
+		/**
+		 * Sets the executor that the connection shall run its asynchronous
+		 * operations in. The executor is not shut down when the connection is
+		 * disconnected, its lifecycle is up to the caller. The connection
+		 * creates its own executor if none is set.
+		 * 
+		 * @param executorService
+		 *            the executor to use
+		 * @return this builder
+		 * 
+		 * @see IOpenShiftConnection#getExecutorService()
+		 */
+		public AbstractConnectionBuilder executorService(ExecutorService executorService) {
+			this.executorService = executorService;
+			return this;
+		}
+
+		/**
+		 * Makes the connection run its asynchronous operations in an executor
+		 * that is shared among all connections that are built this way.
+		 * 
+		 * @return this builder
+		 * 
+		 * @see ExecutorServiceUtils#getSharedExecutor()
+		 */
+		public AbstractConnectionBuilder sharedExecutorService() {
+			return executorService(ExecutorServiceUtils.getSharedExecutor());
+		}
+
+		/**
+		 * Makes the connection share the state that is not user specific with
+		 * all the other connections to the same server that are built this
+		 * way: the ssl context, the links of the API root and the catalogs of
+		 * cartridges and quickstarts. Creating many connections (ex. one per
+		 * user token) to the same server is thus a lot cheaper.
+		 * 
+		 * @return this builder
+		 * 
+		 * @see BrokerContext
+		 */
+		public AbstractConnectionBuilder sharedBrokerContext() {
+			this.sharedBrokerContext = true;
+			return this;
+		}
+
+		/**
+		 * Limits the requests that the connection has in flight at the same
+		 * time. The limits adapt to the server: they grow while requests
+		 * succeed and shrink when the server is overloaded (internal server
+		 * errors, timeouts). Requests that exceed the limit wait for the
+		 * others to complete, the time they wait counts toward their timeout.
+		 * 
+		 * @return this builder
+		 * 
+		 * @see ConcurrencyLimiter#createReadLimiter(String)
+		 * @see ConcurrencyLimiter#createMutationLimiter(String)
+		 */
+		public AbstractConnectionBuilder limitConcurrentRequests() {
+			this.defaultConcurrencyLimits = true;
+			this.readLimiter = null;
+			this.mutationLimiter = null;
+			return this;
+		}
+
+		/**
+		 * Limits the requests that the connection has in flight at the same
+		 * time with the given limiters. Limiters may be shared among
+		 * connections to the same server so that they share their limits. A
+		 * kind of requests whose limiter is <code>null</code> is not limited.
+		 * 
+		 * @param readLimiter
+		 *            the limiter for reads (GET, HEAD)
+		 * @param mutationLimiter
+		 *            the limiter for mutations (POST, PUT, PATCH, DELETE)
+		 * @return this builder
+		 */
+		public AbstractConnectionBuilder limitConcurrentRequests(ConcurrencyLimiter readLimiter,
+				ConcurrencyLimiter mutationLimiter) {
+			this.defaultConcurrencyLimits = false;
+			this.readLimiter = readLimiter;
+			this.mutationLimiter = mutationLimiter;
+			return this;
+		}
+
 		public abstract IOpenShiftConnection create();
 
 		protected String createCipherExclusionRegex(ConfigurationOptions option) {
@@ -228,30 +357,74 @@ public class ConnectionBuilder {
 		}
 
 		protected IRestService createRestService(IHttpClient httpClient) {
+			ConcurrencyLimiter readLimiter = this.readLimiter;
+			ConcurrencyLimiter mutationLimiter = this.mutationLimiter;
+			if (defaultConcurrencyLimits) {
+				// own limits per connection
+				readLimiter = ConcurrencyLimiter.createReadLimiter(serverUrl);
+				mutationLimiter = ConcurrencyLimiter.createMutationLimiter(serverUrl);
+			}
 			return new RestService(serverUrl, clientId, new JsonMediaType(),
-					IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), httpClient);
+					IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), httpClient,
+					readLimiter, mutationLimiter);
 		}
 
 		public IHttpClient createHttpClient(final String clientId, final String username, final String password,
 				final String authKey, final String authIV, final String token, final String serverUrl,
 				final int timeout, final ISSLCertificateCallback sslCertificateCallback, String excludeSSLCipherRegex) {
-			return new UrlConnectionHttpClientBuilder()
+			IHttpClient client = new UrlConnectionHttpClientBuilder()
 					.setCredentials(username, password, authKey, authIV, token)
 					.setConfigTimeout(timeout)
 					.setSSLCertificateCallback(sslCertificateCallback)
 					.excludeSSLCipher(excludeSSLCipherRegex)
 					.client();
+			BrokerContext brokerContext = getBrokerContext();
+			if (brokerContext != null
+					&& client instanceof UrlConnectionHttpClient) {
+				brokerContext.shareSSLSocketFactory(
+						(UrlConnectionHttpClient) client, sslCertificateCallback, excludeSSLCipherRegex);
+			}
+			return client;
+		}
+
+		protected BrokerContext getBrokerContext() {
+			if (!sharedBrokerContext) {
+				return null;
+			}
+			return BrokerContext.get(serverUrl);
+		}
+
+		protected CatalogCache createCatalogCache(IRestService service) {
+			if (!catalogCache) {
+				return null;
+			}
+			if (catalogCacheDirectory == null) {
+				return new CatalogCache(service.getPlatformUrl(), IRestService.SERVICE_VERSION);
+			}
+			return new CatalogCache(catalogCacheDirectory, service.getPlatformUrl(), IRestService.SERVICE_VERSION);
 		}
 
 		@SuppressWarnings("unchecked")
 		protected APIResource getAPIResource(String username, String password, String token, IRestService service) {
-			RestResponse response =
-					(RestResponse) service.request(
-							new Link("Get API", "/api", HttpMethod.GET),
-							IHttpClient.NO_TIMEOUT,
-							Collections.<Parameter> emptyList(),
-							Collections.<Parameter> emptyList());
-			return new APIResource(username, password, token, service, (Map<String, Link>) response.getData()) {};
+			BrokerContext brokerContext = getBrokerContext();
+			Map<String, Link> links = null;
+			if (brokerContext != null) {
+				links = brokerContext.getApiLinks();
+			}
+			if (links == null) {
+				RestResponse response =
+						(RestResponse) service.request(
+								new Link("Get API", "/api", HttpMethod.GET),
+								IHttpClient.NO_TIMEOUT,
+								Collections.<Parameter> emptyList(),
+								Collections.<Parameter> emptyList());
+				links = (Map<String, Link>) response.getData();
+				if (brokerContext != null) {
+					brokerContext.setApiLinks(links);
+				}
+			}
+			return new APIResource(username, password, token, service, links,
+					createCatalogCache(service), executorService, brokerContext) {};
 		}
 	}
 }
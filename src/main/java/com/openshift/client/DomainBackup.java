@@ -0,0 +1,397 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import org.jboss.dmr.ModelNode;
+
+import com.openshift.client.BackupReport.Snapshot;
+import com.openshift.client.BulkOperationReport.Result;
+import com.openshift.client.BulkOperationReport.Status;
+import com.openshift.client.utils.SnapshotFileUtils;
+import com.openshift.internal.client.ApplicationSSHSession;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.RateLimitedInputStream;
+import com.openshift.internal.client.utils.RateLimiter;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * Backs up the applications of a domain by saving a full snapshot of each
+ * one to a target directory. The snapshots are transferred in parallel with a
+ * bounded number of concurrent transfers and an optional cap on their total
+ * bandwidth, over ssh sessions that are leased from the given pool. Failed
+ * snapshots are retried. A manifest (<code>manifest.json</code>) lists all
+ * snapshots with their sizes, durations and SHA-256 checksums:
+ * 
+ * <pre>
+ * BackupReport report = new DomainBackup(connection, pool)
+ * 		.concurrency(8)
+ * 		.bandwidth(10 * 1024 * 1024)
+ * 		.backup(domain, new File("/backups/2014-06-01"));
+ * </pre>
+ * 
+ * @author agent
+ * 
+ * @see BackupReport
+ * @see BulkOperations
+ */
+public class DomainBackup {
+
+	/** the default number of snapshots that are transferred concurrently */
+	public static final int DEFAULT_CONCURRENCY = 4;
+	/** the default time in milliseconds that the snapshot of an application may take */
+	public static final long DEFAULT_TIMEOUT = 2 * 60 * 60 * 1000;
+	/** the default number of times that a failed snapshot is retried */
+	public static final int DEFAULT_RETRIES = 2;
+	/** the default time in milliseconds to wait before a failed snapshot is retried */
+	public static final long DEFAULT_RETRY_DELAY = 10 * 1000;
+	/** the name of the manifest file in the target directory */
+	public static final String MANIFEST_FILE_NAME = "manifest.json";
+	/** the suffix of the snapshot files */
+	public static final String SNAPSHOT_FILE_SUFFIX = ".tar.gz";
+
+	private static final String NAME_DELIMITER = "-";
+
+	private final ExecutorService executor;
+	private final SSHSessionPool pool;
+	private int concurrency = DEFAULT_CONCURRENCY;
+	private long timeout = DEFAULT_TIMEOUT;
+	private int retries = DEFAULT_RETRIES;
+	private long retryDelay = DEFAULT_RETRY_DELAY;
+	private RateLimiter bandwidth;
+	private IBulkOperationListener listener;
+
+	/**
+	 * Creates a backup that runs in the executor of the given connection.
+	 * 
+	 * @param connection
+	 *            the connection whose executor shall be used
+	 * @param pool
+	 *            the pool to lease the ssh sessions from
+	 * 
+	 * @see IOpenShiftConnection#getExecutorService()
+	 */
+	public DomainBackup(IOpenShiftConnection connection, SSHSessionPool pool) {
+		this(connection.getExecutorService(), pool);
+	}
+
+	public DomainBackup(ExecutorService executor, SSHSessionPool pool) {
+		Assert.notNull(executor);
+		Assert.notNull(pool);
+
+		this.executor = executor;
+		this.pool = pool;
+	}
+
+	/**
+	 * Sets the maximum number of snapshots that are transferred at the same
+	 * time.
+	 * 
+	 * @param concurrency
+	 *            the maximum number of concurrent transfers
+	 * @return this backup
+	 */
+	public DomainBackup concurrency(int concurrency) {
+		Assert.isTrue(concurrency > 0);
+
+		this.concurrency = concurrency;
+		return this;
+	}
+
+	/**
+	 * Sets the time that the snapshot of a single application may take at
+	 * most (retries included).
+	 * 
+	 * @param timeout
+	 *            the timeout in milliseconds
+	 * @return this backup
+	 */
+	public DomainBackup timeout(long timeout) {
+		Assert.isTrue(timeout > 0);
+
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Caps the total bandwidth of all concurrent transfers.
+	 * 
+	 * @param bytesPerSecond
+	 *            the maximum number of bytes per second
+	 * @return this backup
+	 */
+	public DomainBackup bandwidth(long bytesPerSecond) {
+		this.bandwidth = new RateLimiter(bytesPerSecond);
+		return this;
+	}
+
+	/**
+	 * Sets how many times and after which delay a failed snapshot is
+	 * retried.
+	 * 
+	 * @param retries
+	 *            the number of retries, 0 for none
+	 * @param retryDelay
+	 *            the time in milliseconds to wait before retrying
+	 * @return this backup
+	 */
+	public DomainBackup retries(int retries, long retryDelay) {
+		Assert.isTrue(retries >= 0);
+		Assert.isTrue(retryDelay >= 0);
+
+		this.retries = retries;
+		this.retryDelay = retryDelay;
+		return this;
+	}
+
+	/**
+	 * Sets the listener that gets notified each time the snapshot of an
+	 * application completed.
+	 * 
+	 * @param listener
+	 *            the listener to notify
+	 * @return this backup
+	 */
+	public DomainBackup listener(IBulkOperationListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * Backs up all applications of the given domain to the given directory.
+	 * 
+	 * @param domain
+	 *            the domain to back up
+	 * @param directory
+	 *            the directory to save the snapshots to
+	 * @return the report with a snapshot per application
+	 * @throws OpenShiftException
+	 *             if the applications could not be loaded or the manifest
+	 *             could not be written
+	 */
+	public BackupReport backup(IDomain domain, File directory) throws OpenShiftException {
+		return backup(domain.getApplications(), directory);
+	}
+
+	/**
+	 * Backs up the applications of the given domain that the given filter
+	 * accepts.
+	 * 
+	 * @param domain
+	 *            the domain to back up
+	 * @param filter
+	 *            the filter that selects the applications to back up
+	 * @param directory
+	 *            the directory to save the snapshots to
+	 * @return the report with a snapshot per selected application
+	 * @throws OpenShiftException
+	 *             if the applications could not be loaded or the manifest
+	 *             could not be written
+	 */
+	public BackupReport backup(IDomain domain, IApplicationFilter filter, File directory) throws OpenShiftException {
+		Assert.notNull(filter);
+
+		List<IApplication> applications = new ArrayList<IApplication>();
+		for (IApplication application : domain.getApplications()) {
+			if (filter.accept(application)) {
+				applications.add(application);
+			}
+		}
+		return backup(applications, directory);
+	}
+
+	/**
+	 * Backs up the given applications to the given directory and blocks until
+	 * all snapshots succeeded, failed or timed out. The snapshots are named
+	 * after the application and its domain (ex.
+	 * <code>springeap6-foobarz.tar.gz</code>), a checksum file is stored next
+	 * to each one.
+	 * 
+	 * @param applications
+	 *            the applications to back up
+	 * @param directory
+	 *            the directory to save the snapshots to
+	 * @return the report with a snapshot per application
+	 * @throws OpenShiftException
+	 *             if the directory could not be created or the manifest could
+	 *             not be written
+	 * 
+	 * @see SnapshotFileUtils#save(InputStream, File, IProgressListener)
+	 */
+	public BackupReport backup(Collection<? extends IApplication> applications, File directory)
+			throws OpenShiftException {
+		Assert.notNull(applications);
+		Assert.notNull(directory);
+
+		if (!directory.isDirectory()
+				&& !directory.mkdirs()) {
+			throw new OpenShiftException("Could not create backup directory {0}", directory.getAbsolutePath());
+		}
+		SnapshotOperation operation = new SnapshotOperation(directory);
+		BulkOperationReport bulkReport = new BulkOperations(executor, concurrency, timeout)
+				.listener(listener)
+				.run(applications, operation);
+		List<Snapshot> snapshots = new ArrayList<Snapshot>();
+		for (Result result : bulkReport.getResults()) {
+			snapshots.add(operation.toSnapshot(result));
+		}
+		File manifest = new File(directory, MANIFEST_FILE_NAME);
+		writeManifest(snapshots, manifest);
+		return new BackupReport(snapshots, manifest);
+	}
+
+	private void writeManifest(List<Snapshot> snapshots, File file) throws OpenShiftException {
+		ModelNode manifest = new ModelNode();
+		manifest.get("created").set(System.currentTimeMillis());
+		ModelNode snapshotsNode = manifest.get("snapshots").setEmptyList();
+		for (Snapshot snapshot : snapshots) {
+			ModelNode node = new ModelNode();
+			IApplication application = snapshot.getApplication();
+			node.get("application").set(application.getName());
+			if (application.getDomain() != null) {
+				node.get("domain").set(application.getDomain().getId());
+			}
+			node.get("status").set(snapshot.getStatus().name());
+			node.get("file").set(snapshot.getFile().getName());
+			node.get("size").set(snapshot.getSize());
+			node.get("duration").set(snapshot.getDuration());
+			node.get("attempts").set(snapshot.getAttempts());
+			if (snapshot.getChecksum() != null) {
+				node.get("sha256").set(snapshot.getChecksum());
+			}
+			if (snapshot.getError() != null) {
+				node.get("error").set(String.valueOf(snapshot.getError().getMessage()));
+			}
+			snapshotsNode.add(node);
+		}
+		Writer writer = null;
+		try {
+			writer = new OutputStreamWriter(new FileOutputStream(file), StreamUtils.UTF_8);
+			writer.write(manifest.toJSONString(false));
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Could not write backup manifest {0}", file.getAbsolutePath());
+		} finally {
+			StreamUtils.quietlyClose(writer);
+		}
+	}
+
+	private static File getSnapshotFile(File directory, IApplication application) {
+		StringBuilder name = new StringBuilder(application.getName());
+		if (application.getDomain() != null) {
+			name.append(NAME_DELIMITER).append(application.getDomain().getId());
+		}
+		return new File(directory, name.append(SNAPSHOT_FILE_SUFFIX).toString());
+	}
+
+	/**
+	 * Saves the snapshot of an application, retries if it fails. Records the
+	 * transfers and attempts for the report.
+	 */
+	private class SnapshotOperation implements IApplicationOperation {
+
+		private final File directory;
+		private final Map<IApplication, Transfer> transfers = new ConcurrentHashMap<IApplication, Transfer>();
+		private final Map<IApplication, Integer> attempts = new ConcurrentHashMap<IApplication, Integer>();
+
+		private SnapshotOperation(File directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		public void execute(IApplication application) throws OpenShiftException {
+			File file = getSnapshotFile(directory, application);
+			for (int attempt = 1;; attempt++) {
+				attempts.put(application, attempt);
+				long start = System.currentTimeMillis();
+				try {
+					String checksum = save(application, file);
+					transfers.put(application, new Transfer(checksum, file.length(), System.currentTimeMillis() - start));
+					return;
+				} catch (OpenShiftCancellationException e) {
+					throw e;
+				} catch (OpenShiftException e) {
+					if (attempt > retries) {
+						throw e;
+					}
+				}
+				waitForRetry(application);
+			}
+		}
+
+		private String save(IApplication application, File file) throws OpenShiftException {
+			InputStream snapshot = new ApplicationSSHSession(application, pool).saveFullSnapshot();
+			if (bandwidth != null) {
+				snapshot = new RateLimitedInputStream(snapshot, bandwidth);
+			}
+			try {
+				return SnapshotFileUtils.save(snapshot, file, null);
+			} catch (IOException e) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw new OpenShiftCancellationException(e,
+							"Snapshot of application {0} was cancelled", application.getName());
+				}
+				throw new OpenShiftSSHOperationException(e,
+						"Could not save snapshot of application {0} to {1}", application.getName(), file);
+			} finally {
+				StreamUtils.quietlyClose(snapshot);
+			}
+		}
+
+		private void waitForRetry(IApplication application) throws OpenShiftCancellationException {
+			try {
+				Thread.sleep(retryDelay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OpenShiftCancellationException(e,
+						"Interrupted while waiting to retry the snapshot of application {0}", application.getName());
+			}
+		}
+
+		private Snapshot toSnapshot(Result result) {
+			IApplication application = result.getApplication();
+			File file = getSnapshotFile(directory, application);
+			Integer attempts = this.attempts.get(application);
+			Transfer transfer = transfers.get(application);
+			if (result.getStatus() != Status.SUCCEEDED
+					|| transfer == null) {
+				return new Snapshot(application, result.getStatus(), file, 0, result.getDuration(), null,
+						attempts == null ? 0 : attempts, result.getError());
+			}
+			return new Snapshot(application, Status.SUCCEEDED, file, transfer.size, transfer.duration,
+					transfer.checksum, attempts, null);
+		}
+	}
+
+	private static class Transfer {
+
+		private final String checksum;
+		private final long size;
+		private final long duration;
+
+		private Transfer(String checksum, long size, long duration) {
+			this.checksum = checksum;
+			this.size = size;
+			this.duration = duration;
+		}
+	}
+}
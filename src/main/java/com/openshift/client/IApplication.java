@@ -32,6 +32,9 @@ import com.openshift.internal.client.ApplicationResource;
  */
 public interface IApplication extends IOpenShiftResource {
 
+	/** gear groups are not cached but loaded on each request */
+	public static final long NO_GEAR_GROUPS_CACHE = 0;
+
 	/**
 	 * Returns the name of this application.
 	 *
@@ -228,14 +231,43 @@ public interface IApplication extends IOpenShiftResource {
 	public void removeEmbeddedCartridges(Collection<IEmbeddableCartridge> cartridges) throws OpenShiftException;
 
 	/**
-	 * Returns the gear groups for this application. The collection is never
-	 * cached, so each call will trigger a request to the OpenShift Broker.
+	 * Returns the gear groups for this application. The collection is not
+	 * cached by default, so each call will trigger a request to the OpenShift
+	 * Broker.
 	 *
 	 * @return the collection of {@link IGearGroup} for this application.
 	 * @throws OpenShiftException
+	 * 
+	 * @see #setGearGroupsMaxAge(long)
 	 */
 	public Collection<IGearGroup> getGearGroups() throws OpenShiftException;
 
+	/**
+	 * Returns the gear with the given id or <code>null</code> if there's none.
+	 * 
+	 * @param id
+	 *            the id of the gear
+	 * @return the gear with the given id
+	 * @throws OpenShiftException
+	 * 
+	 * @see #getGearGroups()
+	 */
+	public IGear getGear(String id) throws OpenShiftException;
+
+	/**
+	 * Enables caching the gear groups of this application. The gear groups are
+	 * then served from cache until they are older than the given maximum age
+	 * or until gears or cartridges are changed via this application (scale
+	 * up/down, add/remove cartridges). Caching is disabled by default or when
+	 * {@link #NO_GEAR_GROUPS_CACHE} is given.
+	 * 
+	 * @param maxAge
+	 *            the maximum age in milliseconds
+	 * 
+	 * @see #getGearGroups()
+	 */
+	public void setGearGroupsMaxAge(long maxAge);
+
 	/**
 	 * Returns the timestamp at which this app was created.
 	 *
@@ -292,6 +324,8 @@ public interface IApplication extends IOpenShiftResource {
 	 * @param timeout
 	 * @return
 	 * @throws OpenShiftException
+	 * @throws OpenShiftCancellationException
+	 *             if the calling thread is interrupted while waiting
 	 *
 	 * @see IApplication#getApplicationUrl()
 	 */
@@ -299,7 +333,9 @@ public interface IApplication extends IOpenShiftResource {
 
 	/**
 	 * Returns a Future that the caller can use to wait for the application to
-	 * become accessible on its public url.
+	 * become accessible on its public url. The wait does not occupy a thread,
+	 * the host of the url is resolved with growing delays by a scheduler that
+	 * is shared among all applications.
 	 *
 	 * @param timeout
 	 * @return
@@ -307,10 +343,27 @@ public interface IApplication extends IOpenShiftResource {
 	 *
 	 * @see IApplication#getApplicationUrl()
 	 * @see IApplication#waitForAccessible(long)
-	 * @see IOpenShiftConnection#getExecutorService()
 	 * @see Future
 	 */
-	public Future<Boolean> waitForAccessibleAsync(final long timeout) throws OpenShiftException;
+	public IOpenShiftFuture<Boolean> waitForAccessibleAsync(final long timeout) throws OpenShiftException;
+
+	/**
+	 * Returns a Future that the caller can use to wait for the application to
+	 * become accessible on its public url. If requested the application is
+	 * only accessible once its url also responds to http requests (with a
+	 * status that is not a server error).
+	 *
+	 * @param timeout
+	 *            the time in milliseconds to wait at most
+	 * @param probeHttp
+	 *            whether the url shall also be requested
+	 * @return the future for the accessibility
+	 * @throws OpenShiftException
+	 *
+	 * @see IApplication#waitForAccessibleAsync(long)
+	 */
+	public IOpenShiftFuture<Boolean> waitForAccessibleAsync(final long timeout, boolean probeHttp)
+			throws OpenShiftException;
 
 	/**
 	 * Get the domain of the application.
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A filter that selects applications (ex. the ones of a domain that shall be
+ * backed up).
+ * 
+ * @author agent
+ * 
+ * @see DomainBackup
+ */
+public interface IApplicationFilter {
+
+	/**
+	 * Returns <code>true</code> if the given application is selected.
+	 * 
+	 * @param application
+	 *            the application to check
+	 * @return true if the application is selected
+	 */
+	public boolean accept(IApplication application);
+
+}
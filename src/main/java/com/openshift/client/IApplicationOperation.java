@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * An operation that can be run on many applications at once.
+ * 
+ * @author agent
+ * 
+ * @see BulkOperations
+ */
+public interface IApplicationOperation {
+
+	/**
+	 * Runs this operation on the given application.
+	 * 
+	 * @param application
+	 *            the application to operate on
+	 * @throws OpenShiftException
+	 *             if the operation failed
+	 */
+	public void execute(IApplication application) throws OpenShiftException;
+
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A listener that gets notified of the progress of a bulk operation.
+ * 
+ * @author agent
+ * 
+ * @see BulkOperations
+ */
+public interface IBulkOperationListener {
+
+	/**
+	 * Called (in the thread that runs the bulk operation) each time the
+	 * operation completed on an application.
+	 * 
+	 * @param result
+	 *            the result for the application
+	 * @param completed
+	 *            the number of applications that are completed so far
+	 * @param total
+	 *            the number of applications in the bulk operation
+	 */
+	public void onCompleted(BulkOperationReport.Result result, int completed, int total);
+
+}
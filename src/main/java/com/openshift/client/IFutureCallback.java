@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A callback that gets notified once an asynchronous operation completed.
+ * 
+ * @author agent
+ * 
+ * @see IOpenShiftFuture#addCallback(IFutureCallback)
+ */
+public interface IFutureCallback<V> {
+
+	/**
+	 * Called when the operation completed successfully.
+	 * 
+	 * @param result
+	 *            the result of the operation
+	 */
+	public void onSuccess(V result);
+
+	/**
+	 * Called when the operation failed or was cancelled.
+	 * 
+	 * @param e
+	 *            the error that occurred, a
+	 *            {@link java.util.concurrent.CancellationException} if the
+	 *            operation was cancelled
+	 */
+	public void onFailure(Throwable e);
+
+}
@@ -17,6 +17,7 @@ import java.util.concurrent.Executors;
 import com.openshift.client.cartridge.ICartridge;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
 import com.openshift.client.cartridge.IStandaloneCartridge;
+import com.openshift.internal.client.QuickstartIndex;
 
 /**
  * @author Xavier Coulon
@@ -91,7 +92,8 @@ public interface IOpenShiftConnection {
 	
 	/**
 	 * Returns all the available cartridges, embeddable and standalone ones.
-	 * Obsolete cartridges are not reported.
+	 * Obsolete cartridges are not reported. The returned list is
+	 * unmodifiable.
 	 * 
 	 * @return the all the available cartridges
 	 * @throws OpenShiftException
@@ -100,6 +102,8 @@ public interface IOpenShiftConnection {
 
 	/**
 	 * Returns all the available cartridges, embeddable and standalone ones.
+	 * The returned list is unmodifiable, it is the catalog that is shared by
+	 * all callers. Copy it to modify it.
 	 * 
 	 * @param includeObsolete
 	 *            whether to include obsolete cartridges or not.
@@ -118,6 +122,33 @@ public interface IOpenShiftConnection {
 	 */
 	public List<IQuickstart> getQuickstarts() throws OpenShiftException;
 
+	/**
+	 * Returns the index of the available quickstarts which allows to look
+	 * them up by tag, language, provider and suitable cartridge.
+	 * 
+	 * @return the index of the available quickstarts
+	 * @throws OpenShiftException
+	 */
+	public QuickstartIndex getQuickstartIndex() throws OpenShiftException;
+
+	/**
+	 * Watches the domains that are given in the options (or all domains of
+	 * the user) for changes and notifies the given listener. The domains are
+	 * polled in the background with growing delays while nothing changes.
+	 * All watches of a domain share a single poller.
+	 * 
+	 * @param listener
+	 *            the listener to notify of the changes
+	 * @param options
+	 *            the domains to watch and the polling intervals
+	 * @return the watch that can be cancelled
+	 * @throws OpenShiftException
+	 *             if the domains could not be loaded
+	 * 
+	 * @see WatchEvent
+	 */
+	public IWatch watch(IWatchListener listener, WatchOptions options) throws OpenShiftException;
+
 	/**
 	 * Returns the executor service instance that's available in this
 	 * connection.
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.concurrent.Future;
+
+/**
+ * The result of an asynchronous operation that notifies callbacks once it
+ * completes. Callbacks allow to compose operations (ex. start an application
+ * once it was created) without blocking a thread while waiting for the
+ * result.
+ * 
+ * @author agent
+ * 
+ * @see IFutureCallback
+ */
+public interface IOpenShiftFuture<V> extends Future<V> {
+
+	/**
+	 * Adds a callback that gets notified once this future completes. The
+	 * callback is notified in the thread that completes the operation or in
+	 * the calling thread if the operation already completed.
+	 * 
+	 * @param callback
+	 *            the callback to notify
+	 * @return this future
+	 */
+	public IOpenShiftFuture<V> addCallback(IFutureCallback<? super V> callback);
+
+}
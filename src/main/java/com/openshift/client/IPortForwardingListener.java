@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A listener that gets notified when the forwarding of a port changed its
+ * state.
+ * 
+ * @author agent
+ * 
+ * @see PortForwardingManager
+ */
+public interface IPortForwardingListener {
+
+	/**
+	 * Called each time a port was forwarded, when it is first started and when
+	 * it was re-established once the ssh session dropped.
+	 * 
+	 * @param forward
+	 *            the forward that was started
+	 */
+	public void onStarted(PortForwardingManager.Forward forward);
+
+	/**
+	 * Called when a port could not be forwarded. The manager retries to
+	 * forward the port each time it checks the tunnels, it does not notify
+	 * again as long as the retries keep failing.
+	 * 
+	 * @param forward
+	 *            the forward that failed, holds the error
+	 */
+	public void onFailed(PortForwardingManager.Forward forward);
+
+}
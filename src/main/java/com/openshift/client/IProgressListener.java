@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A listener that gets notified of the progress of a transfer (ex. saving a
+ * snapshot to a file).
+ * 
+ * @author agent
+ * 
+ * @see com.openshift.client.utils.SnapshotFileUtils
+ */
+public interface IProgressListener {
+
+	/** the total that is reported if the size of the transfer is not known up front */
+	public static final long UNKNOWN_TOTAL = -1;
+
+	/**
+	 * Called (in the thread that runs the transfer) each time a chunk was
+	 * transferred.
+	 * 
+	 * @param transferred
+	 *            the number of bytes that are transferred so far
+	 * @param total
+	 *            the number of bytes to transfer or {@link #UNKNOWN_TOTAL}
+	 */
+	public void onProgress(long transferred, long total);
+
+}
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Creates the ssh sessions that a {@link SSHSessionPool} hands out. The user's
+ * ssh settings (keys, known hosts, etc.) depend on the runtime environment,
+ * implementors configure the sessions accordingly.
+ * 
+ * @author agent
+ * 
+ * @see JSchSessionFactory
+ */
+public interface ISSHSessionFactory {
+
+	/**
+	 * Creates a session to the given ssh url. The session may be returned
+	 * unconnected, the pool connects it.
+	 * 
+	 * @param sshUrl
+	 *            the ssh url to connect to (ex.
+	 *            <code>ssh://517ff8b9500446729b00008e@springeap6-foobarz.rhcloud.com</code>)
+	 * @return the session to the given url
+	 * @throws JSchException
+	 *             if the session could not be created
+	 */
+	public Session createSession(String sshUrl) throws JSchException;
+}
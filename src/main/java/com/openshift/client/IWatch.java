@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A watch that notifies its listener of the changes in the watched domains
+ * until it is cancelled.
+ * 
+ * @author agent
+ * 
+ * @see IOpenShiftConnection#watch(IWatchListener, WatchOptions)
+ */
+public interface IWatch {
+
+	/**
+	 * Stops this watch. Its listener is not notified of any further changes,
+	 * the polling stops once no other watch needs it.
+	 */
+	public void cancel();
+
+	public boolean isCancelled();
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A listener that gets notified of the changes that a watch detects.
+ * Listeners are notified in the thread that polls the server and should
+ * therefore return quickly.
+ * 
+ * @author agent
+ * 
+ * @see IOpenShiftConnection#watch(IWatchListener, WatchOptions)
+ */
+public interface IWatchListener {
+
+	/**
+	 * Called for each change that was detected.
+	 * 
+	 * @param event
+	 *            the change
+	 */
+	public void onEvent(WatchEvent event);
+
+	/**
+	 * Called if polling the server failed. The watch keeps polling (with
+	 * growing delays).
+	 * 
+	 * @param error
+	 *            the error that polling failed with
+	 */
+	public void onError(Throwable error);
+}
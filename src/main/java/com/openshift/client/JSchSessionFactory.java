@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * Creates the sessions to a given ssh url with a JSch instance that is
+ * configured with the user's identities and known hosts.
+ * 
+ * @author agent
+ */
+public class JSchSessionFactory implements ISSHSessionFactory {
+
+	private static final String SSH_SCHEME = "ssh://";
+	private static final int DEFAULT_SSH_PORT = 22;
+
+	private final JSch jsch;
+
+	public JSchSessionFactory(JSch jsch) {
+		Assert.notNull(jsch);
+
+		this.jsch = jsch;
+	}
+
+	@Override
+	public Session createSession(String sshUrl) throws JSchException {
+		URI uri = toURI(sshUrl);
+		int port = uri.getPort();
+		if (port == -1) {
+			port = DEFAULT_SSH_PORT;
+		}
+		return jsch.getSession(uri.getUserInfo(), uri.getHost(), port);
+	}
+
+	private URI toURI(String sshUrl) throws JSchException {
+		Assert.notNull(sshUrl);
+		try {
+			// gear ssh urls come without scheme (ex. "uuid@host")
+			if (!sshUrl.startsWith(SSH_SCHEME)) {
+				sshUrl = SSH_SCHEME + sshUrl;
+			}
+			URI uri = new URI(sshUrl);
+			if (uri.getUserInfo() == null
+					|| uri.getHost() == null) {
+				throw new JSchException("Ssh url " + sshUrl + " has no user or host");
+			}
+			return uri;
+		} catch (URISyntaxException e) {
+			throw new JSchException("Invalid ssh url " + sshUrl, e);
+		}
+	}
+}
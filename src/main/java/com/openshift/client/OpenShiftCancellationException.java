@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * Thrown if an operation was cancelled (its thread was interrupted) before it
+ * completed. The interrupt status of the thread is kept.
+ * 
+ * @author agent
+ */
+public class OpenShiftCancellationException extends OpenShiftException {
+
+	private static final long serialVersionUID = 1L;
+
+	public OpenShiftCancellationException(Throwable cause, String message, Object... arguments) {
+		super(cause, message, arguments);
+	}
+
+	public OpenShiftCancellationException(String message, Object... arguments) {
+		super(message, arguments);
+	}
+}
@@ -12,6 +12,7 @@ package com.openshift.client;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 import com.openshift.client.IHttpClient.ISSLCertificateCallback;
 import com.openshift.client.configuration.AbstractOpenshiftConfiguration.ConfigurationOptions;
@@ -19,8 +20,10 @@ import com.openshift.client.configuration.IOpenShiftConfiguration;
 import com.openshift.client.configuration.OpenShiftConfiguration;
 import com.openshift.client.utils.SSLUtils;
 import com.openshift.internal.client.AbstractOpenShiftConnectionFactory;
+import com.openshift.internal.client.BrokerContext;
 import com.openshift.internal.client.IRestService;
 import com.openshift.internal.client.RestService;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClient;
 import com.openshift.internal.client.httpclient.UrlConnectionHttpClientBuilder;
 import com.openshift.internal.client.httpclient.request.JsonMediaType;
 import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
@@ -40,6 +43,45 @@ import com.openshift.internal.client.utils.Assert;
 @Deprecated
 public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFactory {
 	private IOpenShiftConfiguration configuration;
+	private ExecutorService executorService;
+	private boolean shareBrokerContext;
+
+	/**
+	 * Sets the executor that the connections that this factory creates shall
+	 * run their asynchronous operations in. The executor is not shut down
+	 * when the connections are disconnected. Connections create their own
+	 * executor if none is set.
+	 * 
+	 * @param executorService
+	 *            the executor to use or <code>null</code>
+	 * 
+	 * @see IOpenShiftConnection#getExecutorService()
+	 */
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Makes the connections that this factory creates share the state that is
+	 * not user specific (ssl context, API root links, cartridges and
+	 * quickstarts) with all other connections to the same server that share
+	 * it.
+	 * 
+	 * @param share
+	 *            whether connections shall share the broker context
+	 * 
+	 * @see BrokerContext
+	 */
+	public void setShareBrokerContext(boolean share) {
+		this.shareBrokerContext = share;
+	}
+
+	private BrokerContext getBrokerContext(String serverUrl) {
+		if (!shareBrokerContext) {
+			return null;
+		}
+		return BrokerContext.get(serverUrl);
+	}
 
 	/**
 	 * Establish a connection with the clientId along with user's password.
@@ -181,12 +223,19 @@ public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFacto
 	protected IHttpClient createClient(final String clientId, final String username, final String password,
 			final String authKey, final String authIV, final String token, final String serverUrl,
 			final ISSLCertificateCallback sslCertificateCallback, String exludeSSLCipherRegex) {
-		return new UrlConnectionHttpClientBuilder()
+		IHttpClient client = new UrlConnectionHttpClientBuilder()
 				.setCredentials(username, password, authKey, authIV, token)
 				.setSSLCertificateCallback(sslCertificateCallback)
 				.setConfigTimeout(getConfiguration().getTimeout())
 				.excludeSSLCipher(exludeSSLCipherRegex)
 				.client();
+		BrokerContext brokerContext = getBrokerContext(serverUrl);
+		if (brokerContext != null
+				&& client instanceof UrlConnectionHttpClient) {
+			brokerContext.shareSSLSocketFactory(
+					(UrlConnectionHttpClient) client, sslCertificateCallback, exludeSSLCipherRegex);
+		}
+		return client;
 	}
 
 	protected IOpenShiftConnection getConnection(final String clientId, final String username, final String password,
@@ -197,7 +246,7 @@ public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFacto
 
 		IRestService service = new RestService(serverUrl, clientId, new JsonMediaType(),
 				IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), httpClient);
-		return getConnection(service, username, password, token);
+		return getConnection(service, username, password, token, executorService, getBrokerContext(serverUrl));
 	}
 
 	/**
@@ -0,0 +1,713 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.openshift.internal.client.ApplicationSSHSession;
+import com.openshift.internal.client.ssh.ApplicationPortForwarding;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.ExecutorServiceUtils;
+
+/**
+ * Forwards the ports of an application to local ports over a pooled ssh
+ * session. Local ports are allocated automatically: the remote port number is
+ * used if it is free locally, any free port otherwise. All ports are started
+ * in parallel. The state of the forwards is kept by the manager, so that
+ * querying it does not hit the ssh session.
+ * <p>
+ * The tunnels are checked periodically. If the ssh session dropped, a new one
+ * is leased and the forwards are re-established on the same local ports.
+ * Ports that failed to start are retried. Failures are reported per port:
+ * 
+ * <pre>
+ * PortForwardingManager manager = new PortForwardingManager(application, pool)
+ * 		.listener(listener);
+ * for (Forward forward : manager.start()) {
+ * 	if (forward.getStatus() == Status.FAILED) {
+ * 		...
+ * 	}
+ * }
+ * ...
+ * manager.close();
+ * </pre>
+ * 
+ * @author agent
+ * 
+ * @see SSHSessionPool
+ * @see IApplicationSSHSession#getForwardablePorts()
+ */
+public class PortForwardingManager implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PortForwardingManager.class);
+
+	/** the default address that the local ports are bound to */
+	public static final String DEFAULT_LOCAL_ADDRESS = "127.0.0.1";
+	/** the default time in milliseconds between 2 checks of the tunnels */
+	public static final long DEFAULT_MONITOR_INTERVAL = 10 * 1000;
+
+	/** the local port that has jsch allocate a free port */
+	private static final int ANY_PORT = 0;
+	private static final int NO_PORT = -1;
+
+	private final IApplication application;
+	private final SSHSessionPool pool;
+	/** the forwards by port key, ports may be reloaded and are thus matched by value */
+	private final Map<String, Forward> forwards = new LinkedHashMap<String, Forward>();
+	private String localAddress = DEFAULT_LOCAL_ADDRESS;
+	private long monitorInterval = DEFAULT_MONITOR_INTERVAL;
+	private IPortForwardingListener listener;
+	private Executor executor;
+	/** serializes starting and checking the ports, which lease and bind without holding the lock on this */
+	private final Object operationLock = new Object();
+	private SSHSessionPool.Lease lease;
+	private ScheduledFuture<?> monitor;
+	private boolean closed;
+	/** incremented each time the ports are stopped */
+	private int generation;
+
+	public PortForwardingManager(IApplication application, SSHSessionPool pool) {
+		Assert.notNull(application);
+		Assert.notNull(pool);
+
+		this.application = application;
+		this.pool = pool;
+	}
+
+	/**
+	 * Sets the address that the local ports are bound to.
+	 * 
+	 * @param localAddress
+	 *            the local address
+	 * @return this manager
+	 */
+	public synchronized PortForwardingManager localAddress(String localAddress) {
+		Assert.notNull(localAddress);
+
+		this.localAddress = localAddress;
+		return this;
+	}
+
+	/**
+	 * Sets the time between 2 checks of the tunnels. The tunnels are not
+	 * monitored if 0 is given.
+	 * 
+	 * @param monitorInterval
+	 *            the time in milliseconds
+	 * @return this manager
+	 */
+	public synchronized PortForwardingManager monitorInterval(long monitorInterval) {
+		Assert.isTrue(monitorInterval >= 0);
+
+		this.monitorInterval = monitorInterval;
+		return this;
+	}
+
+	public synchronized PortForwardingManager listener(IPortForwardingListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * Sets the executor that the ports are started and the tunnels are checked
+	 * in. The executor that is shared among connections is used if none is
+	 * given.
+	 * 
+	 * @param executor
+	 *            the executor to use
+	 * @return this manager
+	 */
+	public synchronized PortForwardingManager executor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Forwards all ports of the application. Ports that are already forwarded
+	 * are kept as they are. Blocks until all ports are started or failed.
+	 * 
+	 * @return the forwards of all ports
+	 * @throws OpenShiftSSHOperationException
+	 *             if the ports could not be listed or no ssh session could be
+	 *             leased
+	 */
+	public List<Forward> start() throws OpenShiftException {
+		return start(loadForwardablePorts());
+	}
+
+	/**
+	 * Lists the ports of the application that may be forwarded. Each call
+	 * returns new port instances.
+	 * 
+	 * @return the ports of the application
+	 * @throws OpenShiftSSHOperationException
+	 *             if the ports could not be listed
+	 */
+	protected List<IApplicationPortForwarding> loadForwardablePorts() throws OpenShiftException {
+		return new ApplicationSSHSession(application, pool).getForwardablePorts();
+	}
+
+	/**
+	 * Forwards the given ports. Ports that are already forwarded are kept as
+	 * they are. Blocks until all ports are started or failed.
+	 * 
+	 * @param ports
+	 *            the ports to forward
+	 * @return the forwards of all ports that this manager forwards
+	 * @throws OpenShiftSSHOperationException
+	 *             if no ssh session could be leased
+	 */
+	public List<Forward> start(Collection<? extends IApplicationPortForwarding> ports)
+			throws OpenShiftException {
+		Assert.notNull(ports);
+
+		synchronized (operationLock) {
+			Pending pending = prepare(ports, null);
+			publish(pending, startAll(pending));
+			synchronized (this) {
+				if (pending.generation == generation) {
+					scheduleMonitor();
+				}
+				return getForwards();
+			}
+		}
+	}
+
+	/**
+	 * Checks the tunnels and re-establishes the ones that are gone. A new ssh
+	 * session is leased if the current one dropped. Ports that failed are
+	 * retried. This is called periodically once ports are forwarded.
+	 */
+	public void check() {
+		synchronized (operationLock) {
+			SSHSessionPool.Lease currentLease;
+			synchronized (this) {
+				if (closed
+						|| forwards.isEmpty()) {
+					return;
+				}
+				currentLease = lease;
+			}
+			Set<String> activeForwards = new HashSet<String>();
+			if (currentLease != null
+					&& currentLease.getSession().isConnected()) {
+				activeForwards = getActiveForwards(currentLease.getSession());
+			} else {
+				LOGGER.debug("Ssh session to application {} dropped, re-establishing port forwarding",
+						application.getName());
+				releaseLease(currentLease);
+			}
+			Pending pending;
+			try {
+				pending = prepare(null, activeForwards);
+			} catch (OpenShiftException e) {
+				if (!isClosed()) {
+					failAll(e);
+				}
+				return;
+			}
+			if (pending != null) {
+				publish(pending, startAll(pending));
+			}
+		}
+	}
+
+	private Set<String> getActiveForwards(Session session) {
+		Set<String> activeForwards = new HashSet<String>();
+		try {
+			for (String forward : session.getPortForwardingL()) {
+				activeForwards.add(forward);
+			}
+		} catch (JSchException e) {
+			LOGGER.warn("Could not list the forwarded ports of application " + application.getName(), e);
+		}
+		return activeForwards;
+	}
+
+	/**
+	 * Leases the session (without holding the lock on this manager) and
+	 * collects the ports that need to be started. The given ports are started
+	 * unless they're started already. All the forwarded ports are checked if
+	 * no ports are given: the ones that failed or are not among the given
+	 * active forwards are restarted.
+	 * 
+	 * @return the ports to start or <code>null</code> if all ports were
+	 *         stopped meanwhile
+	 */
+	private Pending prepare(Collection<? extends IApplicationPortForwarding> ports, Set<String> activeForwards)
+			throws OpenShiftException {
+		while (true) {
+			Session session = getSession();
+			synchronized (this) {
+				assertNotClosed();
+				if (lease == null
+						|| lease.getSession() != session) {
+					// stopped while leasing
+					continue;
+				}
+				Collection<? extends IApplicationPortForwarding> candidates = ports;
+				if (candidates == null) {
+					if (forwards.isEmpty()) {
+						// stopped while leasing
+						releaseLease();
+						return null;
+					}
+					candidates = getPorts();
+				}
+				Pending pending = new Pending(session, generation, localAddress);
+				for (IApplicationPortForwarding port : candidates) {
+					Forward forward = forwards.get(getKey(port));
+					if (forward == null) {
+						pending.add(port, NO_PORT);
+					} else if (forward.getStatus() != Forward.Status.STARTED
+							|| (activeForwards != null
+							&& !activeForwards.contains(forward.getKey()))) {
+						pending.add(port, forward.getLocalPort());
+					}
+				}
+				return pending;
+			}
+		}
+	}
+
+	private List<IApplicationPortForwarding> getPorts() {
+		List<IApplicationPortForwarding> ports = new ArrayList<IApplicationPortForwarding>();
+		for (Forward forward : forwards.values()) {
+			ports.add(forward.getPort());
+		}
+		return ports;
+	}
+
+	private void failAll(OpenShiftException e) {
+		List<Forward> failed = new ArrayList<Forward>();
+		IPortForwardingListener listener;
+		synchronized (this) {
+			for (Forward forward : new ArrayList<Forward>(forwards.values())) {
+				Forward update = new Forward(forward.getPort(), localAddress, forward.getLocalPort(),
+						Forward.Status.FAILED, e);
+				if (update(update)) {
+					failed.add(update);
+				}
+			}
+			listener = this.listener;
+		}
+		notify(listener, failed);
+	}
+
+	/**
+	 * Starts the pending ports in parallel. A port that is not started by the
+	 * executor by the time its result is due is started in this thread.
+	 */
+	private List<Forward> startAll(final Pending pending) {
+		List<FutureTask<Forward>> starts = new ArrayList<FutureTask<Forward>>();
+		for (int i = 0; i < pending.ports.size(); i++) {
+			final IApplicationPortForwarding port = pending.ports.get(i);
+			final int previousLocalPort = pending.previousLocalPorts.get(i);
+			FutureTask<Forward> start = new FutureTask<Forward>(new Callable<Forward>() {
+
+				@Override
+				public Forward call() {
+					return startForward(port, pending.localAddress, previousLocalPort, pending.session);
+				}
+			});
+			starts.add(start);
+			try {
+				getExecutor().execute(start);
+			} catch (RejectedExecutionException e) {
+				// started in this thread once it's due
+			}
+		}
+		List<Forward> started = new ArrayList<Forward>(starts.size());
+		for (FutureTask<Forward> start : starts) {
+			start.run();
+			try {
+				started.add(start.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OpenShiftCancellationException(e,
+						"Interrupted while forwarding the ports of application {0}", application.getName());
+			} catch (ExecutionException e) {
+				// startForward does not throw
+				throw new OpenShiftException(e.getCause(), "Could not forward the ports of application {0}",
+						application.getName());
+			}
+		}
+		return started;
+	}
+
+	/**
+	 * Forwards the given port. A port that was forwarded before is
+	 * re-established on the same local port. A new port is forwarded to the
+	 * same port number locally if it's free, to any free port otherwise.
+	 */
+	private static Forward startForward(IApplicationPortForwarding port, String localAddress, int previousLocalPort,
+			Session session) {
+		int localPort = previousLocalPort == NO_PORT ? port.getRemotePort() : previousLocalPort;
+		try {
+			return started(port, localAddress, bind(port, localAddress, localPort, session));
+		} catch (JSchException e) {
+			if (previousLocalPort != NO_PORT) {
+				return new Forward(port, localAddress, previousLocalPort, Forward.Status.FAILED, e);
+			}
+		}
+		try {
+			return started(port, localAddress, bind(port, localAddress, ANY_PORT, session));
+		} catch (JSchException e) {
+			return new Forward(port, localAddress, NO_PORT, Forward.Status.FAILED, e);
+		}
+	}
+
+	private static int bind(IApplicationPortForwarding port, String localAddress, int localPort, Session session)
+			throws JSchException {
+		return session.setPortForwardingL(localAddress, localPort, port.getRemoteAddress(), port.getRemotePort());
+	}
+
+	private static Forward started(IApplicationPortForwarding port, String localAddress, int localPort) {
+		port.setLocalAddress(localAddress);
+		port.setLocalPort(localPort);
+		return new Forward(port, localAddress, localPort, Forward.Status.STARTED, null);
+	}
+
+	/**
+	 * Publishes the given forwards and notifies the listener of the changes.
+	 * Forwards that were started while the ports were stopped are stopped
+	 * again.
+	 */
+	private void publish(Pending pending, List<Forward> started) {
+		boolean stopped;
+		List<Forward> changed = new ArrayList<Forward>();
+		IPortForwardingListener listener;
+		synchronized (this) {
+			stopped = pending.generation != generation;
+			if (!stopped) {
+				for (Forward forward : started) {
+					if (update(forward)) {
+						changed.add(forward);
+					}
+				}
+			}
+			listener = this.listener;
+		}
+		if (stopped) {
+			stopForwards(pending.session, started);
+			return;
+		}
+		notify(listener, changed);
+	}
+
+	/**
+	 * Sets the given forward and returns <code>true</code> if the listener
+	 * should be notified. Failures are reported only once until the port was
+	 * started again.
+	 */
+	private boolean update(Forward forward) {
+		Forward previous = forwards.put(getKey(forward.getPort()), forward);
+		return previous == null
+				|| previous.getStatus() != forward.getStatus()
+				|| forward.getStatus() != Forward.Status.FAILED;
+	}
+
+	private void notify(IPortForwardingListener listener, List<Forward> forwards) {
+		if (listener == null) {
+			return;
+		}
+		for (Forward forward : forwards) {
+			if (forward.getStatus() == Forward.Status.STARTED) {
+				listener.onStarted(forward);
+			} else if (forward.getStatus() == Forward.Status.FAILED) {
+				listener.onFailed(forward);
+			}
+		}
+	}
+
+	private void stopForwards(Session session, Collection<Forward> forwards) {
+		for (Forward forward : forwards) {
+			if (forward.getStatus() == Forward.Status.STARTED) {
+				try {
+					session.delPortForwardingL(forward.getLocalAddress(), forward.getLocalPort());
+				} catch (JSchException e) {
+					LOGGER.warn("Could not stop port forwarding " + forward, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops forwarding all ports and hands the ssh session back to the pool.
+	 * The ports may be started again.
+	 */
+	public synchronized void stop() {
+		// ports that are being started are stopped once they're started
+		this.generation++;
+		cancelMonitor();
+		if (lease != null
+				&& lease.getSession().isConnected()) {
+			stopForwards(lease.getSession(), forwards.values());
+		}
+		forwards.clear();
+		releaseLease();
+	}
+
+	/**
+	 * Stops forwarding all ports. This manager cannot be started again.
+	 */
+	@Override
+	public synchronized void close() {
+		stop();
+		this.closed = true;
+	}
+
+	/**
+	 * Returns the forwards of the ports that this manager forwards, as they
+	 * were when last started or checked.
+	 * 
+	 * @return the forwards
+	 */
+	public synchronized List<Forward> getForwards() {
+		return new ArrayList<Forward>(forwards.values());
+	}
+
+	/**
+	 * Returns the forward of the given port or <code>null</code> if this
+	 * manager does not forward it.
+	 * 
+	 * @param port
+	 *            the port to get the forward of
+	 * @return the forward of the given port
+	 */
+	public synchronized Forward getForward(IApplicationPortForwarding port) {
+		return forwards.get(getKey(port));
+	}
+
+	/**
+	 * Returns <code>true</code> if the given port is forwarded. The state
+	 * that was known when the ports were last started or checked is returned,
+	 * the ssh session is not queried.
+	 * 
+	 * @param port
+	 *            the port to check
+	 * @return true if the port is forwarded
+	 */
+	public synchronized boolean isStarted(IApplicationPortForwarding port) {
+		Forward forward = forwards.get(getKey(port));
+		return forward != null
+				&& forward.getStatus() == Forward.Status.STARTED;
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Returns the key that identifies the given port. Ports with the same
+	 * name and remote address and port are the same port.
+	 */
+	private static String getKey(IApplicationPortForwarding port) {
+		return port.getName() + "@" + port.getRemoteAddress() + ":" + port.getRemotePort();
+	}
+
+	/**
+	 * Returns the session of the current lease. A new session is leased
+	 * without holding the lock on this manager if there's none.
+	 */
+	private Session getSession() throws OpenShiftException {
+		synchronized (this) {
+			assertNotClosed();
+			if (lease != null) {
+				return lease.getSession();
+			}
+		}
+		// may block until a session is free and connected
+		SSHSessionPool.Lease newLease = pool.lease(application);
+		synchronized (this) {
+			if (closed
+					|| lease != null) {
+				newLease.close();
+				assertNotClosed();
+				return lease.getSession();
+			}
+			this.lease = newLease;
+			return newLease.getSession();
+		}
+	}
+
+	private synchronized void releaseLease(SSHSessionPool.Lease lease) {
+		if (lease != null
+				&& this.lease == lease) {
+			releaseLease();
+		}
+	}
+
+	private synchronized void releaseLease() {
+		if (lease != null) {
+			lease.close();
+			this.lease = null;
+		}
+	}
+
+	private Executor getExecutor() {
+		if (executor == null) {
+			return ExecutorServiceUtils.getSharedExecutor();
+		}
+		return executor;
+	}
+
+	private void scheduleMonitor() {
+		if (monitor != null
+				|| monitorInterval == 0) {
+			return;
+		}
+		this.monitor = ExecutorServiceUtils.getSharedScheduler().scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				// reconnecting may block, keep the shared scheduler free
+				getExecutor().execute(new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							check();
+						} catch (RuntimeException e) {
+							LOGGER.warn("Could not check the forwarded ports of application " + application.getName(), e);
+						}
+					}
+				});
+			}
+		}, monitorInterval, monitorInterval, TimeUnit.MILLISECONDS);
+	}
+
+	private void cancelMonitor() {
+		if (monitor != null) {
+			monitor.cancel(false);
+			this.monitor = null;
+		}
+	}
+
+	private void assertNotClosed() {
+		if (closed) {
+			throw new OpenShiftException("Port forwarding manager for application {0} is closed",
+					application.getName());
+		}
+	}
+
+	/**
+	 * The ports to start and the state that they're started with.
+	 */
+	private static class Pending {
+
+		private final Session session;
+		private final int generation;
+		private final String localAddress;
+		private final List<IApplicationPortForwarding> ports = new ArrayList<IApplicationPortForwarding>();
+		private final List<Integer> previousLocalPorts = new ArrayList<Integer>();
+
+		private Pending(Session session, int generation, String localAddress) {
+			this.session = session;
+			this.generation = generation;
+			this.localAddress = localAddress;
+		}
+
+		private void add(IApplicationPortForwarding port, int previousLocalPort) {
+			ports.add(port);
+			previousLocalPorts.add(previousLocalPort);
+		}
+	}
+
+	/**
+	 * The (immutable) state of the forwarding of a port.
+	 */
+	public static class Forward {
+
+		public enum Status {
+			STARTED, FAILED
+		}
+
+		private final IApplicationPortForwarding port;
+		private final String localAddress;
+		private final int localPort;
+		private final Status status;
+		private final Throwable error;
+
+		Forward(IApplicationPortForwarding port, String localAddress, int localPort, Status status, Throwable error) {
+			this.port = port;
+			this.localAddress = localAddress;
+			this.localPort = localPort;
+			this.status = status;
+			this.error = error;
+		}
+
+		public IApplicationPortForwarding getPort() {
+			return port;
+		}
+
+		public String getLocalAddress() {
+			return localAddress;
+		}
+
+		/**
+		 * Returns the local port that the remote port is forwarded to, -1 if
+		 * it was never forwarded.
+		 * 
+		 * @return the local port
+		 */
+		public int getLocalPort() {
+			return localPort;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * Returns the error that the port failed with or <code>null</code> if
+		 * it did not fail.
+		 * 
+		 * @return the error
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		private String getKey() {
+			return ApplicationPortForwarding.getKey(localPort, port.getRemoteAddress(), port.getRemotePort());
+		}
+
+		@Override
+		public String toString() {
+			return "Forward ["
+					+ "name=" + port.getName()
+					+ ", local=" + localAddress + ":" + localPort
+					+ ", remote=" + port.getRemoteAddress() + ":" + port.getRemotePort()
+					+ ", status=" + status
+					+ "]";
+		}
+	}
+}
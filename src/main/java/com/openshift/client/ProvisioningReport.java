@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcomes of provisioning a batch of applications, one outcome per
+ * application specification in the order in which they were given.
+ * 
+ * @author agent
+ * 
+ * @see ApplicationProvisioner
+ */
+public class ProvisioningReport {
+
+	public enum Status {
+		/** created and accessible on its public url */
+		READY,
+		/** created, readiness was not waited for */
+		CREATED,
+		/** created but not accessible within the readiness timeout */
+		NOT_READY,
+		/** could not be created */
+		FAILED,
+		/** not created since there were not enough gears left */
+		QUOTA_EXCEEDED
+	}
+
+	private final int availableGears;
+	private final List<Outcome> outcomes;
+
+	ProvisioningReport(int availableGears, List<Outcome> outcomes) {
+		this.availableGears = availableGears;
+		this.outcomes = Collections.unmodifiableList(outcomes);
+	}
+
+	/**
+	 * Returns the number of gears that were available before provisioning.
+	 * 
+	 * @return the available gears
+	 */
+	public int getAvailableGears() {
+		return availableGears;
+	}
+
+	public List<Outcome> getOutcomes() {
+		return outcomes;
+	}
+
+	/**
+	 * Returns the outcome for the application with the given name or
+	 * <code>null</code> if it was not part of the batch.
+	 * 
+	 * @param name
+	 *            the name of the application
+	 * @return the outcome for the given application
+	 */
+	public Outcome getOutcome(String name) {
+		for (Outcome outcome : outcomes) {
+			if (outcome.getSpec().getName().equals(name)) {
+				return outcome;
+			}
+		}
+		return null;
+	}
+
+	public List<Outcome> getOutcomes(Status status) {
+		List<Outcome> outcomes = new ArrayList<Outcome>();
+		for (Outcome outcome : this.outcomes) {
+			if (outcome.getStatus() == status) {
+				outcomes.add(outcome);
+			}
+		}
+		return outcomes;
+	}
+
+	/**
+	 * Returns <code>true</code> if all applications were created and none of
+	 * them failed to become ready.
+	 * 
+	 * @return true if all applications were provisioned
+	 */
+	public boolean isSuccessful() {
+		for (Outcome outcome : outcomes) {
+			if (outcome.getStatus() != Status.READY
+					&& outcome.getStatus() != Status.CREATED) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "ProvisioningReport ["
+				+ "availableGears=" + availableGears
+				+ ", ready=" + getOutcomes(Status.READY).size()
+				+ ", created=" + getOutcomes(Status.CREATED).size()
+				+ ", notReady=" + getOutcomes(Status.NOT_READY).size()
+				+ ", failed=" + getOutcomes(Status.FAILED).size()
+				+ ", quotaExceeded=" + getOutcomes(Status.QUOTA_EXCEEDED).size()
+				+ "]";
+	}
+
+	/**
+	 * The outcome of provisioning a single application.
+	 */
+	public static class Outcome {
+
+		private final ApplicationSpec spec;
+		private final IApplication application;
+		private final Status status;
+		private final Throwable error;
+		private final long creationDuration;
+		private final long readinessDuration;
+
+		Outcome(ApplicationSpec spec, IApplication application, Status status, Throwable error,
+				long creationDuration, long readinessDuration) {
+			this.spec = spec;
+			this.application = application;
+			this.status = status;
+			this.error = error;
+			this.creationDuration = creationDuration;
+			this.readinessDuration = readinessDuration;
+		}
+
+		public ApplicationSpec getSpec() {
+			return spec;
+		}
+
+		/**
+		 * Returns the application that was created or <code>null</code> if
+		 * it was not created.
+		 * 
+		 * @return the application
+		 */
+		public IApplication getApplication() {
+			return application;
+		}
+
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * Returns the error that creating or waiting for the application
+		 * failed with or <code>null</code> if there was none.
+		 * 
+		 * @return the error
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		/**
+		 * Returns the time in milliseconds that creating the application
+		 * took.
+		 * 
+		 * @return the creation duration
+		 */
+		public long getCreationDuration() {
+			return creationDuration;
+		}
+
+		/**
+		 * Returns the time in milliseconds that the application took to
+		 * become accessible once it was created (or until the wait was
+		 * given up).
+		 * 
+		 * @return the readiness duration
+		 */
+		public long getReadinessDuration() {
+			return readinessDuration;
+		}
+
+		@Override
+		public String toString() {
+			return "Outcome ["
+					+ "application=" + spec.getName()
+					+ ", status=" + status
+					+ ", error=" + (error == null ? null : error.getMessage())
+					+ ", creationDuration=" + creationDuration
+					+ ", readinessDuration=" + readinessDuration
+					+ "]";
+		}
+	}
+}
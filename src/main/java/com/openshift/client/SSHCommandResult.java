@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * The outcome of a remote command that was run over ssh: its standard output,
+ * its error output and its exit status.
+ * 
+ * @author agent
+ * 
+ * @see com.openshift.internal.client.ApplicationSSHSession#runCommand(String)
+ */
+public class SSHCommandResult {
+
+	/** the exit status if the command did not report any (ex. the session was dropped) */
+	public static final int NO_EXIT_STATUS = -1;
+
+	private final String command;
+	private final String output;
+	private final String errorOutput;
+	private final int exitStatus;
+
+	public SSHCommandResult(String command, String output, String errorOutput, int exitStatus) {
+		this.command = command;
+		this.output = output;
+		this.errorOutput = errorOutput;
+		this.exitStatus = exitStatus;
+	}
+
+	public String getCommand() {
+		return command;
+	}
+
+	/**
+	 * Returns what the command wrote to its standard output.
+	 * 
+	 * @return the standard output
+	 */
+	public String getOutput() {
+		return output;
+	}
+
+	/**
+	 * Returns what the command wrote to its standard error.
+	 * 
+	 * @return the error output
+	 */
+	public String getErrorOutput() {
+		return errorOutput;
+	}
+
+	public int getExitStatus() {
+		return exitStatus;
+	}
+
+	/**
+	 * Returns <code>true</code> if the command exited with status 0.
+	 * 
+	 * @return true if the command succeeded
+	 */
+	public boolean isSuccessful() {
+		return exitStatus == 0;
+	}
+
+	@Override
+	public String toString() {
+		return "SSHCommandResult ["
+				+ "command=" + command
+				+ ", exitStatus=" + exitStatus
+				+ "]";
+	}
+}
@@ -0,0 +1,443 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.ExecutorServiceUtils;
+
+/**
+ * A pool of ssh sessions keyed by ssh url (of an application or a gear). A
+ * session multiplexes its channels, the pool therefore keeps a single session
+ * per url which is shared by all its leases. Sessions are connected on first
+ * lease, kept alive while they're pooled and reconnected transparently if
+ * they were dropped. Sessions that were not leased for a given time are
+ * disconnected and removed from the pool. The pool holds at most a given
+ * number of sessions, leasing a new one evicts the least recently used idle
+ * session or waits for one to become idle:
+ * 
+ * <pre>
+ * SSHSessionPool pool = new SSHSessionPool(new JSchSessionFactory(jsch));
+ * SSHSessionPool.Lease lease = pool.lease(application);
+ * try {
+ * 	ChannelExec channel = (ChannelExec) lease.getSession().openChannel("exec");
+ * 	...
+ * } finally {
+ * 	lease.close();
+ * }
+ * </pre>
+ * 
+ * @author agent
+ * 
+ * @see ISSHSessionFactory
+ * @see com.openshift.internal.client.ApplicationSSHSession
+ */
+public class SSHSessionPool {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SSHSessionPool.class);
+
+	/** the default maximum number of sessions in the pool */
+	public static final int DEFAULT_MAX_SESSIONS = 8;
+	/** the default time in milliseconds after which unleased sessions are disconnected */
+	public static final long DEFAULT_IDLE_TIMEOUT = 5 * 60 * 1000;
+	/** the default interval in milliseconds in which keep-alives are sent to idle sessions */
+	public static final long DEFAULT_KEEP_ALIVE_INTERVAL = 30 * 1000;
+	/** the default time in milliseconds to wait for a session if the pool is full */
+	public static final long DEFAULT_LEASE_TIMEOUT = 60 * 1000;
+
+	private static final int CONNECT_TIMEOUT = 10 * 60 * 1000;
+	/** the number of unanswered keep-alives after which a session is dropped */
+	private static final int KEEP_ALIVE_COUNT_MAX = 3;
+
+	private final ISSHSessionFactory factory;
+	private final int maxSessions;
+	private final long idleTimeout;
+	private final long keepAliveInterval;
+	private final long leaseTimeout;
+	private final Map<String, PooledSession> sessions = new HashMap<String, PooledSession>();
+	private final ScheduledFuture<?> evictor;
+	private boolean closed;
+
+	public SSHSessionPool(ISSHSessionFactory factory) {
+		this(factory, DEFAULT_MAX_SESSIONS, DEFAULT_IDLE_TIMEOUT, DEFAULT_KEEP_ALIVE_INTERVAL, DEFAULT_LEASE_TIMEOUT);
+	}
+
+	/**
+	 * Creates a pool that evicts its idle sessions periodically. The (shared)
+	 * scheduler times the evictions, they run in the shared executor.
+	 * 
+	 * @param factory
+	 *            the factory that creates the sessions
+	 * @param maxSessions
+	 *            the maximum number of sessions in the pool
+	 * @param idleTimeout
+	 *            the time in milliseconds after which unleased sessions are
+	 *            disconnected
+	 * @param keepAliveInterval
+	 *            the interval in milliseconds in which keep-alives are sent
+	 *            to idle sessions, 0 for none
+	 * @param leaseTimeout
+	 *            the time in milliseconds to wait for a session if the pool
+	 *            is full
+	 */
+	public SSHSessionPool(ISSHSessionFactory factory, int maxSessions, long idleTimeout, long keepAliveInterval,
+			long leaseTimeout) {
+		Assert.notNull(factory);
+		Assert.isTrue(maxSessions > 0);
+		Assert.isTrue(idleTimeout > 0);
+		Assert.isTrue(keepAliveInterval >= 0);
+		Assert.isTrue(leaseTimeout >= 0);
+
+		this.factory = factory;
+		this.maxSessions = maxSessions;
+		this.idleTimeout = idleTimeout;
+		this.keepAliveInterval = keepAliveInterval;
+		this.leaseTimeout = leaseTimeout;
+		this.evictor = ExecutorServiceUtils.getSharedScheduler().scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				// disconnecting may block, keep the shared scheduler free
+				ExecutorServiceUtils.getSharedExecutor().execute(new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							evictIdle();
+						} catch (RuntimeException e) {
+							LOGGER.warn("Could not evict idle ssh sessions", e);
+						}
+					}
+				});
+			}
+		}, idleTimeout, idleTimeout / 2 + 1, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Leases the session to the given application.
+	 * 
+	 * @param application
+	 *            the application to connect to
+	 * @return the lease of the session
+	 * @throws OpenShiftSSHOperationException
+	 *             if the session could not be connected
+	 * 
+	 * @see #lease(String)
+	 */
+	public Lease lease(IApplication application) throws OpenShiftException {
+		Assert.notNull(application);
+
+		return lease(application.getSshUrl());
+	}
+
+	/**
+	 * Leases the session to the given gear.
+	 * 
+	 * @param gear
+	 *            the gear to connect to
+	 * @return the lease of the session
+	 * @throws OpenShiftSSHOperationException
+	 *             if the session could not be connected
+	 * 
+	 * @see #lease(String)
+	 */
+	public Lease lease(IGear gear) throws OpenShiftException {
+		Assert.notNull(gear);
+
+		return lease(gear.getSshUrl());
+	}
+
+	/**
+	 * Leases the session to the given ssh url. The session is created and
+	 * connected if there's none yet or if it was dropped. The lease has to be
+	 * closed once the session is not used any more.
+	 * 
+	 * @param sshUrl
+	 *            the ssh url to connect to
+	 * @return the lease of the session
+	 * @throws OpenShiftSSHOperationException
+	 *             if the session could not be connected
+	 * @throws OpenShiftTimeoutException
+	 *             if the pool is full and no session became idle in time
+	 * @throws OpenShiftCancellationException
+	 *             if the current thread was interrupted while waiting for a
+	 *             session
+	 */
+	public Lease lease(String sshUrl) throws OpenShiftException {
+		Assert.notNull(sshUrl);
+
+		PooledSession pooled = acquire(sshUrl);
+		try {
+			return new Lease(pooled, pooled.connect());
+		} catch (RuntimeException e) {
+			release(pooled);
+			throw e;
+		}
+	}
+
+	private PooledSession acquire(String sshUrl) {
+		List<PooledSession> evicted = new ArrayList<PooledSession>();
+		try {
+			synchronized (this) {
+				long deadline = System.currentTimeMillis() + leaseTimeout;
+				PooledSession pooled = null;
+				while ((pooled = sessions.get(sshUrl)) == null
+						&& sessions.size() >= maxSessions) {
+					assertNotClosed();
+					PooledSession idle = getLeastRecentlyUsedIdle();
+					if (idle != null) {
+						sessions.remove(idle.sshUrl);
+						evicted.add(idle);
+						continue;
+					}
+					waitForIdle(deadline, sshUrl);
+				}
+				assertNotClosed();
+				if (pooled == null) {
+					pooled = new PooledSession(sshUrl);
+					sessions.put(sshUrl, pooled);
+				}
+				pooled.leases++;
+				return pooled;
+			}
+		} finally {
+			// disconnecting may block, dont hold the pool meanwhile
+			disconnect(evicted);
+		}
+	}
+
+	private void waitForIdle(long deadline, String sshUrl) {
+		long remaining = deadline - System.currentTimeMillis();
+		if (remaining <= 0) {
+			throw new OpenShiftTimeoutException(sshUrl, null,
+					"Could not lease a session to {0} within {1} ms, all {2} pooled sessions are in use",
+					sshUrl, leaseTimeout, maxSessions);
+		}
+		try {
+			wait(remaining);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftCancellationException(e,
+					"Interrupted while waiting for a session to {0}", sshUrl);
+		}
+	}
+
+	private PooledSession getLeastRecentlyUsedIdle() {
+		PooledSession leastRecentlyUsed = null;
+		for (PooledSession pooled : sessions.values()) {
+			if (pooled.leases == 0
+					&& (leastRecentlyUsed == null
+					|| pooled.lastReleased < leastRecentlyUsed.lastReleased)) {
+				leastRecentlyUsed = pooled;
+			}
+		}
+		return leastRecentlyUsed;
+	}
+
+	private void release(PooledSession pooled) {
+		boolean discard = false;
+		synchronized (this) {
+			pooled.leases--;
+			pooled.lastReleased = System.currentTimeMillis();
+			if (pooled.leases == 0) {
+				// the pool may have been closed while the session was connecting
+				discard = closed
+						|| sessions.get(pooled.sshUrl) != pooled;
+				notifyAll();
+			}
+		}
+		if (discard) {
+			pooled.disconnect();
+		}
+	}
+
+	/**
+	 * Disconnects and removes the sessions that were not leased for longer
+	 * than the idle timeout and the ones that were dropped. This is done
+	 * periodically, there's usually no need to call it.
+	 */
+	public void evictIdle() {
+		List<PooledSession> evicted = new ArrayList<PooledSession>();
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			for (PooledSession pooled : new ArrayList<PooledSession>(sessions.values())) {
+				if (pooled.leases == 0
+						&& (now - pooled.lastReleased >= idleTimeout
+						|| !pooled.isConnected())) {
+					sessions.remove(pooled.sshUrl);
+					evicted.add(pooled);
+				}
+			}
+			if (!evicted.isEmpty()) {
+				notifyAll();
+			}
+		}
+		disconnect(evicted);
+	}
+
+	/**
+	 * Returns the number of sessions in this pool, leased and idle ones.
+	 * 
+	 * @return the number of pooled sessions
+	 */
+	public synchronized int getSessionCount() {
+		return sessions.size();
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Disconnects all sessions and stops the eviction. Sessions that are
+	 * leased are disconnected, too. Further leases fail.
+	 */
+	public void close() {
+		List<PooledSession> pooled = null;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			this.closed = true;
+			pooled = new ArrayList<PooledSession>(sessions.values());
+			sessions.clear();
+			notifyAll();
+		}
+		evictor.cancel(false);
+		disconnect(pooled);
+	}
+
+	private void assertNotClosed() {
+		if (closed) {
+			throw new OpenShiftSSHOperationException("The ssh session pool is closed");
+		}
+	}
+
+	private void disconnect(Collection<PooledSession> sessions) {
+		for (PooledSession pooled : sessions) {
+			pooled.disconnect();
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "SSHSessionPool ["
+				+ "sessions=" + sessions.keySet()
+				+ ", maxSessions=" + maxSessions
+				+ ", closed=" + closed
+				+ "]";
+	}
+
+	/**
+	 * The session to a given ssh url. Leases and release times are guarded by
+	 * the pool, the session itself by this instance.
+	 */
+	private class PooledSession {
+
+		private final String sshUrl;
+		private int leases;
+		private long lastReleased = System.currentTimeMillis();
+		private Session session;
+
+		private PooledSession(String sshUrl) {
+			this.sshUrl = sshUrl;
+		}
+
+		private synchronized Session connect() throws OpenShiftSSHOperationException {
+			if (session != null
+					&& session.isConnected()) {
+				return session;
+			}
+			if (session != null) {
+				LOGGER.debug("Reconnecting dropped ssh session to {}", sshUrl);
+				session.disconnect();
+			}
+			try {
+				Session session = factory.createSession(sshUrl);
+				if (keepAliveInterval > 0) {
+					session.setServerAliveInterval((int) keepAliveInterval);
+					session.setServerAliveCountMax(KEEP_ALIVE_COUNT_MAX);
+				}
+				if (!session.isConnected()) {
+					session.connect(CONNECT_TIMEOUT);
+				}
+				this.session = session;
+				return session;
+			} catch (JSchException e) {
+				this.session = null;
+				throw new OpenShiftSSHOperationException(e, "Could not connect ssh session to {0}", sshUrl);
+			}
+		}
+
+		private synchronized boolean isConnected() {
+			return session != null
+					&& session.isConnected();
+		}
+
+		private synchronized void disconnect() {
+			if (session != null) {
+				session.disconnect();
+				this.session = null;
+			}
+		}
+	}
+
+	/**
+	 * The lease of a pooled session. Closing it returns the session to the
+	 * pool, it stays connected.
+	 */
+	public class Lease implements Closeable {
+
+		private final PooledSession pooled;
+		private final Session session;
+		private boolean released;
+
+		private Lease(PooledSession pooled, Session session) {
+			this.pooled = pooled;
+			this.session = session;
+		}
+
+		public Session getSession() {
+			return session;
+		}
+
+		public String getSshUrl() {
+			return pooled.sshUrl;
+		}
+
+		/**
+		 * Returns the session to the pool. Subsequent calls have no effect.
+		 */
+		@Override
+		public void close() {
+			synchronized (this) {
+				if (released) {
+					return;
+				}
+				this.released = true;
+			}
+			release(pooled);
+		}
+	}
+}
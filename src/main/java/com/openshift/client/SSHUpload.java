@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.io.InputStream;
+
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * An upload to the standard input of a remote command that runs in the
+ * background. The output of the command may be read while the upload is in
+ * progress, a command that writes a lot of output thus cannot stall the
+ * upload. The upload is paced by the remote: it is held back while the
+ * remote did not consume what it was sent.
+ * 
+ * @author agent
+ * 
+ * @see UploadOptions
+ * @see com.openshift.internal.client.ApplicationSSHSession#restoreDeploymentSnapshotAsync(InputStream, boolean,
+ *      UploadOptions)
+ */
+public class SSHUpload {
+
+	private final InputStream response;
+	private final IOpenShiftFuture<Long> transfer;
+
+	public SSHUpload(InputStream response, IOpenShiftFuture<Long> transfer) {
+		Assert.notNull(response);
+		Assert.notNull(transfer);
+
+		this.response = response;
+		this.transfer = transfer;
+	}
+
+	/**
+	 * Returns the output of the remote command. It ends once the command
+	 * exited and fails with the error output if the command failed or the
+	 * upload did not complete.
+	 * 
+	 * @return the output of the remote command
+	 */
+	public InputStream getResponse() {
+		return response;
+	}
+
+	/**
+	 * Returns the upload. Its result is the number of bytes that were
+	 * uploaded.
+	 * 
+	 * @return the upload
+	 */
+	public IOpenShiftFuture<Long> getTransfer() {
+		return transfer;
+	}
+
+	/**
+	 * Stops the upload and closes the remote command.
+	 */
+	public void cancel() {
+		transfer.cancel(true);
+		StreamUtils.quietlyClose(response);
+	}
+
+	@Override
+	public String toString() {
+		return "SSHUpload ["
+				+ "done=" + transfer.isDone()
+				+ "]";
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.concurrent.ExecutorService;
+
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * The options of an upload to a remote command: the listener to notify of
+ * the progress, the maximum rate and the executor to upload in.
+ * 
+ * <pre>
+ * SSHUpload upload = session.restoreDeploymentSnapshotAsync(file, true, new UploadOptions()
+ * 		.progressListener(listener)
+ * 		.rateLimit(1024 * 1024));
+ * </pre>
+ * 
+ * @author agent
+ * 
+ * @see SSHUpload
+ */
+public class UploadOptions {
+
+	/** the rate limit that does not limit the upload */
+	public static final long UNLIMITED = 0;
+
+	private IProgressListener progressListener;
+	private long rateLimit = UNLIMITED;
+	private ExecutorService executor;
+
+	/**
+	 * Sets the listener that gets notified (in the uploading thread) of the
+	 * bytes that were uploaded.
+	 * 
+	 * @param progressListener
+	 *            the listener to notify
+	 * @return these options
+	 */
+	public UploadOptions progressListener(IProgressListener progressListener) {
+		this.progressListener = progressListener;
+		return this;
+	}
+
+	/**
+	 * Limits the upload to the given number of bytes per second.
+	 * 
+	 * @param bytesPerSecond
+	 *            the maximum rate or {@link #UNLIMITED}
+	 * @return these options
+	 */
+	public UploadOptions rateLimit(long bytesPerSecond) {
+		Assert.isTrue(bytesPerSecond >= 0);
+
+		this.rateLimit = bytesPerSecond;
+		return this;
+	}
+
+	/**
+	 * Sets the executor to upload in. The executor of the connection is used
+	 * if none is given.
+	 * 
+	 * @param executor
+	 *            the executor to upload in
+	 * @return these options
+	 */
+	public UploadOptions executor(ExecutorService executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	public IProgressListener getProgressListener() {
+		return progressListener;
+	}
+
+	public long getRateLimit() {
+		return rateLimit;
+	}
+
+	public boolean isRateLimited() {
+		return rateLimit != UNLIMITED;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	@Override
+	public String toString() {
+		return "UploadOptions ["
+				+ "rateLimit=" + rateLimit
+				+ "]";
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A change that a watch detected by comparing consecutive states of a domain.
+ * 
+ * @author agent
+ * 
+ * @see IWatchListener
+ */
+public class WatchEvent {
+
+	public enum Type {
+		/** an application was created, the subject is the application name */
+		APPLICATION_ADDED,
+		/** an application was destroyed, the subject is the application name */
+		APPLICATION_REMOVED,
+		/** a cartridge was added, the subject is the cartridge name */
+		CARTRIDGE_ADDED,
+		/** a cartridge was removed, the subject is the cartridge name */
+		CARTRIDGE_REMOVED,
+		/** an alias was added, the subject is the alias */
+		ALIAS_ADDED,
+		/** an alias was removed, the subject is the alias */
+		ALIAS_REMOVED,
+		/** a gear changed its state, the subject is the gear id */
+		GEAR_STATE_CHANGED
+	}
+
+	private final Type type;
+	private final String domainId;
+	private final String applicationName;
+	private final String subject;
+	private final String oldValue;
+	private final String newValue;
+
+	public WatchEvent(Type type, String domainId, String applicationName, String subject) {
+		this(type, domainId, applicationName, subject, null, null);
+	}
+
+	public WatchEvent(Type type, String domainId, String applicationName, String subject,
+			String oldValue, String newValue) {
+		this.type = type;
+		this.domainId = domainId;
+		this.applicationName = applicationName;
+		this.subject = subject;
+		this.oldValue = oldValue;
+		this.newValue = newValue;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getDomainId() {
+		return domainId;
+	}
+
+	public String getApplicationName() {
+		return applicationName;
+	}
+
+	/**
+	 * Returns what changed: the name of the application or cartridge, the
+	 * alias or the id of the gear.
+	 * 
+	 * @return the subject of the change
+	 */
+	public String getSubject() {
+		return subject;
+	}
+
+	/**
+	 * Returns the former value (ex. the former gear state) or
+	 * <code>null</code> if the change has none.
+	 * 
+	 * @return the former value
+	 */
+	public String getOldValue() {
+		return oldValue;
+	}
+
+	/**
+	 * Returns the new value (ex. the new gear state) or <code>null</code> if
+	 * the change has none.
+	 * 
+	 * @return the new value
+	 */
+	public String getNewValue() {
+		return newValue;
+	}
+
+	@Override
+	public String toString() {
+		return "WatchEvent ["
+				+ "type=" + type
+				+ ", domainId=" + domainId
+				+ ", applicationName=" + applicationName
+				+ ", subject=" + subject
+				+ (oldValue == null && newValue == null ? "" : ", " + oldValue + " -> " + newValue)
+				+ "]";
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * The options of a watch: the domains to watch, whether gear states shall be
+ * watched and the delays between polls. A watch polls at the given interval
+ * and backs off (up to the maximum interval) while nothing changes.
+ * 
+ * <pre>
+ * connection.watch(listener, new WatchOptions()
+ * 		.domains("foobarz")
+ * 		.gears(true)
+ * 		.interval(5 * 1000, 60 * 1000));
+ * </pre>
+ * 
+ * @author agent
+ * 
+ * @see IOpenShiftConnection#watch(IWatchListener, WatchOptions)
+ */
+public class WatchOptions {
+
+	/** the default delay in milliseconds between polls */
+	public static final long DEFAULT_INTERVAL = 10 * 1000;
+	/** the default maximum delay in milliseconds between polls */
+	public static final long DEFAULT_MAX_INTERVAL = 2 * 60 * 1000;
+
+	private List<String> domainIds = Collections.emptyList();
+	private boolean gears;
+	private long interval = DEFAULT_INTERVAL;
+	private long maxInterval = DEFAULT_MAX_INTERVAL;
+
+	/**
+	 * Sets the ids of the domains to watch. All domains of the user are
+	 * watched if none are given.
+	 * 
+	 * @param domainIds
+	 *            the ids of the domains to watch
+	 * @return these options
+	 */
+	public WatchOptions domains(String... domainIds) {
+		this.domainIds = Collections.unmodifiableList(Arrays.asList(domainIds));
+		return this;
+	}
+
+	/**
+	 * Sets whether the states of the gears shall be watched. This requires an
+	 * additional request per application and poll.
+	 * 
+	 * @param gears
+	 *            true if gear states shall be watched
+	 * @return these options
+	 */
+	public WatchOptions gears(boolean gears) {
+		this.gears = gears;
+		return this;
+	}
+
+	/**
+	 * Sets the delay between polls and the maximum delay that the watch backs
+	 * off to while nothing changes.
+	 * 
+	 * @param interval
+	 *            the delay in milliseconds
+	 * @param maxInterval
+	 *            the maximum delay in milliseconds
+	 * @return these options
+	 */
+	public WatchOptions interval(long interval, long maxInterval) {
+		Assert.isTrue(interval > 0);
+		Assert.isTrue(maxInterval >= interval);
+
+		this.interval = interval;
+		this.maxInterval = maxInterval;
+		return this;
+	}
+
+	public List<String> getDomainIds() {
+		return domainIds;
+	}
+
+	public boolean isGears() {
+		return gears;
+	}
+
+	public long getInterval() {
+		return interval;
+	}
+
+	public long getMaxInterval() {
+		return maxInterval;
+	}
+
+	@Override
+	public String toString() {
+		return "WatchOptions ["
+				+ "domainIds=" + domainIds
+				+ ", gears=" + gears
+				+ ", interval=" + interval
+				+ ", maxInterval=" + maxInterval
+				+ "]";
+	}
+}
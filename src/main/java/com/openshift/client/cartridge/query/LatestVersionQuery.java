@@ -10,9 +10,9 @@
  ******************************************************************************/
 package com.openshift.client.cartridge.query;
 
-import java.text.Collator;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -20,6 +20,8 @@ import java.util.regex.Pattern;
 
 import com.openshift.client.cartridge.ICartridge;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
+import com.openshift.internal.client.cartridge.CartridgeCatalog;
+import com.openshift.internal.client.cartridge.CartridgeVersion;
 import com.openshift.internal.client.utils.Assert;
 
 /**
@@ -33,6 +35,19 @@ import com.openshift.internal.client.utils.Assert;
  */
 public class LatestVersionQuery extends AbstractCartridgeQuery {
 
+	/**
+	 * compares cartridges by their (versioned) names, the latest version being
+	 * the greatest. Parses both names for each comparison, use
+	 * {@link CartridgeVersion} directly when comparing repeatedly.
+	 */
+	public static final Comparator<ICartridge> VERSION_COMPARATOR = new Comparator<ICartridge>() {
+
+		@Override
+		public int compare(ICartridge cartridge, ICartridge other) {
+			return CartridgeVersion.parse(cartridge.getName()).compareTo(CartridgeVersion.parse(other.getName()));
+		}
+	};
+
 	private final String nameConstraint;
 
 	public LatestVersionQuery(final String name) {
@@ -46,21 +61,20 @@ public class LatestVersionQuery extends AbstractCartridgeQuery {
 
 	@Override
 	public <C extends ICartridge> List<C> getAll(List<C> cartridges) {
-		return Collections.singletonList(getLatest(super.getAll(cartridges)));
+		return Collections.singletonList(get(cartridges));
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	public <C extends ICartridge> C get(List<C> cartridges) {
+		if (cartridges instanceof CartridgeCatalog) {
+			return ((CartridgeCatalog<C>) cartridges).getLatestVersion(nameConstraint);
+		}
 		return getLatest(super.getAll(cartridges));
 	}
 
 	public <C extends ICartridge> boolean matches(C cartridge) {
-		String name = cartridge.getName();
-		int delimiterIndex = name.lastIndexOf(ICartridge.NAME_VERSION_DELIMITER);
-		if (delimiterIndex == -1) {
-			return false;
-		}
-		return nameConstraint.equals(name.substring(0, delimiterIndex));
+		return nameConstraint.equals(CartridgeCatalog.getBaseName(cartridge.getName()));
 	}
 
 	protected <C extends ICartridge> C getLatest(Collection<C> matchingCartridges) {
@@ -69,36 +83,37 @@ public class LatestVersionQuery extends AbstractCartridgeQuery {
 			return null;
 		}
 		C latest = it.next();
+		CartridgeVersion latestVersion = CartridgeVersion.parse(latest.getName());
 		while (it.hasNext()) {
 			C cartridge = it.next();
-			VersionedName latestName = new VersionedName(latest.getName());
-			VersionedName cartridgeName = new VersionedName(cartridge.getName());
-			switch (latestName.compareTo(cartridgeName)) {
-			case 0:
-			case 1:
-				break;
-			case -1:
+			CartridgeVersion version = CartridgeVersion.parse(cartridge.getName());
+			if (latestVersion.compareTo(version) < 0) {
 				latest = cartridge;
-				break;
+				latestVersion = version;
 			}
 		}
 		return latest;
 	}
 
-	protected class VersionedName implements Comparable<VersionedName> {
+	/**
+	 * @deprecated use {@link CartridgeVersion} which parses the name once and
+	 *             compares numeric versions by value
+	 */
+	@Deprecated
+	protected static class VersionedName implements Comparable<VersionedName> {
 
-		private Pattern versionPattern = Pattern.compile(
+		private static final Pattern VERSION_PATTERN = Pattern.compile(
 				"(([^" + ICartridge.NAME_VERSION_DELIMITER + " ]+" + ICartridge.NAME_VERSION_DELIMITER + ")*([^"
 						+ ICartridge.NAME_VERSION_DELIMITER + "]+))" + ICartridge.NAME_VERSION_DELIMITER
 						+ "([0-9a-zA-Z]+)\\.{0,1}([0-9a-zA-Z]*)");
-		private Collator collator = Collator.getInstance();
-
 		private String name;
 		private String major;
 		private String minor;
+		private CartridgeVersion version;
 
 		protected VersionedName(String name) {
-			Matcher matcher = versionPattern.matcher(name);
+			this.version = CartridgeVersion.parse(name);
+			Matcher matcher = VERSION_PATTERN.matcher(name);
 			if (!matcher.matches()) {
 				this.name = name;
 				return;
@@ -131,17 +146,7 @@ public class LatestVersionQuery extends AbstractCartridgeQuery {
 
 		@Override
 		public int compareTo(VersionedName other) {
-			int result = collator.compare(getName(), other.getName());
-			if (result != 0) {
-				return result;
-			}
-
-			result = collator.compare(major, other.getMajor());
-			if (result != 0) {
-				return result;
-			}
-
-			return collator.compare(minor, other.getMinor());
+			return version.compareTo(other.version);
 		}
 	}
 	
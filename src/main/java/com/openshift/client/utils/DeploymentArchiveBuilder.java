@@ -0,0 +1,454 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.ExecutorServiceUtils;
+import com.openshift.internal.client.utils.ParallelGzipOutputStream;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * Builds the archive (tar.gz) of a binary deployment from local folders. The
+ * archive has the layout that <code>oo-binary-deploy</code> expects: the
+ * folders <code>build-dependencies</code>, <code>dependencies</code> and
+ * <code>repo</code> at its top level. The archive is compressed in parallel
+ * (in independent gzip members) and may be streamed straight into the upload
+ * without a temporary file:
+ * 
+ * <pre>
+ * InputStream archive = new DeploymentArchiveBuilder()
+ * 		.repo(new File("target/deployment"))
+ * 		.open();
+ * session.restoreDeploymentSnapshotAsync(archive, true, new UploadOptions());
+ * </pre>
+ * 
+ * Symbolic links are followed, folders that were already added (through a
+ * link) are skipped.
+ * 
+ * @author agent
+ * 
+ * @see com.openshift.internal.client.ApplicationSSHSession#restoreDeploymentSnapshot(InputStream, boolean)
+ * @see ParallelGzipOutputStream
+ */
+public class DeploymentArchiveBuilder {
+
+	/** the folder with the dependencies that are needed to build the application */
+	public static final String BUILD_DEPENDENCIES_FOLDER_NAME = "build-dependencies";
+	/** the folder with the dependencies that are needed to run the application */
+	public static final String DEPENDENCIES_FOLDER_NAME = "dependencies";
+	/** the folder with the application */
+	public static final String REPO_FOLDER_NAME = "repo";
+
+	private static final String FOLDER_SUFFIX = "/";
+	private static final int EXECUTABLE_FILE_MODE = 0100755;
+	private static final byte[] END_OF_ARCHIVE = new byte[0];
+
+	private File buildDependencies;
+	private File dependencies;
+	private File repo;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int blockSize = ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE;
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+	private ExecutorService executor;
+
+	/**
+	 * Sets the folder whose content is archived to <code>repo</code>.
+	 * 
+	 * @param folder
+	 *            the folder with the application
+	 * @return this builder
+	 */
+	public DeploymentArchiveBuilder repo(File folder) {
+		this.repo = folder;
+		return this;
+	}
+
+	/**
+	 * Sets the folder whose content is archived to <code>dependencies</code>.
+	 * 
+	 * @param folder
+	 *            the folder with the runtime dependencies
+	 * @return this builder
+	 */
+	public DeploymentArchiveBuilder dependencies(File folder) {
+		this.dependencies = folder;
+		return this;
+	}
+
+	/**
+	 * Sets the folder whose content is archived to
+	 * <code>build-dependencies</code>.
+	 * 
+	 * @param folder
+	 *            the folder with the build dependencies
+	 * @return this builder
+	 */
+	public DeploymentArchiveBuilder buildDependencies(File folder) {
+		this.buildDependencies = folder;
+		return this;
+	}
+
+	/**
+	 * Sets the number of blocks that are compressed at the same time. Defaults
+	 * to the number of processors.
+	 * 
+	 * @param threads
+	 *            the number of concurrent compressions
+	 * @return this builder
+	 */
+	public DeploymentArchiveBuilder threads(int threads) {
+		Assert.isTrue(threads > 0);
+
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Sets the size of the blocks that are compressed independently.
+	 * 
+	 * @param blockSize
+	 *            the size of the blocks in bytes
+	 * @return this builder
+	 */
+	public DeploymentArchiveBuilder blockSize(int blockSize) {
+		Assert.isTrue(blockSize > 0);
+
+		this.blockSize = blockSize;
+		return this;
+	}
+
+	/**
+	 * Sets the gzip compression level.
+	 * 
+	 * @param level
+	 *            the level, 1 (fastest) to 9 (best)
+	 * @return this builder
+	 * 
+	 * @see Deflater#setLevel(int)
+	 */
+	public DeploymentArchiveBuilder compressionLevel(int level) {
+		Assert.isTrue(level == Deflater.DEFAULT_COMPRESSION
+				|| (level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION));
+
+		this.compressionLevel = level;
+		return this;
+	}
+
+	/**
+	 * Sets the executor to compress (and archive) in. The executor that is
+	 * shared among connections is used if none is given.
+	 * 
+	 * @param executor
+	 *            the executor to use
+	 * @return this builder
+	 */
+	public DeploymentArchiveBuilder executor(ExecutorService executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Writes the archive to the given stream. The given stream is not closed.
+	 * 
+	 * @param out
+	 *            the stream to write the archive to
+	 * @throws IOException
+	 *             if a folder does not exist or could not be read or the
+	 *             archive could not be written
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		Assert.notNull(out);
+
+		assertFolder(buildDependencies);
+		assertFolder(dependencies);
+		assertFolder(repo);
+		TarArchiveOutputStream tar = new TarArchiveOutputStream(
+				new ParallelGzipOutputStream(new NonClosingOutputStream(out), getExecutor(), threads, blockSize,
+						compressionLevel));
+		boolean written = false;
+		try {
+			tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+			tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+			Set<String> visitedFolders = new HashSet<String>();
+			addFolder(BUILD_DEPENDENCIES_FOLDER_NAME, buildDependencies, visitedFolders, tar);
+			addFolder(DEPENDENCIES_FOLDER_NAME, dependencies, visitedFolders, tar);
+			addFolder(REPO_FOLDER_NAME, repo, visitedFolders, tar);
+			tar.close();
+			written = true;
+		} finally {
+			if (!written) {
+				// do not hide the cause by failing to finish the archive
+				StreamUtils.quietlyClose(tar);
+			}
+		}
+	}
+
+	/**
+	 * Opens the archive for reading. The archive is built in the background
+	 * while it is read, it is never held in full in memory nor on disk.
+	 * Closing the stream before its end aborts the build.
+	 * 
+	 * @return the archive
+	 * @throws IOException
+	 *             if a folder does not exist
+	 */
+	public InputStream open() throws IOException {
+		assertFolder(buildDependencies);
+		assertFolder(dependencies);
+		assertFolder(repo);
+		final ArchiveInputStream archive = new ArchiveInputStream(threads);
+		archive.builder = getExecutor().submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				try {
+					writeTo(archive.sink);
+				} catch (IOException e) {
+					archive.error = e;
+				} catch (RuntimeException e) {
+					archive.error = e;
+				} finally {
+					archive.end();
+				}
+				return null;
+			}
+		});
+		return archive;
+	}
+
+	private ExecutorService getExecutor() {
+		if (executor == null) {
+			return ExecutorServiceUtils.getSharedExecutor();
+		}
+		return executor;
+	}
+
+	private static void assertFolder(File folder) throws FileNotFoundException {
+		if (folder != null
+				&& !folder.isDirectory()) {
+			throw new FileNotFoundException("Folder " + folder.getAbsolutePath() + " does not exist");
+		}
+	}
+
+	private void addFolder(String name, File folder, Set<String> visitedFolders, TarArchiveOutputStream tar)
+			throws IOException {
+		String folderName = name + FOLDER_SUFFIX;
+		TarArchiveEntry entry;
+		if (folder == null) {
+			// the layout requires all folders even if they're empty
+			entry = new TarArchiveEntry(folderName);
+		} else {
+			if (!visitedFolders.add(folder.getCanonicalPath())) {
+				return;
+			}
+			entry = new TarArchiveEntry(folder, folderName);
+		}
+		tar.putArchiveEntry(entry);
+		tar.closeArchiveEntry();
+		if (folder == null) {
+			return;
+		}
+		File[] children = folder.listFiles();
+		if (children == null) {
+			throw new IOException("Could not list folder " + folder.getAbsolutePath());
+		}
+		// sorted so that the same folder results in the same archive
+		Arrays.sort(children);
+		for (File child : children) {
+			String childName = folderName + child.getName();
+			if (child.isDirectory()) {
+				addFolder(childName, child, visitedFolders, tar);
+			} else {
+				addFile(childName, child, tar);
+			}
+		}
+	}
+
+	private void addFile(String name, File file, TarArchiveOutputStream tar) throws IOException {
+		TarArchiveEntry entry = new TarArchiveEntry(file, name);
+		if (file.canExecute()) {
+			entry.setMode(EXECUTABLE_FILE_MODE);
+		}
+		InputStream in = new FileInputStream(file);
+		try {
+			tar.putArchiveEntry(entry);
+			byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+			for (int read = 0; (read = in.read(buffer)) != -1;) {
+				tar.write(buffer, 0, read);
+			}
+			tar.closeArchiveEntry();
+		} finally {
+			StreamUtils.close(in);
+		}
+	}
+
+	/**
+	 * Keeps the stream of the caller open once the archive is complete.
+	 */
+	private static class NonClosingOutputStream extends FilterOutputStream {
+
+		private NonClosingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] buffer, int offset, int length) throws IOException {
+			out.write(buffer, offset, length);
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+
+	/**
+	 * Hands out the gzip members that are built in the background. The number
+	 * of members that are held in memory is bounded, the build waits until the
+	 * reader catches up.
+	 */
+	private static class ArchiveInputStream extends InputStream {
+
+		private final BlockingQueue<byte[]> members;
+		private final OutputStream sink = new OutputStream() {
+
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] buffer, int offset, int length) throws IOException {
+				if (length == 0) {
+					return;
+				}
+				put(Arrays.copyOfRange(buffer, offset, offset + length));
+			}
+		};
+		private volatile Future<Void> builder;
+		private volatile Exception error;
+		private volatile boolean closed;
+		private byte[] member = new byte[0];
+		private int memberPosition;
+		private boolean ended;
+
+		private ArchiveInputStream(int capacity) {
+			this.members = new ArrayBlockingQueue<byte[]>(capacity);
+		}
+
+		private void put(byte[] member) throws IOException {
+			if (closed) {
+				throw new IOException("Archive was closed");
+			}
+			try {
+				members.put(member);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while building archive");
+			}
+		}
+
+		private void end() {
+			try {
+				if (!closed) {
+					members.put(END_OF_ARCHIVE);
+				}
+			} catch (InterruptedException e) {
+				// the reader closed the stream
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			int read = read(b, 0, 1);
+			if (read == -1) {
+				return -1;
+			}
+			return b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (closed) {
+				throw new IOException("Archive is closed");
+			}
+			if (length == 0) {
+				return 0;
+			}
+			while (memberPosition == member.length) {
+				if (ended
+						|| !nextMember()) {
+					return -1;
+				}
+			}
+			int read = Math.min(length, member.length - memberPosition);
+			System.arraycopy(member, memberPosition, buffer, offset, read);
+			memberPosition += read;
+			return read;
+		}
+
+		private boolean nextMember() throws IOException {
+			try {
+				this.member = members.take();
+				this.memberPosition = 0;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the archive");
+			}
+			if (member != END_OF_ARCHIVE) {
+				return true;
+			}
+			this.ended = true;
+			if (error != null) {
+				IOException exception = new IOException("Could not build archive: " + error.getMessage());
+				exception.initCause(error);
+				throw exception;
+			}
+			return false;
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			this.closed = true;
+			if (builder != null) {
+				builder.cancel(true);
+			}
+			// unblock the builder if it's waiting for room
+			members.clear();
+		}
+	}
+}
@@ -0,0 +1,392 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.openshift.client.IProgressListener;
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * Saves snapshots to files and reads them back. Snapshots are copied in large
+ * chunks through file channels while their SHA-256 checksum is computed.
+ * A snapshot is saved to a part file and only moved to the given file once it
+ * is complete, its checksum is stored next to it (<code>&lt;file&gt;.sha256</code>,
+ * in the format of <code>sha256sum</code>). The checksum is written along with
+ * the part file and moved with it, an existing snapshot is backed up until both
+ * are in place. A saved snapshot thus always matches its checksum and may be
+ * verified at any later time, ex. before it is restored:
+ * 
+ * <pre>
+ * String checksum = SnapshotFileUtils.save(session.saveFullSnapshot(), file, listener);
+ * ...
+ * if (SnapshotFileUtils.verify(file)) {
+ * 	session.restoreFullSnapshot(file, true, listener);
+ * }
+ * </pre>
+ * 
+ * @author agent
+ * 
+ * @see com.openshift.internal.client.ApplicationSSHSession#saveFullSnapshot(File, IProgressListener)
+ */
+public class SnapshotFileUtils {
+
+	/** the size of the chunks that snapshots are copied in */
+	public static final int BUFFER_SIZE = 256 * 1024;
+	/** the suffix of the file that holds the checksum of a snapshot */
+	public static final String CHECKSUM_FILE_SUFFIX = ".sha256";
+
+	private static final String PART_FILE_SUFFIX = ".part";
+	private static final String BACKUP_FILE_SUFFIX = ".bak";
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	private SnapshotFileUtils() {
+		// inhibit instantiation
+	}
+
+	/**
+	 * Saves the given snapshot to the given file and stores its checksum next
+	 * to it. An existing file (and its checksum) is replaced once the
+	 * snapshot is completely saved, it is kept if saving fails. The given
+	 * snapshot is not closed.
+	 * 
+	 * @param snapshot
+	 *            the snapshot to save
+	 * @param file
+	 *            the file to save the snapshot to
+	 * @param listener
+	 *            the listener to notify of the progress, may be
+	 *            <code>null</code>
+	 * @return the SHA-256 checksum of the snapshot (hex)
+	 * @throws IOException
+	 *             if the snapshot could not be read or saved
+	 */
+	public static String save(InputStream snapshot, File file, IProgressListener listener) throws IOException {
+		Assert.notNull(snapshot);
+		Assert.notNull(file);
+
+		File partFile = new File(file.getPath() + PART_FILE_SUFFIX);
+		MessageDigest digest = createDigest();
+		FileOutputStream out = new FileOutputStream(partFile);
+		boolean saved = false;
+		try {
+			FileChannel channel = out.getChannel();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long transferred = 0;
+			for (int read = -1; (read = fill(snapshot, buffer)) > 0;) {
+				digest.update(buffer, 0, read);
+				ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+				while (chunk.hasRemaining()) {
+					channel.write(chunk);
+				}
+				transferred += read;
+				notify(listener, transferred, IProgressListener.UNKNOWN_TOTAL);
+			}
+			channel.force(false);
+			saved = true;
+		} finally {
+			StreamUtils.close(out);
+			if (!saved) {
+				partFile.delete();
+			}
+		}
+		String checksum = toHex(digest.digest());
+		try {
+			// named after the file it is moved to
+			writeChecksum(checksum, file.getName(), getChecksumFile(partFile));
+		} catch (IOException e) {
+			partFile.delete();
+			getChecksumFile(partFile).delete();
+			throw e;
+		}
+		replace(partFile, file);
+		return checksum;
+	}
+
+	/**
+	 * Reads the given stream until the given buffer is full or the stream
+	 * ended. Snapshots arrive in small packets, copying them in full buffers
+	 * keeps the number of writes low.
+	 */
+	static int fill(InputStream in, byte[] buffer) throws IOException {
+		int filled = 0;
+		for (int read = 0; filled < buffer.length
+				&& (read = in.read(buffer, filled, buffer.length - filled)) != -1;) {
+			filled += read;
+		}
+		return filled;
+	}
+
+	/**
+	 * Moves the given part file and its checksum to the given file. An
+	 * existing file and its checksum are renamed to backups first, they're
+	 * deleted once the part file and its checksum are in place and restored
+	 * if moving them fails. The part file and its checksum are deleted if
+	 * moving them fails.
+	 */
+	private static void replace(File partFile, File file) throws IOException {
+		File partChecksumFile = getChecksumFile(partFile);
+		File checksumFile = getChecksumFile(file);
+		File backupFile = new File(file.getPath() + BACKUP_FILE_SUFFIX);
+		File backupChecksumFile = getChecksumFile(backupFile);
+		boolean backedUp = false;
+		boolean checksumBackedUp = false;
+		boolean moved = false;
+		boolean replaced = false;
+		try {
+			backedUp = backup(file, backupFile);
+			checksumBackedUp = backup(checksumFile, backupChecksumFile);
+			rename(partFile, file);
+			moved = true;
+			rename(partChecksumFile, checksumFile);
+			replaced = true;
+		} finally {
+			if (replaced) {
+				backupFile.delete();
+				backupChecksumFile.delete();
+			} else {
+				partFile.delete();
+				partChecksumFile.delete();
+				if (moved) {
+					// the new snapshot is in place without its checksum
+					file.delete();
+				}
+				// dont mask the failure, a backup that cant be restored is kept
+				if (backedUp) {
+					backupFile.renameTo(file);
+				}
+				if (checksumBackedUp) {
+					backupChecksumFile.renameTo(checksumFile);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Renames the given file to the given backup if it exists. A stale backup
+	 * (ex. of a save that was killed) is replaced.
+	 * 
+	 * @return true if the file was backed up
+	 */
+	private static boolean backup(File file, File backupFile) throws IOException {
+		if (!file.exists()) {
+			return false;
+		}
+		if (backupFile.exists()
+				&& !backupFile.delete()) {
+			throw new IOException("Could not delete stale backup " + backupFile.getAbsolutePath());
+		}
+		rename(file, backupFile);
+		return true;
+	}
+
+	private static void rename(File source, File destination) throws IOException {
+		if (!source.renameTo(destination)) {
+			throw new IOException("Could not move " + source.getAbsolutePath() + " to " + destination.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Opens the given (snapshot) file for reading. The given listener is
+	 * notified of the bytes that are read.
+	 * 
+	 * @param file
+	 *            the file to read
+	 * @param listener
+	 *            the listener to notify of the progress, may be
+	 *            <code>null</code>
+	 * @return the stream to read the file from
+	 * @throws FileNotFoundException
+	 *             if the file does not exist
+	 */
+	public static InputStream open(File file, IProgressListener listener) throws FileNotFoundException {
+		Assert.notNull(file);
+
+		return new ProgressInputStream(new FileInputStream(file), file.length(), listener);
+	}
+
+	/**
+	 * Computes the SHA-256 checksum of the given file.
+	 * 
+	 * @param file
+	 *            the file to compute the checksum of
+	 * @return the checksum (hex)
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public static String checksum(File file) throws IOException {
+		Assert.notNull(file);
+
+		MessageDigest digest = createDigest();
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			while (channel.read(buffer) != -1) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+			return toHex(digest.digest());
+		} finally {
+			StreamUtils.close(in);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the given file matches the checksum that
+	 * was stored next to it when it was saved.
+	 * 
+	 * @param file
+	 *            the file to verify
+	 * @return true if the file matches its checksum
+	 * @throws FileNotFoundException
+	 *             if the file or its checksum file does not exist
+	 * @throws IOException
+	 *             if the file could not be read
+	 * 
+	 * @see #save(InputStream, File, IProgressListener)
+	 */
+	public static boolean verify(File file) throws IOException {
+		String checksum = readChecksum(file);
+		if (checksum == null) {
+			throw new FileNotFoundException("There is no checksum for " + file.getAbsolutePath());
+		}
+		return checksum.equalsIgnoreCase(checksum(file));
+	}
+
+	/**
+	 * Returns the checksum that was stored next to the given file or
+	 * <code>null</code> if there's none.
+	 * 
+	 * @param file
+	 *            the file to get the checksum of
+	 * @return the stored checksum (hex)
+	 * @throws IOException
+	 *             if the checksum file could not be read
+	 */
+	public static String readChecksum(File file) throws IOException {
+		Assert.notNull(file);
+
+		File checksumFile = getChecksumFile(file);
+		if (!checksumFile.exists()) {
+			return null;
+		}
+		BufferedReader reader = new BufferedReader(new FileReader(checksumFile));
+		try {
+			String line = reader.readLine();
+			if (line == null) {
+				return null;
+			}
+			// "<checksum>  <file name>"
+			return line.trim().split("\\s+")[0];
+		} finally {
+			StreamUtils.close(reader);
+		}
+	}
+
+	public static File getChecksumFile(File file) {
+		return new File(file.getPath() + CHECKSUM_FILE_SUFFIX);
+	}
+
+	private static void writeChecksum(String checksum, String fileName, File checksumFile) throws IOException {
+		FileWriter writer = new FileWriter(checksumFile);
+		try {
+			writer.write(checksum + "  " + fileName + "\n");
+		} finally {
+			StreamUtils.close(writer);
+		}
+	}
+
+	static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new OpenShiftException(e, "{0} is not supported by this jre", DIGEST_ALGORITHM);
+		}
+	}
+
+	static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(Character.forDigit((b >> 4) & 0xf, 16))
+					.append(Character.forDigit(b & 0xf, 16));
+		}
+		return builder.toString();
+	}
+
+	private static void notify(IProgressListener listener, long transferred, long total) {
+		if (listener != null) {
+			listener.onProgress(transferred, total);
+		}
+	}
+
+	/**
+	 * A stream that notifies a listener of the bytes that are read from it.
+	 */
+	private static class ProgressInputStream extends FilterInputStream {
+
+		private final long total;
+		private final IProgressListener listener;
+		private long transferred;
+
+		private ProgressInputStream(InputStream in, long total, IProgressListener listener) {
+			super(in);
+			this.total = total;
+			this.listener = listener;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = super.read();
+			if (read != -1) {
+				transferred(1);
+			}
+			return read;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				transferred(read);
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			transferred(skipped);
+			return skipped;
+		}
+
+		private void transferred(long bytes) {
+			this.transferred += bytes;
+			SnapshotFileUtils.notify(listener, transferred, total);
+		}
+	}
+}
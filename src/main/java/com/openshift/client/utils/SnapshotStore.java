@@ -0,0 +1,841 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * A store for incremental snapshots. A snapshot (the tar.gz that
+ * <code>snapshot</code> returns) is decomposed into its tar entries, the
+ * contents of the entries are split into chunks that are stored under their
+ * SHA-256 checksum. Chunks that are already in the store are not stored
+ * again, so that each run only adds the files that changed since the last
+ * one. The tar headers are kept in a (compressed) recipe per snapshot along
+ * with the checksums of its chunks.
+ * <p>
+ * A stored snapshot is reassembled from its recipe into a tar that is
+ * byte-identical to the tar of the original snapshot (and verified against
+ * its checksum while it is read). The tar is compressed again when it's
+ * opened, the gzip bytes may thus differ from the original ones:
+ * 
+ * <pre>
+ * SnapshotStore store = new SnapshotStore(new File("/backups/springeap6"));
+ * store.store("2014-06-01", session.saveFullSnapshot());
+ * ...
+ * session.restoreFullSnapshot(store.open("2014-06-01"), true);
+ * </pre>
+ * 
+ * Chunks that are no longer referenced once snapshots are deleted are removed
+ * by {@link #collectGarbage()}. Garbage collection must not run while
+ * snapshots are stored.
+ * 
+ * @author agent
+ * 
+ * @see TarFileUtils
+ * @see com.openshift.internal.client.ApplicationSSHSession#saveIncrementalSnapshot(SnapshotStore, String)
+ */
+public class SnapshotStore {
+
+	/** the maximum size of a chunk, larger entries are split into several chunks */
+	public static final int CHUNK_SIZE = 1024 * 1024;
+	/** the suffix of the recipe files */
+	public static final String RECIPE_FILE_SUFFIX = ".recipe";
+
+	private static final String CHUNKS_FOLDER_NAME = "chunks";
+	private static final String SNAPSHOTS_FOLDER_NAME = "snapshots";
+	private static final String PART_FILE_SUFFIX = ".part";
+
+	private static final int RECIPE_MAGIC = 0x4f535353;
+	private static final int RECIPE_VERSION = 1;
+	private static final byte RECORD_END = 0;
+	private static final byte RECORD_DATA = 1;
+	private static final byte RECORD_CHUNK = 2;
+	private static final int CHECKSUM_LENGTH = 32;
+
+	/** the maximum size of the tar headers that are held in memory before they're written */
+	private static final int MAX_PENDING_DATA = 64 * 1024;
+	private static final String PAX_SIZE = "size";
+
+	private final File chunksFolder;
+	private final File snapshotsFolder;
+
+	/**
+	 * Creates a store in the given folder. The folder is created if it does
+	 * not exist yet.
+	 * 
+	 * @param folder
+	 *            the folder to store the snapshots in
+	 * @throws IOException
+	 *             if the folder could not be created
+	 */
+	public SnapshotStore(File folder) throws IOException {
+		Assert.notNull(folder);
+
+		this.chunksFolder = createFolder(new File(folder, CHUNKS_FOLDER_NAME));
+		this.snapshotsFolder = createFolder(new File(folder, SNAPSHOTS_FOLDER_NAME));
+	}
+
+	private static File createFolder(File folder) throws IOException {
+		if (!folder.isDirectory()
+				&& !folder.mkdirs()) {
+			throw new IOException("Could not create folder " + folder.getAbsolutePath());
+		}
+		return folder;
+	}
+
+	/**
+	 * Stores the given snapshot (tar.gz) under the given name. Only the chunks
+	 * that are not in this store yet are written. An existing snapshot with
+	 * the same name is replaced once the given one is completely stored. The
+	 * given snapshot is not closed.
+	 * 
+	 * @param name
+	 *            the name of the snapshot
+	 * @param snapshot
+	 *            the snapshot to store
+	 * @return the statistics of the stored snapshot
+	 * @throws IOException
+	 *             if the snapshot could not be read or stored
+	 */
+	public StoredSnapshot store(String name, InputStream snapshot) throws IOException {
+		Assert.notNull(name);
+		Assert.notNull(snapshot);
+
+		File recipeFile = getRecipeFile(name);
+		File partFile = new File(recipeFile.getPath() + PART_FILE_SUFFIX);
+		RecipeWriter writer = new RecipeWriter(name, partFile);
+		boolean stored = false;
+		try {
+			split(new GzipCompressorInputStream(new NonClosingInputStream(snapshot), true), writer);
+			writer.close();
+			stored = true;
+		} finally {
+			if (!stored) {
+				writer.abort();
+				partFile.delete();
+			}
+		}
+		if (recipeFile.exists()
+				&& !recipeFile.delete()) {
+			partFile.delete();
+			throw new IOException("Could not replace snapshot " + recipeFile.getAbsolutePath());
+		}
+		if (!partFile.renameTo(recipeFile)) {
+			throw new IOException("Could not move " + partFile.getAbsolutePath() + " to " + recipeFile.getAbsolutePath());
+		}
+		return writer.getStoredSnapshot();
+	}
+
+	/**
+	 * Splits the given tar into the headers (and paddings) that are kept in
+	 * the recipe and the contents of the entries that are stored as chunks.
+	 * The tar is parsed block by block so that all bytes are kept as they
+	 * are.
+	 */
+	private void split(InputStream tar, RecipeWriter writer) throws IOException {
+		byte[] header = new byte[TarConstants.DEFAULT_RCDSIZE];
+		long nextEntrySize = -1;
+		for (int read = 0; (read = SnapshotFileUtils.fill(tar, header)) > 0;) {
+			writer.writeData(header, 0, read);
+			if (read < header.length
+					|| isEndOfArchive(header)) {
+				// keep anything that follows the end of the archive as it is
+				copyRemainder(tar, writer);
+				break;
+			}
+			TarArchiveEntry entry = createEntry(header);
+			long size = nextEntrySize == -1 ? entry.getSize() : nextEntrySize;
+			nextEntrySize = -1;
+			if (entry.isPaxHeader()) {
+				byte[] paxHeaders = readFully(tar, size);
+				writer.writeData(paxHeaders, 0, paxHeaders.length);
+				nextEntrySize = getPaxSize(paxHeaders);
+			} else if (entry.isGlobalPaxHeader()
+					|| entry.isGNULongNameEntry()
+					|| entry.isGNULongLinkEntry()) {
+				copyData(tar, writer, size);
+			} else {
+				writer.writeChunks(tar, size);
+			}
+			copyData(tar, writer, TarFileUtils.getPadding(size));
+		}
+	}
+
+	private static boolean isEndOfArchive(byte[] header) {
+		for (byte b : header) {
+			if (b != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static TarArchiveEntry createEntry(byte[] header) throws IOException {
+		try {
+			return new TarArchiveEntry(header);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Snapshot is not a valid tar archive: " + e.getMessage());
+		}
+	}
+
+	private static byte[] readFully(InputStream in, long size) throws IOException {
+		if (size > MAX_PENDING_DATA) {
+			throw new IOException("Snapshot has a pax header of " + size + " bytes");
+		}
+		byte[] data = new byte[(int) size];
+		if (SnapshotFileUtils.fill(in, data) < data.length) {
+			throw new EOFException("Snapshot ended within a pax header");
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the size of the next entry if the given pax headers hold it, -1
+	 * otherwise.
+	 */
+	private static long getPaxSize(byte[] paxHeaders) throws IOException {
+		String size = TarFileUtils.parsePaxHeaders(paxHeaders).get(PAX_SIZE);
+		if (size == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(size);
+		} catch (NumberFormatException e) {
+			throw new IOException("Snapshot has an invalid pax size: " + size);
+		}
+	}
+
+	private static int fill(InputStream in, byte[] buffer, int length) throws IOException {
+		int filled = 0;
+		for (int read = 0; filled < length
+				&& (read = in.read(buffer, filled, length - filled)) != -1;) {
+			filled += read;
+		}
+		return filled;
+	}
+
+	private static void copyData(InputStream in, RecipeWriter writer, long length) throws IOException {
+		byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+		for (int read = 0; length > 0
+				&& (read = in.read(buffer, 0, (int) Math.min(buffer.length, length))) != -1;) {
+			writer.writeData(buffer, 0, read);
+			length -= read;
+		}
+		if (length > 0) {
+			throw new EOFException("Snapshot ended within an entry");
+		}
+	}
+
+	private static void copyRemainder(InputStream in, RecipeWriter writer) throws IOException {
+		byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+		for (int read = 0; (read = in.read(buffer)) != -1;) {
+			writer.writeData(buffer, 0, read);
+		}
+	}
+
+	/**
+	 * Opens the snapshot with the given name. The snapshot is reassembled from
+	 * its chunks and compressed while it is read. Reading fails if the
+	 * reassembled tar does not match the checksum of the original one.
+	 * 
+	 * @param name
+	 *            the name of the snapshot
+	 * @return the snapshot (tar.gz)
+	 * @throws IOException
+	 *             if there's no snapshot with the given name
+	 * 
+	 * @see #openTar(String)
+	 */
+	public InputStream open(String name) throws IOException {
+		return new GzipCompressingInputStream(openTar(name));
+	}
+
+	/**
+	 * Opens the (uncompressed) tar of the snapshot with the given name.
+	 * 
+	 * @param name
+	 *            the name of the snapshot
+	 * @return the tar of the snapshot
+	 * @throws IOException
+	 *             if there's no snapshot with the given name
+	 */
+	public InputStream openTar(String name) throws IOException {
+		Assert.notNull(name);
+
+		File recipeFile = getRecipeFile(name);
+		if (!recipeFile.isFile()) {
+			throw new IOException("There is no snapshot " + name + " in " + snapshotsFolder.getAbsolutePath());
+		}
+		return new TarInputStream(openRecipe(recipeFile));
+	}
+
+	public boolean exists(String name) {
+		return getRecipeFile(name).isFile();
+	}
+
+	/**
+	 * Returns the names of the snapshots in this store, sorted by name.
+	 * 
+	 * @return the names of the snapshots
+	 */
+	public List<String> getNames() {
+		List<String> names = new ArrayList<String>();
+		String[] fileNames = snapshotsFolder.list();
+		if (fileNames != null) {
+			for (String fileName : fileNames) {
+				if (fileName.endsWith(RECIPE_FILE_SUFFIX)) {
+					names.add(fileName.substring(0, fileName.length() - RECIPE_FILE_SUFFIX.length()));
+				}
+			}
+		}
+		Collections.sort(names);
+		return names;
+	}
+
+	/**
+	 * Deletes the snapshot with the given name. Its chunks are kept until
+	 * garbage is collected.
+	 * 
+	 * @param name
+	 *            the name of the snapshot
+	 * @return true if the snapshot was deleted
+	 * 
+	 * @see #collectGarbage()
+	 */
+	public boolean delete(String name) {
+		return getRecipeFile(name).delete();
+	}
+
+	/**
+	 * Deletes the chunks that none of the snapshots in this store refer to.
+	 * Must not be called while snapshots are stored, the chunks of a snapshot
+	 * that is being stored are not referred to yet.
+	 * 
+	 * @return the number of chunks that were deleted
+	 * @throws IOException
+	 *             if the recipes could not be read
+	 */
+	public int collectGarbage() throws IOException {
+		Set<String> referencedChunks = new HashSet<String>();
+		for (String name : getNames()) {
+			DataInputStream recipe = openRecipe(getRecipeFile(name));
+			try {
+				for (byte type = 0; (type = recipe.readByte()) != RECORD_END;) {
+					if (type == RECORD_CHUNK) {
+						referencedChunks.add(readChunkRecord(recipe).checksum);
+					} else {
+						skipDataRecord(recipe);
+					}
+				}
+			} finally {
+				StreamUtils.quietlyClose(recipe);
+			}
+		}
+		int deleted = 0;
+		File[] folders = chunksFolder.listFiles();
+		if (folders == null) {
+			return 0;
+		}
+		for (File folder : folders) {
+			File[] chunks = folder.listFiles();
+			if (chunks == null) {
+				continue;
+			}
+			for (File chunk : chunks) {
+				if (!referencedChunks.contains(chunk.getName())
+						&& chunk.delete()) {
+					deleted++;
+				}
+			}
+		}
+		return deleted;
+	}
+
+	private File getRecipeFile(String name) {
+		return new File(snapshotsFolder, name + RECIPE_FILE_SUFFIX);
+	}
+
+	private File getChunkFile(String checksum) {
+		// fan out so that folders do not get too large
+		return new File(new File(chunksFolder, checksum.substring(0, 2)), checksum);
+	}
+
+	private static DataInputStream openRecipe(File recipeFile) throws IOException {
+		DataInputStream recipe = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(new FileInputStream(recipeFile))));
+		try {
+			if (recipe.readInt() != RECIPE_MAGIC
+					|| recipe.readInt() != RECIPE_VERSION) {
+				throw new IOException(recipeFile.getAbsolutePath() + " is not a snapshot recipe");
+			}
+			return recipe;
+		} catch (IOException e) {
+			StreamUtils.quietlyClose(recipe);
+			throw e;
+		}
+	}
+
+	private static ChunkRecord readChunkRecord(DataInputStream recipe) throws IOException {
+		byte[] checksum = new byte[CHECKSUM_LENGTH];
+		recipe.readFully(checksum);
+		return new ChunkRecord(SnapshotFileUtils.toHex(checksum), recipe.readInt());
+	}
+
+	private static void skipDataRecord(DataInputStream recipe) throws IOException {
+		int length = recipe.readInt();
+		if (recipe.skipBytes(length) < length) {
+			throw new EOFException("Snapshot recipe is truncated");
+		}
+	}
+
+	/**
+	 * Writes the recipe of a snapshot and the chunks that are not in the
+	 * store yet.
+	 */
+	private class RecipeWriter {
+
+		private final String name;
+		private final DataOutputStream recipe;
+		private final MessageDigest tarDigest = SnapshotFileUtils.createDigest();
+		private final MessageDigest chunkDigest = SnapshotFileUtils.createDigest();
+		private final ByteArrayOutputStream pendingData = new ByteArrayOutputStream();
+		private final byte[] chunk = new byte[CHUNK_SIZE];
+		private long size;
+		private long storedSize;
+		private int chunks;
+		private int newChunks;
+		private byte[] checksum;
+
+		private RecipeWriter(String name, File file) throws IOException {
+			this.name = name;
+			this.recipe = new DataOutputStream(
+					new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))));
+			recipe.writeInt(RECIPE_MAGIC);
+			recipe.writeInt(RECIPE_VERSION);
+		}
+
+		private void writeData(byte[] data, int offset, int length) throws IOException {
+			pendingData.write(data, offset, length);
+			tarDigest.update(data, offset, length);
+			size += length;
+			if (pendingData.size() >= MAX_PENDING_DATA) {
+				flushData();
+			}
+		}
+
+		private void flushData() throws IOException {
+			if (pendingData.size() == 0) {
+				return;
+			}
+			recipe.writeByte(RECORD_DATA);
+			recipe.writeInt(pendingData.size());
+			pendingData.writeTo(recipe);
+			pendingData.reset();
+		}
+
+		private void writeChunks(InputStream in, long length) throws IOException {
+			flushData();
+			while (length > 0) {
+				int chunkLength = (int) Math.min(chunk.length, length);
+				int read = fill(in, chunk, chunkLength);
+				if (read < chunkLength) {
+					throw new EOFException("Snapshot ended within an entry");
+				}
+				writeChunk(chunk, chunkLength);
+				length -= chunkLength;
+			}
+		}
+
+		private void writeChunk(byte[] data, int length) throws IOException {
+			tarDigest.update(data, 0, length);
+			chunkDigest.reset();
+			chunkDigest.update(data, 0, length);
+			byte[] checksum = chunkDigest.digest();
+			File file = getChunkFile(SnapshotFileUtils.toHex(checksum));
+			if (!file.exists()) {
+				storedSize += storeChunk(data, length, file);
+				newChunks++;
+			}
+			recipe.writeByte(RECORD_CHUNK);
+			recipe.write(checksum);
+			recipe.writeInt(length);
+			size += length;
+			chunks++;
+		}
+
+		private void close() throws IOException {
+			flushData();
+			this.checksum = tarDigest.digest();
+			recipe.writeByte(RECORD_END);
+			recipe.writeLong(size);
+			recipe.write(checksum);
+			recipe.close();
+		}
+
+		private void abort() {
+			StreamUtils.quietlyClose(recipe);
+		}
+
+		private StoredSnapshot getStoredSnapshot() {
+			return new StoredSnapshot(name, size, storedSize, chunks, newChunks, SnapshotFileUtils.toHex(checksum));
+		}
+	}
+
+	/**
+	 * Stores the given chunk compressed to a part file and moves it into
+	 * place. Another store may have stored the same chunk meanwhile, the
+	 * chunk that was moved first is kept.
+	 * 
+	 * @return the size of the stored chunk
+	 */
+	private static long storeChunk(byte[] data, int length, File file) throws IOException {
+		File folder = createFolder(file.getParentFile());
+		File partFile = File.createTempFile(file.getName(), PART_FILE_SUFFIX, folder);
+		OutputStream out = null;
+		try {
+			out = new GZIPOutputStream(new FileOutputStream(partFile));
+			out.write(data, 0, length);
+			out.close();
+			out = null;
+			if (!partFile.renameTo(file)
+					&& !file.exists()) {
+				throw new IOException("Could not move " + partFile.getAbsolutePath() + " to " + file.getAbsolutePath());
+			}
+			return file.length();
+		} finally {
+			StreamUtils.quietlyClose(out);
+			partFile.delete();
+		}
+	}
+
+	private static class ChunkRecord {
+
+		private final String checksum;
+		private final int length;
+
+		private ChunkRecord(String checksum, int length) {
+			this.checksum = checksum;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * Reassembles the tar of a snapshot from its recipe and chunks. Fails at
+	 * the end of the tar if it does not match the checksum of the original
+	 * one.
+	 */
+	private class TarInputStream extends InputStream {
+
+		private final DataInputStream recipe;
+		private final MessageDigest digest = SnapshotFileUtils.createDigest();
+		private InputStream current;
+		private int remaining;
+		private long size;
+		private boolean ended;
+
+		private TarInputStream(DataInputStream recipe) {
+			this.recipe = recipe;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			int read = read(b, 0, 1);
+			if (read == -1) {
+				return -1;
+			}
+			return b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			while (remaining == 0) {
+				if (ended
+						|| !next()) {
+					return -1;
+				}
+			}
+			int read = current.read(buffer, offset, Math.min(length, remaining));
+			if (read == -1) {
+				throw new EOFException("Snapshot chunk is truncated");
+			}
+			digest.update(buffer, offset, read);
+			remaining -= read;
+			size += read;
+			return read;
+		}
+
+		private boolean next() throws IOException {
+			closeCurrent();
+			byte type = recipe.readByte();
+			switch (type) {
+			case RECORD_DATA:
+				this.remaining = recipe.readInt();
+				this.current = recipe;
+				return true;
+			case RECORD_CHUNK:
+				ChunkRecord chunk = readChunkRecord(recipe);
+				File file = getChunkFile(chunk.checksum);
+				if (!file.isFile()) {
+					throw new IOException("Snapshot chunk " + file.getAbsolutePath() + " is missing");
+				}
+				this.remaining = chunk.length;
+				this.current = new GZIPInputStream(new FileInputStream(file));
+				return true;
+			case RECORD_END:
+				this.ended = true;
+				verify(recipe.readLong());
+				return false;
+			default:
+				throw new IOException("Snapshot recipe is corrupt");
+			}
+		}
+
+		private void verify(long expectedSize) throws IOException {
+			byte[] expectedChecksum = new byte[CHECKSUM_LENGTH];
+			recipe.readFully(expectedChecksum);
+			if (size != expectedSize
+					|| !MessageDigest.isEqual(expectedChecksum, digest.digest())) {
+				throw new IOException("Reassembled snapshot does not match its checksum "
+						+ SnapshotFileUtils.toHex(expectedChecksum));
+			}
+		}
+
+		private void closeCurrent() {
+			if (current != null
+					&& current != recipe) {
+				StreamUtils.quietlyClose(current);
+			}
+			this.current = null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			closeCurrent();
+			recipe.close();
+		}
+	}
+
+	/**
+	 * Compresses a stream to gzip while it's read.
+	 */
+	private static class GzipCompressingInputStream extends InputStream {
+
+		private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+		private static final int TRAILER_LENGTH = 8;
+
+		private final InputStream in;
+		private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		private final CRC32 crc = new CRC32();
+		private final byte[] input = new byte[StreamUtils.BUFFER_SIZE];
+		private int headerPosition;
+		private byte[] trailer;
+		private int trailerPosition;
+
+		private GzipCompressingInputStream(InputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			int read = read(b, 0, 1);
+			if (read == -1) {
+				return -1;
+			}
+			return b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			if (headerPosition < HEADER.length) {
+				int read = Math.min(length, HEADER.length - headerPosition);
+				System.arraycopy(HEADER, headerPosition, buffer, offset, read);
+				headerPosition += read;
+				return read;
+			}
+			while (!deflater.finished()) {
+				if (deflater.needsInput()) {
+					int read = in.read(input);
+					if (read == -1) {
+						deflater.finish();
+					} else if (read > 0) {
+						crc.update(input, 0, read);
+						deflater.setInput(input, 0, read);
+					}
+				}
+				int deflated = deflater.deflate(buffer, offset, length);
+				if (deflated > 0) {
+					return deflated;
+				}
+			}
+			return readTrailer(buffer, offset, length);
+		}
+
+		private int readTrailer(byte[] buffer, int offset, int length) {
+			if (trailer == null) {
+				this.trailer = new byte[TRAILER_LENGTH];
+				writeInt((int) crc.getValue(), trailer, 0);
+				writeInt(deflater.getTotalIn(), trailer, 4);
+			}
+			if (trailerPosition == trailer.length) {
+				return -1;
+			}
+			int read = Math.min(length, trailer.length - trailerPosition);
+			System.arraycopy(trailer, trailerPosition, buffer, offset, read);
+			trailerPosition += read;
+			return read;
+		}
+
+		private static void writeInt(int value, byte[] buffer, int offset) {
+			// little endian
+			for (int i = 0; i < 4; i++) {
+				buffer[offset + i] = (byte) (value >> (i * 8));
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			deflater.end();
+			in.close();
+		}
+	}
+
+	/**
+	 * Keeps the given snapshot open once the gzip stream that reads it is
+	 * closed.
+	 */
+	private static class NonClosingInputStream extends FilterInputStream {
+
+		private NonClosingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public void close() {
+			// the caller closes the snapshot
+		}
+	}
+
+	/**
+	 * The statistics of a snapshot that was stored.
+	 */
+	public static class StoredSnapshot {
+
+		private final String name;
+		private final long size;
+		private final long storedSize;
+		private final int chunks;
+		private final int newChunks;
+		private final String checksum;
+
+		StoredSnapshot(String name, long size, long storedSize, int chunks, int newChunks, String checksum) {
+			this.name = name;
+			this.size = size;
+			this.storedSize = storedSize;
+			this.chunks = chunks;
+			this.newChunks = newChunks;
+			this.checksum = checksum;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the size of the (uncompressed) tar of the snapshot.
+		 * 
+		 * @return the size in bytes
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns the (compressed) size of the chunks that were added to the
+		 * store for this snapshot.
+		 * 
+		 * @return the size of the new chunks in bytes
+		 */
+		public long getStoredSize() {
+			return storedSize;
+		}
+
+		public int getChunks() {
+			return chunks;
+		}
+
+		/**
+		 * Returns the number of chunks that were not in the store yet.
+		 * 
+		 * @return the number of new chunks
+		 */
+		public int getNewChunks() {
+			return newChunks;
+		}
+
+		/**
+		 * Returns the SHA-256 checksum of the (uncompressed) tar of the
+		 * snapshot.
+		 * 
+		 * @return the checksum (hex)
+		 */
+		public String getChecksum() {
+			return checksum;
+		}
+
+		@Override
+		public String toString() {
+			return "StoredSnapshot ["
+					+ "name=" + name
+					+ ", size=" + size
+					+ ", storedSize=" + storedSize
+					+ ", chunks=" + chunks
+					+ ", newChunks=" + newChunks
+					+ "]";
+		}
+	}
+}
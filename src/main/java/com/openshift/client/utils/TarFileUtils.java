@@ -12,10 +12,10 @@ package com.openshift.client.utils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
-import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
 
 import com.openshift.internal.client.utils.StreamUtils;
 
@@ -24,27 +24,133 @@ import com.openshift.internal.client.utils.StreamUtils;
  */
 public class TarFileUtils {
 
-	private static final String GIT_FOLDER_NAME = "git";
+	/** the name of the folder that holds the git repository within a snapshot */
+	public static final String GIT_FOLDER_NAME = "git";
 
 	private TarFileUtils() {
 		// inhibit instantiation
 	}
 
+	/**
+	 * Returns <code>true</code> if the given snapshot (tar.gz) has a git
+	 * folder. Reading stops as soon as the folder is found. The given stream
+	 * is closed.
+	 * 
+	 * @param inputStream
+	 *            the snapshot
+	 * @return true if the snapshot has a git folder
+	 * @throws IOException
+	 *             if the snapshot could not be read
+	 * 
+	 * @see #inspect(InputStream)
+	 */
 	public static boolean hasGitFolder(InputStream inputStream) throws IOException {
-		TarArchiveInputStream tarInputStream = null;
 		try {
-			boolean gitFolderPresent = false;
-			tarInputStream = new TarArchiveInputStream(new GzipCompressorInputStream(inputStream));
-			for (TarArchiveEntry entry = null; (entry = tarInputStream.getNextTarEntry()) != null;) {
-				if (GIT_FOLDER_NAME.equals(entry.getName())
-						&& entry.isDirectory()) {
-					gitFolderPresent = true;
-					break;
-				}
+			TarInspector inspector = new TarInspector(true);
+			byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+			for (int read = 0; !inspector.getIndex().hasGitFolder()
+					&& !inspector.isEnded()
+					&& (read = inputStream.read(buffer)) != -1;) {
+				inspector.update(buffer, 0, read);
 			}
-			return gitFolderPresent;
+			return inspector.getIndex().hasGitFolder();
 		} finally {
-			StreamUtils.close(tarInputStream);
+			StreamUtils.close(inputStream);
 		}
 	}
+
+	/**
+	 * Reads the given snapshot (tar.gz) to its end and returns the index of
+	 * its entries. The given stream is not closed.
+	 * 
+	 * @param inputStream
+	 *            the snapshot
+	 * @return the index of the entries
+	 * @throws IOException
+	 *             if the snapshot could not be read or is not a tar.gz
+	 */
+	public static TarIndex index(InputStream inputStream) throws IOException {
+		TarInspector inspector = new TarInspector(true);
+		byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+		for (int read = 0; (read = inputStream.read(buffer)) != -1;) {
+			inspector.update(buffer, 0, read);
+		}
+		return inspector.finish();
+	}
+
+	/**
+	 * Returns a stream that indexes the given snapshot (tar.gz) while it is
+	 * read. The snapshot may thus be inspected in the same pass that it is
+	 * restored.
+	 * 
+	 * @param inputStream
+	 *            the snapshot
+	 * @return the inspecting stream
+	 * 
+	 * @see TarInspectingInputStream#getIndex()
+	 */
+	public static TarInspectingInputStream inspect(InputStream inputStream) {
+		return new TarInspectingInputStream(inputStream, true);
+	}
+
+	/**
+	 * Returns the number of bytes that pad the content of the given size to a
+	 * full tar record.
+	 * 
+	 * @param size
+	 *            the size of the content of an entry
+	 * @return the number of padding bytes
+	 */
+	static long getPadding(long size) {
+		long remainder = size % TarConstants.DEFAULT_RCDSIZE;
+		if (remainder == 0) {
+			return 0;
+		}
+		return TarConstants.DEFAULT_RCDSIZE - remainder;
+	}
+
+	/**
+	 * Parses the given pax headers. Pax headers are records of the form
+	 * "&lt;length&gt; &lt;key&gt;=&lt;value&gt;\n" where the length counts the
+	 * bytes of the whole record.
+	 * 
+	 * @param paxHeaders
+	 *            the content of a pax header entry
+	 * @return the values by key
+	 * @throws IOException
+	 *             if the headers are malformed
+	 */
+	static Map<String, String> parsePaxHeaders(byte[] paxHeaders) throws IOException {
+		Map<String, String> headers = new HashMap<String, String>();
+		int start = 0;
+		while (start < paxHeaders.length) {
+			int space = start;
+			while (space < paxHeaders.length
+					&& paxHeaders[space] != ' ') {
+				space++;
+			}
+			if (space == paxHeaders.length) {
+				break;
+			}
+			int length;
+			try {
+				length = Integer.parseInt(new String(paxHeaders, start, space - start, StreamUtils.UTF_8));
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid pax header at " + start);
+			}
+			int end = start + length;
+			if (length <= 0
+					|| end > paxHeaders.length) {
+				throw new IOException("Invalid pax header length " + length + " at " + start);
+			}
+			// "<key>=<value>" without the trailing newline
+			String record = new String(paxHeaders, space + 1, end - space - 2, StreamUtils.UTF_8);
+			int equals = record.indexOf('=');
+			if (equals != -1) {
+				headers.put(record.substring(0, equals), record.substring(equals + 1));
+			}
+			start = end;
+		}
+		return headers;
+	}
 }
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the entries of a tar archive that was built while the archive
+ * was read once. It holds the names, sizes, types and offsets of the entries
+ * and answers questions about the archive (ex. whether it has a git folder)
+ * without reading it again. Entries are looked up by their normalized names,
+ * the names without a leading "./" and a trailing "/".
+ * 
+ * @author agent
+ * 
+ * @see TarInspector
+ * @see TarFileUtils#index(java.io.InputStream)
+ */
+public class TarIndex {
+
+	private static final String CURRENT_FOLDER_PREFIX = "./";
+	private static final String FOLDER_SUFFIX = "/";
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+	private final Map<String, Entry> entriesByName = new HashMap<String, Entry>();
+	private long totalSize;
+	private boolean complete;
+
+	TarIndex() {
+	}
+
+	void add(Entry entry) {
+		entries.add(entry);
+		entriesByName.put(normalize(entry.getName()), entry);
+		if (entry.getType() == EntryType.FILE) {
+			totalSize += entry.getSize();
+		}
+	}
+
+	void setComplete() {
+		this.complete = true;
+	}
+
+	/**
+	 * Returns the given entry name without a leading "./" and trailing "/".
+	 * 
+	 * @param name
+	 *            the name to normalize
+	 * @return the normalized name
+	 */
+	public static String normalize(String name) {
+		if (name == null) {
+			return null;
+		}
+		while (name.startsWith(CURRENT_FOLDER_PREFIX)) {
+			name = name.substring(CURRENT_FOLDER_PREFIX.length());
+		}
+		while (name.endsWith(FOLDER_SUFFIX)) {
+			name = name.substring(0, name.length() - FOLDER_SUFFIX.length());
+		}
+		return name;
+	}
+
+	/**
+	 * Returns the entries in the order of the archive.
+	 * 
+	 * @return the entries
+	 */
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * Returns the entry with the given name or <code>null</code> if there's
+	 * none. The last entry wins if the archive holds several entries with the
+	 * same name.
+	 * 
+	 * @param name
+	 *            the name of the entry, with or without "./" and trailing "/"
+	 * @return the entry with the given name
+	 */
+	public Entry getEntry(String name) {
+		return entriesByName.get(normalize(name));
+	}
+
+	public boolean contains(String name) {
+		return getEntry(name) != null;
+	}
+
+	/**
+	 * Returns <code>true</code> if the archive has a folder with the given
+	 * name.
+	 * 
+	 * @param name
+	 *            the name of the folder
+	 * @return true if there's such a folder
+	 */
+	public boolean hasFolder(String name) {
+		Entry entry = getEntry(name);
+		return entry != null
+				&& entry.getType() == EntryType.DIRECTORY;
+	}
+
+	/**
+	 * Returns <code>true</code> if the archive has a (top level) git folder.
+	 * 
+	 * @return true if there's a git folder
+	 * 
+	 * @see TarFileUtils#GIT_FOLDER_NAME
+	 */
+	public boolean hasGitFolder() {
+		return hasFolder(TarFileUtils.GIT_FOLDER_NAME);
+	}
+
+	/**
+	 * Returns the sum of the sizes of all files in the archive.
+	 * 
+	 * @return the total size in bytes
+	 */
+	public long getTotalSize() {
+		return totalSize;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns <code>true</code> if the archive was read to its end. An index
+	 * that is not complete only holds the entries that were read so far.
+	 * 
+	 * @return true if all entries were indexed
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	@Override
+	public String toString() {
+		return "TarIndex ["
+				+ "entries=" + entries.size()
+				+ ", totalSize=" + totalSize
+				+ ", complete=" + complete
+				+ "]";
+	}
+
+	public enum EntryType {
+		FILE, DIRECTORY, SYMBOLIC_LINK, HARD_LINK, OTHER
+	}
+
+	/**
+	 * An entry of a tar archive. The offsets are positions within the
+	 * uncompressed archive.
+	 */
+	public static class Entry {
+
+		private final String name;
+		private final EntryType type;
+		private final long size;
+		private final long offset;
+		private final long dataOffset;
+
+		Entry(String name, EntryType type, long size, long offset, long dataOffset) {
+			this.name = name;
+			this.type = type;
+			this.size = size;
+			this.offset = offset;
+			this.dataOffset = dataOffset;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public EntryType getType() {
+			return type;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns the offset of the first header of this entry (including the
+		 * headers of long names and pax headers).
+		 * 
+		 * @return the offset of the entry
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * Returns the offset of the content of this entry.
+		 * 
+		 * @return the offset of the content
+		 */
+		public long getDataOffset() {
+			return dataOffset;
+		}
+
+		@Override
+		public String toString() {
+			return "Entry ["
+					+ "name=" + name
+					+ ", type=" + type
+					+ ", size=" + size
+					+ ", offset=" + offset
+					+ "]";
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * A stream that inspects the archive that is read through it. The archive is
+ * thus indexed in the same pass that it is read by someone else, ex. while it
+ * is restored:
+ * 
+ * <pre>
+ * TarInspectingInputStream snapshot = TarFileUtils.inspect(new FileInputStream(file));
+ * session.restoreFullSnapshot(snapshot, true);
+ * ...
+ * TarIndex index = snapshot.getIndex();
+ * </pre>
+ * 
+ * Inspection never fails the reads: if the archive cannot be inspected the
+ * bytes are still handed out and {@link #getIndex()} reports the error.
+ * 
+ * @author agent
+ * 
+ * @see TarFileUtils#inspect(InputStream)
+ */
+public class TarInspectingInputStream extends FilterInputStream {
+
+	private final TarInspector inspector;
+	private IOException error;
+	private boolean finished;
+
+	public TarInspectingInputStream(InputStream in, boolean gzipped) {
+		super(in);
+		this.inspector = new TarInspector(gzipped);
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int read = read(b, 0, 1);
+		if (read == -1) {
+			return -1;
+		}
+		return b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		int read = super.read(buffer, offset, length);
+		if (read == -1) {
+			finish();
+		} else if (read > 0) {
+			inspect(buffer, offset, read);
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		// skipped bytes need to be inspected, too
+		byte[] buffer = new byte[(int) Math.min(n, StreamUtils.BUFFER_SIZE)];
+		long skipped = 0;
+		for (int read = 0; skipped < n
+				&& (read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped))) != -1;) {
+			skipped += read;
+		}
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void inspect(byte[] buffer, int offset, int length) {
+		if (error != null) {
+			return;
+		}
+		try {
+			inspector.update(buffer, offset, length);
+		} catch (IOException e) {
+			this.error = e;
+		}
+	}
+
+	private void finish() {
+		if (finished
+				|| error != null) {
+			return;
+		}
+		this.finished = true;
+		try {
+			inspector.finish();
+		} catch (IOException e) {
+			this.error = e;
+		}
+	}
+
+	/**
+	 * Returns the index of the archive. The index is complete once this
+	 * stream was read to its end.
+	 * 
+	 * @return the index of the entries that were read so far
+	 * @throws IOException
+	 *             if the archive could not be inspected
+	 * 
+	 * @see TarIndex#isComplete()
+	 */
+	public TarIndex getIndex() throws IOException {
+		if (error != null) {
+			throw error;
+		}
+		return inspector.getIndex();
+	}
+}
@@ -0,0 +1,410 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+
+import com.openshift.client.utils.TarIndex.Entry;
+import com.openshift.client.utils.TarIndex.EntryType;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * Builds the index of a tar (or tar.gz) archive from the bytes that it's
+ * given. The bytes are pushed to the inspector (instead of being pulled from
+ * a stream) so that an archive may be inspected while it is read by someone
+ * else, ex. while it is uploaded. The headers are decoded by commons-compress,
+ * the contents of the entries are skipped.
+ * 
+ * @author agent
+ * 
+ * @see TarIndex
+ * @see TarInspectingInputStream
+ */
+public class TarInspector {
+
+	/** the maximum size of the long name and pax headers that are parsed */
+	private static final int MAX_EXTENDED_HEADER_SIZE = 1024 * 1024;
+	private static final String PAX_PATH = "path";
+	private static final String PAX_SIZE = "size";
+
+	private final GzipDecoder gzip;
+	private final TarIndex index = new TarIndex();
+	private final byte[] header = new byte[TarConstants.DEFAULT_RCDSIZE];
+	private int headerPosition;
+	private ByteArrayOutputStream extendedHeader;
+	private long remainingExtendedHeader;
+	private long remainingSkip;
+	private long position;
+	private long entryOffset = -1;
+	private String nextName;
+	private long nextSize = -1;
+	private boolean ended;
+
+	/**
+	 * Creates an inspector for a tar archive that is compressed with gzip if
+	 * the given flag is set.
+	 * 
+	 * @param gzipped
+	 *            whether the archive is a tar.gz
+	 */
+	public TarInspector(boolean gzipped) {
+		this.gzip = gzipped ? new GzipDecoder() : null;
+	}
+
+	/**
+	 * Inspects the given bytes of the archive.
+	 * 
+	 * @param buffer
+	 *            the buffer that holds the bytes
+	 * @param offset
+	 *            the offset of the bytes in the buffer
+	 * @param length
+	 *            the number of bytes
+	 * @throws IOException
+	 *             if the bytes are not a valid archive
+	 */
+	public void update(byte[] buffer, int offset, int length) throws IOException {
+		if (gzip != null) {
+			gzip.update(buffer, offset, length);
+		} else {
+			updateTar(buffer, offset, length);
+		}
+	}
+
+	/**
+	 * Marks the end of the archive. The index is complete if the end of the
+	 * tar was reached.
+	 * 
+	 * @return the index of the archive
+	 * @throws IOException
+	 *             if the archive was truncated
+	 */
+	public TarIndex finish() throws IOException {
+		if (gzip != null) {
+			gzip.finish();
+		}
+		if (!ended
+				&& (headerPosition > 0
+						|| remainingSkip > 0
+						|| remainingExtendedHeader > 0)) {
+			throw new EOFException("Archive is truncated at " + position);
+		}
+		index.setComplete();
+		return index;
+	}
+
+	/**
+	 * Returns the index of the entries that were inspected so far.
+	 * 
+	 * @return the index
+	 */
+	public TarIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns <code>true</code> if the end of the tar was reached.
+	 * 
+	 * @return true if all entries were inspected
+	 */
+	public boolean isEnded() {
+		return ended;
+	}
+
+	private void updateTar(byte[] buffer, int offset, int length) throws IOException {
+		int end = offset + length;
+		while (offset < end
+				&& !ended) {
+			if (remainingExtendedHeader > 0) {
+				int read = (int) Math.min(remainingExtendedHeader, end - offset);
+				extendedHeader.write(buffer, offset, read);
+				remainingExtendedHeader -= read;
+				offset += read;
+				position += read;
+				if (remainingExtendedHeader == 0) {
+					onExtendedHeader();
+				}
+			} else if (remainingSkip > 0) {
+				int skipped = (int) Math.min(remainingSkip, end - offset);
+				remainingSkip -= skipped;
+				offset += skipped;
+				position += skipped;
+			} else {
+				int read = Math.min(header.length - headerPosition, end - offset);
+				System.arraycopy(buffer, offset, header, headerPosition, read);
+				headerPosition += read;
+				offset += read;
+				position += read;
+				if (headerPosition == header.length) {
+					headerPosition = 0;
+					onHeader();
+				}
+			}
+		}
+		// anything that follows the end of the tar is ignored
+		position += end - offset;
+	}
+
+	private void onHeader() throws IOException {
+		long headerOffset = position - header.length;
+		if (isZero(header)) {
+			this.ended = true;
+			return;
+		}
+		TarArchiveEntry entry;
+		try {
+			entry = new TarArchiveEntry(header);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Archive has an invalid tar header at " + headerOffset + ": " + e.getMessage());
+		}
+		if (entryOffset == -1) {
+			this.entryOffset = headerOffset;
+		}
+		long size = nextSize == -1 ? entry.getSize() : nextSize;
+		if (entry.isPaxHeader()
+				|| entry.isGNULongNameEntry()) {
+			if (size > MAX_EXTENDED_HEADER_SIZE) {
+				throw new IOException("Archive has an extended header of " + size + " bytes at " + headerOffset);
+			}
+			this.extendedHeader = new ByteArrayOutputStream((int) size);
+			this.remainingExtendedHeader = size;
+			this.remainingSkip = TarFileUtils.getPadding(size);
+			if (size == 0) {
+				onExtendedHeader();
+			}
+			return;
+		}
+		if (!entry.isGlobalPaxHeader()
+				&& !entry.isGNULongLinkEntry()) {
+			String name = nextName == null ? entry.getName() : nextName;
+			index.add(new Entry(name, getType(entry), size, entryOffset, position));
+			this.entryOffset = -1;
+			this.nextName = null;
+			this.nextSize = -1;
+		}
+		this.remainingSkip = size + TarFileUtils.getPadding(size);
+	}
+
+	private void onExtendedHeader() throws IOException {
+		byte[] content = extendedHeader.toByteArray();
+		this.extendedHeader = null;
+		TarArchiveEntry entry = new TarArchiveEntry(header);
+		if (entry.isGNULongNameEntry()) {
+			// the name is terminated by a zero
+			int length = 0;
+			while (length < content.length
+					&& content[length] != 0) {
+				length++;
+			}
+			this.nextName = new String(content, 0, length, StreamUtils.UTF_8);
+		} else {
+			Map<String, String> paxHeaders = TarFileUtils.parsePaxHeaders(content);
+			if (paxHeaders.containsKey(PAX_PATH)) {
+				this.nextName = paxHeaders.get(PAX_PATH);
+			}
+			if (paxHeaders.containsKey(PAX_SIZE)) {
+				try {
+					this.nextSize = Long.parseLong(paxHeaders.get(PAX_SIZE));
+				} catch (NumberFormatException e) {
+					throw new IOException("Archive has an invalid pax size: " + paxHeaders.get(PAX_SIZE));
+				}
+			}
+		}
+	}
+
+	private static EntryType getType(TarArchiveEntry entry) {
+		if (entry.isDirectory()) {
+			return EntryType.DIRECTORY;
+		} else if (entry.isSymbolicLink()) {
+			return EntryType.SYMBOLIC_LINK;
+		} else if (entry.isLink()) {
+			return EntryType.HARD_LINK;
+		} else if (entry.isFile()) {
+			return EntryType.FILE;
+		}
+		return EntryType.OTHER;
+	}
+
+	private static boolean isZero(byte[] header) {
+		for (byte b : header) {
+			if (b != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Decompresses the (possibly concatenated) members of a gzip stream that
+	 * are pushed to it and hands the tar bytes to the inspector.
+	 */
+	private class GzipDecoder {
+
+		private static final int MAGIC_1 = 0x1f;
+		private static final int MAGIC_2 = 0x8b;
+		private static final int FLAG_HEADER_CRC = 2;
+		private static final int FLAG_EXTRA = 4;
+		private static final int FLAG_NAME = 8;
+		private static final int FLAG_COMMENT = 16;
+		private static final int MIN_HEADER_LENGTH = 10;
+		private static final int TRAILER_LENGTH = 8;
+
+		private final Inflater inflater = new Inflater(true);
+		private final CRC32 crc = new CRC32();
+		private final byte[] output = new byte[StreamUtils.BUFFER_SIZE];
+		private final ByteArrayOutputStream header = new ByteArrayOutputStream(MIN_HEADER_LENGTH);
+		private final byte[] trailer = new byte[TRAILER_LENGTH];
+		private int trailerPosition = -1;
+		private boolean headerRead;
+		private boolean started;
+
+		private void update(byte[] buffer, int offset, int length) throws IOException {
+			int end = offset + length;
+			while (offset < end) {
+				if (trailerPosition >= 0) {
+					int read = Math.min(trailer.length - trailerPosition, end - offset);
+					System.arraycopy(buffer, offset, trailer, trailerPosition, read);
+					trailerPosition += read;
+					offset += read;
+					if (trailerPosition == trailer.length) {
+						verifyTrailer();
+					}
+				} else if (headerRead) {
+					offset = inflate(buffer, offset, end);
+				} else {
+					header.write(buffer[offset++]);
+					this.started = true;
+					this.headerRead = isHeaderComplete();
+				}
+			}
+		}
+
+		/**
+		 * Returns <code>true</code> once the header of the current member was
+		 * read, validates it as soon as its first bytes arrived.
+		 */
+		private boolean isHeaderComplete() throws IOException {
+			byte[] bytes = header.toByteArray();
+			if ((bytes[0] & 0xff) != MAGIC_1
+					|| (bytes.length > 1 && (bytes[1] & 0xff) != MAGIC_2)) {
+				throw new IOException("Archive is not in gzip format");
+			}
+			if (bytes.length < MIN_HEADER_LENGTH) {
+				return false;
+			}
+			int flags = bytes[3];
+			int position = MIN_HEADER_LENGTH;
+			if ((flags & FLAG_EXTRA) != 0) {
+				if (bytes.length < position + 2) {
+					return false;
+				}
+				position += 2 + ((bytes[position] & 0xff) | ((bytes[position + 1] & 0xff) << 8));
+			}
+			if ((flags & FLAG_NAME) != 0) {
+				position = skipZeroTerminated(bytes, position);
+			}
+			if ((flags & FLAG_COMMENT) != 0) {
+				position = skipZeroTerminated(bytes, position);
+			}
+			if ((flags & FLAG_HEADER_CRC) != 0) {
+				position += 2;
+			}
+			return position != -1
+					&& position <= bytes.length;
+		}
+
+		private int skipZeroTerminated(byte[] bytes, int position) {
+			if (position == -1) {
+				return -1;
+			}
+			for (int i = position; i < bytes.length; i++) {
+				if (bytes[i] == 0) {
+					return i + 1;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Inflates the given bytes until they're all consumed or the member
+		 * ended. The inflater holds on to the given buffer, it must thus not
+		 * keep any input once this call returns.
+		 */
+		private int inflate(byte[] buffer, int offset, int end) throws IOException {
+			inflater.setInput(buffer, offset, end - offset);
+			offset = end;
+			try {
+				for (int inflated = 0; (inflated = inflater.inflate(output)) > 0;) {
+					crc.update(output, 0, inflated);
+					updateTar(output, 0, inflated);
+				}
+			} catch (DataFormatException e) {
+				throw new IOException("Archive is not in gzip format: " + e.getMessage());
+			}
+			if (inflater.needsDictionary()) {
+				throw new IOException("Archive is not in gzip format: it requires a preset dictionary");
+			}
+			if (inflater.finished()) {
+				// the bytes that follow the compressed data are the trailer
+				int remaining = inflater.getRemaining();
+				offset -= remaining;
+				this.trailerPosition = 0;
+			}
+			return offset;
+		}
+
+		private void verifyTrailer() throws IOException {
+			long expectedCrc = readInt(trailer, 0) & 0xffffffffl;
+			long expectedSize = readInt(trailer, 4) & 0xffffffffl;
+			if (expectedCrc != crc.getValue()
+					|| expectedSize != (inflater.getBytesWritten() & 0xffffffffl)) {
+				throw new IOException("Archive does not match its gzip checksum");
+			}
+			// a next member may follow
+			inflater.reset();
+			crc.reset();
+			header.reset();
+			this.headerRead = false;
+			this.trailerPosition = -1;
+		}
+
+		private int readInt(byte[] buffer, int offset) {
+			// little endian
+			return (buffer[offset] & 0xff)
+					| ((buffer[offset + 1] & 0xff) << 8)
+					| ((buffer[offset + 2] & 0xff) << 16)
+					| ((buffer[offset + 3] & 0xff) << 24);
+		}
+
+		private void finish() throws IOException {
+			try {
+				if (!started) {
+					throw new EOFException("Archive is empty");
+				}
+				if (header.size() > 0
+						|| trailerPosition >= 0) {
+					throw new EOFException("Archive is truncated");
+				}
+			} finally {
+				inflater.end();
+			}
+		}
+	}
+}
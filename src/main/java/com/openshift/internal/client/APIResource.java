@@ -16,7 +16,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.openshift.client.IAuthorization;
 import com.openshift.client.IDomain;
@@ -24,23 +27,31 @@ import com.openshift.client.IHttpClient;
 import com.openshift.client.IOpenShiftConnection;
 import com.openshift.client.IQuickstart;
 import com.openshift.client.IUser;
+import com.openshift.client.IWatch;
+import com.openshift.client.IWatchListener;
 import com.openshift.client.OpenShiftException;
+import com.openshift.client.WatchOptions;
 import com.openshift.client.cartridge.EmbeddableCartridge;
 import com.openshift.client.cartridge.ICartridge;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
 import com.openshift.client.cartridge.IStandaloneCartridge;
 import com.openshift.client.cartridge.StandaloneCartridge;
+import com.openshift.internal.client.cartridge.CartridgeCatalog;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.StringParameter;
 import com.openshift.internal.client.response.AuthorizationResourceDTO;
 import com.openshift.internal.client.response.CartridgeResourceDTO;
 import com.openshift.internal.client.response.DomainResourceDTO;
+import com.openshift.internal.client.response.IRestResponseFactory;
 import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
 import com.openshift.internal.client.response.QuickstartDTO;
 import com.openshift.internal.client.response.QuickstartJsonDTOFactory;
+import com.openshift.internal.client.response.RestResponse;
 import com.openshift.internal.client.response.UserResourceDTO;
 import com.openshift.internal.client.utils.Assert;
 import com.openshift.internal.client.utils.CollectionUtils;
+import com.openshift.internal.client.utils.ExecutorServiceUtils;
 import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
 
 /**
@@ -50,6 +61,12 @@ import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
  */
 public class APIResource extends AbstractOpenShiftResource implements IOpenShiftConnection {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(APIResource.class);
+
+	/** stateless, shared so that concurrent catalog requests can be coalesced */
+	private static final IRestResponseFactory CARTRIDGES_FACTORY = new OpenShiftJsonDTOFactory();
+	private static final IRestResponseFactory QUICKSTARTS_FACTORY = new QuickstartJsonDTOFactory();
+
 	private final String login;
 	private final String password;
 	// TODO: dont rely on a single token, we could have several authorizations
@@ -58,28 +75,67 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	private UserResource user;
 	private AuthorizationResource authorization;
 	private List<IDomain> domains;
-	private List<IStandaloneCartridge> standaloneCartridges;
-	private List<IEmbeddableCartridge> embeddableCartridges;
+	private volatile CartridgeCatalog<IStandaloneCartridge> standaloneCartridges;
+	private volatile CartridgeCatalog<IEmbeddableCartridge> embeddableCartridges;
+	private volatile CartridgeCatalog<ICartridge> cartridges;
 	private List<IAuthorization> authorizations;
-	private Map<String, IQuickstart> quickstartsByName;
-	private final ExecutorService executorService;
+	private volatile QuickstartIndex quickstarts;
+	/** the executor for asynchronous operations, created on demand if it's owned */
+	private ExecutorService executorService;
+	/** whether the executor was created by (and is shut down with) this connection */
+	private final boolean ownsExecutorService;
+	/** the persistent cache for cartridges and quickstarts, null if disabled */
+	private final CatalogCache catalogCache;
+	/** the state shared with the connections to the same broker, null if disabled */
+	private final BrokerContext brokerContext;
+
+	/** the watchers of the watched domains by domain id, guarded by itself */
+	private final Map<String, DomainWatcher> watchers = new HashMap<String, DomainWatcher>();
 
 	protected APIResource(final String token, final IRestService service,
 			final Map<String, Link> links) {
-		super(service, links, null);
-		this.login = null;
-		this.password = null;
-		this.token = token;
-		this.executorService = Executors.newFixedThreadPool(10);
+		this(null, null, token, service, links);
 	}
 
 	protected APIResource(final String login, final String password, final String token, final IRestService service,
 			final Map<String, Link> links) {
+		this(login, password, token, service, links, null);
+	}
+
+	protected APIResource(final String login, final String password, final String token, final IRestService service,
+			final Map<String, Link> links, final CatalogCache catalogCache) {
+		this(login, password, token, service, links, catalogCache, null);
+	}
+
+	/**
+	 * Creates a connection that runs its asynchronous operations in the given
+	 * executor. The given executor is not shut down when this connection gets
+	 * disconnected. If no executor is given, the connection creates its own
+	 * one on demand and shuts it down when it's disconnected.
+	 */
+	protected APIResource(final String login, final String password, final String token, final IRestService service,
+			final Map<String, Link> links, final CatalogCache catalogCache, final ExecutorService executorService) {
+		this(login, password, token, service, links, catalogCache, executorService, null);
+	}
+
+	/**
+	 * Creates a connection that shares the catalogs of cartridges and
+	 * quickstarts with the other connections to the same broker if a context
+	 * is given.
+	 * 
+	 * @see BrokerContext
+	 */
+	protected APIResource(final String login, final String password, final String token, final IRestService service,
+			final Map<String, Link> links, final CatalogCache catalogCache, final ExecutorService executorService,
+			final BrokerContext brokerContext) {
 		super(service, links, null);
 		this.login = login;
 		this.password = password;
 		this.token = token;
-		this.executorService = Executors.newFixedThreadPool(10);
+		this.catalogCache = catalogCache;
+		this.executorService = executorService;
+		this.ownsExecutorService = (executorService == null);
+		this.brokerContext = brokerContext;
 	}
 
 	protected final String getLogin() {
@@ -103,6 +159,17 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 		return this.user;
 	}
 
+	/**
+	 * Loads the user from the server (ex. to get the current gear
+	 * consumption).
+	 * 
+	 * @return the user as it is on the server
+	 * @throws OpenShiftException
+	 */
+	UserResourceDTO loadUser() throws OpenShiftException {
+		return new GetUserRequest().execute();
+	}
+
 	public IAuthorization createAuthorization(String note, String scopes) throws OpenShiftException {
 		return createAuthorization(note, scopes, null);
 	}
@@ -238,12 +305,14 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 
 	@Override
 	public List<IStandaloneCartridge> getStandaloneCartridges(boolean includeObsolete) throws OpenShiftException {
-		return CollectionUtils.toUnmodifiableCopy(filterObsolete(includeObsolete, getOrLoadStandaloneCartridges()));
+		return filterObsolete(includeObsolete, getOrLoadStandaloneCartridges());
 	}
 
-	protected List<IStandaloneCartridge> getOrLoadStandaloneCartridges() throws OpenShiftException {
+	protected CartridgeCatalog<IStandaloneCartridge> getOrLoadStandaloneCartridges() throws OpenShiftException {
+		// read once, a concurrent disconnect may reset the field
+		CartridgeCatalog<IStandaloneCartridge> standaloneCartridges = this.standaloneCartridges;
 		if (standaloneCartridges == null) {
-			loadCartridges();
+			standaloneCartridges = loadCartridges().standaloneCartridges;
 		}
 		return standaloneCartridges;
 	}
@@ -255,28 +324,24 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 
 	@Override
 	public List<IEmbeddableCartridge> getEmbeddableCartridges(boolean includeObsolete) throws OpenShiftException {
-		return CollectionUtils.toUnmodifiableCopy(filterObsolete(includeObsolete, getOrLoadEmbeddableCartridges()));
+		return filterObsolete(includeObsolete, getOrLoadEmbeddableCartridges());
 	}
 
-	protected List<IEmbeddableCartridge> getOrLoadEmbeddableCartridges() throws OpenShiftException {
+	protected CartridgeCatalog<IEmbeddableCartridge> getOrLoadEmbeddableCartridges() throws OpenShiftException {
+		// read once, a concurrent disconnect may reset the field
+		CartridgeCatalog<IEmbeddableCartridge> embeddableCartridges = this.embeddableCartridges;
 		if (embeddableCartridges == null) {
-			loadCartridges();
+			embeddableCartridges = loadCartridges().embeddableCartridges;
 		}
 		return embeddableCartridges;
 	}
 
-	protected <C extends ICartridge> List<C> filterObsolete(boolean includeObsolete, List<C> allCartridges) {
+	protected <C extends ICartridge> CartridgeCatalog<C> filterObsolete(boolean includeObsolete,
+			CartridgeCatalog<C> allCartridges) {
 		if (includeObsolete) {
 			return allCartridges;
 		}
-
-		List<C> filteredList = new ArrayList<C>(allCartridges.size());
-		for (C cartridge : allCartridges) {
-			if (!cartridge.isObsolete()) {
-				filteredList.add(cartridge);
-			}
-		}
-		return filteredList;
+		return allCartridges.getNonObsolete();
 	}
 
 	@Override
@@ -286,23 +351,70 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 
 	@Override
 	public List<ICartridge> getCartridges(boolean includeObsolete) {
-		List<IEmbeddableCartridge> embeddableCartridges = getOrLoadEmbeddableCartridges();
-		List<IStandaloneCartridge> standaloneCartridges = getOrLoadStandaloneCartridges();
-		List<ICartridge> cartridges =
-				new ArrayList<ICartridge>(embeddableCartridges.size() + standaloneCartridges.size());
+		return filterObsolete(includeObsolete, getOrLoadCartridges());
+	}
 
-		cartridges.addAll(filterObsolete(includeObsolete, embeddableCartridges));
-		cartridges.addAll(filterObsolete(includeObsolete, standaloneCartridges));
+	protected CartridgeCatalog<ICartridge> getOrLoadCartridges() throws OpenShiftException {
+		// read once, a concurrent disconnect may reset the field
+		CartridgeCatalog<ICartridge> cartridges = this.cartridges;
+		if (cartridges == null) {
+			cartridges = loadCartridges().cartridges;
+		}
 		return cartridges;
 	}
 
-	private void loadCartridges() throws OpenShiftException {
-		final Map<String, CartridgeResourceDTO> cartridgeDTOsByName = new GetCartridgesRequest().execute();
-		this.standaloneCartridges = new ArrayList<IStandaloneCartridge>();
-		this.embeddableCartridges = new ArrayList<IEmbeddableCartridge>();
+	private BrokerContext.Cartridges loadCartridges() throws OpenShiftException {
+		if (brokerContext != null) {
+			BrokerContext.Cartridges sharedCartridges = brokerContext.getCartridges();
+			if (sharedCartridges != null) {
+				setCartridges(sharedCartridges);
+				return sharedCartridges;
+			}
+		}
+		if (catalogCache != null) {
+			RestResponse response = catalogCache.load(CatalogCache.CATALOG_CARTRIDGES, CARTRIDGES_FACTORY);
+			if (response != null
+					&& response.getData() != null) {
+				BrokerContext.Cartridges cachedCartridges =
+						setCartridges(response.<Map<String, CartridgeResourceDTO>> getData());
+				revalidateInBackground(new Runnable() {
+
+					@Override
+					public void run() {
+						setCartridges(new GetCartridgesRequest().execute());
+					}
+				});
+				return cachedCartridges;
+			}
+		}
+		return setCartridges(new GetCartridgesRequest().execute());
+	}
+
+	private BrokerContext.Cartridges setCartridges(Map<String, CartridgeResourceDTO> cartridgeDTOsByName) {
+		List<IStandaloneCartridge> standaloneCartridges = new ArrayList<IStandaloneCartridge>();
+		List<IEmbeddableCartridge> embeddableCartridges = new ArrayList<IEmbeddableCartridge>();
 		for (CartridgeResourceDTO cartridgeDTO : cartridgeDTOsByName.values()) {
 			addCartridge(cartridgeDTO, standaloneCartridges, embeddableCartridges);
 		}
+		List<ICartridge> cartridges =
+				new ArrayList<ICartridge>(embeddableCartridges.size() + standaloneCartridges.size());
+		cartridges.addAll(embeddableCartridges);
+		cartridges.addAll(standaloneCartridges);
+		BrokerContext.Cartridges catalogs = new BrokerContext.Cartridges(
+				new CartridgeCatalog<IStandaloneCartridge>(standaloneCartridges),
+				new CartridgeCatalog<IEmbeddableCartridge>(embeddableCartridges),
+				new CartridgeCatalog<ICartridge>(cartridges));
+		setCartridges(catalogs);
+		if (brokerContext != null) {
+			brokerContext.setCartridges(catalogs);
+		}
+		return catalogs;
+	}
+
+	private void setCartridges(BrokerContext.Cartridges catalogs) {
+		this.standaloneCartridges = catalogs.standaloneCartridges;
+		this.embeddableCartridges = catalogs.embeddableCartridges;
+		this.cartridges = catalogs.cartridges;
 	}
 
 	private void addCartridge(CartridgeResourceDTO dto, List<IStandaloneCartridge> standaloneCartridges,
@@ -344,29 +456,183 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	}
 
 	public List<IQuickstart> getQuickstarts() {
-		if (quickstartsByName == null) {
-			this.quickstartsByName = loadQuickstarts();
-		}
-		return CollectionUtils.toUnmodifiableCopy(this.quickstartsByName.values());
+		return getQuickstartIndex().getAll();
 	}
 
-	private Map<String, IQuickstart> loadQuickstarts() throws OpenShiftException {
-		Map<String, IQuickstart> quickstarts = new HashMap<String, IQuickstart>();
-		for (QuickstartDTO quickstartDTO : new ListQuickstartsRequest().execute()) {
-			quickstarts.put(quickstartDTO.getName(), new Quickstart(quickstartDTO, this));
+	@Override
+	public QuickstartIndex getQuickstartIndex() throws OpenShiftException {
+		if (quickstarts == null) {
+			loadQuickstarts();
 		}
 		return quickstarts;
 	}
 
-	public ExecutorService getExecutorService() {
+	private void loadQuickstarts() throws OpenShiftException {
+		if (brokerContext != null) {
+			List<QuickstartDTO> sharedQuickstarts = brokerContext.getQuickstarts();
+			if (sharedQuickstarts != null) {
+				this.quickstarts = createQuickstarts(sharedQuickstarts);
+				return;
+			}
+		}
+		if (catalogCache != null) {
+			RestResponse response = catalogCache.load(CatalogCache.CATALOG_QUICKSTARTS, QUICKSTARTS_FACTORY);
+			if (response != null
+					&& response.getData() != null) {
+				// set the cached index before the fresh one may replace it
+				this.quickstarts = createQuickstarts(response.<List<QuickstartDTO>> getData());
+				revalidateInBackground(new Runnable() {
+
+					@Override
+					public void run() {
+						quickstarts = createQuickstarts(requestQuickstarts());
+					}
+				});
+				return;
+			}
+		}
+		this.quickstarts = createQuickstarts(requestQuickstarts());
+	}
+
+	private List<QuickstartDTO> requestQuickstarts() throws OpenShiftException {
+		List<QuickstartDTO> quickstartDTOs = new ListQuickstartsRequest().execute();
+		if (brokerContext != null) {
+			brokerContext.setQuickstarts(quickstartDTOs);
+		}
+		return quickstartDTOs;
+	}
+
+	private QuickstartIndex createQuickstarts(List<QuickstartDTO> quickstartDTOs) {
+		Map<String, IQuickstart> quickstartsByName = new HashMap<String, IQuickstart>();
+		for (QuickstartDTO quickstartDTO : quickstartDTOs) {
+			quickstartsByName.put(quickstartDTO.getName(), new Quickstart(quickstartDTO, this));
+		}
+		return new QuickstartIndex(quickstartsByName.values(), this);
+	}
+
+	/**
+	 * Reloads a catalog that was served from the persistent cache in the
+	 * background. The cache gets updated with the fresh content and the given
+	 * runnable replaces the cached catalog in memory.
+	 * 
+	 * @param reload
+	 *            the runnable that reloads the catalog
+	 */
+	private void revalidateInBackground(final Runnable reload) {
+		try {
+			getExecutorService().submit(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						reload.run();
+					} catch (OpenShiftException e) {
+						LOGGER.warn("Could not revalidate cached catalog: {}", e.getMessage());
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			LOGGER.debug("Could not revalidate cached catalog, connection was disconnected.");
+		}
+	}
+
+	/**
+	 * Returns the response factory to use for the given catalog. Responses are
+	 * stored to the persistent cache if it is enabled.
+	 */
+	private IRestResponseFactory getCatalogResponseFactory(String catalog, IRestResponseFactory factory) {
+		if (catalogCache == null) {
+			return factory;
+		}
+		return catalogCache.storing(catalog, factory);
+	}
+
+	protected CatalogCache getCatalogCache() {
+		return catalogCache;
+	}
+
+	protected BrokerContext getBrokerContext() {
+		return brokerContext;
+	}
+
+	public synchronized ExecutorService getExecutorService() {
+		if (executorService == null) {
+			this.executorService = ExecutorServiceUtils.createConnectionExecutor();
+		}
 		return executorService;
 	}
 
+	@Override
+	public IWatch watch(IWatchListener listener, WatchOptions options) throws OpenShiftException {
+		Assert.notNull(listener);
+		Assert.notNull(options);
+
+		List<IDomain> domains = new ArrayList<IDomain>();
+		if (options.getDomainIds().isEmpty()) {
+			domains.addAll(getDomains());
+		} else {
+			for (String id : options.getDomainIds()) {
+				IDomain domain = getDomain(id);
+				if (domain == null) {
+					throw new OpenShiftException("Could not watch domain {0}, it does not exist", id);
+				}
+				domains.add(domain);
+			}
+		}
+
+		Watch watch = new Watch(listener, options, this);
+		for (IDomain domain : domains) {
+			watch.addWatcher(watch((DomainResource) domain, watch));
+		}
+		return watch;
+	}
+
+	private DomainWatcher watch(DomainResource domain, Watch watch) {
+		synchronized (watchers) {
+			DomainWatcher watcher = watchers.get(domain.getId());
+			if (watcher == null
+					|| !watcher.add(watch)) {
+				watcher = new DomainWatcher(domain,
+						ExecutorServiceUtils.getSharedScheduler(), ExecutorServiceUtils.getSharedExecutor());
+				watcher.add(watch);
+				watchers.put(domain.getId(), watcher);
+			}
+			return watcher;
+		}
+	}
+
+	void unwatch(DomainWatcher watcher, Watch watch) {
+		synchronized (watchers) {
+			if (watcher.remove(watch)
+					&& watchers.get(watcher.getDomain().getId()) == watcher) {
+				watchers.remove(watcher.getDomain().getId());
+			}
+		}
+	}
+
+	/**
+	 * Discards the cached resources of this connection, stops its watches and
+	 * shuts down its executor if it created it. Executors that were given to this connection
+	 * are left untouched.
+	 */
 	public void disconnect() {
 		standaloneCartridges = null;
 		embeddableCartridges = null;
+		cartridges = null;
 		domains = null;
-		executorService.shutdownNow();
+		synchronized (watchers) {
+			for (DomainWatcher watcher : watchers.values()) {
+				watcher.stop();
+			}
+			watchers.clear();
+		}
+		synchronized (this) {
+			if (ownsExecutorService
+					&& executorService != null) {
+				executorService.shutdownNow();
+				this.executorService = null;
+			}
+		}
 	}
 
 	private class AddDomainRequest extends ServiceRequest {
@@ -409,7 +675,9 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 		}
 
 		protected Map<String, CartridgeResourceDTO> execute() throws OpenShiftException {
-			return super.execute();
+			return super.execute(IHttpClient.NO_TIMEOUT,
+					getCatalogResponseFactory(CatalogCache.CATALOG_CARTRIDGES, CARTRIDGES_FACTORY),
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
 		}
 	}
 
@@ -435,7 +703,8 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 		}
 
 		protected List<QuickstartDTO> execute() throws OpenShiftException {
-			return super.execute(IHttpClient.NO_TIMEOUT, new QuickstartJsonDTOFactory(),
+			return super.execute(IHttpClient.NO_TIMEOUT,
+					getCatalogResponseFactory(CatalogCache.CATALOG_QUICKSTARTS, QUICKSTARTS_FACTORY),
 					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
 		}
 	}
@@ -13,6 +13,7 @@ package com.openshift.internal.client;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import com.openshift.client.HttpMethod;
 import com.openshift.client.IHttpClient;
@@ -32,15 +33,48 @@ import com.openshift.internal.client.response.RestResponse;
  */
 public abstract class AbstractOpenShiftConnectionFactory {
 	
-	@SuppressWarnings("unchecked")
 	protected IOpenShiftConnection getConnection(IRestService service, final String login, final String password, final String token) throws IOException, OpenShiftException {
-		RestResponse response =
-				(RestResponse) service.request(
-						new Link("Get API", "/api", HttpMethod.GET), 
-						IHttpClient.NO_TIMEOUT,
-						Collections.<Parameter> emptyList(), 
-						Collections.<Parameter> emptyList());
-		return new APIResource(login, password, token, service, (Map<String, Link>) response.getData());
+		return getConnection(service, login, password, token, null);
+	}
+
+	/**
+	 * Returns a connection that runs its asynchronous operations in the given
+	 * executor. The connection creates its own executor if <code>null</code>
+	 * is given.
+	 */
+	protected IOpenShiftConnection getConnection(IRestService service, final String login, final String password,
+			final String token, final ExecutorService executorService) throws IOException, OpenShiftException {
+		return getConnection(service, login, password, token, executorService, null);
+	}
+
+	/**
+	 * Returns a connection that shares the state that is not user specific
+	 * with the other connections of the given broker context. Nothing is
+	 * shared if <code>null</code> is given.
+	 * 
+	 * @see BrokerContext
+	 */
+	@SuppressWarnings("unchecked")
+	protected IOpenShiftConnection getConnection(IRestService service, final String login, final String password,
+			final String token, final ExecutorService executorService, final BrokerContext brokerContext)
+			throws IOException, OpenShiftException {
+		Map<String, Link> links = null;
+		if (brokerContext != null) {
+			links = brokerContext.getApiLinks();
+		}
+		if (links == null) {
+			RestResponse response =
+					(RestResponse) service.request(
+							new Link("Get API", "/api", HttpMethod.GET), 
+							IHttpClient.NO_TIMEOUT,
+							Collections.<Parameter> emptyList(), 
+							Collections.<Parameter> emptyList());
+			links = (Map<String, Link>) response.getData();
+			if (brokerContext != null) {
+				brokerContext.setApiLinks(links);
+			}
+		}
+		return new APIResource(login, password, token, service, links, null, executorService, brokerContext);
 	}
 	
 }
@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.openshift.internal.client;
 
+import java.util.Collections;
 import java.util.List;
 
 import com.openshift.client.cartridge.ICartridge;
@@ -26,6 +27,8 @@ public class AlternativeCartridges {
 
 	private ICartridgeQuery query;
 	private APIResource api;
+	/** the alternatives resolved against the (last) catalog of cartridges */
+	private volatile ResolvedAlternatives resolved;
 
 	AlternativeCartridges(ICartridgeQuery query, APIResource api) {
 		this.query = query;
@@ -34,12 +37,33 @@ public class AlternativeCartridges {
 
 	/**
 	 * Returns all alternative cartridges that a user may choose its cartridge
-	 * from.
+	 * from. The alternatives are resolved once per catalog of cartridges that
+	 * the connection loaded.
 	 *
 	 * @return the alternative cartridges
 	 */
 	public List<ICartridge> get() {
-		return query.getAll(api.getCartridges(true)); // include obsolete cartridges
+		List<ICartridge> cartridges = api.getCartridges(true); // include obsolete cartridges
+		ResolvedAlternatives resolved = this.resolved;
+		if (resolved == null
+				|| resolved.cartridges != cartridges) {
+			resolved = new ResolvedAlternatives(cartridges,
+					Collections.unmodifiableList(query.getAll(cartridges)));
+			this.resolved = resolved;
+		}
+		return resolved.alternatives;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given cartridge is among the
+	 * alternatives.
+	 * 
+	 * @param cartridge
+	 *            the cartridge to look for
+	 * @return true if the given cartridge is an alternative
+	 */
+	public boolean contains(ICartridge cartridge) {
+		return get().contains(cartridge);
 	}
 
 	@Override
@@ -47,4 +71,15 @@ public class AlternativeCartridges {
 		return "AlternativeCartridges [query=" + query + "]";
 	}
 
+	private static class ResolvedAlternatives {
+
+		private final List<ICartridge> cartridges;
+		private final List<ICartridge> alternatives;
+
+		private ResolvedAlternatives(List<ICartridge> cartridges, List<ICartridge> alternatives) {
+			this.cartridges = cartridges;
+			this.alternatives = alternatives;
+		}
+	}
+
 }
\ No newline at end of file
@@ -23,8 +23,9 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -42,10 +43,13 @@ import com.openshift.client.IApplication;
 import com.openshift.client.IApplicationPortForwarding;
 import com.openshift.client.IDomain;
 import com.openshift.client.IEnvironmentVariable;
+import com.openshift.client.IGear;
 import com.openshift.client.IGearGroup;
 import com.openshift.client.IGearProfile;
 import com.openshift.client.IOpenShiftConnection;
+import com.openshift.client.IOpenShiftFuture;
 import com.openshift.client.Messages;
+import com.openshift.client.OpenShiftCancellationException;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftSSHOperationException;
 import com.openshift.client.cartridge.ICartridge;
@@ -76,7 +80,6 @@ import com.openshift.internal.client.utils.StringUtils;
  */
 public class ApplicationResource extends AbstractOpenShiftResource implements IApplication {
 
-	private static final long APPLICATION_WAIT_RETRY_DELAY = 2 * 1024L;
 	private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationResource.class);
 
 	private static final String LINK_DELETE_APPLICATION = "DELETE";
@@ -90,11 +93,17 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 	private static final String LINK_REMOVE_ALIAS = "REMOVE_ALIAS";
 	private static final String LINK_ADD_CARTRIDGE = "ADD_CARTRIDGE";
 	private static final String LINK_LIST_CARTRIDGES = "LIST_CARTRIDGES";
-	private static final String LINK_GET_GEAR_GROUPS = "GET_GEAR_GROUPS";
+	static final String LINK_GET_GEAR_GROUPS = "GET_GEAR_GROUPS";
 	private static final String LINK_LIST_ENVIRONMENT_VARIABLES = "LIST_ENVIRONMENT_VARIABLES";
 	private static final String LINK_SET_UNSET_ENVIRONMENT_VARIABLES = "SET_UNSET_ENVIRONMENT_VARIABLES";
 	private static final String LINK_UPDATE = "UPDATE";
 	
+	/**
+	 * the time that a probe, that was started before the wait timed out, may
+	 * take to complete
+	 */
+	private static final long ACCESSIBLE_PROBE_GRACE = 5 * 1000;
+
 	private static final Pattern REGEX_FORWARDED_PORT = Pattern.compile("([^ ]+) -> ([^:]+):(\\d+)");
 
 	/** The (unique) uuid of this application. */
@@ -152,7 +161,17 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 	 */
 	private Session session;
 
-	private Collection<IGearGroup> gearGroups;
+	/**
+	 * The gear groups that were loaded last, <code>null</code> if they were
+	 * never loaded or were invalidated.
+	 */
+	private volatile GearGroupsView gearGroups;
+
+	/**
+	 * The maximum age in milliseconds of the gear groups that are served from
+	 * cache, {@link #NO_GEAR_GROUPS_CACHE} if they're loaded on each request.
+	 */
+	private volatile long gearGroupsMaxAge = NO_GEAR_GROUPS_CACHE;
 	/**
 	 * The environment variables for this application
 	 */
@@ -299,11 +318,13 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 	@Override
 	public void scaleDown() throws OpenShiftException {
 		new ScaleDownRequest().execute();
+		invalidateGearGroups();
 	}
 
 	@Override
 	public void scaleUp() throws OpenShiftException {
 		new ScaleUpRequest().execute();
+		invalidateGearGroups();
 	}
 
 	@Override
@@ -389,6 +410,7 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 				new AddEmbeddedCartridgeRequest().execute(cartridge);
 		final EmbeddedCartridgeResource embeddedCartridge = new EmbeddedCartridgeResource(embeddedCartridgeDTO, this);
 		this.embeddedCartridgesByName.put(embeddedCartridge.getName(), embeddedCartridge);
+		invalidateGearGroups();
 		return embeddedCartridge;
 	}
 
@@ -431,6 +453,7 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 		Assert.notNull(embeddedCartridge);
 
 		this.embeddedCartridgesByName.remove(embeddedCartridge.getName());
+		invalidateGearGroups();
 	}
 
 	/**
@@ -542,17 +565,51 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 
 	@Override
 	public Collection<IGearGroup> getGearGroups() throws OpenShiftException {
-		// this collection is not cached so we always have the latest info 
-		// about the gear groups consumed by this application.
-		loadGearGroups();
-		return gearGroups;
+		return getGearGroupsView().getGearGroups();
 	}
 
 	public IGearGroup getGearGroup(ICartridge cartridge) throws OpenShiftException {
-		// this collection is not cached so we always have the latest info 
-		// about the gear groups consumed by this application.
-		loadGearGroups();
-		return getGearGroup(cartridge, gearGroups);
+		return getGearGroupsView().getGearGroup(cartridge);
+	}
+
+	@Override
+	public IGear getGear(String id) throws OpenShiftException {
+		return getGearGroupsView().getGear(id);
+	}
+
+	/**
+	 * Returns the gear groups of this application. They're loaded on each
+	 * call unless caching was enabled, in which case they're served from cache
+	 * until they're older than the maximum age.
+	 * 
+	 * @return the gear groups
+	 * @throws OpenShiftException
+	 * 
+	 * @see #setGearGroupsMaxAge(long)
+	 */
+	protected GearGroupsView getGearGroupsView() throws OpenShiftException {
+		GearGroupsView gearGroups = this.gearGroups;
+		long maxAge = this.gearGroupsMaxAge;
+		if (maxAge == NO_GEAR_GROUPS_CACHE
+				|| gearGroups == null
+				|| gearGroups.isOlderThan(maxAge)) {
+			gearGroups = loadGearGroups();
+		}
+		return gearGroups;
+	}
+
+	@Override
+	public void setGearGroupsMaxAge(long maxAge) {
+		Assert.isTrue(maxAge >= NO_GEAR_GROUPS_CACHE);
+		this.gearGroupsMaxAge = maxAge;
+	}
+
+	/**
+	 * Discards the cached gear groups. Called when an operation changes the
+	 * gears or cartridges of this application.
+	 */
+	protected void invalidateGearGroups() {
+		this.gearGroups = null;
 	}
 
 	public IGearGroup getGearGroup(ICartridge cartridge, Collection<IGearGroup> gearGroups) {
@@ -571,66 +628,82 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 		return null;
 	}
 	
-	private Collection<IGearGroup> loadGearGroups() throws OpenShiftException {
+	private GearGroupsView loadGearGroups() throws OpenShiftException {
 		List<IGearGroup> gearGroups = new ArrayList<IGearGroup>();
 		Collection<GearGroupResourceDTO> dtos = new GetGearGroupsRequest().execute();
 		for(GearGroupResourceDTO dto : dtos) {
 			gearGroups.add(new GearGroupResource(dto, this, getService()));
 		}
 
-		this.gearGroups = gearGroups;
+		this.gearGroups = new GearGroupsView(gearGroups);
 		return this.gearGroups;
 	}
 
 	public boolean waitForAccessible(long timeout) throws OpenShiftException {
+		IOpenShiftFuture<Boolean> accessible = waitForAccessibleAsync(timeout);
 		try {
-			return waitForResolved(timeout, System.currentTimeMillis());
-		} catch (InterruptedException e) {
+			return accessible.get(timeout + ACCESSIBLE_PROBE_GRACE, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			// probes did not run in time, dont wait any longer than requested
+			accessible.cancel(true);
 			return false;
+		} catch (InterruptedException e) {
+			// stop probing, nobody waits for it any more
+			accessible.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new OpenShiftCancellationException(e,
+					"Waiting for application {0} to become accessible was cancelled", name);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof OpenShiftException) {
+				throw (OpenShiftException) e.getCause();
+			}
+			throw new OpenShiftException(e.getCause(),
+					"Could not wait for application {0} to become accessible: {1}", name, e.getCause().getMessage());
 		}
 	}
 
-	public Future<Boolean> waitForAccessibleAsync(final long timeout) throws OpenShiftException {
-		IOpenShiftConnection connection = getConnection();
-		return connection.getExecutorService().submit(new Callable<Boolean>() {
+	public IOpenShiftFuture<Boolean> waitForAccessibleAsync(final long timeout) throws OpenShiftException {
+		return waitForAccessibleAsync(timeout, false);
+	}
 
-			public Boolean call() throws Exception {
-				return waitForAccessible(timeout);
+	public IOpenShiftFuture<Boolean> waitForAccessibleAsync(final long timeout, boolean probeHttp)
+			throws OpenShiftException {
+		ReadinessProbe probe = new ReadinessProbe() {
+
+			@Override
+			public boolean isReady() throws OpenShiftException {
+				try {
+					return canResolv(applicationUrl);
+				} catch (MalformedURLException e) {
+					throw new OpenShiftException(e,
+							"Could not wait for application {0} to become accessible, it has an invalid URL \"{1}\": {2}",
+							name, applicationUrl, e.getMessage());
+				}
 			}
-		});
+		};
+		if (probeHttp) {
+			probe = ReadinessProbe.all(probe, ReadinessProbe.http(applicationUrl));
+		}
+		return getReadinessScheduler().waitFor(probe, timeout);
 	}
 
-	protected IOpenShiftConnection getConnection() {
-		return getDomain().getUser().getConnection();
+	protected ReadinessScheduler getReadinessScheduler() {
+		return ReadinessScheduler.getDefault();
 	}
 
-	private boolean waitForResolved(long timeout, long startTime) throws OpenShiftException, InterruptedException {
-		try {
-			while (!canResolv(applicationUrl)
-					&& !isTimeouted(timeout, startTime)) {
-				Thread.sleep(APPLICATION_WAIT_RETRY_DELAY);
-			}
-			return canResolv(applicationUrl);
-		} catch (MalformedURLException e) {
-			throw new OpenShiftException(e,
-					"Could not wait for application {0} to become accessible, it has an invalid URL \"{1}\": {2}",
-					name, applicationUrl, e.getMessage());
-		}
+	protected IOpenShiftConnection getConnection() {
+		return getDomain().getUser().getConnection();
 	}
 
 	protected boolean canResolv(String url) throws MalformedURLException {
 		return HostUtils.canResolv(url);
 	}
 
-	private boolean isTimeouted(long timeout, long startTime) {
-		return !(System.currentTimeMillis() < (startTime + timeout));
-	}
-
 	@Override
 	public void refresh() throws OpenShiftException {
 		refreshEmbeddedCartridges();
 		if (this.gearGroups != null) {
-			this.gearGroups = loadGearGroups();
+			loadGearGroups();
 		}
 		if (this.ports != null) {
 			this.ports = loadPorts();
@@ -878,7 +951,6 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 		}
 		Channel channel = null;
 		try {
-			session.openChannel("exec");
 			channel = session.openChannel("exec");
 			((ChannelExec) channel).setCommand(command);
 			channel.connect();
@@ -890,8 +962,8 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 			throw new OpenShiftSSHOperationException(e, "Failed to execute remote ssh command \"{0}\"",
 					this.getName());
 		} finally {
-
-			if (channel != null && channel.isConnected()) {
+			// also releases channels that failed to connect
+			if (channel != null) {
 				channel.disconnect();
 			}
 		}
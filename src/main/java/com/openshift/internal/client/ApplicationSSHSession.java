@@ -11,13 +11,23 @@
 package com.openshift.internal.client;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,10 +41,23 @@ import com.jcraft.jsch.Session;
 import com.openshift.client.IApplication;
 import com.openshift.client.IApplicationPortForwarding;
 import com.openshift.client.IApplicationSSHSession;
+import com.openshift.client.IOpenShiftFuture;
+import com.openshift.client.IProgressListener;
+import com.openshift.client.OpenShiftCancellationException;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftSSHOperationException;
+import com.openshift.client.SSHCommandResult;
+import com.openshift.client.SSHSessionPool;
+import com.openshift.client.SSHUpload;
+import com.openshift.client.UploadOptions;
+import com.openshift.client.utils.SnapshotFileUtils;
+import com.openshift.client.utils.SnapshotStore;
+import com.openshift.client.utils.SnapshotStore.StoredSnapshot;
 import com.openshift.client.utils.TarFileUtils;
 import com.openshift.internal.client.ssh.ApplicationPortForwarding;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.CancellationUtils;
+import com.openshift.internal.client.utils.RateLimiter;
 import com.openshift.internal.client.utils.StreamUtils;
 
 /**
@@ -48,10 +71,30 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 
 	private static final int CONNECT_TIMEOUT = 10 * 60 * 1000;
 	private static final String JSCH_EXEC_CHANNEL = "exec";
+	/** the maximum packet size that jsch sends */
+	private static final int STDIN_BUFFER_SIZE = 32 * 1024;
+	/** the number of channels that a session may open concurrently (sshd MaxSessions default) */
+	public static final int MAX_CHANNELS = 10;
+	/** the maximum number of bytes of the output and of the error output that a command result holds */
+	public static final int MAX_OUTPUT_SIZE = 1024 * 1024;
+	private static final String OUTPUT_ENCODING = "UTF-8";
+
+	/**
+	 * Channels that may be opened concurrently, per session. Sessions are
+	 * shared among instances (ex. pooled ones), the limit is thus kept
+	 * per session and not per instance.
+	 */
+	private static final Map<Session, Semaphore> CHANNELS = new WeakHashMap<Session, Semaphore>();
 
 	/** SSH Session to use for all methods */
 	private Session session;
 
+	/** Pool to lease the SSH sessions from if no session was given */
+	private final SSHSessionPool pool;
+
+	/** Lease of the pooled session that the ports are forwarded on */
+	private SSHSessionPool.Lease portForwardingLease;
+
 	/** Application that is associated with this SSH Session */
 	private IApplication application;
 
@@ -72,6 +115,26 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	public ApplicationSSHSession(IApplication application, Session session) {
 		this.application = application;
 		this.session = session;
+		this.pool = null;
+	}
+
+	/**
+	 * Creates an ssh session to the given application that leases the
+	 * sessions from the given pool. Each command leases the session for as
+	 * long as its response is read, forwarded ports hold it until they're
+	 * stopped. The pool connects the sessions on demand, there's no need to
+	 * connect or disconnect.
+	 *
+	 * @param application
+	 *            The application that this SSH session is connecting to
+	 * @param pool
+	 *            The pool to lease the sessions from
+	 *
+	 * @see SSHSessionPool#lease(IApplication)
+	 */
+	public ApplicationSSHSession(IApplication application, SSHSessionPool pool) {
+		this.application = application;
+		this.pool = pool;
 	}
 
 	/**
@@ -99,6 +162,10 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	 * @return True if the SSH session is connected
 	 */
 	public boolean isConnected() {
+		if (pool != null) {
+			// the pool connects on demand
+			return !pool.isClosed();
+		}
 		return this.session.isConnected();
 	}
 
@@ -110,7 +177,10 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	 */
 	public boolean isPortForwardingStarted() throws OpenShiftSSHOperationException {
 		try {
+			Session session = getPortForwardingSession(false);
 			return isConnected()
+					&& session != null
+					&& session.isConnected()
 					&& session.getPortForwardingL().length > 0;
 		} catch (JSchException e) {
 			throw new OpenShiftSSHOperationException(e,
@@ -120,22 +190,24 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	}
 
 	/**
-	 * Start forwarding available ports to this application
+	 * Start forwarding available ports to this application. Ports that fail
+	 * to start are logged and skipped.
 	 * 
 	 * @return Current list of ports
 	 * @throws OpenShiftSSHOperationException
+	 * 
+	 * @see com.openshift.client.PortForwardingManager
 	 */
 	public List<IApplicationPortForwarding> startPortForwarding() throws OpenShiftSSHOperationException {
 		assertLiveSSHSession();
 
+		Session session = getPortForwardingSession(true);
 		for (IApplicationPortForwarding port : ports) {
 			try {
 				port.start(session);
-			} catch (OpenShiftSSHOperationException oss) {
-				/*
-				 * ignore for now FIXME: should store this error on the forward
-				 * to let user know why it could not start/stop
-				 */
+			} catch (OpenShiftSSHOperationException e) {
+				// keep starting the other ports
+				LOGGER.warn("Could not start port forwarding " + port, e);
 			}
 		}
 		return ports;
@@ -149,21 +221,57 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	 */
 	public List<IApplicationPortForwarding> stopPortForwarding() throws OpenShiftSSHOperationException {
 		assertLiveSSHSession();
+		Session session = getPortForwardingSession(false);
+		if (session == null) {
+			return ports;
+		}
 		for (IApplicationPortForwarding port : ports) {
 			try {
 				port.stop(session);
-			} catch (OpenShiftSSHOperationException oss) {
-				/*
-				 * ignore for now should store this error on the forward to let
-				 * user know why it could not start/stop
-				 */
+			} catch (OpenShiftSSHOperationException e) {
+				LOGGER.warn("Could not stop port forwarding " + port, e);
 			}
 		}
-		// make sure port forwarding is stopped by closing session...
-		session.disconnect();
+		if (pool != null) {
+			// the pooled session is shared, hand it back instead
+			releasePortForwardingSession();
+		} else {
+			// make sure port forwarding is stopped by closing session...
+			session.disconnect();
+		}
 		return ports;
 	}
 
+	/**
+	 * Returns the session that the ports are forwarded on. A pooled session
+	 * is leased on demand and held until the forwarding is stopped.
+	 */
+	private synchronized Session getPortForwardingSession(boolean lease) {
+		if (pool == null) {
+			return session;
+		}
+		if (portForwardingLease != null
+				&& !portForwardingLease.getSession().isConnected()) {
+			// dropped, forwarded ports are gone with it
+			releasePortForwardingSession();
+		}
+		if (portForwardingLease == null
+				&& lease) {
+			this.portForwardingLease = pool.lease(application);
+		}
+		if (portForwardingLease == null) {
+			return null;
+		}
+		return portForwardingLease.getSession();
+	}
+
+	private synchronized void releasePortForwardingSession() {
+		if (portForwardingLease != null) {
+			portForwardingLease.close();
+			this.portForwardingLease = null;
+		}
+	}
+
 	/**
 	 * Refresh the list of forwardable ports for an application
 	 * 
@@ -212,12 +320,283 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 		}
 	}
 
+	/**
+	 * Runs the given command and collects its output, its error output and
+	 * its exit status. Commands that are run concurrently share the session,
+	 * each one in its own channel. At most {@link #MAX_CHANNELS} channels are
+	 * open in a session at the same time (by all instances that share it),
+	 * further commands wait for a channel. The output and the error output
+	 * are decoded as UTF-8 and truncated to {@link #MAX_OUTPUT_SIZE} bytes.
+	 *
+	 * @param command
+	 *            the remote command to run
+	 * @return the outcome of the command
+	 * @throws OpenShiftSSHOperationException
+	 *             if the command could not be run
+	 * @throws OpenShiftCancellationException
+	 *             if the current thread was interrupted
+	 */
+	public SSHCommandResult runCommand(String command) throws OpenShiftException {
+		Assert.notNull(command);
+		assertLiveSSHSession();
+
+		ChannelLease lease = acquireChannel(command, session);
+		ChannelExec channel = null;
+		Closeable channelCloser = null;
+		try {
+			channel = (ChannelExec) lease.getSession().openChannel(JSCH_EXEC_CHANNEL);
+			channel.setCommand(command);
+			// written by the session thread as data arrives, never blocks it
+			LimitedOutputStream output = new LimitedOutputStream(MAX_OUTPUT_SIZE);
+			channel.setOutputStream(output, true);
+			// ATTENTION: stream must be get before connecting
+			InputStream errorOutput = channel.getErrStream();
+			channelCloser = new ChannelCloser(channel);
+			CancellationUtils.register(channelCloser);
+			channel.connect(CONNECT_TIMEOUT);
+			// the error stream ends once the channel is closed, the exit status is known by then
+			String error = readToString(errorOutput, command);
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException("Remote command was cancelled");
+			}
+			return new SSHCommandResult(command, toString(output, command), error, channel.getExitStatus());
+		} catch (JSchException e) {
+			throwIfCancelled(e, command);
+			throw new OpenShiftSSHOperationException(e,
+					"Could not execute remote ssh command \"{0}\" on application {1}",
+					command, application.getName());
+		} catch (IOException e) {
+			throwIfCancelled(e, command);
+			throw new OpenShiftSSHOperationException(e,
+					"Could not read response of remote ssh command \"{0}\" on application {1}",
+					command, application.getName());
+		} finally {
+			if (channelCloser != null) {
+				CancellationUtils.unregister(channelCloser);
+			}
+			if (channel != null) {
+				channel.disconnect();
+			}
+			lease.close();
+		}
+	}
+
+	/**
+	 * Runs the given command asynchronously in the executor of the connection
+	 * of the application.
+	 *
+	 * @param command
+	 *            the remote command to run
+	 * @return the future outcome of the command
+	 *
+	 * @see #runCommand(String)
+	 */
+	public IOpenShiftFuture<SSHCommandResult> runCommandAsync(String command) {
+		return runCommandAsync(command, getExecutorService());
+	}
+
+	public IOpenShiftFuture<SSHCommandResult> runCommandAsync(final String command, ExecutorService executor) {
+		Assert.notNull(command);
+
+		return OpenShiftFutureTask.submit(new Callable<SSHCommandResult>() {
+
+			@Override
+			public SSHCommandResult call() throws Exception {
+				return runCommand(command);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Runs the given commands in parallel over the session of this
+	 * application, each one in its own channel. The commands are submitted to
+	 * the executor of the connection of the application at once, at most
+	 * {@link #MAX_CHANNELS} of them run at the same time. Cancelling a future
+	 * (and allowing it to interrupt) closes the channel of its command.
+	 *
+	 * @param commands
+	 *            the remote commands to run
+	 * @return the future outcomes of the commands, in the order of the
+	 *         commands
+	 *
+	 * @see #runCommand(String)
+	 */
+	public List<IOpenShiftFuture<SSHCommandResult>> runCommandsAsync(Collection<String> commands) {
+		return runCommandsAsync(commands, getExecutorService());
+	}
+
+	public List<IOpenShiftFuture<SSHCommandResult>> runCommandsAsync(Collection<String> commands,
+			ExecutorService executor) {
+		Assert.notNull(commands);
+
+		List<IOpenShiftFuture<SSHCommandResult>> results =
+				new ArrayList<IOpenShiftFuture<SSHCommandResult>>(commands.size());
+		for (String command : commands) {
+			results.add(runCommandAsync(command, executor));
+		}
+		return results;
+	}
+
+	private ExecutorService getExecutorService() {
+		return application.getDomain().getUser().getConnection().getExecutorService();
+	}
+
+	/**
+	 * Acquires a channel in the given session or in the session that's leased
+	 * from the pool. Waits while {@link #MAX_CHANNELS} channels are open in
+	 * the session. The returned lease has to be closed once the channel is
+	 * closed.
+	 */
+	private ChannelLease acquireChannel(String command, Session session) throws OpenShiftException {
+		SSHSessionPool.Lease sessionLease = null;
+		if (pool != null) {
+			sessionLease = pool.lease(application);
+			session = sessionLease.getSession();
+		}
+		Semaphore channels = getChannels(session);
+		try {
+			channels.acquire();
+			return new ChannelLease(session, channels, sessionLease);
+		} catch (InterruptedException e) {
+			if (sessionLease != null) {
+				sessionLease.close();
+			}
+			Thread.currentThread().interrupt();
+			throw new OpenShiftCancellationException(e,
+					"Interrupted while waiting for a channel to run remote ssh command \"{0}\" on application {1}",
+					command, application.getName());
+		}
+	}
+
+	private static Semaphore getChannels(Session session) {
+		synchronized (CHANNELS) {
+			Semaphore channels = CHANNELS.get(session);
+			if (channels == null) {
+				channels = new Semaphore(MAX_CHANNELS);
+				CHANNELS.put(session, channels);
+			}
+			return channels;
+		}
+	}
+
+	/**
+	 * Reads the given stream to its end and returns its content, truncated
+	 * to {@link #MAX_OUTPUT_SIZE} bytes.
+	 */
+	private static String readToString(InputStream in, String command) throws IOException {
+		LimitedOutputStream out = new LimitedOutputStream(MAX_OUTPUT_SIZE);
+		byte[] buffer = new byte[STDIN_BUFFER_SIZE];
+		for (int read = -1; (read = in.read(buffer)) != -1;) {
+			out.write(buffer, 0, read);
+		}
+		return toString(out, command);
+	}
+
+	private static String toString(LimitedOutputStream out, String command) throws IOException {
+		if (out.getDropped() > 0) {
+			LOGGER.warn("Truncated output of remote ssh command \"{}\", dropped {} bytes",
+					command, out.getDropped());
+		}
+		return out.toString(OUTPUT_ENCODING);
+	}
+
 	public InputStream saveFullSnapshot() {
 		assertLiveSSHSession();
 
 		return new FullSnapshotCommand(session).save();
 	}
 
+	/**
+	 * Saves a full snapshot of the application to the given file and stores
+	 * its SHA-256 checksum next to it. The snapshot is only moved to the given
+	 * file once it is complete.
+	 *
+	 * @param file
+	 *            the file to save the snapshot to
+	 * @param listener
+	 *            the listener to notify of the progress, may be
+	 *            <code>null</code>
+	 * @return the SHA-256 checksum of the snapshot (hex)
+	 * @throws OpenShiftSSHOperationException
+	 *             if the snapshot could not be saved
+	 *
+	 * @see SnapshotFileUtils#save(InputStream, File, IProgressListener)
+	 */
+	public String saveFullSnapshot(File file, IProgressListener listener) throws OpenShiftException {
+		return save(saveFullSnapshot(), file, listener);
+	}
+
+	private String save(InputStream snapshot, File file, IProgressListener listener) throws OpenShiftException {
+		try {
+			return SnapshotFileUtils.save(snapshot, file, listener);
+		} catch (IOException e) {
+			throwIfCancelled(e, "snapshot");
+			throw new OpenShiftSSHOperationException(e,
+					"Could not save snapshot of application {0} to {1}", application.getName(), file);
+		} finally {
+			StreamUtils.quietlyClose(snapshot);
+		}
+	}
+
+	/**
+	 * Saves a full snapshot of the application to the given store. Only the
+	 * content that is not in the store yet (ex. from the snapshot of the
+	 * previous night) is written.
+	 *
+	 * @param store
+	 *            the store to save the snapshot to
+	 * @param name
+	 *            the name of the snapshot in the store
+	 * @return the statistics of the stored snapshot
+	 * @throws OpenShiftSSHOperationException
+	 *             if the snapshot could not be saved
+	 *
+	 * @see SnapshotStore#store(String, InputStream)
+	 */
+	public StoredSnapshot saveIncrementalSnapshot(SnapshotStore store, String name) throws OpenShiftException {
+		Assert.notNull(store);
+
+		InputStream snapshot = saveFullSnapshot();
+		try {
+			return store.store(name, snapshot);
+		} catch (IOException e) {
+			throwIfCancelled(e, "snapshot");
+			throw new OpenShiftSSHOperationException(e,
+					"Could not save snapshot of application {0} to store as {1}", application.getName(), name);
+		} finally {
+			StreamUtils.quietlyClose(snapshot);
+		}
+	}
+
+	/**
+	 * Restores the snapshot with the given name in the given store to the
+	 * application that this session is bound to. The snapshot is reassembled
+	 * while it is uploaded.
+	 *
+	 * @param store
+	 *            the store that holds the snapshot
+	 * @param name
+	 *            the name of the snapshot in the store
+	 * @param includeGit
+	 *            will activate the new snapshot given the snapshot includes a
+	 *            /git folder
+	 * @return the response of the restore command
+	 *
+	 * @see #restoreFullSnapshot(InputStream, boolean)
+	 * @see SnapshotStore#open(String)
+	 */
+	public InputStream restoreIncrementalSnapshot(SnapshotStore store, String name, boolean includeGit)
+			throws OpenShiftException {
+		Assert.notNull(store);
+
+		try {
+			return restoreFullSnapshot(store.open(name), includeGit);
+		} catch (IOException e) {
+			throw new OpenShiftSSHOperationException(e,
+					"Could not read snapshot {0} for application {1}", name, application.getName());
+		}
+	}
+
 	public InputStream restoreFullSnapshot(InputStream inputStream) {
 		return restoreFullSnapshot(inputStream, true);
 	}
@@ -237,6 +616,7 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	 * @return
 	 * 
 	 * @see TarFileUtils#hasGitFolder(InputStream)
+	 * @see TarFileUtils#inspect(InputStream)
 	 * @see #saveFullSnapshot()
 	 */
 	public InputStream restoreFullSnapshot(InputStream inputStream, boolean includeGit) {
@@ -245,12 +625,145 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 		return new FullSnapshotCommand(session).restore(inputStream, includeGit);
 	}
 
+	/**
+	 * Restores the full snapshot in the given file to the application that
+	 * this session is bound to.
+	 *
+	 * @param file
+	 *            the file with the snapshot
+	 * @param includeGit
+	 *            will activate the new snapshot given the snapshot includes a
+	 *            /git folder
+	 * @param listener
+	 *            the listener to notify of the progress, may be
+	 *            <code>null</code>
+	 * @return the response of the restore command
+	 *
+	 * @see #restoreFullSnapshot(InputStream, boolean)
+	 * @see SnapshotFileUtils#verify(File)
+	 */
+	public InputStream restoreFullSnapshot(File file, boolean includeGit, IProgressListener listener)
+			throws OpenShiftException {
+		return restoreFullSnapshot(open(file, listener), includeGit);
+	}
+
+	/**
+	 * Restores the given full snapshot in the background. The response of the
+	 * restore command is returned right away and may be read while the
+	 * snapshot is uploaded.
+	 *
+	 * @param snapshot
+	 *            the snapshot
+	 * @param includeGit
+	 *            will activate the new snapshot given the snapshot includes a
+	 *            /git folder
+	 * @param options
+	 *            the options of the upload, may be <code>null</code>
+	 * @return the upload
+	 *
+	 * @see #restoreFullSnapshot(InputStream, boolean)
+	 */
+	public SSHUpload restoreFullSnapshotAsync(InputStream snapshot, boolean includeGit, UploadOptions options)
+			throws OpenShiftException {
+		assertLiveSSHSession();
+
+		return new FullSnapshotCommand(session).restoreAsync(
+				snapshot, IProgressListener.UNKNOWN_TOTAL, includeGit, options);
+	}
+
+	public SSHUpload restoreFullSnapshotAsync(File snapshot, boolean includeGit, UploadOptions options)
+			throws OpenShiftException {
+		assertLiveSSHSession();
+
+		return new FullSnapshotCommand(session).restoreAsync(
+				open(snapshot, null), snapshot.length(), includeGit, options);
+	}
+
+	private InputStream open(File file, IProgressListener listener) throws OpenShiftException {
+		try {
+			return SnapshotFileUtils.open(file, listener);
+		} catch (IOException e) {
+			throw new OpenShiftSSHOperationException(e,
+					"Could not read snapshot {0} for application {1}", file, application.getName());
+		}
+	}
+
 	public InputStream saveDeploymentSnapshot() {
 		assertLiveSSHSession();
 
 		return new DeploymentSnapshotCommand(session).save();
 	}
 
+	/**
+	 * Saves a snapshot of the current deployment of the application to the
+	 * given file and stores its SHA-256 checksum next to it.
+	 *
+	 * @param file
+	 *            the file to save the snapshot to
+	 * @param listener
+	 *            the listener to notify of the progress, may be
+	 *            <code>null</code>
+	 * @return the SHA-256 checksum of the snapshot (hex)
+	 * @throws OpenShiftSSHOperationException
+	 *             if the snapshot could not be saved
+	 *
+	 * @see #saveFullSnapshot(File, IProgressListener)
+	 */
+	public String saveDeploymentSnapshot(File file, IProgressListener listener) throws OpenShiftException {
+		return save(saveDeploymentSnapshot(), file, listener);
+	}
+
+	/**
+	 * Restores the deployment snapshot in the given file to the application
+	 * that this session is bound to.
+	 *
+	 * @param file
+	 *            the file with the snapshot
+	 * @param hotDeploy
+	 *            will not restart the application if <code>true</code>
+	 * @param listener
+	 *            the listener to notify of the progress, may be
+	 *            <code>null</code>
+	 * @return the response of the deploy command
+	 *
+	 * @see #restoreDeploymentSnapshot(InputStream, boolean)
+	 */
+	public InputStream restoreDeploymentSnapshot(File file, boolean hotDeploy, IProgressListener listener)
+			throws OpenShiftException {
+		return restoreDeploymentSnapshot(open(file, listener), hotDeploy);
+	}
+
+	/**
+	 * Restores the given deployment snapshot in the background. The response
+	 * of the deploy command is returned right away and may be read while the
+	 * snapshot is uploaded.
+	 *
+	 * @param snapshot
+	 *            the snapshot
+	 * @param hotDeploy
+	 *            will not restart the application if <code>true</code>
+	 * @param options
+	 *            the options of the upload, may be <code>null</code>
+	 * @return the upload
+	 *
+	 * @see #restoreDeploymentSnapshot(InputStream, boolean)
+	 */
+	public SSHUpload restoreDeploymentSnapshotAsync(InputStream snapshot, boolean hotDeploy, UploadOptions options)
+			throws OpenShiftException {
+		assertLiveSSHSession();
+
+		return new DeploymentSnapshotCommand(session).restoreAsync(
+				snapshot, IProgressListener.UNKNOWN_TOTAL, hotDeploy, options);
+	}
+
+	public SSHUpload restoreDeploymentSnapshotAsync(File snapshot, boolean hotDeploy, UploadOptions options)
+			throws OpenShiftException {
+		assertLiveSSHSession();
+
+		return new DeploymentSnapshotCommand(session).restoreAsync(
+				open(snapshot, null), snapshot.length(), hotDeploy, options);
+	}
+
 	/**
 	 * Restores the given snapshot to the application that this session is bound
 	 * to.
@@ -369,45 +882,178 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	 */
 	protected InputStream execCommand(final String command, InputStream forStdIn,
 			ChannelInputStreams channelInputStream, Session session) throws OpenShiftSSHOperationException {
+		ChannelResponse channelResponse = openCommand(command, session);
+		if (forStdIn != null) {
+			writeToRemoteStdInput(command, forStdIn, channelResponse, IProgressListener.UNKNOWN_TOTAL, null, null);
+		}
+		return channelResponse;
+	}
+
+	/**
+	 * Runs the given command and uploads the given input to its standard
+	 * input in the background. The response of the command is returned right
+	 * away so that it may be read while uploading.
+	 *
+	 * @param command
+	 *            The remote command to run on the server
+	 * @param forStdIn
+	 *            The input to upload
+	 * @param total
+	 *            the size of the input or
+	 *            {@link IProgressListener#UNKNOWN_TOTAL}
+	 * @param options
+	 *            the options of the upload, may be <code>null</code>
+	 * @return the upload
+	 * @throws OpenShiftSSHOperationException
+	 */
+	protected SSHUpload execCommandAsync(final String command, final InputStream forStdIn, final long total,
+			UploadOptions options) throws OpenShiftSSHOperationException {
+		Assert.notNull(forStdIn);
+
+		final UploadOptions uploadOptions = options == null ? new UploadOptions() : options;
+		final ChannelResponse channelResponse;
+		try {
+			channelResponse = openCommand(command, session);
+		} catch (RuntimeException e) {
+			StreamUtils.quietlyClose(forStdIn);
+			throw e;
+		}
+		ExecutorService executor = uploadOptions.getExecutor();
+		if (executor == null) {
+			executor = getExecutorService();
+		}
+		try {
+			IOpenShiftFuture<Long> transfer = OpenShiftFutureTask.submit(new Callable<Long>() {
+
+				@Override
+				public Long call() throws Exception {
+					RateLimiter rateLimiter = null;
+					if (uploadOptions.isRateLimited()) {
+						rateLimiter = new RateLimiter(uploadOptions.getRateLimit());
+					}
+					return writeToRemoteStdInput(command, forStdIn, channelResponse, total,
+							uploadOptions.getProgressListener(), rateLimiter);
+				}
+			}, executor);
+			return new SSHUpload(channelResponse, transfer);
+		} catch (RuntimeException e) {
+			StreamUtils.quietlyClose(channelResponse);
+			StreamUtils.quietlyClose(forStdIn);
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a channel for the given command and connects it. Waits while
+	 * {@link #MAX_CHANNELS} channels are open in the session. The channel is
+	 * released once its response is read to its end or closed.
+	 */
+	private ChannelResponse openCommand(String command, Session session) throws OpenShiftException {
 		assertLiveSSHSession();
 
+		ChannelLease lease = acquireChannel(command, session);
 		ChannelExec channel = null;
+		ChannelResponse channelResponse = null;
 		try {
-			channel = (ChannelExec) session.openChannel(JSCH_EXEC_CHANNEL);
+			channel = (ChannelExec) lease.getSession().openChannel(JSCH_EXEC_CHANNEL);
 			((ChannelExec) channel).setCommand(command);
-			final OutputStream remoteStdIn = channel.getOutputStream();
 
 			InputStream in = channel.getInputStream();
-			ChannelResponse channelResponse = new ChannelResponse(in, channel);
+			channelResponse = new ChannelResponse(in, channel);
+			// the channel and the session are held for as long as the response is read
+			channelResponse.releaseOnEnd(lease);
+			lease = null;
+			// connecting may block, release the channel if we're cancelled meanwhile
+			CancellationUtils.register(channelResponse);
 			channel.connect(CONNECT_TIMEOUT);
-			if (forStdIn != null) {
-				writeToRemoteStdInput(forStdIn, remoteStdIn);
-			}
 			return channelResponse;
 		} catch (JSchException e) {
-			if (channel != null && channel.isConnected()) {
+			if (channel != null) {
 				channel.disconnect();
 			}
-			
+			releaseQuietly(channelResponse);
+			throwIfCancelled(e, command);
 			throw new OpenShiftSSHOperationException(e,
-					"Could no execute remote ssh command \"{0}\" on application {1}",
+					"Could not execute remote ssh command \"{0}\" on application {1}",
 					command, application.getName());
 		} catch (IOException e) {
-			if (channel != null && channel.isConnected()) {
+			if (channel != null) {
 				channel.disconnect();
 			}
+			releaseQuietly(channelResponse);
+			throwIfCancelled(e, command);
 			throw new OpenShiftSSHOperationException(e,
 					"Could not get response channel for remote ssh command \"{0}\" on application {1}",
 					command, application.getName());
+		} finally {
+			if (channelResponse != null) {
+				CancellationUtils.unregister(channelResponse);
+			}
+			if (lease != null) {
+				lease.close();
+			}
 		}
 	}
 
-	private void writeToRemoteStdInput(InputStream forStdInput, OutputStream remoteStdIn) throws IOException {
-		for (int data = -1; (data = forStdInput.read()) != -1;) {
-			remoteStdIn.write(data);
+	private void releaseQuietly(ChannelResponse channelResponse) {
+		if (channelResponse != null) {
+			channelResponse.release();
+		}
+	}
+
+	private void throwIfCancelled(Exception e, String command) throws OpenShiftCancellationException {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new OpenShiftCancellationException(e,
+					"Remote ssh command \"{0}\" on application {1} was cancelled",
+					command, application.getName());
+		}
+	}
+
+	/**
+	 * Writes the given input to the standard input of the command with the
+	 * given response and closes the input. The command is closed if writing
+	 * fails.
+	 *
+	 * @return the number of bytes written
+	 */
+	private long writeToRemoteStdInput(String command, InputStream forStdInput, ChannelResponse channelResponse,
+			long total, IProgressListener listener, RateLimiter rateLimiter) throws OpenShiftException {
+		// writing may block, release the channel if we're cancelled meanwhile
+		CancellationUtils.register(channelResponse);
+		try {
+			return writeToRemoteStdInput(forStdInput, channelResponse.getRemoteStdIn(), total, listener, rateLimiter);
+		} catch (IOException e) {
+			StreamUtils.quietlyClose(channelResponse);
+			throwIfCancelled(e, command);
+			throw new OpenShiftSSHOperationException(e,
+					"Could not write to remote ssh command \"{0}\" on application {1}",
+					command, application.getName());
+		} finally {
+			CancellationUtils.unregister(channelResponse);
+			StreamUtils.quietlyClose(forStdInput);
+		}
+	}
+
+	private long writeToRemoteStdInput(InputStream forStdInput, OutputStream remoteStdIn, long total,
+			IProgressListener listener, RateLimiter rateLimiter) throws IOException {
+		byte[] buffer = new byte[STDIN_BUFFER_SIZE];
+		long written = 0;
+		for (int read = -1; (read = forStdInput.read(buffer)) != -1;) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException("Writing to the remote standard input was interrupted");
+			}
+			if (rateLimiter != null) {
+				rateLimiter.acquire(read);
+			}
+			// blocks while the remote window is used up, the remote thus paces the upload
+			remoteStdIn.write(buffer, 0, read);
+			written += read;
+			if (listener != null) {
+				listener.onProgress(written, total);
+			}
 		}
 		remoteStdIn.close();
-		forStdInput.close();
+		return written;
 	}
 
 	public abstract class AbstractSnapshotType {
@@ -453,11 +1099,19 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 
 		public InputStream restore(InputStream in, boolean includeGit) {
 			return execCommand(
-					MessageFormat.format("restore{0}", includeGit ? " INCLUDE_GIT" : ""),
+					getRestoreCommand(includeGit),
 					in,
 					ChannelInputStreams.DATA,
 					session);
 		}
+
+		public SSHUpload restoreAsync(InputStream in, long total, boolean includeGit, UploadOptions options) {
+			return execCommandAsync(getRestoreCommand(includeGit), in, total, options);
+		}
+
+		private String getRestoreCommand(boolean includeGit) {
+			return MessageFormat.format("restore{0}", includeGit ? " INCLUDE_GIT" : "");
+		}
 	}
 
 	class DeploymentSnapshotCommand extends AbstractSnapshotSshCommand {
@@ -474,11 +1128,19 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 
 		public InputStream restore(InputStream inputStream, boolean hotDeploy) {
 			return execCommand(
-					MessageFormat.format("oo-binary-deploy{0}", hotDeploy ? " --hot-deploy" : ""),
+					getRestoreCommand(hotDeploy),
 					inputStream,
 					ChannelInputStreams.DATA,
 					session);
 		}
+
+		public SSHUpload restoreAsync(InputStream inputStream, long total, boolean hotDeploy, UploadOptions options) {
+			return execCommandAsync(getRestoreCommand(hotDeploy), inputStream, total, options);
+		}
+
+		private String getRestoreCommand(boolean hotDeploy) {
+			return MessageFormat.format("oo-binary-deploy{0}", hotDeploy ? " --hot-deploy" : "");
+		}
 	}
 
 	protected static class SshCommandResponse {
@@ -569,14 +1231,104 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 		public abstract InputStream get(Channel channel) throws IOException, JSchException;
 	}
 
-	class ChannelResponse extends InputStream {
+	/**
+	 * A channel that a command holds in a session, along with the lease of
+	 * the session if it is pooled. Closing it releases both, subsequent calls
+	 * have no effect.
+	 */
+	private static class ChannelLease implements Closeable {
+
+		private final Session session;
+		private final Semaphore channels;
+		private final SSHSessionPool.Lease sessionLease;
+		private boolean released;
+
+		private ChannelLease(Session session, Semaphore channels, SSHSessionPool.Lease sessionLease) {
+			this.session = session;
+			this.channels = channels;
+			this.sessionLease = sessionLease;
+		}
+
+		Session getSession() {
+			return session;
+		}
+
+		@Override
+		public void close() {
+			synchronized (this) {
+				if (released) {
+					return;
+				}
+				this.released = true;
+			}
+			channels.release();
+			if (sessionLease != null) {
+				sessionLease.close();
+			}
+		}
+	}
+
+	/**
+	 * An output stream that keeps up to a given number of bytes and drops
+	 * the rest. It is written by the session thread, which must never block.
+	 */
+	private static class LimitedOutputStream extends ByteArrayOutputStream {
+
+		private final int limit;
+		private long dropped;
+
+		private LimitedOutputStream(int limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public synchronized void write(int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			int kept = Math.max(0, Math.min(len, limit - count));
+			super.write(b, off, kept);
+			this.dropped += len - kept;
+		}
+
+		synchronized long getDropped() {
+			return dropped;
+		}
+	}
+
+	/**
+	 * Disconnects the channel of a command that is cancelled.
+	 */
+	private static class ChannelCloser implements Closeable {
+
+		private final Channel channel;
+
+		private ChannelCloser(Channel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public void close() {
+			channel.disconnect();
+		}
+	}
 
-		/** the delay to wait for further data from the remote **/
-		private static final int WAIT_DELAY = 1000;
+	/**
+	 * The response of a remote command. Reads block on the channel until the
+	 * remote sends data or ends the command. Once all output is read, the exit
+	 * status of the command is checked and the error output is thrown if it
+	 * failed.
+	 */
+	static class ChannelResponse extends InputStream {
 
-		private ChannelExec channel;
-		private InputStream channelInputStream;
-		private InputStream channelErrorStream;
+		private final ChannelExec channel;
+		private final InputStream channelInputStream;
+		private final InputStream channelErrorStream;
+		private final byte[] singleByte = new byte[1];
+		private boolean endOfStream;
+		private Closeable onEnd;
 
 		protected ChannelResponse(InputStream response, ChannelExec channel)
 				throws IOException, JSchException {
@@ -588,32 +1340,88 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 
 		@Override
 		public int read() throws IOException {
-			if (channel.isClosed()
-					&& channel.getExitStatus() != 0) {
-				throw new IOException(StreamUtils.readToString(channelErrorStream));
-			}
-			while (!(channel.isClosed()
-			&& channelInputStream.available() == 0)) {
-				if (channelInputStream.available() > 0) {
-					int data = channelInputStream.read();
-					if (data == -1) {
-						continue;
+			if (read(singleByte, 0, 1) == -1) {
+				return -1;
+			}
+			return singleByte[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (endOfStream) {
+				return -1;
+			}
+			if (length == 0) {
+				return 0;
+			}
+			try {
+				// the channel stream is a pipe, reading blocks until data or the end of the output arrives
+				int read = channelInputStream.read(buffer, offset, length);
+				if (read == -1) {
+					this.endOfStream = true;
+					try {
+						assertSuccessfulExit();
+					} finally {
+						release();
 					}
-					return data;
-				}
-				try {
-					Thread.sleep(WAIT_DELAY);
-				} catch (InterruptedException e) {
-					break;
 				}
+				return read;
+			} catch (InterruptedIOException e) {
+				// release the channel and let the caller know, this is no regular end of stream
+				Thread.currentThread().interrupt();
+				close();
+				throw e;
 			}
-			return -1;
+		}
+
+		/**
+		 * Waits for the remote command to exit and throws its error output if
+		 * it failed. The error stream ends once the channel is closed, the exit
+		 * status is then known.
+		 */
+		private void assertSuccessfulExit() throws IOException {
+			String errorOutput = StreamUtils.readToString(channelErrorStream);
+			if (channel.isClosed()
+					&& channel.getExitStatus() != 0) {
+				throw new IOException(errorOutput);
+			}
+		}
+
+		/**
+		 * Returns the standard input of the remote command.
+		 */
+		OutputStream getRemoteStdIn() throws IOException {
+			return channel.getOutputStream();
+		}
+
+		/**
+		 * Closes the given resource (ex. the lease of the session) once the
+		 * response is read to its end or closed.
+		 */
+		void releaseOnEnd(Closeable onEnd) {
+			this.onEnd = onEnd;
+		}
+
+		synchronized void release() {
+			if (onEnd == null) {
+				return;
+			}
+			try {
+				onEnd.close();
+			} catch (IOException e) {
+				LOGGER.error("Could not release the ssh session", e);
+			}
+			this.onEnd = null;
 		}
 
 		@Override
 		public void close() throws IOException {
-			channel.disconnect();
-			channelInputStream.close();
+			try {
+				channel.disconnect();
+				channelInputStream.close();
+			} finally {
+				release();
+			}
 		}
 
 		@Override
@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.net.ssl.SSLSocketFactory;
+
+import com.openshift.client.IHttpClient.ISSLCertificateCallback;
+import com.openshift.client.NoopSSLCertificateCallback;
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.client.cartridge.IEmbeddableCartridge;
+import com.openshift.client.cartridge.IStandaloneCartridge;
+import com.openshift.internal.client.cartridge.CartridgeCatalog;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClient;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.QuickstartDTO;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.UrlUtils;
+
+/**
+ * The state that connections to the same broker (server) may share, no
+ * matter which user they're authenticated as: the ssl socket factories (and
+ * thus ssl sessions and kept-alive connections), the links of the API root
+ * and the catalogs of cartridges and quickstarts. Connections that share a
+ * context only differ in their user scoped state (domains, applications,
+ * keys, authorizations).
+ * <p>
+ * The links and catalogs are reloaded by the next connection that needs them
+ * once they are older than the max age.
+ * 
+ * @author agent
+ * 
+ * @see com.openshift.client.ConnectionBuilder.AbstractConnectionBuilder#sharedBrokerContext()
+ */
+public class BrokerContext {
+
+	/** the default time in milliseconds after which shared links and catalogs are reloaded */
+	public static final long DEFAULT_CATALOG_MAX_AGE = 10 * 60 * 1000;
+
+	private static final ConcurrentMap<String, BrokerContext> CONTEXTS_BY_SERVER =
+			new ConcurrentHashMap<String, BrokerContext>();
+
+	private final String server;
+	private final ConcurrentMap<SSLKey, SSLSocketFactory> sslSocketFactories =
+			new ConcurrentHashMap<SSLKey, SSLSocketFactory>();
+	private volatile ApiLinks apiLinks;
+	private volatile Cartridges cartridges;
+	private volatile Quickstarts quickstarts;
+	private volatile long catalogMaxAge = DEFAULT_CATALOG_MAX_AGE;
+
+	BrokerContext(String server) {
+		Assert.notNull(server);
+		this.server = server;
+	}
+
+	/**
+	 * Returns the context for the given server. It is created on first use.
+	 * 
+	 * @param server
+	 *            the url of the server
+	 * @return the context for the given server
+	 */
+	public static BrokerContext get(String server) {
+		String key = toKey(server);
+		BrokerContext context = CONTEXTS_BY_SERVER.get(key);
+		if (context == null) {
+			BrokerContext newContext = new BrokerContext(key);
+			context = CONTEXTS_BY_SERVER.putIfAbsent(key, newContext);
+			if (context == null) {
+				context = newContext;
+			}
+		}
+		return context;
+	}
+
+	/**
+	 * Discards the context for the given server. Connections that were
+	 * created with it keep using it.
+	 * 
+	 * @param server
+	 *            the url of the server
+	 */
+	public static void remove(String server) {
+		CONTEXTS_BY_SERVER.remove(toKey(server));
+	}
+
+	private static String toKey(String server) {
+		Assert.notNull(server);
+		String key = UrlUtils.ensureStartsWithHttps(server.trim());
+		while (key.endsWith("/")) {
+			key = key.substring(0, key.length() - 1);
+		}
+		return key;
+	}
+
+	public String getServer() {
+		return server;
+	}
+
+	/**
+	 * Makes the given client use the ssl socket factory that the clients with
+	 * the same certificate callback and cipher exclusion share. The client's
+	 * own factory becomes the shared one if there's none yet.
+	 * 
+	 * @param client
+	 *            the client that shall share its ssl socket factory
+	 * @param callback
+	 *            the certificate callback that the client was created with
+	 * @param excludedSSLCipherRegex
+	 *            the cipher exclusion that the client was created with
+	 */
+	public void shareSSLSocketFactory(UrlConnectionHttpClient client, ISSLCertificateCallback callback,
+			String excludedSSLCipherRegex) {
+		SSLKey key = new SSLKey(callback, excludedSSLCipherRegex);
+		SSLSocketFactory socketFactory = sslSocketFactories.get(key);
+		if (socketFactory == null) {
+			SSLSocketFactory newSocketFactory = client.getSSLSocketFactory();
+			if (newSocketFactory == null) {
+				return;
+			}
+			socketFactory = sslSocketFactories.putIfAbsent(key, newSocketFactory);
+			if (socketFactory == null) {
+				return;
+			}
+		}
+		client.setSSLSocketFactory(socketFactory);
+	}
+
+	/**
+	 * Returns the links of the API root or <code>null</code> if they were not
+	 * loaded yet or are older than the max age.
+	 * 
+	 * @return the links of the API root
+	 */
+	public Map<String, Link> getApiLinks() {
+		ApiLinks apiLinks = this.apiLinks;
+		if (apiLinks == null
+				|| isExpired(apiLinks.loadedAt)) {
+			return null;
+		}
+		return apiLinks.links;
+	}
+
+	public void setApiLinks(Map<String, Link> apiLinks) {
+		this.apiLinks = apiLinks == null ? null : new ApiLinks(apiLinks);
+	}
+
+	/**
+	 * Returns the shared cartridges or <code>null</code> if they were not
+	 * loaded yet or are older than the max age.
+	 * 
+	 * @return the shared cartridges
+	 */
+	Cartridges getCartridges() {
+		Cartridges cartridges = this.cartridges;
+		if (cartridges == null
+				|| isExpired(cartridges.loadedAt)) {
+			return null;
+		}
+		return cartridges;
+	}
+
+	void setCartridges(Cartridges cartridges) {
+		this.cartridges = cartridges;
+	}
+
+	/**
+	 * Returns the shared quickstarts or <code>null</code> if they were not
+	 * loaded yet or are older than the max age.
+	 * 
+	 * @return the shared quickstarts
+	 */
+	List<QuickstartDTO> getQuickstarts() {
+		Quickstarts quickstarts = this.quickstarts;
+		if (quickstarts == null
+				|| isExpired(quickstarts.loadedAt)) {
+			return null;
+		}
+		return quickstarts.quickstarts;
+	}
+
+	void setQuickstarts(List<QuickstartDTO> quickstarts) {
+		this.quickstarts = new Quickstarts(quickstarts);
+	}
+
+	/**
+	 * Sets the time in milliseconds after which the shared links of the API
+	 * root and the catalogs are reloaded.
+	 * 
+	 * @param maxAge
+	 *            the max age of the links and catalogs
+	 */
+	public void setCatalogMaxAge(long maxAge) {
+		this.catalogMaxAge = maxAge;
+	}
+
+	private boolean isExpired(long loadedAt) {
+		return System.currentTimeMillis() - loadedAt > catalogMaxAge;
+	}
+
+	/**
+	 * Discards the shared catalogs and links so that they get reloaded.
+	 */
+	public void clear() {
+		this.apiLinks = null;
+		this.cartridges = null;
+		this.quickstarts = null;
+	}
+
+	@Override
+	public String toString() {
+		return "BrokerContext ["
+				+ "server=" + server
+				+ ", sslSocketFactories=" + sslSocketFactories.size()
+				+ ", cartridges=" + (cartridges != null)
+				+ ", quickstarts=" + (quickstarts != null)
+				+ "]";
+	}
+
+	/**
+	 * The catalogs of cartridges that were loaded at a given time.
+	 */
+	static class Cartridges {
+
+		final CartridgeCatalog<IStandaloneCartridge> standaloneCartridges;
+		final CartridgeCatalog<IEmbeddableCartridge> embeddableCartridges;
+		final CartridgeCatalog<ICartridge> cartridges;
+		final long loadedAt;
+
+		Cartridges(CartridgeCatalog<IStandaloneCartridge> standaloneCartridges,
+				CartridgeCatalog<IEmbeddableCartridge> embeddableCartridges,
+				CartridgeCatalog<ICartridge> cartridges) {
+			this.standaloneCartridges = standaloneCartridges;
+			this.embeddableCartridges = embeddableCartridges;
+			this.cartridges = cartridges;
+			this.loadedAt = System.currentTimeMillis();
+		}
+	}
+
+	private static class ApiLinks {
+
+		private final Map<String, Link> links;
+		private final long loadedAt;
+
+		private ApiLinks(Map<String, Link> links) {
+			this.links = Collections.unmodifiableMap(links);
+			this.loadedAt = System.currentTimeMillis();
+		}
+	}
+
+	private static class Quickstarts {
+
+		private final List<QuickstartDTO> quickstarts;
+		private final long loadedAt;
+
+		private Quickstarts(List<QuickstartDTO> quickstarts) {
+			this.quickstarts = Collections.unmodifiableList(quickstarts);
+			this.loadedAt = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * The identity of the ssl configuration of a client.
+	 */
+	private static class SSLKey {
+
+		private final Object callback;
+		private final String excludedSSLCipherRegex;
+
+		private SSLKey(ISSLCertificateCallback callback, String excludedSSLCipherRegex) {
+			if (callback instanceof NoopSSLCertificateCallback) {
+				// stateless, all instances are equal
+				this.callback = NoopSSLCertificateCallback.class;
+			} else {
+				this.callback = callback;
+			}
+			this.excludedSSLCipherRegex = excludedSSLCipherRegex;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(callback)
+					+ (excludedSSLCipherRegex == null ? 0 : excludedSSLCipherRegex.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof SSLKey)) {
+				return false;
+			}
+			SSLKey other = (SSLKey) obj;
+			return callback == other.callback
+					&& (excludedSSLCipherRegex == null ?
+							other.excludedSSLCipherRegex == null
+							: excludedSSLCipherRegex.equals(other.excludedSSLCipherRegex));
+		}
+	}
+}
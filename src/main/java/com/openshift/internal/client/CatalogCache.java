@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.OpenShiftException;
+import com.openshift.client.configuration.UserConfiguration;
+import com.openshift.internal.client.response.IRestResponseFactory;
+import com.openshift.internal.client.response.RestResponse;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * A persistent (on-disk) cache for the catalogs that only change when the
+ * broker is upgraded: the available cartridges and quickstarts. Catalogs are
+ * stored as the raw json that the broker responded with and are keyed by the
+ * server url and the api version.
+ *
+ * @author agent
+ *
+ * @see APIResource#getCartridges()
+ * @see APIResource#getQuickstarts()
+ */
+public class CatalogCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CatalogCache.class);
+
+	public static final String CATALOG_CARTRIDGES = "cartridges";
+	public static final String CATALOG_QUICKSTARTS = "quickstarts";
+
+	private static final String CACHE_FOLDER = "cache";
+	private static final String CACHE_FILE_SUFFIX = ".json";
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	private final File directory;
+	private final String key;
+
+	/**
+	 * Creates a cache for the given server and api version within the user
+	 * configuration folder (ex. ~/.openshift/cache).
+	 *
+	 * @param server
+	 *            the server url
+	 * @param apiVersion
+	 *            the api version that's requested
+	 *
+	 * @see UserConfiguration#getConfigurationFolder()
+	 */
+	public CatalogCache(String server, String apiVersion) {
+		this(new File(UserConfiguration.getConfigurationFolder(), CACHE_FOLDER), server, apiVersion);
+	}
+
+	public CatalogCache(File directory, String server, String apiVersion) {
+		Assert.notNull(directory);
+		Assert.notNull(server);
+		Assert.notNull(apiVersion);
+
+		this.directory = directory;
+		this.key = createKey(server, apiVersion);
+	}
+
+	private String createKey(String server, String apiVersion) {
+		String serverKey = server.replaceFirst("^[a-zA-Z]+://", "");
+		return (serverKey + '_' + apiVersion).replaceAll("[^a-zA-Z0-9.\\-]", "_");
+	}
+
+	/**
+	 * Returns the cached (raw json) content for the given catalog or
+	 * <code>null</code> if there's none.
+	 *
+	 * @param catalog
+	 *            the catalog to load
+	 * @return the cached json or null
+	 *
+	 * @see #CATALOG_CARTRIDGES
+	 * @see #CATALOG_QUICKSTARTS
+	 */
+	public String load(String catalog) {
+		File file = getFile(catalog);
+		if (!file.canRead()) {
+			return null;
+		}
+
+		InputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			return StreamUtils.readToString(in, StreamUtils.UTF_8);
+		} catch (IOException e) {
+			LOGGER.warn("Could not read cached catalog {}: {}", file.getAbsolutePath(), e.getMessage());
+			return null;
+		} finally {
+			StreamUtils.quietlyClose(in);
+		}
+	}
+
+	/**
+	 * Parses the cached content for the given catalog with the given factory.
+	 * Returns <code>null</code> if there's nothing cached or if the cached
+	 * content could not be parsed. Unparseable content is removed from the
+	 * cache.
+	 *
+	 * @param catalog
+	 *            the catalog to load
+	 * @param factory
+	 *            the factory to parse the content with
+	 * @return the response for the cached content or null
+	 */
+	public RestResponse load(String catalog, IRestResponseFactory factory) {
+		String content = load(catalog);
+		if (content == null) {
+			return null;
+		}
+		try {
+			return factory.get(content);
+		} catch (OpenShiftException e) {
+			LOGGER.warn("Discarding unparseable cached catalog {}: {}", catalog, e.getMessage());
+			remove(catalog);
+			return null;
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("Discarding unparseable cached catalog {}: {}", catalog, e.getMessage());
+			remove(catalog);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the given (raw json) content for the given catalog. The content
+	 * is written to a temporary file first and then renamed so that concurrent
+	 * readers never see partial content.
+	 *
+	 * @param catalog
+	 *            the catalog to store
+	 * @param content
+	 *            the raw json to store
+	 */
+	public void store(String catalog, String content) {
+		if (content == null) {
+			return;
+		}
+		if (!directory.exists()
+				&& !directory.mkdirs()) {
+			LOGGER.warn("Could not create catalog cache folder {}", directory.getAbsolutePath());
+			return;
+		}
+
+		File file = getFile(catalog);
+		File tempFile = null;
+		OutputStream out = null;
+		try {
+			// unique per writer so that concurrent stores dont clobber each other
+			tempFile = File.createTempFile(file.getName(), TEMP_FILE_SUFFIX, directory);
+			out = new FileOutputStream(tempFile);
+			out.write(content.getBytes(StreamUtils.UTF_8));
+			out.close();
+		} catch (IOException e) {
+			LOGGER.warn("Could not write catalog cache {}: {}", file.getAbsolutePath(), e.getMessage());
+			StreamUtils.quietlyClose(out);
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+			return;
+		}
+		// rename fails on some platforms if the destination exists
+		if (!tempFile.renameTo(file)) {
+			file.delete();
+			if (!tempFile.renameTo(file)) {
+				LOGGER.warn("Could not write catalog cache {}", file.getAbsolutePath());
+				tempFile.delete();
+			}
+		}
+	}
+
+	public void remove(String catalog) {
+		getFile(catalog).delete();
+	}
+
+	/**
+	 * Returns a response factory that parses with the given factory and stores
+	 * the raw content to this cache if it could be parsed successfully.
+	 *
+	 * @param catalog
+	 *            the catalog to store the content to
+	 * @param factory
+	 *            the factory to parse the content with
+	 * @return a storing response factory
+	 */
+	public StoringResponseFactory storing(String catalog, IRestResponseFactory factory) {
+		return new StoringResponseFactory(catalog, factory);
+	}
+
+	protected File getFile(String catalog) {
+		return new File(directory, key + '-' + catalog + CACHE_FILE_SUFFIX);
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	@Override
+	public String toString() {
+		return "CatalogCache ["
+				+ "directory=" + directory
+				+ ", key=" + key
+				+ "]";
+	}
+
+	/**
+	 * A response factory that stores the content that it parsed successfully.
+	 */
+	public class StoringResponseFactory implements IRestResponseFactory {
+
+		private final String catalog;
+		private final IRestResponseFactory factory;
+		private String content;
+
+		private StoringResponseFactory(String catalog, IRestResponseFactory factory) {
+			this.catalog = catalog;
+			this.factory = factory;
+		}
+
+		@Override
+		public RestResponse get(String restResponse) throws OpenShiftException {
+			RestResponse response = factory.get(restResponse);
+			this.content = restResponse;
+			store(catalog, restResponse);
+			return response;
+		}
+
+		/**
+		 * Returns the raw content that this factory parsed.
+		 *
+		 * @return the raw content
+		 */
+		public String getContent() {
+			return content;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * getCache().hashCode() + catalog.hashCode()) + factory.hashCode();
+		}
+
+		/**
+		 * Factories are equal if they parse with the same factory and store to
+		 * the same catalog. Concurrent requests with equal factories may thus
+		 * be coalesced.
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof StoringResponseFactory)) {
+				return false;
+			}
+			StoringResponseFactory other = (StoringResponseFactory) obj;
+			return getCache() == other.getCache()
+					&& catalog.equals(other.catalog)
+					&& factory.equals(other.factory);
+		}
+
+		private CatalogCache getCache() {
+			return CatalogCache.this;
+		}
+	}
+}
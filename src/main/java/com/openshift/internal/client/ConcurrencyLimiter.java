@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import com.openshift.client.OpenShiftCancellationException;
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * An adaptive limit for the number of requests that may be in flight at the
+ * same time. The limit is adjusted with AIMD (additive increase,
+ * multiplicative decrease): it grows by 1 per limit's worth of successful
+ * requests and is halved when the server is overloaded (internal server
+ * errors, timeouts). The limit is decreased at most once per limit's worth of
+ * completed requests so that a burst of failures of requests that were sent
+ * together only counts once. Latency is not taken into account: it varies too
+ * much among the resources (ex. a catalog vs. a single domain) to tell an
+ * overloaded server from a large response.
+ *
+ * @author agent
+ *
+ * @see RestService
+ * @see #createReadLimiter(String)
+ * @see #createMutationLimiter(String)
+ */
+public class ConcurrencyLimiter {
+
+	public static final int DEFAULT_READ_INITIAL_LIMIT = 10;
+	public static final int DEFAULT_READ_MIN_LIMIT = 2;
+	public static final int DEFAULT_READ_MAX_LIMIT = 50;
+	public static final int DEFAULT_MUTATION_INITIAL_LIMIT = 4;
+	public static final int DEFAULT_MUTATION_MIN_LIMIT = 1;
+	public static final int DEFAULT_MUTATION_MAX_LIMIT = 20;
+
+	/** the factor by which the limit is reduced if the server is overloaded */
+	private static final double OVERLOAD_BACKOFF = 0.5;
+
+	private final String name;
+	private final int minLimit;
+	private final int maxLimit;
+	private double limit;
+	private int completedSinceDecrease;
+	private int inFlight;
+
+	public ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+		Assert.isTrue(minLimit > 0);
+		Assert.isTrue(maxLimit >= minLimit);
+		Assert.isTrue(initialLimit >= minLimit
+				&& initialLimit <= maxLimit);
+
+		this.name = name;
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		// allow the first decrease right away
+		this.completedSinceDecrease = maxLimit;
+	}
+
+	/**
+	 * Creates a limiter with the default limits for the reads (GET, HEAD) that
+	 * are sent to the given server.
+	 * 
+	 * @param server
+	 *            the server the reads are sent to
+	 * @return a new limiter for reads
+	 */
+	public static ConcurrencyLimiter createReadLimiter(String server) {
+		return new ConcurrencyLimiter("read " + server,
+				DEFAULT_READ_INITIAL_LIMIT, DEFAULT_READ_MIN_LIMIT, DEFAULT_READ_MAX_LIMIT);
+	}
+
+	/**
+	 * Creates a limiter with the default limits for the mutations (POST, PUT,
+	 * PATCH, DELETE) that are sent to the given server.
+	 * 
+	 * @param server
+	 *            the server the mutations are sent to
+	 * @return a new limiter for mutations
+	 */
+	public static ConcurrencyLimiter createMutationLimiter(String server) {
+		return new ConcurrencyLimiter("mutation " + server,
+				DEFAULT_MUTATION_INITIAL_LIMIT, DEFAULT_MUTATION_MIN_LIMIT, DEFAULT_MUTATION_MAX_LIMIT);
+	}
+
+	/**
+	 * Blocks until a request may be sent or the given timeout is reached.
+	 *
+	 * @param timeout
+	 *            the time in milliseconds to wait at most
+	 * @return <code>true</code> if the request may be sent,
+	 *         <code>false</code> if the timeout was reached
+	 * @throws OpenShiftCancellationException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	public synchronized boolean acquire(long timeout) throws OpenShiftException {
+		long deadline = System.currentTimeMillis() + timeout;
+		try {
+			while (inFlight >= (int) limit) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				wait(remaining);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftCancellationException(e, "Interrupted while waiting to send a {0} request", name);
+		}
+		inFlight++;
+		return true;
+	}
+
+	/**
+	 * Signals that a request completed and adjusts the limit to its outcome.
+	 *
+	 * @param overloaded
+	 *            <code>true</code> if the server was overloaded (it failed
+	 *            internally or timed out)
+	 */
+	public synchronized void release(boolean overloaded) {
+		inFlight--;
+		completedSinceDecrease++;
+		if (overloaded) {
+			decrease(OVERLOAD_BACKOFF);
+		} else if (inFlight + 1 >= (int) limit) {
+			// only grow if the limit is actually used
+			this.limit = Math.min(maxLimit, limit + 1 / limit);
+		}
+		notifyAll();
+	}
+
+	private void decrease(double factor) {
+		if (completedSinceDecrease < (int) limit) {
+			return;
+		}
+		this.limit = Math.max(minLimit, limit * factor);
+		this.completedSinceDecrease = 0;
+	}
+
+	/**
+	 * Returns the number of requests that may currently be in flight.
+	 *
+	 * @return the current limit
+	 */
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ConcurrencyLimiter ["
+				+ "name=" + name
+				+ ", limit=" + limit
+				+ ", inFlight=" + inFlight
+				+ "]";
+	}
+}
@@ -55,6 +55,7 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 	private String suffix;
 	private final APIResource connectionResource;
 	// TODO: replace by a map indexed by application names ?
+	/** guarded by this */
 	private List<IApplication> applications = null;
 
 	protected DomainResource(final String namespace, final String suffix, final Map<String, Link> links,
@@ -193,10 +194,25 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 						name, scale, gearProfile, initialGitUrl, timeout, region, environmentVariables, cartridges);
 		IApplication application = new ApplicationResource(applicationDTO, this);
 
-		getOrLoadApplications().add(application);
+		addApplication(application);
 		return application;
 	}
 
+	/**
+	 * Adds the given application to the applications of this domain. The
+	 * applications are loaded first if they were not loaded yet.
+	 * 
+	 * @param application
+	 *            the application to add
+	 * @throws OpenShiftException
+	 */
+	private synchronized void addApplication(IApplication application) throws OpenShiftException {
+		List<IApplication> applications = getOrLoadApplications();
+		if (!applications.contains(application)) {
+			applications.add(application);
+		}
+	}
+
 	@Override
 	public boolean hasApplicationByName(String name) throws OpenShiftException {
 		return getApplicationByName(name) != null;
@@ -264,11 +280,11 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 	}
 
 	@Override
-	public List<IApplication> getApplications() throws OpenShiftException {
+	public synchronized List<IApplication> getApplications() throws OpenShiftException {
 		return CollectionUtils.toUnmodifiableCopy(getOrLoadApplications());
 	}
 
-	protected List<IApplication> getOrLoadApplications() throws OpenShiftException {
+	protected synchronized List<IApplication> getOrLoadApplications() throws OpenShiftException {
 		if (applications == null) {
 			this.applications = loadApplications();
 		}
@@ -290,6 +306,17 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 		return applications;
 	}
 
+	/**
+	 * Requests the applications of this domain from the backend without
+	 * updating the applications that this domain holds.
+	 * 
+	 * @return the applications as they are in the backend
+	 * @throws OpenShiftException
+	 */
+	List<ApplicationResourceDTO> requestApplications() throws OpenShiftException {
+		return new ListApplicationsRequest().execute();
+	}
+
 	/**
 	 * Updates the list of applications in this domain. It adds new
 	 * applications, updates the existing ones and removes the ones that were
@@ -302,9 +329,11 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 	 */
 	private List<IApplication> updateApplications() throws OpenShiftException {
 		List<ApplicationResourceDTO> applicationDTOs = new ListApplicationsRequest().execute();
-		addOrUpdateApplications(applicationDTOs, applications);
-		removeApplications(applicationDTOs, applications);
-		return applications;
+		synchronized (this) {
+			addOrUpdateApplications(applicationDTOs, applications);
+			removeApplications(applicationDTOs, applications);
+			return applications;
+		}
 	}
 
 	private List<IApplication> addOrUpdateApplications(List<ApplicationResourceDTO> dtos,
@@ -345,7 +374,7 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 		return false;
 	}
 
-	protected void removeApplication(IApplication application) {
+	protected synchronized void removeApplication(IApplication application) {
 		// TODO: can this collection be a null ?
 		this.applications.remove(application);
 	}
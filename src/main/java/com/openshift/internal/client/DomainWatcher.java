@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.client.OpenShiftException;
+import com.openshift.client.WatchEvent;
+import com.openshift.client.WatchEvent.Type;
+import com.openshift.internal.client.httpclient.request.Parameter;
+import com.openshift.internal.client.response.ApplicationResourceDTO;
+import com.openshift.internal.client.response.GearGroupResourceDTO;
+import com.openshift.internal.client.response.GearResourceDTO;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * Polls a domain in the background and notifies its watches of the changes.
+ * There's a single watcher per domain (and connection) that all watches of
+ * this domain share. It polls at the shortest interval that its watches ask
+ * for and backs off while nothing changes. Changes are detected by comparing
+ * the current state of the domain with the one of the former poll, the first
+ * poll thus establishes the state to compare to and does not notify any
+ * change. The scheduler only times the polls, the (blocking) polls and the
+ * notifications of the watches run in the given executor.
+ * 
+ * @author agent
+ * 
+ * @see APIResource#watch(com.openshift.client.IWatchListener,
+ *      com.openshift.client.WatchOptions)
+ */
+public class DomainWatcher implements Runnable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DomainWatcher.class);
+
+	private final DomainResource domain;
+	private final ScheduledExecutorService scheduler;
+	private final Executor executor;
+	private final List<Watch> watches = new CopyOnWriteArrayList<Watch>();
+	/** the state of the former poll, only accessed by the polls which never overlap */
+	private DomainSnapshot snapshot;
+	/** guarded by this */
+	private long delay;
+	/** guarded by this, set if a watch with a shorter interval was added while polling */
+	private boolean resetDelay;
+	/** guarded by this */
+	private ScheduledFuture<?> scheduled;
+	/** guarded by this */
+	private boolean stopped;
+
+	DomainWatcher(DomainResource domain, ScheduledExecutorService scheduler, Executor executor) {
+		Assert.notNull(domain);
+		Assert.notNull(scheduler);
+		Assert.notNull(executor);
+
+		this.domain = domain;
+		this.scheduler = scheduler;
+		this.executor = executor;
+	}
+
+	/**
+	 * Adds the given watch to this watcher and starts polling if it's the
+	 * first one. If the watch asks for a shorter interval than the current
+	 * (backed off) delay, the next poll is rescheduled to its interval.
+	 * Returns <code>false</code> if this watcher was stopped.
+	 * 
+	 * @param watch
+	 *            the watch to add
+	 * @return true if the watch was added
+	 */
+	synchronized boolean add(Watch watch) {
+		if (stopped) {
+			return false;
+		}
+		watches.add(watch);
+		if (scheduled == null) {
+			this.delay = getInterval();
+			this.scheduled = scheduler.schedule(new PollDispatcher(), 0, TimeUnit.MILLISECONDS);
+		} else if (watch.getOptions().getInterval() < delay) {
+			this.delay = getInterval();
+			if (scheduled.cancel(false)) {
+				this.scheduled = scheduler.schedule(new PollDispatcher(), delay, TimeUnit.MILLISECONDS);
+			} else {
+				// polling, the poll reschedules
+				this.resetDelay = true;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the given watch from this watcher. The watcher is stopped once
+	 * it has no watches left.
+	 * 
+	 * @param watch
+	 *            the watch to remove
+	 * @return true if this watcher was stopped
+	 */
+	synchronized boolean remove(Watch watch) {
+		watches.remove(watch);
+		if (watches.isEmpty()) {
+			stop();
+		}
+		return stopped;
+	}
+
+	synchronized void stop() {
+		this.stopped = true;
+		if (scheduled != null) {
+			scheduled.cancel(false);
+			this.scheduled = null;
+		}
+	}
+
+	@Override
+	public void run() {
+		boolean changed = false;
+		try {
+			DomainSnapshot current = poll(isGears());
+			List<WatchEvent> events = Collections.emptyList();
+			if (snapshot != null) {
+				events = snapshot.diff(current);
+			}
+			this.snapshot = current;
+			if (!events.isEmpty()) {
+				changed = true;
+				notify(events);
+			}
+		} catch (RuntimeException e) {
+			LOGGER.debug("Could not poll domain {}: {}", domain.getId(), e.getMessage());
+			notifyError(e);
+		} catch (Throwable e) {
+			LOGGER.warn("Could not poll domain " + domain.getId(), e);
+		} finally {
+			reschedule(changed);
+		}
+	}
+
+	/**
+	 * Schedules the next poll. The delay is reset to the shortest interval if
+	 * the domain changed and is doubled (up to the max interval) otherwise.
+	 */
+	private synchronized void reschedule(boolean changed) {
+		if (stopped) {
+			return;
+		}
+		if (changed
+				|| resetDelay) {
+			this.delay = getInterval();
+			this.resetDelay = false;
+		} else {
+			this.delay = Math.min(delay * 2, getMaxInterval());
+		}
+		this.scheduled = scheduler.schedule(new PollDispatcher(), delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Hands the poll off to the executor once it's due. Polling and notifying
+	 * may block and would otherwise hold the shared scheduler.
+	 */
+	private class PollDispatcher implements Runnable {
+
+		@Override
+		public void run() {
+			try {
+				executor.execute(DomainWatcher.this);
+			} catch (RejectedExecutionException e) {
+				LOGGER.warn("Could not poll domain {}, the executor was shut down", domain.getId());
+				stop();
+			}
+		}
+	}
+
+	private DomainSnapshot poll(boolean gears) throws OpenShiftException {
+		List<ApplicationResourceDTO> applications = domain.requestApplications();
+		Map<String, ApplicationSnapshot> snapshots = new LinkedHashMap<String, ApplicationSnapshot>();
+		for (ApplicationResourceDTO application : applications) {
+			Map<String, String> gearStates = null;
+			if (gears) {
+				gearStates = requestGearStates(application);
+			}
+			snapshots.put(application.getName(), new ApplicationSnapshot(application, gearStates));
+		}
+		return new DomainSnapshot(domain.getId(), snapshots);
+	}
+
+	private Map<String, String> requestGearStates(ApplicationResourceDTO application) throws OpenShiftException {
+		Link link = application.getLinks().get(ApplicationResource.LINK_GET_GEAR_GROUPS);
+		if (link == null) {
+			return null;
+		}
+		Collection<GearGroupResourceDTO> gearGroups = domain.getService().request(link, IHttpClient.NO_TIMEOUT,
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList()).getData();
+		Map<String, String> gearStates = new HashMap<String, String>();
+		for (GearGroupResourceDTO gearGroup : gearGroups) {
+			for (GearResourceDTO gear : gearGroup.getGears()) {
+				gearStates.put(gear.getUuid(), gear.getState());
+			}
+		}
+		return gearStates;
+	}
+
+	private void notify(List<WatchEvent> events) {
+		for (Watch watch : watches) {
+			for (WatchEvent event : events) {
+				if (event.getType() == Type.GEAR_STATE_CHANGED
+						&& !watch.getOptions().isGears()) {
+					continue;
+				}
+				watch.notify(event);
+			}
+		}
+	}
+
+	private void notifyError(Throwable error) {
+		for (Watch watch : watches) {
+			watch.notifyError(error);
+		}
+	}
+
+	private long getInterval() {
+		long interval = Long.MAX_VALUE;
+		for (Watch watch : watches) {
+			interval = Math.min(interval, watch.getOptions().getInterval());
+		}
+		return interval;
+	}
+
+	private long getMaxInterval() {
+		long maxInterval = Long.MAX_VALUE;
+		for (Watch watch : watches) {
+			maxInterval = Math.min(maxInterval, watch.getOptions().getMaxInterval());
+		}
+		return Math.max(maxInterval, getInterval());
+	}
+
+	private boolean isGears() {
+		for (Watch watch : watches) {
+			if (watch.getOptions().isGears()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public DomainResource getDomain() {
+		return domain;
+	}
+
+	/**
+	 * The state of a domain at a given poll.
+	 */
+	static class DomainSnapshot {
+
+		private final String domainId;
+		private final Map<String, ApplicationSnapshot> applications;
+
+		DomainSnapshot(String domainId, Map<String, ApplicationSnapshot> applications) {
+			this.domainId = domainId;
+			this.applications = applications;
+		}
+
+		/**
+		 * Returns the changes from this state to the given (newer) one.
+		 */
+		List<WatchEvent> diff(DomainSnapshot current) {
+			List<WatchEvent> events = new ArrayList<WatchEvent>();
+			for (String name : applications.keySet()) {
+				if (!current.applications.containsKey(name)) {
+					events.add(new WatchEvent(Type.APPLICATION_REMOVED, domainId, name, name));
+				}
+			}
+			for (Map.Entry<String, ApplicationSnapshot> entry : current.applications.entrySet()) {
+				String name = entry.getKey();
+				ApplicationSnapshot former = applications.get(name);
+				if (former == null) {
+					events.add(new WatchEvent(Type.APPLICATION_ADDED, domainId, name, name));
+				} else {
+					former.diff(entry.getValue(), domainId, name, events);
+				}
+			}
+			return events;
+		}
+	}
+
+	/**
+	 * The state of an application at a given poll. The gear states are
+	 * <code>null</code> if they were not polled.
+	 */
+	static class ApplicationSnapshot {
+
+		private final Set<String> cartridges;
+		private final Set<String> aliases;
+		private final Map<String, String> gearStates;
+
+		ApplicationSnapshot(ApplicationResourceDTO application, Map<String, String> gearStates) {
+			this(application.getCartridges() == null ? null : application.getCartridges().keySet(),
+					application.getAliases(), gearStates);
+		}
+
+		ApplicationSnapshot(Collection<String> cartridges, Collection<String> aliases, Map<String, String> gearStates) {
+			this.cartridges = toSet(cartridges);
+			this.aliases = toSet(aliases);
+			this.gearStates = gearStates;
+		}
+
+		private static Set<String> toSet(Collection<String> values) {
+			if (values == null) {
+				return Collections.emptySet();
+			}
+			return new HashSet<String>(values);
+		}
+
+		private void diff(ApplicationSnapshot current, String domainId, String name, List<WatchEvent> events) {
+			diff(cartridges, current.cartridges, Type.CARTRIDGE_ADDED, Type.CARTRIDGE_REMOVED, domainId, name, events);
+			diff(aliases, current.aliases, Type.ALIAS_ADDED, Type.ALIAS_REMOVED, domainId, name, events);
+			if (gearStates == null
+					|| current.gearStates == null) {
+				// gears were not polled both times
+				return;
+			}
+			for (Map.Entry<String, String> entry : current.gearStates.entrySet()) {
+				String formerState = gearStates.get(entry.getKey());
+				if (!equals(formerState, entry.getValue())) {
+					events.add(new WatchEvent(Type.GEAR_STATE_CHANGED, domainId, name, entry.getKey(),
+							formerState, entry.getValue()));
+				}
+			}
+		}
+
+		private static void diff(Set<String> former, Set<String> current, Type added, Type removed,
+				String domainId, String name, List<WatchEvent> events) {
+			for (String value : former) {
+				if (!current.contains(value)) {
+					events.add(new WatchEvent(removed, domainId, name, value));
+				}
+			}
+			for (String value : current) {
+				if (!former.contains(value)) {
+					events.add(new WatchEvent(added, domainId, name, value));
+				}
+			}
+		}
+
+		private static boolean equals(String value, String other) {
+			if (value == null) {
+				return other == null;
+			}
+			return value.equals(other);
+		}
+	}
+}
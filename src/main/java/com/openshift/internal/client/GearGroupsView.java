@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.openshift.client.IGear;
+import com.openshift.client.IGearGroup;
+import com.openshift.client.cartridge.ICartridge;
+
+/**
+ * An immutable snapshot of the gear groups of an application that was loaded
+ * at a given time. The gear groups are indexed by the names of their
+ * cartridges and the gears by their id.
+ *
+ * @author agent
+ *
+ * @see ApplicationResource#getGearGroups()
+ * @see ApplicationResource#setGearGroupsMaxAge(long)
+ */
+public class GearGroupsView {
+
+	private final long loadedAt;
+	private final Collection<IGearGroup> gearGroups;
+	private final Map<String, IGearGroup> gearGroupsByCartridgeName;
+	private final Map<String, IGear> gearsById;
+
+	GearGroupsView(Collection<IGearGroup> gearGroups) {
+		this.loadedAt = System.currentTimeMillis();
+		this.gearGroups = Collections.unmodifiableCollection(new ArrayList<IGearGroup>(gearGroups));
+		this.gearGroupsByCartridgeName = new HashMap<String, IGearGroup>();
+		this.gearsById = new HashMap<String, IGear>();
+		for (IGearGroup gearGroup : gearGroups) {
+			for (ICartridge cartridge : gearGroup.getCartridges()) {
+				if (cartridge.getName() != null
+						&& !gearGroupsByCartridgeName.containsKey(cartridge.getName())) {
+					gearGroupsByCartridgeName.put(cartridge.getName(), gearGroup);
+				}
+			}
+			for (IGear gear : gearGroup.getGears()) {
+				gearsById.put(gear.getId(), gear);
+			}
+		}
+	}
+
+	public Collection<IGearGroup> getGearGroups() {
+		return gearGroups;
+	}
+
+	/**
+	 * Returns the gear group that holds the given cartridge or
+	 * <code>null</code> if there's none.
+	 *
+	 * @param cartridge
+	 *            the cartridge to look for
+	 * @return the gear group with the given cartridge
+	 */
+	public IGearGroup getGearGroup(ICartridge cartridge) {
+		if (cartridge == null) {
+			return null;
+		}
+		if (cartridge.getName() == null) {
+			// downloadable cartridges may only be known by their url
+			for (IGearGroup gearGroup : gearGroups) {
+				if (gearGroup.getCartridges().contains(cartridge)) {
+					return gearGroup;
+				}
+			}
+			return null;
+		}
+		return gearGroupsByCartridgeName.get(cartridge.getName());
+	}
+
+	/**
+	 * Returns the gear with the given id or <code>null</code> if there's none.
+	 *
+	 * @param id
+	 *            the id of the gear
+	 * @return the gear with the given id
+	 */
+	public IGear getGear(String id) {
+		return gearsById.get(id);
+	}
+
+	/**
+	 * Returns <code>true</code> if this view was loaded longer ago than the
+	 * given maximum age.
+	 *
+	 * @param maxAge
+	 *            the maximum age in milliseconds
+	 * @return true if this view is older than the given age
+	 */
+	public boolean isOlderThan(long maxAge) {
+		return System.currentTimeMillis() - loadedAt > maxAge;
+	}
+
+	public long getLoadedAt() {
+		return loadedAt;
+	}
+
+	@Override
+	public String toString() {
+		return "GearGroupsView ["
+				+ "loadedAt=" + loadedAt
+				+ ", gearGroups=" + gearGroups
+				+ "]";
+	}
+}
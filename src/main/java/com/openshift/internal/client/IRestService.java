@@ -91,4 +91,12 @@ public interface IRestService {
 	 * @return
 	 */
 	public String getPlatformUrl();
-}
\ No newline at end of file
+
+	/**
+	 * Returns the number of requests that were not sent to the server but
+	 * shared the response of an identical request that was in flight.
+	 * 
+	 * @return the number of coalesced requests
+	 */
+	public long getCoalescedRequestCount();
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.IFutureCallback;
+import com.openshift.client.IOpenShiftFuture;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.CancellationUtils;
+
+/**
+ * A future task that notifies its callbacks once it is done. Cancelling it
+ * while it is running interrupts its thread and closes the sockets and
+ * channels that the thread is blocked on.
+ * 
+ * @see CancellationUtils
+ * @author agent
+ */
+public class OpenShiftFutureTask<V> extends FutureTask<V> implements IOpenShiftFuture<V> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OpenShiftFutureTask.class);
+
+	private final List<IFutureCallback<? super V>> callbacks = new ArrayList<IFutureCallback<? super V>>();
+	private boolean notified;
+	/** the thread that is running this task, guarded by this */
+	private Thread runner;
+
+	public OpenShiftFutureTask(Callable<V> callable) {
+		super(callable);
+	}
+
+	/**
+	 * Submits the given callable to the given executor.
+	 * 
+	 * @param callable
+	 *            the operation to run
+	 * @param executor
+	 *            the executor to run the operation in
+	 * @return the future for the given operation
+	 */
+	public static <V> IOpenShiftFuture<V> submit(Callable<V> callable, ExecutorService executor) {
+		Assert.notNull(callable);
+		Assert.notNull(executor);
+
+		OpenShiftFutureTask<V> task = new OpenShiftFutureTask<V>(callable);
+		executor.execute(task);
+		return task;
+	}
+
+	@Override
+	public IOpenShiftFuture<V> addCallback(IFutureCallback<? super V> callback) {
+		Assert.notNull(callback);
+
+		synchronized (callbacks) {
+			// waiters are released before done() is called, a future may be done but not notified yet
+			if (!notified
+					&& !isDone()) {
+				callbacks.add(callback);
+				return this;
+			}
+		}
+		notify(callback);
+		return this;
+	}
+
+	@Override
+	public void run() {
+		setRunner(Thread.currentThread());
+		try {
+			super.run();
+		} finally {
+			setRunner(null);
+		}
+	}
+
+	/**
+	 * Sets the thread that is running this task. Subclasses that do not run
+	 * through {@link #run()} set it while they're running so that cancelling
+	 * releases the resources they're blocked on.
+	 * 
+	 * @param runner
+	 *            the running thread or <code>null</code> once it's done
+	 */
+	protected synchronized void setRunner(Thread runner) {
+		this.runner = runner;
+	}
+
+	/**
+	 * Cancels this task. If it is running and may be interrupted, the
+	 * resources that its thread registered are closed so that blocking io
+	 * returns right away.
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		if (cancelled
+				&& mayInterruptIfRunning) {
+			List<Closeable> resources;
+			synchronized (this) {
+				if (runner == null) {
+					return cancelled;
+				}
+				// only the resources of this task, the runner may not move on while we hold the lock
+				resources = CancellationUtils.getResources(runner);
+			}
+			CancellationUtils.close(resources);
+		}
+		return cancelled;
+	}
+
+	@Override
+	protected void done() {
+		List<IFutureCallback<? super V>> callbacks;
+		synchronized (this.callbacks) {
+			this.notified = true;
+			callbacks = new ArrayList<IFutureCallback<? super V>>(this.callbacks);
+			this.callbacks.clear();
+		}
+		for (IFutureCallback<? super V> callback : callbacks) {
+			notify(callback);
+		}
+	}
+
+	private void notify(IFutureCallback<? super V> callback) {
+		V result;
+		try {
+			result = get();
+		} catch (CancellationException e) {
+			callback.onFailure(e);
+			return;
+		} catch (ExecutionException e) {
+			callback.onFailure(e.getCause());
+			return;
+		} catch (InterruptedException e) {
+			// cannot happen, the task is done
+			Thread.currentThread().interrupt();
+			callback.onFailure(e);
+			return;
+		}
+		try {
+			callback.onSuccess(result);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Callback {} failed: {}", callback, e.getMessage());
+		}
+	}
+}
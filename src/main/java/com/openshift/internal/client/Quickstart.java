@@ -85,7 +85,7 @@ public class Quickstart implements IQuickstart {
 	public List<ICartridge> getAlternativesFor(ICartridge cartridge) {
 		if (cartridge != null) {
 			for (AlternativeCartridges alternatives : alternativeCartridges) {
-				if (alternatives.get().contains(cartridge)) {
+				if (alternatives.contains(cartridge)) {
 					return alternatives.get();
 				}
 			}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.openshift.client.IOpenShiftConnection;
+import com.openshift.client.IQuickstart;
+import com.openshift.client.OpenShiftException;
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * An index of the quickstarts that are available on a connection. The
+ * quickstarts are indexed by tag, language and provider (case insensitive)
+ * when the index is created. The index by cartridge resolves the alternatives
+ * of all quickstarts on first use and is rebuilt when the connection loaded a
+ * new catalog of cartridges.
+ *
+ * @author agent
+ *
+ * @see IOpenShiftConnection#getQuickstartIndex()
+ */
+public class QuickstartIndex {
+
+	private final IOpenShiftConnection connection;
+	private final List<IQuickstart> quickstarts;
+	private final Map<String, IQuickstart> quickstartsByName;
+	private final Map<String, List<IQuickstart>> quickstartsByTag;
+	private final Map<String, List<IQuickstart>> quickstartsByLanguage;
+	private final Map<String, List<IQuickstart>> quickstartsByProvider;
+	private volatile CartridgeIndex quickstartsByCartridge;
+
+	QuickstartIndex(Collection<IQuickstart> quickstarts, IOpenShiftConnection connection) {
+		Assert.notNull(quickstarts);
+
+		this.connection = connection;
+		this.quickstarts = Collections.unmodifiableList(new ArrayList<IQuickstart>(quickstarts));
+		this.quickstartsByName = new HashMap<String, IQuickstart>();
+		this.quickstartsByTag = new HashMap<String, List<IQuickstart>>();
+		this.quickstartsByLanguage = new HashMap<String, List<IQuickstart>>();
+		this.quickstartsByProvider = new HashMap<String, List<IQuickstart>>();
+		for (IQuickstart quickstart : this.quickstarts) {
+			quickstartsByName.put(quickstart.getName(), quickstart);
+			if (quickstart.getTags() != null) {
+				for (String tag : quickstart.getTags()) {
+					add(toKey(tag), quickstart, quickstartsByTag);
+				}
+			}
+			add(toKey(quickstart.getLanguage()), quickstart, quickstartsByLanguage);
+			add(toKey(quickstart.getProvider()), quickstart, quickstartsByProvider);
+		}
+	}
+
+	private static <K> void add(K key, IQuickstart quickstart, Map<K, List<IQuickstart>> quickstartsByKey) {
+		if (key == null) {
+			return;
+		}
+		List<IQuickstart> quickstarts = quickstartsByKey.get(key);
+		if (quickstarts == null) {
+			quickstarts = new ArrayList<IQuickstart>();
+			quickstartsByKey.put(key, quickstarts);
+		}
+		// quickstarts are added one after the other, duplicates can only be the last one
+		if (quickstarts.isEmpty()
+				|| quickstarts.get(quickstarts.size() - 1) != quickstart) {
+			quickstarts.add(quickstart);
+		}
+	}
+
+	private static String toKey(String value) {
+		if (value == null) {
+			return null;
+		}
+		return value.trim().toLowerCase(Locale.ENGLISH);
+	}
+
+	private static <K> List<IQuickstart> get(K key, Map<K, List<IQuickstart>> quickstartsByKey) {
+		List<IQuickstart> quickstarts = quickstartsByKey.get(key);
+		if (quickstarts == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(quickstarts);
+	}
+
+	/**
+	 * Returns all quickstarts in this index.
+	 *
+	 * @return all quickstarts
+	 */
+	public List<IQuickstart> getAll() {
+		return quickstarts;
+	}
+
+	public IQuickstart getByName(String name) {
+		return quickstartsByName.get(name);
+	}
+
+	/**
+	 * Returns the quickstarts that are tagged with the given tag (case
+	 * insensitive).
+	 *
+	 * @param tag
+	 *            the tag to look for
+	 * @return the quickstarts with the given tag
+	 */
+	public List<IQuickstart> getByTag(String tag) {
+		return get(toKey(tag), quickstartsByTag);
+	}
+
+	/**
+	 * Returns the quickstarts that are written in the given language (case
+	 * insensitive).
+	 *
+	 * @param language
+	 *            the language to look for
+	 * @return the quickstarts in the given language
+	 */
+	public List<IQuickstart> getByLanguage(String language) {
+		return get(toKey(language), quickstartsByLanguage);
+	}
+
+	/**
+	 * Returns the quickstarts of the given provider (case insensitive).
+	 *
+	 * @param provider
+	 *            the provider to look for
+	 * @return the quickstarts of the given provider
+	 */
+	public List<IQuickstart> getByProvider(String provider) {
+		return get(toKey(provider), quickstartsByProvider);
+	}
+
+	/**
+	 * Returns the quickstarts that the given cartridge is suitable for, the
+	 * quickstarts that have the given cartridge among their alternatives.
+	 *
+	 * @param cartridge
+	 *            the cartridge to look for
+	 * @return the quickstarts the given cartridge is suitable for
+	 * @throws OpenShiftException
+	 *             if the cartridges could not be loaded
+	 *
+	 * @see IQuickstart#getSuitableCartridges()
+	 */
+	public List<IQuickstart> getByCartridge(ICartridge cartridge) throws OpenShiftException {
+		if (cartridge == null) {
+			return Collections.emptyList();
+		}
+		return get(cartridge, getOrCreateCartridgeIndex().quickstartsByCartridge);
+	}
+
+	public Set<String> getTags() {
+		return Collections.unmodifiableSet(quickstartsByTag.keySet());
+	}
+
+	public Set<String> getLanguages() {
+		return Collections.unmodifiableSet(quickstartsByLanguage.keySet());
+	}
+
+	public Set<String> getProviders() {
+		return Collections.unmodifiableSet(quickstartsByProvider.keySet());
+	}
+
+	private CartridgeIndex getOrCreateCartridgeIndex() throws OpenShiftException {
+		List<ICartridge> cartridges = connection.getCartridges(true);
+		CartridgeIndex index = this.quickstartsByCartridge;
+		if (index == null
+				|| index.cartridges != cartridges) {
+			index = new CartridgeIndex(cartridges, quickstarts);
+			this.quickstartsByCartridge = index;
+		}
+		return index;
+	}
+
+	@Override
+	public String toString() {
+		return "QuickstartIndex ["
+				+ "quickstarts=" + quickstarts.size()
+				+ ", tags=" + quickstartsByTag.size()
+				+ ", languages=" + quickstartsByLanguage.size()
+				+ ", providers=" + quickstartsByProvider.size()
+				+ "]";
+	}
+
+	/**
+	 * The quickstarts by their resolved alternative cartridges for a given
+	 * catalog of cartridges.
+	 */
+	private static class CartridgeIndex {
+
+		private final List<ICartridge> cartridges;
+		private final Map<ICartridge, List<IQuickstart>> quickstartsByCartridge =
+				new HashMap<ICartridge, List<IQuickstart>>();
+
+		private CartridgeIndex(List<ICartridge> cartridges, List<IQuickstart> quickstarts) {
+			this.cartridges = cartridges;
+			for (IQuickstart quickstart : quickstarts) {
+				for (AlternativeCartridges alternatives : quickstart.getSuitableCartridges()) {
+					for (ICartridge cartridge : alternatives.get()) {
+						add(cartridge, quickstart, quickstartsByCartridge);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+
+import com.openshift.client.utils.HostUtils;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.CancellationUtils;
+
+/**
+ * A check that tells whether a resource (ex. an application) is ready. Probes
+ * are run by the {@link ReadinessScheduler} until they succeed or time out.
+ *
+ * @author agent
+ *
+ * @see ReadinessScheduler
+ */
+public abstract class ReadinessProbe {
+
+	/** the timeout for a single http probe */
+	private static final int HTTP_PROBE_TIMEOUT = 5 * 1000;
+
+	/**
+	 * Returns <code>true</code> if the resource is ready. Exceptions abort the
+	 * wait.
+	 *
+	 * @return true if the resource is ready
+	 * @throws Exception
+	 *             if the resource cannot be probed
+	 */
+	public abstract boolean isReady() throws Exception;
+
+	/**
+	 * Returns a probe that is ready once the host of the given url resolves.
+	 *
+	 * @param url
+	 *            the url whose host shall resolve
+	 * @return the dns probe
+	 */
+	public static ReadinessProbe dns(final String url) {
+		return new ReadinessProbe() {
+
+			@Override
+			public boolean isReady() throws MalformedURLException {
+				return HostUtils.canResolv(url);
+			}
+
+			@Override
+			public String toString() {
+				return "dns probe [url=" + url + "]";
+			}
+		};
+	}
+
+	/**
+	 * Returns a probe that is ready once the given url responds to a HEAD
+	 * request with a status that is not a server error (5xx). A freshly
+	 * created application answers with 503 until it is deployed.
+	 *
+	 * @param url
+	 *            the url to request
+	 * @return the http probe
+	 */
+	public static ReadinessProbe http(final String url) {
+		return new ReadinessProbe() {
+
+			@Override
+			public boolean isReady() throws MalformedURLException {
+				URLConnection connection = null;
+				Closeable cancellable = null;
+				try {
+					connection = new URL(url).openConnection();
+					if (!(connection instanceof HttpURLConnection)) {
+						return false;
+					}
+					final HttpURLConnection httpConnection = (HttpURLConnection) connection;
+					cancellable = new Closeable() {
+
+						@Override
+						public void close() {
+							httpConnection.disconnect();
+						}
+					};
+					CancellationUtils.register(cancellable);
+					httpConnection.setRequestMethod("HEAD");
+					httpConnection.setConnectTimeout(HTTP_PROBE_TIMEOUT);
+					httpConnection.setReadTimeout(HTTP_PROBE_TIMEOUT);
+					httpConnection.setInstanceFollowRedirects(false);
+					int responseCode = httpConnection.getResponseCode();
+					return responseCode != -1
+							&& responseCode < HttpURLConnection.HTTP_INTERNAL_ERROR;
+				} catch (MalformedURLException e) {
+					throw e;
+				} catch (IOException e) {
+					return false;
+				} finally {
+					if (cancellable != null) {
+						CancellationUtils.unregister(cancellable);
+					}
+					if (connection instanceof HttpURLConnection) {
+						((HttpURLConnection) connection).disconnect();
+					}
+				}
+			}
+
+			@Override
+			public String toString() {
+				return "http probe [url=" + url + "]";
+			}
+		};
+	}
+
+	/**
+	 * Returns a probe that is ready once all the given probes are ready. The
+	 * probes are run in the given order, the first one that is not ready
+	 * stops the run.
+	 *
+	 * @param probes
+	 *            the probes to run
+	 * @return the composite probe
+	 */
+	public static ReadinessProbe all(final ReadinessProbe... probes) {
+		Assert.notNull(probes);
+		return new ReadinessProbe() {
+
+			@Override
+			public boolean isReady() throws Exception {
+				for (ReadinessProbe probe : probes) {
+					if (!probe.isReady()) {
+						return false;
+					}
+				}
+				return true;
+			}
+		};
+	}
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.openshift.client.IOpenShiftFuture;
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.ExecutorServiceUtils;
+
+/**
+ * Waits for resources to become ready without occupying a thread per wait.
+ * All pending waits are tracked by a single scheduled executor: each wait is
+ * a probe that is scheduled again (with exponential backoff and jitter) as
+ * long as it's not ready and did not time out. The scheduler only keeps the
+ * time, the (blocking) probes are handed off to an executor. Threads are thus
+ * only busy while probing, never while waiting.
+ *
+ * @author agent
+ *
+ * @see ReadinessProbe
+ * @see ApplicationResource#waitForAccessibleAsync(long)
+ */
+public class ReadinessScheduler {
+
+	/** the delay before the first probe is retried */
+	public static final long DEFAULT_INITIAL_DELAY = 250;
+	/** the maximum delay between 2 probes */
+	public static final long DEFAULT_MAX_DELAY = 8 * 1000;
+	/** the factor by which the delay grows after each probe */
+	private static final int BACKOFF_FACTOR = 2;
+	/** the fraction of the delay that is randomly added or removed */
+	private static final double JITTER = 0.2;
+	/** the number of threads that run the probes of the default scheduler */
+	public static final int DEFAULT_PROBE_POOL_SIZE = 4;
+
+	private static ReadinessScheduler defaultScheduler;
+
+	private final ScheduledExecutorService scheduler;
+	private final Executor executor;
+	private final long initialDelay;
+	private final long maxDelay;
+	private final Random random = new Random();
+	private final AtomicInteger pending = new AtomicInteger();
+
+	public ReadinessScheduler(ScheduledExecutorService scheduler) {
+		this(scheduler, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY);
+	}
+
+	public ReadinessScheduler(ScheduledExecutorService scheduler, long initialDelay, long maxDelay) {
+		this(scheduler, scheduler, initialDelay, maxDelay);
+	}
+
+	/**
+	 * Creates a scheduler that times the probes with the given scheduler and
+	 * runs them with the given executor.
+	 * 
+	 * @param scheduler
+	 *            the scheduler that delays the probes
+	 * @param executor
+	 *            the executor that runs the probes
+	 * @param initialDelay
+	 *            the delay in milliseconds before the first probe is retried
+	 * @param maxDelay
+	 *            the maximum delay in milliseconds between 2 probes
+	 */
+	public ReadinessScheduler(ScheduledExecutorService scheduler, Executor executor, long initialDelay, long maxDelay) {
+		Assert.notNull(scheduler);
+		Assert.notNull(executor);
+		Assert.isTrue(initialDelay > 0);
+		Assert.isTrue(maxDelay >= initialDelay);
+
+		this.scheduler = scheduler;
+		this.executor = executor;
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+	}
+
+	/**
+	 * Returns the scheduler that is shared by all applications. It is created
+	 * on first use and times its probes with the shared scheduler. The probes
+	 * run in a small executor of their own: operations that block in the
+	 * shared executor while waiting for applications would otherwise starve
+	 * the probes they wait for.
+	 *
+	 * @return the shared scheduler
+	 * 
+	 * @see ExecutorServiceUtils#getSharedScheduler()
+	 */
+	public static synchronized ReadinessScheduler getDefault() {
+		if (defaultScheduler == null) {
+			defaultScheduler = new ReadinessScheduler(
+					ExecutorServiceUtils.getSharedScheduler(),
+					ExecutorServiceUtils.createExecutor(DEFAULT_PROBE_POOL_SIZE, "openshift-readiness"),
+					DEFAULT_INITIAL_DELAY,
+					DEFAULT_MAX_DELAY);
+		}
+		return defaultScheduler;
+	}
+
+	/**
+	 * Waits for the given probe to become ready. The probe is run right away
+	 * and then again with growing delays until it is ready or the timeout is
+	 * reached. The returned future is <code>true</code> if the probe got ready
+	 * in time, <code>false</code> otherwise. It fails if the probe throws.
+	 * Cancelling the future stops probing.
+	 *
+	 * @param probe
+	 *            the probe to run
+	 * @param timeout
+	 *            the time in milliseconds to wait at most
+	 * @return the future for the readiness
+	 */
+	public IOpenShiftFuture<Boolean> waitFor(ReadinessProbe probe, long timeout) {
+		Assert.notNull(probe);
+
+		PendingWait wait = new PendingWait(probe, System.currentTimeMillis() + timeout);
+		pending.incrementAndGet();
+		wait.schedule(0);
+		return wait;
+	}
+
+	/**
+	 * Returns the number of waits that are not done yet.
+	 *
+	 * @return the number of pending waits
+	 */
+	public int getPendingCount() {
+		return pending.get();
+	}
+
+	private long getJittered(long delay) {
+		long jitter = (long) (delay * JITTER * (2 * random.nextDouble() - 1));
+		return Math.max(1, delay + jitter);
+	}
+
+	private class PendingWait extends OpenShiftFutureTask<Boolean> implements Runnable {
+
+		private final ReadinessProbe probe;
+		private final long deadline;
+		private long delay;
+
+		private PendingWait(ReadinessProbe probe, long deadline) {
+			super(new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() throws Exception {
+					throw new IllegalStateException("readiness waits are completed by their probes");
+				}
+			});
+			this.probe = probe;
+			this.deadline = deadline;
+			this.delay = initialDelay;
+		}
+
+		private void schedule(long delay) {
+			try {
+				if (delay == 0) {
+					executor.execute(this);
+					return;
+				}
+				scheduler.schedule(new Runnable() {
+
+					@Override
+					public void run() {
+						// probing may block, keep the scheduler free
+						try {
+							executor.execute(PendingWait.this);
+						} catch (RejectedExecutionException e) {
+							setException(new OpenShiftException(e, "Could not wait for {0}, the executor was shut down", probe));
+						}
+					}
+				}, delay, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				setException(new OpenShiftException(e, "Could not wait for {0}, the scheduler was shut down", probe));
+			}
+		}
+
+		@Override
+		public void run() {
+			if (isDone()) {
+				return;
+			}
+			setRunner(Thread.currentThread());
+			try {
+				if (probe.isReady()) {
+					set(Boolean.TRUE);
+					return;
+				}
+			} catch (Exception e) {
+				setException(e);
+				return;
+			} finally {
+				setRunner(null);
+			}
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				set(Boolean.FALSE);
+				return;
+			}
+			long nextDelay = Math.min(getJittered(delay), remaining);
+			this.delay = Math.min(delay * BACKOFF_FACTOR, maxDelay);
+			schedule(nextDelay);
+		}
+
+		@Override
+		protected void done() {
+			pending.decrementAndGet();
+			super.done();
+		}
+	}
+}
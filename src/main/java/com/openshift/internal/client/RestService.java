@@ -14,6 +14,12 @@ import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,12 +29,15 @@ import com.openshift.client.IHttpClient;
 import com.openshift.client.InvalidCredentialsOpenShiftException;
 import com.openshift.client.Messages;
 import com.openshift.client.NotFoundOpenShiftException;
+import com.openshift.client.OpenShiftCancellationException;
 import com.openshift.client.OpenShiftEndpointException;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftTimeoutException;
 import com.openshift.internal.client.httpclient.EncodingException;
 import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.InternalServerErrorException;
 import com.openshift.internal.client.httpclient.NotFoundException;
+import com.openshift.internal.client.httpclient.RequestCancelledException;
 import com.openshift.internal.client.httpclient.UnauthorizedException;
 import com.openshift.internal.client.httpclient.request.IMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
@@ -50,12 +59,34 @@ public class RestService implements IRestService {
 	private IMediaType defaultRequestMediaType;
 	private IHttpClient client;
 	private IRestResponseFactory factory;
+	private final ConcurrentMap<RequestKey, FutureTask<RestResponse>> inFlightRequests =
+			new ConcurrentHashMap<RequestKey, FutureTask<RestResponse>>();
+	private final AtomicLong coalescedRequests = new AtomicLong();
+	private final ConcurrencyLimiter readLimiter;
+	private final ConcurrencyLimiter mutationLimiter;
 
 	public RestService(String server, String clientId, IMediaType defaultRequestMediaType, String acceptedMediaType,
 			IRestResponseFactory factory, IHttpClient client) {
 		this(server, clientId, defaultRequestMediaType, acceptedMediaType, factory, client, new RestServiceProperties());
 	}
 
+	/**
+	 * Creates a service that limits the requests that it has in flight at the
+	 * same time. Reads (GET, HEAD) and mutations (POST, PUT, PATCH, DELETE)
+	 * have separate limits. Requests of a kind whose limiter is
+	 * <code>null</code> are not limited. Limiters may be shared among the
+	 * services for the same server.
+	 * 
+	 * @see ConcurrencyLimiter#createReadLimiter(String)
+	 * @see ConcurrencyLimiter#createMutationLimiter(String)
+	 */
+	public RestService(String server, String clientId, IMediaType defaultRequestMediaType, String acceptedMediaType,
+			IRestResponseFactory factory, IHttpClient client, ConcurrencyLimiter readLimiter,
+			ConcurrencyLimiter mutationLimiter) {
+		this(server, clientId, null, defaultRequestMediaType, acceptedMediaType, factory, client,
+				new RestServiceProperties(), readLimiter, mutationLimiter);
+	}
+
 	protected RestService(String server, String clientId, IMediaType defaultRequestMediaType, String acceptedMediaType,
 			IRestResponseFactory factory, IHttpClient client, RestServiceProperties properties) {
 		this(server, clientId, null, defaultRequestMediaType, acceptedMediaType, factory, client, properties);
@@ -63,6 +94,13 @@ public class RestService implements IRestService {
 
 	protected RestService(String server, String clientId, String protocolVersion, IMediaType defaultRequestMediaType,
 			String acceptedMediaType, IRestResponseFactory factory, IHttpClient client, RestServiceProperties properties) {
+		this(server, clientId, protocolVersion, defaultRequestMediaType, acceptedMediaType, factory, client, properties,
+				null, null);
+	}
+
+	protected RestService(String server, String clientId, String protocolVersion, IMediaType defaultRequestMediaType,
+			String acceptedMediaType, IRestResponseFactory factory, IHttpClient client, RestServiceProperties properties,
+			ConcurrencyLimiter readLimiter, ConcurrencyLimiter mutationLimiter) {
 		Assert.notEmpty(server);
 		Assert.notNull(defaultRequestMediaType);
 		Assert.notEmpty(acceptedMediaType);
@@ -74,6 +112,8 @@ public class RestService implements IRestService {
 		this.defaultRequestMediaType = defaultRequestMediaType;
 		this.factory = factory;
 		this.client = client;
+		this.readLimiter = readLimiter;
+		this.mutationLimiter = mutationLimiter;
 		setupClient(properties.getUseragent(clientId), protocolVersion, acceptedMediaType, client);
 	}
 
@@ -102,9 +142,77 @@ public class RestService implements IRestService {
 	public RestResponse request(Link link, int timeout, IMediaType requestMediaType, IRestResponseFactory responseFactory, List<Parameter> urlPathParameter,
 			List<Parameter> urlParameters, Parameter... parameters) throws OpenShiftException {
 		// link.validateParameters(parameters);
-        String url = link.getHref(server, SERVICE_PATH, urlPathParameter, urlParameters);
+		String url = link.getHref(server, SERVICE_PATH, urlPathParameter, urlParameters);
+		if (link.getHttpMethod() == HttpMethod.GET) {
+			return requestCoalesced(url, link.getHttpMethod(), timeout, requestMediaType, responseFactory, parameters);
+		}
+		return request(url, link.getHttpMethod(), timeout, requestMediaType, responseFactory, parameters);
+	}
+
+	/**
+	 * Requests the given url unless an identical request (same url, equal
+	 * response factory) is already in flight. Concurrent callers then share
+	 * the response of the request that is in flight. Only idempotent GET
+	 * requests (that ignore their body parameters) may be coalesced.
+	 */
+	private RestResponse requestCoalesced(final String url, final HttpMethod httpMethod, final int timeout,
+			final IMediaType requestMediaType, final IRestResponseFactory responseFactory, final Parameter... parameters)
+			throws OpenShiftException {
+		RequestKey key = new RequestKey(url, responseFactory);
+		FutureTask<RestResponse> request = new FutureTask<RestResponse>(new Callable<RestResponse>() {
+
+			@Override
+			public RestResponse call() throws OpenShiftException {
+				return request(url, httpMethod, timeout, requestMediaType, responseFactory, parameters);
+			}
+		});
+		while (true) {
+			FutureTask<RestResponse> inFlightRequest = inFlightRequests.putIfAbsent(key, request);
+			if (inFlightRequest == null) {
+				try {
+					request.run();
+				} finally {
+					inFlightRequests.remove(key, request);
+				}
+				return getResponse(request, url);
+			}
+			coalescedRequests.incrementAndGet();
+			LOGGER.debug("Joining request in flight for {}", url);
+			try {
+				return getResponse(inFlightRequest, url);
+			} catch (OpenShiftCancellationException e) {
+				if (Thread.currentThread().isInterrupted()) {
+					throw e;
+				}
+				// the caller that sent the joined request was cancelled, we were not
+				LOGGER.debug("Request in flight for {} was cancelled, requesting again", url);
+			}
+		}
+	}
+
+	private RestResponse getResponse(FutureTask<RestResponse> request, String url) throws OpenShiftException {
+		try {
+			return request.get();
+		} catch (InterruptedException e) {
+			// the request in flight is not ours to cancel, other callers may wait for it
+			Thread.currentThread().interrupt();
+			throw new OpenShiftCancellationException(e,
+					"Waiting for the response of {0} was cancelled", url);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new OpenShiftException(cause, cause.getMessage());
+		}
+	}
+
+	private RestResponse request(String url, HttpMethod httpMethod, int timeout, IMediaType requestMediaType,
+			IRestResponseFactory responseFactory, Parameter... parameters) throws OpenShiftException {
         try {
-            String response = request(new URL(url), link.getHttpMethod(), requestMediaType, timeout, parameters);
+            String response = request(new URL(url), httpMethod, requestMediaType, timeout, parameters);
             return responseFactory.get(response);
         } catch (EncodingException e) {
             throw new OpenShiftException(e, e.getMessage());
@@ -114,6 +222,8 @@ public class RestService implements IRestService {
             throw new InvalidCredentialsOpenShiftException(url, e, getRestResponse(e));
         } catch (NotFoundException e) {
             throw new NotFoundOpenShiftException(url, e, getRestResponse(e));
+        } catch (RequestCancelledException e) {
+            throw new OpenShiftCancellationException(e, "Request to {0} was cancelled", url);
         } catch (HttpClientException e) {
         	RestResponse restResponse = getRestResponse(e);
         	String message = getMessage(restResponse, e);
@@ -123,7 +233,11 @@ public class RestService implements IRestService {
             throw new OpenShiftTimeoutException(url, e,
                     "Could not request url {0}, connection timed out", url);
         }
-		
+	}
+
+	@Override
+	public long getCoalescedRequestCount() {
+		return coalescedRequests.get();
 	}
 
 	private RestResponse getRestResponse(HttpClientException clientException) {
@@ -152,6 +266,49 @@ public class RestService implements IRestService {
 
 	private String request(URL url, HttpMethod httpMethod, IMediaType mediaType, int timeout, Parameter... parameters)
 			throws HttpClientException, SocketTimeoutException, OpenShiftException, EncodingException {
+		ConcurrencyLimiter limiter = getLimiter(httpMethod);
+		if (limiter == null) {
+			return send(url, httpMethod, mediaType, timeout, parameters);
+		}
+		long startTime = System.currentTimeMillis();
+		// the time waiting for the limiter counts toward the timeout of the request
+		long queueTimeout = timeout;
+		if (timeout <= 0) {
+			// no timeout given, bound waiting by the default one
+			queueTimeout = IHttpClient.DEFAULT_READ_TIMEOUT;
+		}
+		if (!limiter.acquire(queueTimeout)) {
+			throw new OpenShiftTimeoutException(url.toString(), null,
+					"Could not request url {0}, timed out waiting for other requests to the server to complete", url);
+		}
+		int remainingTimeout = timeout;
+		if (timeout > 0) {
+			remainingTimeout = (int) Math.max(1, timeout - (System.currentTimeMillis() - startTime));
+		}
+		boolean overloaded = false;
+		try {
+			return send(url, httpMethod, mediaType, remainingTimeout, parameters);
+		} catch (InternalServerErrorException e) {
+			overloaded = true;
+			throw e;
+		} catch (SocketTimeoutException e) {
+			overloaded = true;
+			throw e;
+		} finally {
+			limiter.release(overloaded);
+		}
+	}
+
+	private ConcurrencyLimiter getLimiter(HttpMethod httpMethod) {
+		if (httpMethod == HttpMethod.GET
+				|| httpMethod == HttpMethod.HEAD) {
+			return readLimiter;
+		}
+		return mutationLimiter;
+	}
+
+	private String send(URL url, HttpMethod httpMethod, IMediaType mediaType, int timeout, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, OpenShiftException, EncodingException {
 		LOGGER.info("Requesting {} with protocol {} on {}",
 				new Object[] { httpMethod.name(), SERVICE_VERSION, url });
 		
@@ -171,10 +328,30 @@ public class RestService implements IRestService {
 		default:
 			throw new OpenShiftException("Unexpected HTTP method {0}", httpMethod.toString());
 		}
-		
-		
 	}
-	
+
+	/**
+	 * Returns the limiter for the concurrent reads (GET, HEAD) that are sent
+	 * by this service.
+	 * 
+	 * @return the limiter for reads or <code>null</code> if reads are not
+	 *         limited
+	 */
+	public ConcurrencyLimiter getReadLimiter() {
+		return readLimiter;
+	}
+
+	/**
+	 * Returns the limiter for the concurrent mutations (POST, PUT, PATCH,
+	 * DELETE) that are sent by this service.
+	 * 
+	 * @return the limiter for mutations or <code>null</code> if mutations are
+	 *         not limited
+	 */
+	public ConcurrencyLimiter getMutationLimiter() {
+		return mutationLimiter;
+	}
+
 	public String getServiceUrl() {
 		return server + SERVICE_PATH;
 	}
@@ -182,4 +359,38 @@ public class RestService implements IRestService {
 	public String getPlatformUrl() {
 		return server;
 	}
+
+	/**
+	 * The identity of a request that may be shared among concurrent callers.
+	 * Requests are equal if they're for the same url and parse with equal
+	 * response factories.
+	 */
+	private static class RequestKey {
+
+		private final String url;
+		private final IRestResponseFactory responseFactory;
+
+		private RequestKey(String url, IRestResponseFactory responseFactory) {
+			this.url = url;
+			this.responseFactory = responseFactory;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * url.hashCode() + responseFactory.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof RequestKey)) {
+				return false;
+			}
+			RequestKey other = (RequestKey) obj;
+			return url.equals(other.url)
+					&& responseFactory.equals(other.responseFactory);
+		}
+	}
 }
@@ -42,8 +42,8 @@ public class UserResource extends AbstractOpenShiftResource implements IUser {
     	private final String id;
 	private final String rhLogin;
 	private final String password;
-	private final int maxGears;
-	private final int consumedGears;
+	private volatile int maxGears;
+	private volatile int consumedGears;
 
 	private Map<String, SSHKeyResource> sshKeys;
 	
@@ -170,6 +170,9 @@ public class UserResource extends AbstractOpenShiftResource implements IUser {
 	@Override
 	public void refresh() throws OpenShiftException {
 		this.sshKeys = loadKeys();
+		UserResourceDTO dto = api.loadUser();
+		this.maxGears = dto.getMaxGears();
+		this.consumedGears = dto.getConsumedGears();
 		
 		api.refresh();
 		DomainResource defaultDomain = (DomainResource) getDefaultDomain();
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.IWatch;
+import com.openshift.client.IWatchListener;
+import com.openshift.client.WatchEvent;
+import com.openshift.client.WatchOptions;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * A watch of a listener on one or several domains. It's notified by the
+ * watchers of its domains.
+ * 
+ * @author agent
+ * 
+ * @see DomainWatcher
+ */
+public class Watch implements IWatch {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(Watch.class);
+
+	private final IWatchListener listener;
+	private final WatchOptions options;
+	private final APIResource api;
+	private final List<DomainWatcher> watchers = new ArrayList<DomainWatcher>();
+	private volatile boolean cancelled;
+
+	Watch(IWatchListener listener, WatchOptions options, APIResource api) {
+		Assert.notNull(listener);
+		Assert.notNull(options);
+
+		this.listener = listener;
+		this.options = options;
+		this.api = api;
+	}
+
+	synchronized void addWatcher(DomainWatcher watcher) {
+		watchers.add(watcher);
+	}
+
+	@Override
+	public void cancel() {
+		List<DomainWatcher> watchers;
+		synchronized (this) {
+			if (cancelled) {
+				return;
+			}
+			this.cancelled = true;
+			watchers = new ArrayList<DomainWatcher>(this.watchers);
+			this.watchers.clear();
+		}
+		for (DomainWatcher watcher : watchers) {
+			api.unwatch(watcher, this);
+		}
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	WatchOptions getOptions() {
+		return options;
+	}
+
+	void notify(WatchEvent event) {
+		if (cancelled) {
+			return;
+		}
+		try {
+			listener.onEvent(event);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Watch listener {} failed: {}", listener, e.getMessage());
+		}
+	}
+
+	void notifyError(Throwable error) {
+		if (cancelled) {
+			return;
+		}
+		try {
+			listener.onError(error);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Watch listener {} failed: {}", listener, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.cartridge;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.client.cartridge.query.LatestVersionQuery;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * An unmodifiable list of cartridges that is indexed once when it's created.
+ * It offers constant time lookups by name and by base name (the name without
+ * the version, ex. "jbossas" for "jbossas-7") and keeps separate views for the
+ * obsolete and non-obsolete cartridges. The cartridge queries use these
+ * indexes if they're given a catalog instead of a plain list.
+ *
+ * @author agent
+ *
+ * @see LatestVersionQuery
+ */
+public class CartridgeCatalog<C extends ICartridge> extends AbstractList<C> implements RandomAccess {
+
+	private final List<C> cartridges;
+	private final Map<String, C> cartridgesByName;
+	private final Map<String, List<C>> cartridgesByBaseName;
+	private final Map<String, CartridgeVersion> versionsByName;
+	private final List<C> obsoleteCartridges;
+	private final CartridgeCatalog<C> nonObsoleteCartridges;
+
+	public CartridgeCatalog(Collection<? extends C> cartridges) {
+		this(cartridges, true);
+	}
+
+	private CartridgeCatalog(Collection<? extends C> cartridges, boolean createViews) {
+		Assert.notNull(cartridges);
+
+		this.cartridges = new ArrayList<C>(cartridges);
+		this.cartridgesByName = new HashMap<String, C>(this.cartridges.size() * 2);
+		this.cartridgesByBaseName = new HashMap<String, List<C>>();
+		this.versionsByName = new HashMap<String, CartridgeVersion>(this.cartridges.size() * 2);
+		List<C> obsoleteCartridges = new ArrayList<C>();
+		List<C> nonObsoleteCartridges = new ArrayList<C>(this.cartridges.size());
+		for (C cartridge : this.cartridges) {
+			index(cartridge);
+			if (cartridge.isObsolete()) {
+				obsoleteCartridges.add(cartridge);
+			} else {
+				nonObsoleteCartridges.add(cartridge);
+			}
+		}
+		sortVersions();
+		this.obsoleteCartridges = Collections.unmodifiableList(obsoleteCartridges);
+		if (!createViews
+				|| obsoleteCartridges.isEmpty()) {
+			this.nonObsoleteCartridges = this;
+		} else {
+			this.nonObsoleteCartridges = new CartridgeCatalog<C>(nonObsoleteCartridges, false);
+		}
+	}
+
+	private void index(C cartridge) {
+		String name = cartridge.getName();
+		if (name == null) {
+			return;
+		}
+		if (!cartridgesByName.containsKey(name)) {
+			cartridgesByName.put(name, cartridge);
+		}
+		CartridgeVersion version = CartridgeVersion.parse(name);
+		versionsByName.put(name, version);
+		if (!version.hasVersion()) {
+			return;
+		}
+		String baseName = version.getBaseName();
+		List<C> versions = cartridgesByBaseName.get(baseName);
+		if (versions == null) {
+			versions = new ArrayList<C>(2);
+			cartridgesByBaseName.put(baseName, versions);
+		}
+		versions.add(cartridge);
+	}
+
+	private void sortVersions() {
+		Comparator<C> latestFirst = new Comparator<C>() {
+
+			@Override
+			public int compare(C cartridge, C other) {
+				return versionsByName.get(other.getName()).compareTo(versionsByName.get(cartridge.getName()));
+			}
+		};
+		for (Map.Entry<String, List<C>> entry : cartridgesByBaseName.entrySet()) {
+			List<C> versions = entry.getValue();
+			// stable so that equal versions keep the catalog order
+			Collections.sort(versions, latestFirst);
+			entry.setValue(Collections.unmodifiableList(versions));
+		}
+	}
+
+	/**
+	 * Returns the base name (the name without the version) for the given
+	 * cartridge name or <code>null</code> if the name has no version.
+	 *
+	 * @param name
+	 *            the cartridge name
+	 * @return the base name or null
+	 *
+	 * @see ICartridge#NAME_VERSION_DELIMITER
+	 */
+	public static String getBaseName(String name) {
+		if (name == null) {
+			return null;
+		}
+		int delimiterIndex = name.lastIndexOf(ICartridge.NAME_VERSION_DELIMITER);
+		if (delimiterIndex == -1) {
+			return null;
+		}
+		return name.substring(0, delimiterIndex);
+	}
+
+	@Override
+	public C get(int index) {
+		return cartridges.get(index);
+	}
+
+	@Override
+	public int size() {
+		return cartridges.size();
+	}
+
+	/**
+	 * Returns the (precomputed) version of the cartridge with the given name
+	 * or <code>null</code> if there's no such cartridge.
+	 *
+	 * @param name
+	 *            the name of the cartridge
+	 * @return the version of the cartridge
+	 */
+	public CartridgeVersion getVersion(String name) {
+		return versionsByName.get(name);
+	}
+
+	/**
+	 * Returns the cartridge with the given name or <code>null</code> if there's
+	 * none.
+	 *
+	 * @param name
+	 *            the name of the cartridge
+	 * @return the cartridge with the given name
+	 */
+	public C getByName(String name) {
+		return cartridgesByName.get(name);
+	}
+
+	/**
+	 * Returns all versions of the cartridge with the given base name, the
+	 * latest version first. Returns an empty list if there are none.
+	 *
+	 * @param baseName
+	 *            the name of the cartridge without the version
+	 * @return the versions of the cartridge, latest first
+	 */
+	public List<C> getVersions(String baseName) {
+		List<C> versions = cartridgesByBaseName.get(baseName);
+		if (versions == null) {
+			return Collections.emptyList();
+		}
+		return versions;
+	}
+
+	/**
+	 * Returns the latest version of the cartridge with the given base name or
+	 * <code>null</code> if there's none.
+	 *
+	 * @param baseName
+	 *            the name of the cartridge without the version
+	 * @return the latest version of the cartridge
+	 */
+	public C getLatestVersion(String baseName) {
+		List<C> versions = cartridgesByBaseName.get(baseName);
+		if (versions == null
+				|| versions.isEmpty()) {
+			return null;
+		}
+		return versions.get(0);
+	}
+
+	/**
+	 * Returns this catalog without the obsolete cartridges.
+	 *
+	 * @return the catalog of the non-obsolete cartridges
+	 */
+	public CartridgeCatalog<C> getNonObsolete() {
+		return nonObsoleteCartridges;
+	}
+
+	/**
+	 * Returns the obsolete cartridges within this catalog.
+	 *
+	 * @return the obsolete cartridges
+	 */
+	public List<C> getObsolete() {
+		return obsoleteCartridges;
+	}
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.cartridge;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.openshift.client.cartridge.ICartridge;
+
+/**
+ * The (precomputed) version key of a cartridge name. The name is split into
+ * the base name and the version (ex. "jenkins-client" and "1.4" for
+ * "jenkins-client-1.4") and the version into its segments once. Versions are
+ * compared segment by segment where numeric segments are compared by value
+ * ("10" is greater than "9") and alphanumeric ones by their leading number and
+ * then their remainder ("7b" is greater than "7").
+ *
+ * @author agent
+ *
+ * @see CartridgeCatalog
+ */
+public class CartridgeVersion implements Comparable<CartridgeVersion> {
+
+	private static final char SEGMENT_DELIMITER = '.';
+
+	private final String name;
+	private final String baseName;
+	private final String version;
+	private final Segment[] segments;
+
+	private CartridgeVersion(String name, String baseName, String version, Segment[] segments) {
+		this.name = name;
+		this.baseName = baseName;
+		this.version = version;
+		this.segments = segments;
+	}
+
+	/**
+	 * Parses the given cartridge name into its version key. Names without a
+	 * version (ex. "diy") have an empty version.
+	 *
+	 * @param name
+	 *            the name of the cartridge
+	 * @return the version key for the given name
+	 */
+	public static CartridgeVersion parse(String name) {
+		if (name == null) {
+			return new CartridgeVersion(null, null, null, new Segment[0]);
+		}
+		int delimiterIndex = name.lastIndexOf(ICartridge.NAME_VERSION_DELIMITER);
+		if (delimiterIndex == -1) {
+			return new CartridgeVersion(name, name, null, new Segment[0]);
+		}
+		String version = name.substring(delimiterIndex + 1);
+		return new CartridgeVersion(name, name.substring(0, delimiterIndex), version, parseSegments(version));
+	}
+
+	private static Segment[] parseSegments(String version) {
+		List<Segment> segments = new ArrayList<Segment>(3);
+		int start = 0;
+		while (start <= version.length()) {
+			int end = version.indexOf(SEGMENT_DELIMITER, start);
+			if (end == -1) {
+				end = version.length();
+			}
+			segments.add(new Segment(version.substring(start, end)));
+			start = end + 1;
+		}
+		return segments.toArray(new Segment[segments.size()]);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the name without the version.
+	 *
+	 * @return the base name
+	 */
+	public String getBaseName() {
+		return baseName;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public boolean hasVersion() {
+		return version != null;
+	}
+
+	@Override
+	public int compareTo(CartridgeVersion other) {
+		int result = compare(baseName, other.baseName);
+		if (result != 0) {
+			return result;
+		}
+
+		for (int i = 0; i < segments.length && i < other.segments.length; i++) {
+			result = segments[i].compareTo(other.segments[i]);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return signum(segments.length - other.segments.length);
+	}
+
+	private static int compare(String string, String other) {
+		if (string == null) {
+			return other == null ? 0 : -1;
+		} else if (other == null) {
+			return 1;
+		}
+		return signum(string.compareTo(other));
+	}
+
+	private static int signum(int value) {
+		if (value < 0) {
+			return -1;
+		} else if (value > 0) {
+			return 1;
+		}
+		return 0;
+	}
+
+	@Override
+	public String toString() {
+		return "CartridgeVersion ["
+				+ "baseName=" + baseName
+				+ ", version=" + version
+				+ "]";
+	}
+
+	/**
+	 * A segment of a version (ex. "7b" in "7b.1"): a leading number (without
+	 * leading zeros) and a remainder.
+	 */
+	private static class Segment implements Comparable<Segment> {
+
+		private final String number;
+		private final String remainder;
+
+		private Segment(String segment) {
+			int numberEnd = 0;
+			while (numberEnd < segment.length()
+					&& Character.isDigit(segment.charAt(numberEnd))) {
+				numberEnd++;
+			}
+			int numberStart = 0;
+			while (numberStart < numberEnd - 1
+					&& segment.charAt(numberStart) == '0') {
+				numberStart++;
+			}
+			this.number = segment.substring(numberStart, numberEnd);
+			this.remainder = segment.substring(numberEnd);
+		}
+
+		@Override
+		public int compareTo(Segment other) {
+			int result = compareNumbers(number, other.number);
+			if (result != 0) {
+				return result;
+			}
+			return compare(remainder, other.remainder);
+		}
+
+		/**
+		 * Compares numbers of any length: the longer number is the greater
+		 * one, numbers of equal length compare by their digits. Segments
+		 * without a number are smaller than the ones with a number.
+		 */
+		private int compareNumbers(String number, String other) {
+			if (number.length() != other.length()) {
+				return signum(number.length() - other.length());
+			}
+			return compare(number, other);
+		}
+	}
+}
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+/**
+ * Thrown if a request was aborted because the thread that sent it was
+ * cancelled.
+ * 
+ * @author agent
+ */
+public class RequestCancelledException extends HttpClientException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RequestCancelledException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public RequestCancelledException(String message) {
+		super(message);
+	}
+}
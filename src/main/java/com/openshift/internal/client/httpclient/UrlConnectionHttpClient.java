@@ -10,6 +10,7 @@
  ******************************************************************************/
 package com.openshift.internal.client.httpclient;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.InetAddress;
@@ -47,6 +48,7 @@ import com.openshift.client.utils.SSLUtils;
 import com.openshift.internal.client.httpclient.request.IMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.ParameterValueMap;
+import com.openshift.internal.client.utils.CancellationUtils;
 import com.openshift.internal.client.utils.StreamUtils;
 import com.openshift.internal.client.utils.StringUtils;
 
@@ -71,6 +73,7 @@ public class UrlConnectionHttpClient implements IHttpClient {
 	protected ISSLCertificateCallback sslAuthorizationCallback;
 	protected Integer configTimeout;
 	private String excludedSSLCipherRegex;
+	private volatile SSLSocketFactory sslSocketFactory;
 
 	public UrlConnectionHttpClient(
 			String username, String password, String userAgent, String acceptedMediaType, String version) {
@@ -148,9 +151,14 @@ public class UrlConnectionHttpClient implements IHttpClient {
 			ParameterValueMap parameters)
 			throws SocketTimeoutException, HttpClientException {
 		HttpURLConnection connection = null;
+		Closeable cancellable = null;
 		try {
 			connection = createConnection(
 					url, username, password, authKey, authIV, token, userAgent, acceptedVersion, acceptedMediaType, sslAuthorizationCallback, timeout);
+			cancellable = registerCancellable(connection);
+			if (Thread.currentThread().isInterrupted()) {
+				throw createCancelledException(url, null);
+			}
 			// PATCH not yet supported by JVM
 			setRequestMethod(httpMethod, connection);
 			if (!parameters.isEmpty()) {
@@ -162,12 +170,41 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		} catch (SocketTimeoutException e) {
 			throw e;
 		} catch (IOException e) {
+			if (Thread.currentThread().isInterrupted()) {
+				// connection was closed by the thread that cancelled us
+				throw createCancelledException(url, e);
+			}
 			throw createException(e, connection);
 		} finally {
+			if (cancellable != null) {
+				CancellationUtils.unregister(cancellable);
+			}
 			disconnect(connection);
 		}
 	}
 
+	/**
+	 * Registers the given connection so that it gets disconnected if the
+	 * current thread is cancelled. Blocking reads and writes on the socket
+	 * then fail right away instead of waiting for the timeout.
+	 */
+	private Closeable registerCancellable(final HttpURLConnection connection) {
+		Closeable cancellable = new Closeable() {
+
+			@Override
+			public void close() {
+				connection.disconnect();
+			}
+		};
+		CancellationUtils.register(cancellable);
+		return cancellable;
+	}
+
+	private RequestCancelledException createCancelledException(URL url, IOException cause) {
+		return new RequestCancelledException(
+				MessageFormat.format("Request to {0} was cancelled", url), cause);
+	}
+
 	private void setRequestMethod(HttpMethod httpMethod, HttpURLConnection connection) throws ProtocolException {
 		if (httpMethod == HttpMethod.PATCH) {
 			httpMethod = HttpMethod.POST;
@@ -234,8 +271,13 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 		if (isHttps(url)) {
 			HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
-			SSLContext sslContext = setSSLCallback(sslAuthorizationCallback, url, httpsConnection);
-			setFilteredCiphers(excludedSSLCipherRegex, sslContext, httpsConnection);
+			if (sslAuthorizationCallback != null) {
+				httpsConnection.setHostnameVerifier(new CallbackHostnameVerifier());
+			}
+			SSLSocketFactory socketFactory = getSSLSocketFactory();
+			if (socketFactory != null) {
+				httpsConnection.setSSLSocketFactory(socketFactory);
+			}
 		}
 		setAuthorization(username, password, authKey, authIV, token, connection);
 		connection.setUseCaches(false);
@@ -293,29 +335,83 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		}
 	}
 
-	private SSLContext setSSLCallback(ISSLCertificateCallback sslAuthorizationCallback, URL url, HttpsURLConnection connection) {
+	/**
+	 * Returns the socket factory for the https connections of this client.
+	 * It's created on first use and then reused so that all connections share
+	 * the same ssl context (and thus its ssl sessions and kept-alive
+	 * connections).
+	 * 
+	 * @return the ssl socket factory or <code>null</code> if it could not be
+	 *         created
+	 */
+	public SSLSocketFactory getSSLSocketFactory() {
+		SSLSocketFactory socketFactory = this.sslSocketFactory;
+		if (socketFactory == null) {
+			socketFactory = createSSLSocketFactory();
+			this.sslSocketFactory = socketFactory;
+		}
+		return socketFactory;
+	}
+
+	/**
+	 * Sets the socket factory that this client shall use for its https
+	 * connections. Allows clients for the same server to share their ssl
+	 * context. The factory must have been created by a client with the same
+	 * ssl certificate callback and cipher exclusion.
+	 * 
+	 * @param socketFactory
+	 *            the socket factory to use
+	 */
+	public void setSSLSocketFactory(SSLSocketFactory socketFactory) {
+		this.sslSocketFactory = socketFactory;
+	}
+
+	protected SSLSocketFactory createSSLSocketFactory() {
 		X509TrustManager trustManager = null;
 		if (sslAuthorizationCallback != null) {
-			connection.setHostnameVerifier(new CallbackHostnameVerifier());
-			trustManager = createCallbackTrustManager(sslAuthorizationCallback, connection);
+			trustManager = createCallbackTrustManager(sslAuthorizationCallback);
 		}
 
 		try {
 			SSLContext sslContext = SSLUtils.getSSLContext(trustManager);
-			connection.setSSLSocketFactory(sslContext.getSocketFactory());
-			return sslContext;
+			return createFilteredSocketFactory(excludedSSLCipherRegex, sslContext);
 		} catch (GeneralSecurityException e) {
 			LOGGER.warn("Could not install trust manager callback", e);
 			return null;
 		}
 	}
 
+	/**
+	 * Makes the given connection use a socket factory of the given ssl
+	 * context that does not enable the excluded ciphers.
+	 * 
+	 * @deprecated the filtered socket factory is now created once per client
+	 *             and shared by all its connections. Override
+	 *             {@link #createSSLSocketFactory()} instead.
+	 */
+	@Deprecated
+	protected SSLContext setFilteredCiphers(String excludedSSLCipherRegex, SSLContext sslContext, HttpsURLConnection connection) {
+		if (excludedSSLCipherRegex != null) {
+			connection.setSSLSocketFactory(createFilteredSocketFactory(excludedSSLCipherRegex, sslContext));
+		}
+		return sslContext;
+	}
+
+	private SSLSocketFactory createFilteredSocketFactory(String excludedSSLCipherRegex, SSLContext sslContext) {
+		if (excludedSSLCipherRegex == null) {
+			return sslContext.getSocketFactory();
+		}
+		return new EnabledCiphersSSLSocketFactory(
+				SSLUtils.filterCiphers(excludedSSLCipherRegex, getSupportedCiphers(sslContext)),
+				sslContext.getSocketFactory());
+	}
+
 	/**
 	 * Returns the callback trustmanager or <code>null</code> if it could not be created.
 	 * 
 	 * @see ISSLCertificateCallback
 	 */
-	private X509TrustManager createCallbackTrustManager(ISSLCertificateCallback sslAuthorizationCallback,HttpsURLConnection connection) {
+	private X509TrustManager createCallbackTrustManager(ISSLCertificateCallback sslAuthorizationCallback) {
 		X509TrustManager trustManager = null;
 		try {
 			trustManager = getCurrentTrustManager();
@@ -330,28 +426,6 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		return trustManager;
 	}
 		
-	/**
-	 * Sets a ssl socket factory that sets a filtered list of ciphers based on
-	 * the #excludedSSLCipherRegex to the given connection.
-	 * 
-	 * @param sslContext
-	 * 
-	 * @param sslContext
-	 *            the ssl context that shall be used
-	 * @param connection
-	 *            the connection that the cipher filter shall be applied to
-	 */
-	protected SSLContext setFilteredCiphers(String excludedSSLCipherRegex, SSLContext sslContext, HttpsURLConnection connection) {
-		if (excludedSSLCipherRegex != null) {
-			connection.setSSLSocketFactory(
-					new EnabledCiphersSSLSocketFactory(
-							SSLUtils.filterCiphers(
-									excludedSSLCipherRegex, getSupportedCiphers(sslContext)), sslContext
-									.getSocketFactory()));
-		}
-		return sslContext;
-	}
-
 	protected String[] getSupportedCiphers(SSLContext sslContext) {
 		if (sslContext != null) {
 			return sslContext.getSupportedSSLParameters().getCipherSuites();
@@ -10,8 +10,6 @@
  ******************************************************************************/
 package com.openshift.internal.client.ssh;
 
-import java.util.Arrays;
-
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.openshift.client.IApplication;
@@ -82,16 +80,27 @@ public class ApplicationPortForwarding implements IApplicationPortForwarding {
 		}
 		try {
 			// returned format : localPort:remoteHost:remotePort
-			final String[] portForwardingL = session.getPortForwardingL();
-			final String key = this.localPort + ":" + this.remoteAddress + ":" + this.remotePort;
-			Arrays.sort(portForwardingL);
-			final int r = Arrays.binarySearch(portForwardingL, key);
-			return r >= 0;
+			final String key = getKey(localPort, remoteAddress, remotePort);
+			for (String portForwardingL : session.getPortForwardingL()) {
+				if (key.equals(portForwardingL)) {
+					return true;
+				}
+			}
+			return false;
 		} catch (JSchException e) {
 			throw new OpenShiftSSHOperationException(e, "Failed to retrieve SSH ports forwarding");
 		}
 	}
 
+	/**
+	 * Returns the key that jsch reports a local port forwarding with.
+	 * 
+	 * @see Session#getPortForwardingL()
+	 */
+	public static String getKey(int localPort, String remoteAddress, int remotePort) {
+		return localPort + ":" + remoteAddress + ":" + remotePort;
+	}
+
 	protected final IApplication getApplication() {
 		return application;
 	}
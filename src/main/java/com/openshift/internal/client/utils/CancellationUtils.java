@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the resources (sockets, channels) that threads are blocked
+ * on. Blocking socket io does not react to interrupts, a thread that is
+ * cancelled therefore also gets the resources it's using closed so that it
+ * returns right away. Resources are registered for the current thread while
+ * it's using them and unregistered once it's done.
+ * 
+ * @author agent
+ */
+public class CancellationUtils {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CancellationUtils.class);
+
+	private static final ConcurrentMap<Thread, List<Closeable>> resourcesByThread =
+			new ConcurrentHashMap<Thread, List<Closeable>>();
+
+	private CancellationUtils() {
+		// inhibit instantiation
+	}
+
+	/**
+	 * Registers the given resource as being used by the current thread. It
+	 * gets closed if the current thread is cancelled before the resource is
+	 * unregistered.
+	 * 
+	 * @param resource
+	 *            the resource to register
+	 * 
+	 * @see #unregister(Closeable)
+	 * @see #cancel(Thread)
+	 */
+	public static void register(Closeable resource) {
+		Assert.notNull(resource);
+
+		Thread thread = Thread.currentThread();
+		List<Closeable> resources = resourcesByThread.get(thread);
+		if (resources == null) {
+			// only the current thread adds or removes its own entry
+			resources = Collections.synchronizedList(new ArrayList<Closeable>(1));
+			resourcesByThread.put(thread, resources);
+		}
+		resources.add(resource);
+	}
+
+	/**
+	 * Unregisters the given resource that the current thread is done with.
+	 * 
+	 * @param resource
+	 *            the resource to unregister
+	 */
+	public static void unregister(Closeable resource) {
+		Thread thread = Thread.currentThread();
+		List<Closeable> resources = resourcesByThread.get(thread);
+		if (resources == null) {
+			return;
+		}
+		synchronized (resources) {
+			resources.remove(resource);
+			if (resources.isEmpty()) {
+				resourcesByThread.remove(thread, resources);
+			}
+		}
+	}
+
+	/**
+	 * Cancels the given thread: it is interrupted and the resources it has
+	 * registered are closed.
+	 * 
+	 * @param thread
+	 *            the thread to cancel
+	 */
+	public static void cancel(Thread thread) {
+		Assert.notNull(thread);
+
+		thread.interrupt();
+		close(getResources(thread));
+	}
+
+	/**
+	 * Returns the resources that the given thread is currently using.
+	 * 
+	 * @param thread
+	 *            the thread whose resources shall be returned
+	 * @return the resources of the given thread
+	 */
+	public static List<Closeable> getResources(Thread thread) {
+		List<Closeable> resources = resourcesByThread.get(thread);
+		if (resources == null) {
+			return Collections.emptyList();
+		}
+		synchronized (resources) {
+			return new ArrayList<Closeable>(resources);
+		}
+	}
+
+	/**
+	 * Closes the given resources quietly.
+	 * 
+	 * @param resources
+	 *            the resources to close
+	 */
+	public static void close(List<Closeable> resources) {
+		for (Closeable resource : resources) {
+			try {
+				resource.close();
+			} catch (IOException e) {
+				LOGGER.debug("Could not close {}: {}", resource, e.getMessage());
+			} catch (RuntimeException e) {
+				LOGGER.debug("Could not close {}: {}", resource, e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory methods for the executors that connections run their asynchronous
+ * operations in.
+ *
+ * @author agent
+ */
+public class ExecutorServiceUtils {
+
+	/** the number of threads in the executor that a connection owns */
+	public static final int CONNECTION_POOL_SIZE = 10;
+	/** the number of threads in the executor that is shared among connections */
+	public static final int SHARED_POOL_SIZE = 20;
+	/** the time after which idle threads are terminated */
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	/** the number of threads in the scheduler that is shared among connections */
+	public static final int SHARED_SCHEDULER_POOL_SIZE = 2;
+
+	private static ExecutorService sharedExecutor;
+	private static ScheduledExecutorService sharedScheduler;
+
+	private ExecutorServiceUtils() {
+		// inhibit instantiation
+	}
+
+	/**
+	 * Creates the executor that a connection owns if it's not given any.
+	 * Threads are only created on demand and terminated once they're idle for
+	 * a minute, so that idle connections do not hold any threads.
+	 *
+	 * @return a new executor
+	 */
+	public static ExecutorService createConnectionExecutor() {
+		return createExecutor(CONNECTION_POOL_SIZE, "openshift-connection");
+	}
+
+	/**
+	 * Returns the executor that may be shared among all connections. It is
+	 * created on first use and is never shut down, its (daemon) threads are
+	 * terminated once they're idle.
+	 *
+	 * @return the shared executor
+	 */
+	public static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			sharedExecutor = createExecutor(SHARED_POOL_SIZE, "openshift-shared");
+		}
+		return sharedExecutor;
+	}
+
+	/**
+	 * Returns the scheduler that runs the periodic background work (ex.
+	 * polling) of all connections. It is created on first use and is never
+	 * shut down, it runs in (at most 2) daemon threads.
+	 *
+	 * @return the shared scheduler
+	 */
+	public static synchronized ScheduledExecutorService getSharedScheduler() {
+		if (sharedScheduler == null) {
+			sharedScheduler = new ScheduledThreadPoolExecutor(SHARED_SCHEDULER_POOL_SIZE,
+					new DaemonThreadFactory("openshift-scheduler"));
+		}
+		return sharedScheduler;
+	}
+
+	/**
+	 * Creates an executor with the given number of daemon threads. Threads
+	 * are only created on demand and terminated once they're idle.
+	 * 
+	 * @param poolSize
+	 *            the maximum number of threads
+	 * @param threadNamePrefix
+	 *            the prefix of the thread names
+	 * @return a new executor
+	 */
+	public static ExecutorService createExecutor(int poolSize, String threadNamePrefix) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize,
+				KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new DaemonThreadFactory(threadNamePrefix));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+		private final AtomicInteger counter = new AtomicInteger();
+
+		private DaemonThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
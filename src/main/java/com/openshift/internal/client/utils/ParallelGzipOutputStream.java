@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A stream that compresses to gzip in parallel. The data is split into blocks
+ * that are compressed to independent gzip members by the given executor. The
+ * members are written in order to the underlying stream, the result is a
+ * valid (multi-member) gzip stream that <code>gunzip</code> and
+ * <code>tar -z</code> decompress as a whole. A member is compressed in the
+ * writing thread if the executor did not start it by the time it is due, so
+ * that this stream cannot starve in a busy (or single-threaded) executor.
+ * 
+ * @author agent
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+	/** the default size of the blocks that are compressed independently */
+	public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+	private final OutputStream out;
+	private final Executor executor;
+	private final int maxPendingBlocks;
+	private final int blockSize;
+	private final int level;
+	private final LinkedList<FutureTask<byte[]>> pendingBlocks = new LinkedList<FutureTask<byte[]>>();
+	private byte[] block;
+	private int blockPosition;
+	private boolean closed;
+
+	/**
+	 * Creates a stream that compresses blocks of the default size with the
+	 * default compression level.
+	 * 
+	 * @param out
+	 *            the stream to write the compressed data to
+	 * @param executor
+	 *            the executor to compress in
+	 * @param threads
+	 *            the number of blocks that are compressed at the same time
+	 */
+	public ParallelGzipOutputStream(OutputStream out, Executor executor, int threads) {
+		this(out, executor, threads, DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	public ParallelGzipOutputStream(OutputStream out, Executor executor, int threads, int blockSize, int level) {
+		Assert.notNull(out);
+		Assert.notNull(executor);
+		Assert.isTrue(threads > 0);
+		Assert.isTrue(blockSize > 0);
+
+		this.out = out;
+		this.executor = executor;
+		// keep the next blocks compressing while the first one is written
+		this.maxPendingBlocks = threads * 2;
+		this.blockSize = blockSize;
+		this.level = level;
+		this.block = new byte[blockSize];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] buffer, int offset, int length) throws IOException {
+		assertNotClosed();
+		while (length > 0) {
+			int copied = Math.min(length, block.length - blockPosition);
+			System.arraycopy(buffer, offset, block, blockPosition, copied);
+			blockPosition += copied;
+			offset += copied;
+			length -= copied;
+			if (blockPosition == block.length) {
+				submitBlock();
+			}
+		}
+	}
+
+	private void submitBlock() throws IOException {
+		if (blockPosition == 0) {
+			return;
+		}
+		FutureTask<byte[]> compression = new FutureTask<byte[]>(new Compression(block, blockPosition, level));
+		pendingBlocks.add(compression);
+		try {
+			executor.execute(compression);
+		} catch (RejectedExecutionException e) {
+			// compressed in this thread once it's due
+		}
+		this.block = new byte[blockSize];
+		this.blockPosition = 0;
+		while (pendingBlocks.size() > maxPendingBlocks) {
+			writePendingBlock();
+		}
+	}
+
+	private void writePendingBlock() throws IOException {
+		FutureTask<byte[]> compression = pendingBlocks.removeFirst();
+		// compress it in this thread if the executor did not get to it yet
+		compression.run();
+		try {
+			out.write(compression.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while compressing");
+		} catch (ExecutionException e) {
+			IOException exception = new IOException("Could not compress: " + e.getCause().getMessage());
+			exception.initCause(e.getCause());
+			throw exception;
+		}
+	}
+
+	/**
+	 * Compresses and writes the blocks that are pending and flushes the
+	 * underlying stream. The blocks that follow start a new gzip member.
+	 */
+	@Override
+	public void flush() throws IOException {
+		assertNotClosed();
+		submitBlock();
+		while (!pendingBlocks.isEmpty()) {
+			writePendingBlock();
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes all pending blocks and closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			this.closed = true;
+			for (FutureTask<byte[]> compression : pendingBlocks) {
+				compression.cancel(false);
+			}
+			pendingBlocks.clear();
+			out.close();
+		}
+	}
+
+	private void assertNotClosed() throws IOException {
+		if (closed) {
+			throw new IOException("Stream is closed");
+		}
+	}
+
+	/**
+	 * Compresses a block to a gzip member.
+	 */
+	private static class Compression implements Callable<byte[]> {
+
+		private final byte[] block;
+		private final int length;
+		private final int level;
+
+		private Compression(byte[] block, int length, int level) {
+			this.block = block;
+			this.length = length;
+			this.level = level;
+		}
+
+		@Override
+		public byte[] call() throws IOException {
+			ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2);
+			LeveledGZIPOutputStream gzip = new LeveledGZIPOutputStream(member, level);
+			try {
+				gzip.write(block, 0, length);
+				gzip.finish();
+			} finally {
+				gzip.end();
+			}
+			return member.toByteArray();
+		}
+	}
+
+	private static class LeveledGZIPOutputStream extends GZIPOutputStream {
+
+		private LeveledGZIPOutputStream(OutputStream out, int level) throws IOException {
+			super(out, StreamUtils.BUFFER_SIZE);
+			def.setLevel(level);
+		}
+
+		/**
+		 * Releases the native resources of the deflater. The underlying
+		 * (memory) stream does not need to be closed.
+		 */
+		private void end() {
+			def.end();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stream whose reads are held back to the rate of a given limiter.
+ *
+ * @author agent
+ *
+ * @see RateLimiter
+ */
+public class RateLimitedInputStream extends FilterInputStream {
+
+	private final RateLimiter limiter;
+
+	public RateLimitedInputStream(InputStream in, RateLimiter limiter) {
+		super(in);
+		Assert.notNull(limiter);
+
+		this.limiter = limiter;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int read = super.read();
+		if (read != -1) {
+			limiter.acquire(1);
+		}
+		return read;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		int read = super.read(buffer, offset, length);
+		if (read > 0) {
+			limiter.acquire(read);
+		}
+		return read;
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.utils;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of transfers to a given number of bytes per second. A
+ * transfer acquires each chunk before it sends it and is held back if it is
+ * ahead of the rate. Transfers that fell behind (ex. because the receiver did
+ * not keep up) do not burst to catch up for more than a second. A limiter may
+ * be shared among concurrent transfers to cap their total rate.
+ *
+ * @author agent
+ */
+public class RateLimiter {
+
+	private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final long bytesPerSecond;
+	private long start = -1;
+	private long acquired;
+
+	public RateLimiter(long bytesPerSecond) {
+		Assert.isTrue(bytesPerSecond > 0);
+
+		this.bytesPerSecond = bytesPerSecond;
+	}
+
+	/**
+	 * Blocks until the given number of bytes may be transferred.
+	 *
+	 * @param bytes
+	 *            the number of bytes to transfer
+	 * @throws InterruptedIOException
+	 *             if the calling thread was interrupted while waiting
+	 */
+	public void acquire(int bytes) throws InterruptedIOException {
+		long wait = reserve(bytes);
+		if (wait <= 0) {
+			return;
+		}
+		try {
+			// the bytes are reserved, others may reserve theirs (after ours) meanwhile
+			TimeUnit.NANOSECONDS.sleep(wait);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to transfer " + bytes + " bytes");
+		}
+	}
+
+	/**
+	 * Reserves the given number of bytes and returns the time in nanoseconds
+	 * to wait until they may be transferred.
+	 */
+	private synchronized long reserve(int bytes) {
+		long now = System.nanoTime();
+		if (start == -1
+				|| now - due() > NANOS_PER_SECOND) {
+			// start over instead of bursting
+			this.start = now;
+			this.acquired = 0;
+		}
+		this.acquired += bytes;
+		return due() - now;
+	}
+
+	/**
+	 * Returns the time at which the bytes acquired so far may be transferred.
+	 */
+	private long due() {
+		return start + (long) ((double) acquired * NANOS_PER_SECOND / bytesPerSecond);
+	}
+
+	public long getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+}
@@ -26,10 +26,13 @@ public class StreamUtils {
 
 	public static final String UTF_8 = "UTF-8";
 
-	private static final byte[] buffer = new byte[1024];
-	
+	/** the size of the buffer that streams are copied with */
+	public static final int BUFFER_SIZE = 8 * 1024;
+
 	/**
 	 * Writes the content of the given input stream to the given output stream.
+	 * Each call copies with a buffer of its own, concurrent calls do not
+	 * interfere.
 	 * 
 	 * @param outputStream
 	 *            the output stream to write to
@@ -38,6 +41,7 @@ public class StreamUtils {
 	 * @throws IOException
 	 */
 	public static void writeTo(InputStream inputStream, OutputStream outputStream) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
 		for (int bytesRead = 0; (bytesRead = inputStream.read(buffer, 0, buffer.length)) != -1; ) {
 			outputStream.write(buffer, 0, bytesRead);
 		}
@@ -11,18 +11,36 @@
 package com.openshift.internal.client;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import com.openshift.client.ConnectionBuilder.CredentialsConnectionBuilder;
 import com.openshift.client.IOpenShiftConnection;
 import com.openshift.client.cartridge.ICartridge;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
 import com.openshift.client.cartridge.IStandaloneCartridge;
 import com.openshift.client.utils.CartridgeTestUtils;
+import com.openshift.client.utils.Samples;
 import com.openshift.client.utils.TestConnectionBuilder;
+import com.openshift.internal.client.utils.ExecutorServiceUtils;
 
 /**
  * @author Xavier Coulon
@@ -167,4 +185,148 @@ public class APIResourceTest extends TestTimer {
 				.contains(CartridgeTestUtils.METRICS_01_NAME
 						, CartridgeTestUtils.ZEND_56_NAME);
 	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void shouldReturnUnmodifiableCartridges() throws Throwable {
+		// pre-conditions
+		List<ICartridge> cartridges = connection.getCartridges();
+
+		// operation
+		cartridges.clear();
+	}
+
+	@Test
+	public void shouldSendSingleRequestForConcurrentCartridgeLoads() throws Throwable {
+		// pre-conditions
+		// operation
+		int requests = getCartridgesConcurrently(connection);
+
+		// verifications
+		assertThat(requests).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldSendSingleRequestForConcurrentCartridgeLoadsWithCatalogCache() throws Throwable {
+		// pre-conditions
+		File cacheDirectory = File.createTempFile("catalogcache", null);
+		cacheDirectory.delete();
+		try {
+			CredentialsConnectionBuilder builder = new TestConnectionBuilder().defaultCredentials();
+			builder.catalogCache(cacheDirectory);
+			IOpenShiftConnection connection = builder.create(mockDirector.client());
+
+			// operation
+			int requests = getCartridgesConcurrently(connection);
+
+			// verifications
+			assertThat(requests).isEqualTo(1);
+		} finally {
+			File[] files = cacheDirectory.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					file.delete();
+				}
+			}
+			cacheDirectory.delete();
+		}
+	}
+
+	@Test
+	public void shouldShutdownOwnExecutorOnDisconnect() throws Throwable {
+		// pre-conditions
+		ExecutorService executor = connection.getExecutorService();
+		assertThat(executor.isShutdown()).isFalse();
+
+		// operation
+		((APIResource) connection).disconnect();
+
+		// verifications
+		assertThat(executor.isShutdown()).isTrue();
+	}
+
+	@Test
+	public void shouldUseGivenExecutorAndNotShutItDownOnDisconnect() throws Throwable {
+		// pre-conditions
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CredentialsConnectionBuilder builder = new TestConnectionBuilder().defaultCredentials();
+			builder.executorService(executor);
+			IOpenShiftConnection connection = builder.create(mockDirector.client());
+
+			// operation
+			((APIResource) connection).disconnect();
+
+			// verifications
+			assertThat(connection.getExecutorService()).isSameAs(executor);
+			assertThat(executor.isShutdown()).isFalse();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldShareExecutorAmongConnections() throws Throwable {
+		// pre-conditions
+		CredentialsConnectionBuilder builder = new TestConnectionBuilder().defaultCredentials();
+		builder.sharedExecutorService();
+
+		// operation
+		IOpenShiftConnection connection1 = builder.create(mockDirector.client());
+		IOpenShiftConnection connection2 = builder.create(mockDirector.client());
+		((APIResource) connection1).disconnect();
+
+		// verifications
+		assertThat(connection1.getExecutorService()).isSameAs(ExecutorServiceUtils.getSharedExecutor());
+		assertThat(connection2.getExecutorService()).isSameAs(ExecutorServiceUtils.getSharedExecutor());
+		assertThat(ExecutorServiceUtils.getSharedExecutor().isShutdown()).isFalse();
+	}
+
+	/**
+	 * Loads the cartridges in 2 threads, the second one while the request of
+	 * the first one is in flight.
+	 * 
+	 * @return the number of requests that were sent
+	 */
+	private int getCartridgesConcurrently(final IOpenShiftConnection connection) throws Throwable {
+		final AtomicInteger requests = new AtomicInteger();
+		final CountDownLatch requestStarted = new CountDownLatch(1);
+		final CountDownLatch releaseRequest = new CountDownLatch(1);
+		doAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				requests.incrementAndGet();
+				requestStarted.countDown();
+				releaseRequest.await(10, TimeUnit.SECONDS);
+				return Samples.GET_CARTRIDGES.getContentAsString();
+			}
+		}).when(mockDirector.client()).get(any(URL.class), anyInt());
+		RestService service = (RestService) ((APIResource) connection).getService();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		List<Future<List<ICartridge>>> cartridges = new ArrayList<Future<List<ICartridge>>>();
+		try {
+			for (int i = 0; i < 2; i++) {
+				cartridges.add(executor.submit(new Callable<List<ICartridge>>() {
+
+					@Override
+					public List<ICartridge> call() throws Exception {
+						return connection.getCartridges();
+					}
+				}));
+				if (i == 0) {
+					requestStarted.await(10, TimeUnit.SECONDS);
+				}
+			}
+			for (int i = 0; i < 100 && service.getCoalescedRequestCount() < 1; i++) {
+				Thread.sleep(10);
+			}
+			releaseRequest.countDown();
+			for (Future<List<ICartridge>> future : cartridges) {
+				assertThat(future.get(10, TimeUnit.SECONDS)).isNotEmpty();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return requests.get();
+	}
 }
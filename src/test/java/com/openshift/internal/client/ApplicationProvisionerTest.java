@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static com.openshift.client.utils.UrlEndsWithMatcher.urlEndsWith;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.openshift.client.ApplicationProvisioner;
+import com.openshift.client.ApplicationScale;
+import com.openshift.client.ApplicationSpec;
+import com.openshift.client.IApplication;
+import com.openshift.client.IDomain;
+import com.openshift.client.IUser;
+import com.openshift.client.OpenShiftException;
+import com.openshift.client.ProvisioningReport;
+import com.openshift.client.ProvisioningReport.Outcome;
+import com.openshift.client.ProvisioningReport.Status;
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.client.utils.CartridgeTestUtils;
+import com.openshift.client.utils.Samples;
+import com.openshift.client.utils.TestConnectionBuilder;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+
+/**
+ * @author agent
+ */
+public class ApplicationProvisionerTest extends TestTimer {
+
+	private ExecutorService executor;
+	private IDomain domain;
+	private ICartridge cartridge;
+
+	@Before
+	public void setUp() {
+		this.executor = Executors.newCachedThreadPool();
+		this.domain = mock(IDomain.class);
+		this.cartridge = mock(ICartridge.class);
+		when(cartridge.getType()).thenReturn(CartridgeType.STANDALONE);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void shouldCreateAllApplicationsAndWaitForThem() throws Throwable {
+		// pre-conditions
+		mockGears(10, 2);
+		List<ApplicationSpec> specs = Arrays.asList(
+				createSpec("a", Boolean.TRUE), createSpec("b", Boolean.TRUE), createSpec("c", Boolean.TRUE));
+
+		// operation
+		ProvisioningReport report = new ApplicationProvisioner(executor, 2, 10 * 1000).provision(domain, specs);
+
+		// verification
+		assertTrue(report.isSuccessful());
+		assertThat(report.getAvailableGears()).isEqualTo(8);
+		assertThat(report.getOutcomes(Status.READY)).hasSize(3);
+		assertThat(report.getOutcome("b").getApplication().getName()).isEqualTo("b");
+	}
+
+	@Test
+	public void shouldRefreshUserBeforeCheckingTheQuota() throws Throwable {
+		// pre-conditions
+		IUser user = mockGears(10, 0);
+
+		// operation
+		new ApplicationProvisioner(executor, 1, 0).provision(domain, Arrays.asList(createSpec("a", null)));
+
+		// verification
+		InOrder inOrder = inOrder(user);
+		inOrder.verify(user).refresh();
+		inOrder.verify(user).getMaxGears();
+	}
+
+	@Test
+	public void shouldAddAllApplicationsToDomainResource() throws Throwable {
+		// pre-conditions
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector()
+				.mockGetKeys(Samples.GET_USER_KEYS_NONE)
+				.mockGetDomains(Samples.GET_DOMAINS)
+				.mockGetDomain("foobarz", Samples.GET_DOMAINS_FOOBARZ);
+		doAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				// slow, so that the creations overlap while the applications are loaded
+				Thread.sleep(100);
+				return Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_NOAPPS.getContentAsString();
+			}
+		}).when(mockDirector.client()).get(urlEndsWith("/domains/foobarz/applications?include=cartridges"), anyInt());
+		when(mockDirector.client().post(
+				urlEndsWith("/domains/foobarz/applications?include=cartridges"),
+				any(IMediaType.class),
+				anyInt(),
+				Matchers.<Parameter[]> anyVararg()))
+				.thenReturn(Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_DOWNLOADABLECART.getContentAsString(),
+						Samples.POST_SCALABLE_DOMAINS_FOOBARZ_APPLICATIONS.getContentAsString(),
+						Samples.POST_JEKYLL_DOMAINS_FOOBARZ_APPLICATIONS.getContentAsString());
+		IDomain domain = new TestConnectionBuilder().defaultCredentials()
+				.create(mockDirector.client()).getUser().getDomain("foobarz");
+		List<ApplicationSpec> specs = Arrays.asList(
+				new ApplicationSpec("downloadablecart", CartridgeTestUtils.as7()),
+				new ApplicationSpec("scalable", CartridgeTestUtils.as7()),
+				new ApplicationSpec("jekyll", CartridgeTestUtils.as7()));
+
+		// operation
+		ProvisioningReport report = new ApplicationProvisioner(executor, 3, 0).provision(domain, specs);
+
+		// verification
+		assertTrue(report.isSuccessful());
+		assertThat(domain.getApplications())
+				.hasSize(3)
+				.onProperty("name").containsOnly("downloadablecart", "scalable", "jekyll");
+	}
+
+	@Test
+	public void shouldRejectApplicationsThatExceedTheQuota() throws Throwable {
+		// pre-conditions
+		mockGears(3, 1);
+		List<ApplicationSpec> specs = Arrays.asList(
+				createSpec("a", Boolean.TRUE).requiredGears(1),
+				createSpec("b", Boolean.TRUE).requiredGears(2),
+				createSpec("c", Boolean.TRUE).requiredGears(1));
+
+		// operation
+		ProvisioningReport report = new ApplicationProvisioner(executor, 2, 10 * 1000).provision(domain, specs);
+
+		// verification
+		assertFalse(report.isSuccessful());
+		assertThat(report.getOutcome("a").getStatus()).isEqualTo(Status.READY);
+		Outcome rejected = report.getOutcome("b");
+		assertThat(rejected.getStatus()).isEqualTo(Status.QUOTA_EXCEEDED);
+		assertThat(rejected.getApplication()).isNull();
+		assertTrue(rejected.getError() instanceof OpenShiftException);
+		assertThat(report.getOutcome("c").getStatus()).isEqualTo(Status.READY);
+	}
+
+	@Test
+	public void shouldEstimateAdditionalGearsForScalableApplications() throws Throwable {
+		// pre-conditions
+		ICartridge mysql = mock(ICartridge.class);
+		when(mysql.getType()).thenReturn(CartridgeType.EMBEDDED);
+
+		// operation
+		ApplicationSpec scalable = new ApplicationSpec("a", cartridge, mysql).scale(ApplicationScale.SCALE);
+		ApplicationSpec nonScalable = new ApplicationSpec("b", cartridge, mysql);
+
+		// verification
+		assertThat(scalable.getRequiredGears()).isEqualTo(2);
+		assertThat(nonScalable.getRequiredGears()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldReportFailuresAndApplicationsThatDoNotGetReady() throws Throwable {
+		// pre-conditions
+		mockGears(10, 0);
+		final OpenShiftException exception = new OpenShiftException("Application name is not allowed");
+		ApplicationSpec failing = new ApplicationSpec("failing", cartridge) {
+
+			@Override
+			public IApplication create(IDomain domain) throws OpenShiftException {
+				throw exception;
+			}
+		};
+		List<ApplicationSpec> specs = Arrays.asList(createSpec("a", Boolean.TRUE), failing, createSpec("c", Boolean.FALSE));
+
+		// operation
+		ProvisioningReport report = new ApplicationProvisioner(executor, 1, 10 * 1000).provision(domain, specs);
+
+		// verification
+		assertFalse(report.isSuccessful());
+		assertThat(report.getOutcomes()).hasSize(3);
+		assertThat(report.getOutcome("a").getStatus()).isEqualTo(Status.READY);
+		assertThat(report.getOutcome("failing").getStatus()).isEqualTo(Status.FAILED);
+		assertThat(report.getOutcome("failing").getError()).isSameAs(exception);
+		assertThat(report.getOutcome("c").getStatus()).isEqualTo(Status.NOT_READY);
+		assertThat(report.getOutcome("c").getApplication()).isNotNull();
+	}
+
+	@Test
+	public void shouldNotWaitIfNoReadinessTimeout() throws Throwable {
+		// pre-conditions
+		mockGears(10, 0);
+		List<ApplicationSpec> specs = Arrays.asList(createSpec("a", null));
+
+		// operation
+		ProvisioningReport report = new ApplicationProvisioner(executor, 1, 0).provision(domain, specs);
+
+		// verification
+		assertTrue(report.isSuccessful());
+		assertThat(report.getOutcome("a").getStatus()).isEqualTo(Status.CREATED);
+	}
+
+	@Test
+	public void shouldNotExceedConcurrency() throws Throwable {
+		// pre-conditions
+		mockGears(20, 0);
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		List<ApplicationSpec> specs = new ArrayList<ApplicationSpec>();
+		for (int i = 0; i < 10; i++) {
+			final IApplication application = createApplication(String.valueOf(i), Boolean.TRUE);
+			specs.add(new ApplicationSpec(String.valueOf(i), cartridge) {
+
+				@Override
+				public IApplication create(IDomain domain) throws OpenShiftException {
+					int current = running.incrementAndGet();
+					synchronized (maxRunning) {
+						maxRunning.set(Math.max(maxRunning.get(), current));
+					}
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running.decrementAndGet();
+					return application;
+				}
+			});
+		}
+
+		// operation
+		ProvisioningReport report = new ApplicationProvisioner(executor, 3, 10 * 1000).provision(domain, specs);
+
+		// verification
+		assertTrue(report.isSuccessful());
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+	}
+
+	private IUser mockGears(int maxGears, int consumedGears) {
+		IUser user = mock(IUser.class);
+		when(user.getMaxGears()).thenReturn(maxGears);
+		when(user.getConsumedGears()).thenReturn(consumedGears);
+		when(domain.getUser()).thenReturn(user);
+		return user;
+	}
+
+	private ApplicationSpec createSpec(String name, Boolean ready) {
+		final IApplication application = createApplication(name, ready);
+		return new ApplicationSpec(name, cartridge) {
+
+			@Override
+			public IApplication create(IDomain domain) throws OpenShiftException {
+				return application;
+			}
+		};
+	}
+
+	private IApplication createApplication(String name, final Boolean ready) {
+		IApplication application = mock(IApplication.class);
+		when(application.getName()).thenReturn(name);
+		if (ready != null) {
+			OpenShiftFutureTask<Boolean> accessible = new OpenShiftFutureTask<Boolean>(new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() throws Exception {
+					return ready;
+				}
+			});
+			accessible.run();
+			when(application.waitForAccessibleAsync(10 * 1000)).thenReturn(accessible);
+		}
+		return application;
+	}
+}
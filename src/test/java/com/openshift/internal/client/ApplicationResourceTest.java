@@ -41,6 +41,9 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.junit.Before;
 import org.junit.Ignore;
@@ -51,6 +54,7 @@ import com.openshift.client.IApplication;
 import com.openshift.client.IDomain;
 import com.openshift.client.IEnvironmentVariable;
 import com.openshift.client.IField;
+import com.openshift.client.OpenShiftCancellationException;
 import com.openshift.client.OpenShiftEndpointException;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftTimeoutException;
@@ -540,6 +544,53 @@ public class ApplicationResourceTest extends TestTimer {
 		assertTrue(System.currentTimeMillis() < (startTime + timeout));
 	}
 
+	@Test
+	public void shouldNotWaitForeverIfProbesDontRun() throws HttpClientException, Throwable {
+		// pre-conditions
+		final IApplication app = domain.getApplicationByName("springeap6");
+		assertThat(app).isNotNull().isInstanceOf(ApplicationResource.class);
+		ApplicationResource spy = Mockito.spy(((ApplicationResource) app));
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		Executor starvedExecutor = new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				// all threads busy, never runs
+			}
+		};
+		Mockito.doReturn(new ReadinessScheduler(scheduler, starvedExecutor, 100, 100))
+				.when(spy).getReadinessScheduler();
+
+		try {
+			// operation
+			boolean successfull = spy.waitForAccessible(100);
+
+			// verification
+			assertFalse(successfull);
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldThrowAndKeepInterruptStatusIfInterruptedWhileWaiting() throws HttpClientException, Throwable {
+		// pre-conditions
+		final IApplication app = domain.getApplicationByName("springeap6");
+		assertThat(app).isNotNull().isInstanceOf(ApplicationResource.class);
+		ApplicationResource spy = Mockito.spy(((ApplicationResource) app));
+		Mockito.doReturn(false).when(spy).canResolv(Mockito.anyString());
+		Thread.currentThread().interrupt();
+
+		// operation
+		try {
+			spy.waitForAccessible(10 * 1000L);
+			fail("OpenShiftCancellationException expected");
+		} catch (OpenShiftCancellationException e) {
+			// verification
+			assertTrue(Thread.interrupted());
+		}
+	}
+
 	@Test
 	public void shouldCanGetEnvironmentVariables() throws Throwable {
 		// pre-conditions
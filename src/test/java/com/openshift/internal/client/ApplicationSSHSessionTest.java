@@ -16,18 +16,52 @@ import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATION
 import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_CARTRIDGES_1EMBEDDED;
 import static org.fest.assertions.Assertions.assertThat;
 
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.openshift.client.IApplication;
 import com.openshift.client.IApplicationPortForwarding;
 import com.openshift.client.IApplicationSSHSession;
+import com.openshift.client.IOpenShiftFuture;
+import com.openshift.client.IProgressListener;
+import com.openshift.client.OpenShiftSSHOperationException;
+import com.openshift.client.SSHCommandResult;
+import com.openshift.client.SSHUpload;
+import com.openshift.client.UploadOptions;
 import com.openshift.client.IDomain;
 
 /**
@@ -188,4 +222,296 @@ public class ApplicationSSHSessionTest extends TestTimer {
 						"OPENSHIFT_BROKER_HOST=openshift.redhat.com",
 						"OPENSHIFT_APP_NAME=springeap6");
 	}
+
+	@Test
+	public void shouldCollectOutputErrorOutputAndExitStatusOfCommand() throws Throwable {
+		// pre-conditions
+		IApplication app = domain.getApplicationByName("springeap6");
+		Session session = mock(Session.class);
+		when(session.isConnected()).thenReturn(true);
+		ChannelExec channel = createChannel("app-root\n", "warning\n", 2, null);
+		when(session.openChannel(anyString())).thenReturn(channel);
+
+		// operation
+		SSHCommandResult result = new ApplicationSSHSession(app, session).runCommand("whoami");
+
+		// verification
+		assertThat(result.getCommand()).isEqualTo("whoami");
+		assertThat(result.getOutput()).isEqualTo("app-root\n");
+		assertThat(result.getErrorOutput()).isEqualTo("warning\n");
+		assertThat(result.getExitStatus()).isEqualTo(2);
+		assertThat(result.isSuccessful()).isFalse();
+		verify(channel).setCommand("whoami");
+		verify(channel).disconnect();
+	}
+
+	@Test
+	public void shouldRunCommandsConcurrentlyWithinChannelLimit() throws Throwable {
+		// pre-conditions
+		IApplication app = domain.getApplicationByName("springeap6");
+		Session session = mock(Session.class);
+		when(session.isConnected()).thenReturn(true);
+		final AtomicInteger openChannels = new AtomicInteger();
+		final AtomicInteger maxOpenChannels = new AtomicInteger();
+		final List<ChannelExec> channels = new ArrayList<ChannelExec>();
+		when(session.openChannel(anyString())).thenAnswer(new Answer<ChannelExec>() {
+
+			@Override
+			public ChannelExec answer(InvocationOnMock invocation) throws Throwable {
+				ChannelExec channel = createChannel("ok", "", 0, new Runnable() {
+
+					@Override
+					public void run() {
+						int open = openChannels.incrementAndGet();
+						synchronized (maxOpenChannels) {
+							maxOpenChannels.set(Math.max(open, maxOpenChannels.get()));
+						}
+						try {
+							Thread.sleep(50);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						openChannels.decrementAndGet();
+					}
+				});
+				synchronized (channels) {
+					channels.add(channel);
+				}
+				return channel;
+			}
+		});
+		List<String> commands = new ArrayList<String>();
+		for (int i = 0; i < ApplicationSSHSession.MAX_CHANNELS * 2; i++) {
+			commands.add("echo " + i);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(commands.size());
+
+		// operation
+		List<IOpenShiftFuture<SSHCommandResult>> results =
+				new ApplicationSSHSession(app, session).runCommandsAsync(commands, executor);
+
+		// verification
+		for (int i = 0; i < results.size(); i++) {
+			SSHCommandResult result = results.get(i).get(10, TimeUnit.SECONDS);
+			assertThat(result.getCommand()).isEqualTo("echo " + i);
+			assertThat(result.getOutput()).isEqualTo("ok");
+			assertThat(result.isSuccessful()).isTrue();
+		}
+		assertThat(maxOpenChannels.get()).isLessThanOrEqualTo(ApplicationSSHSession.MAX_CHANNELS);
+		assertThat(channels).hasSize(commands.size());
+		for (ChannelExec channel : channels) {
+			verify(channel).disconnect();
+		}
+		executor.shutdown();
+	}
+
+	@Test
+	public void shouldLimitChannelsOfSessionSharedByInstances() throws Throwable {
+		// pre-conditions
+		IApplication app = domain.getApplicationByName("springeap6");
+		Session session = mock(Session.class);
+		when(session.isConnected()).thenReturn(true);
+		final AtomicInteger openChannels = new AtomicInteger();
+		final AtomicInteger maxOpenChannels = new AtomicInteger();
+		when(session.openChannel(anyString())).thenAnswer(new Answer<ChannelExec>() {
+
+			@Override
+			public ChannelExec answer(InvocationOnMock invocation) throws Throwable {
+				return createChannel("ok", "", 0, new Runnable() {
+
+					@Override
+					public void run() {
+						int open = openChannels.incrementAndGet();
+						synchronized (maxOpenChannels) {
+							maxOpenChannels.set(Math.max(open, maxOpenChannels.get()));
+						}
+						try {
+							Thread.sleep(50);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						openChannels.decrementAndGet();
+					}
+				});
+			}
+		});
+		List<String> commands = new ArrayList<String>();
+		for (int i = 0; i < ApplicationSSHSession.MAX_CHANNELS; i++) {
+			commands.add("echo " + i);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(commands.size() * 2);
+
+		// operation
+		List<IOpenShiftFuture<SSHCommandResult>> results = new ArrayList<IOpenShiftFuture<SSHCommandResult>>();
+		results.addAll(new ApplicationSSHSession(app, session).runCommandsAsync(commands, executor));
+		results.addAll(new ApplicationSSHSession(app, session).runCommandsAsync(commands, executor));
+
+		// verification
+		for (IOpenShiftFuture<SSHCommandResult> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS).isSuccessful()).isTrue();
+		}
+		assertThat(maxOpenChannels.get()).isLessThanOrEqualTo(ApplicationSSHSession.MAX_CHANNELS);
+		executor.shutdown();
+	}
+
+	@Test
+	public void shouldWaitForChannelsHeldByUnreadResponses() throws Throwable {
+		// pre-conditions
+		IApplication app = domain.getApplicationByName("springeap6");
+		Session session = mock(Session.class);
+		when(session.isConnected()).thenReturn(true);
+		ChannelExec channel = createChannel("ok", "", 0, null);
+		when(channel.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+		when(session.openChannel(anyString())).thenReturn(channel);
+		ApplicationSSHSession applicationSession = new ApplicationSSHSession(app, session);
+		List<InputStream> snapshots = new ArrayList<InputStream>();
+		for (int i = 0; i < ApplicationSSHSession.MAX_CHANNELS; i++) {
+			snapshots.add(applicationSession.saveFullSnapshot());
+		}
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		// operation
+		IOpenShiftFuture<SSHCommandResult> result = applicationSession.runCommandAsync("whoami", executor);
+		Thread.sleep(200);
+		assertThat(result.isDone()).isFalse();
+		snapshots.get(0).close();
+
+		// verification
+		assertThat(result.get(10, TimeUnit.SECONDS).getOutput()).isEqualTo("ok");
+		for (InputStream snapshot : snapshots) {
+			snapshot.close();
+		}
+		executor.shutdown();
+	}
+
+	@Test
+	public void shouldDecodeOutputAsUtf8AndTruncateIt() throws Throwable {
+		// pre-conditions
+		IApplication app = domain.getApplicationByName("springeap6");
+		Session session = mock(Session.class);
+		when(session.isConnected()).thenReturn(true);
+		StringBuilder output = new StringBuilder("d\u00e9j\u00e0 vu\n");
+		while (output.length() <= ApplicationSSHSession.MAX_OUTPUT_SIZE) {
+			output.append("0123456789abcdef");
+		}
+		ChannelExec channel = createChannel(output.toString(), "\u00e9chec", 0, null);
+		when(session.openChannel(anyString())).thenReturn(channel);
+
+		// operation
+		SSHCommandResult result = new ApplicationSSHSession(app, session).runCommand("cat");
+
+		// verification
+		assertThat(result.getOutput()).startsWith("d\u00e9j\u00e0 vu\n");
+		assertThat(result.getOutput().getBytes("UTF-8").length).isEqualTo(ApplicationSSHSession.MAX_OUTPUT_SIZE);
+		assertThat(result.getErrorOutput()).isEqualTo("\u00e9chec");
+	}
+
+	@Test
+	public void shouldReleaseChannelThatFailedToConnect() throws Throwable {
+		// pre-conditions
+		IApplication app = domain.getApplicationByName("springeap6");
+		Session session = mock(Session.class);
+		when(session.isConnected()).thenReturn(true);
+		ChannelExec channel = createChannel("", "", 0, null);
+		doThrow(new JSchException("channel is not opened.")).when(channel).connect(anyInt());
+		when(session.openChannel(anyString())).thenReturn(channel);
+		ApplicationSSHSession applicationSession = new ApplicationSSHSession(app, session);
+
+		// operation
+		for (int i = 0; i < ApplicationSSHSession.MAX_CHANNELS + 1; i++) {
+			try {
+				applicationSession.runCommand("whoami");
+				fail("OpenShiftSSHOperationException expected");
+			} catch (OpenShiftSSHOperationException e) {
+				// expected
+			}
+		}
+
+		// verification
+		// all channels were released, the last command did not wait for one
+		verify(channel, Mockito.times(ApplicationSSHSession.MAX_CHANNELS + 1)).disconnect();
+	}
+
+	@Test
+	public void shouldReadResponseWhileUploadingInBackground() throws Throwable {
+		// pre-conditions
+		IApplication app = domain.getApplicationByName("springeap6");
+		Session session = mock(Session.class);
+		when(session.isConnected()).thenReturn(true);
+		ChannelExec channel = createChannel("", "", 0, null);
+		when(channel.isClosed()).thenReturn(true);
+		when(channel.getInputStream()).thenReturn(new ByteArrayInputStream("deploying\n".getBytes()));
+		final CountDownLatch uploadBlocked = new CountDownLatch(1);
+		final ByteArrayOutputStream remoteStdIn = new ByteArrayOutputStream() {
+
+			@Override
+			public synchronized void write(byte[] b, int off, int len) {
+				try {
+					// remote does not consume until the response was read
+					uploadBlocked.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.write(b, off, len);
+			}
+		};
+		when(channel.getOutputStream()).thenReturn(remoteStdIn);
+		when(session.openChannel(anyString())).thenReturn(channel);
+		byte[] deployment = new byte[100 * 1024];
+		final AtomicLong progress = new AtomicLong();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		// operation
+		SSHUpload upload = new ApplicationSSHSession(app, session).restoreDeploymentSnapshotAsync(
+				new ByteArrayInputStream(deployment), true, new UploadOptions()
+						.executor(executor)
+						.progressListener(new IProgressListener() {
+
+							@Override
+							public void onProgress(long transferred, long total) {
+								progress.set(transferred);
+							}
+						}));
+		String response = new BufferedReader(new InputStreamReader(upload.getResponse())).readLine();
+		assertThat(upload.getTransfer().isDone()).isFalse();
+		uploadBlocked.countDown();
+
+		// verification
+		assertThat(response).isEqualTo("deploying");
+		assertThat(upload.getTransfer().get(10, TimeUnit.SECONDS)).isEqualTo((long) deployment.length);
+		assertThat(remoteStdIn.size()).isEqualTo(deployment.length);
+		assertThat(progress.get()).isEqualTo(deployment.length);
+		verify(channel).setCommand("oo-binary-deploy --hot-deploy");
+		executor.shutdown();
+	}
+
+	private ChannelExec createChannel(final String output, String errorOutput, int exitStatus,
+			final Runnable onConnect) throws JSchException, IOException {
+		ChannelExec channel = mock(ChannelExec.class);
+		final OutputStream[] outputStream = new OutputStream[1];
+		doAnswer(new Answer<Void>() {
+
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				outputStream[0] = (OutputStream) invocation.getArguments()[0];
+				return null;
+			}
+		}).when(channel).setOutputStream(any(OutputStream.class), eq(true));
+		doAnswer(new Answer<Void>() {
+
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				if (onConnect != null) {
+					onConnect.run();
+				}
+				if (outputStream[0] != null) {
+					outputStream[0].write(output.getBytes("UTF-8"));
+				}
+				return null;
+			}
+		}).when(channel).connect(anyInt());
+		when(channel.getErrStream()).thenReturn(new ByteArrayInputStream(errorOutput.getBytes("UTF-8")));
+		when(channel.getExitStatus()).thenReturn(exitStatus);
+		return channel;
+	}
 }
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static com.openshift.client.utils.Samples.GET_DOMAINS;
+import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED;
+import static com.openshift.client.utils.Samples.POST_STOP_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_EVENT;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.AsyncApplication;
+import com.openshift.client.AsyncConnection;
+import com.openshift.client.AsyncDomain;
+import com.openshift.client.IApplication;
+import com.openshift.client.IDomain;
+import com.openshift.client.IFutureCallback;
+import com.openshift.client.IOpenShiftFuture;
+import com.openshift.client.OpenShiftEndpointException;
+import com.openshift.internal.client.httpclient.InternalServerErrorException;
+
+/**
+ * @author agent
+ */
+public class AsyncApplicationTest extends TestTimer {
+
+	private static final long TIMEOUT = 10 * 1000;
+
+	private IDomain domain;
+	private HttpClientMockDirector mockDirector;
+	private ExecutorService executor;
+
+	@Before
+	public void setup() throws Throwable {
+		this.mockDirector = new HttpClientMockDirector()
+				.mockGetDomains(GET_DOMAINS)
+				.mockGetApplications("foobarz", GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED);
+		this.domain = mockDirector.getDomain("foobarz");
+		this.executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void shouldStopApplicationAsync() throws Throwable {
+		// pre-conditions
+		mockDirector.mockPostApplicationEvent(
+				"foobarz", "springeap6", POST_STOP_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_EVENT);
+		IApplication application = domain.getApplicationByName("springeap6");
+
+		// operation
+		IApplication stopped = new AsyncApplication(application, executor).stopAsync(false)
+				.get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+		// verifications
+		assertThat(stopped).isSameAs(application);
+		mockDirector.verifyPostApplicationEvent("foobarz", "springeap6");
+	}
+
+	@Test
+	public void shouldNotifyCallbackOnSuccess() throws Throwable {
+		// pre-conditions
+		mockDirector.mockPostApplicationEvent(
+				"foobarz", "springeap6", POST_STOP_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_EVENT);
+		IApplication application = domain.getApplicationByName("springeap6");
+		RecordingCallback<IApplication> callback = new RecordingCallback<IApplication>();
+
+		// operation
+		new AsyncApplication(application, executor).restartAsync().addCallback(callback);
+
+		// verifications
+		assertTrue(callback.await());
+		assertThat(callback.result.get()).isSameAs(application);
+		assertThat(callback.error.get()).isNull();
+	}
+
+	@Test
+	public void shouldNotifyCallbackOnFailure() throws Throwable {
+		// pre-conditions
+		mockDirector.mockPostApplicationEvent("foobarz", "springeap6",
+				new InternalServerErrorException("Cannot scale a non-scalable application"));
+		IApplication application = domain.getApplicationByName("springeap6");
+		RecordingCallback<IApplication> callback = new RecordingCallback<IApplication>();
+
+		// operation
+		IOpenShiftFuture<IApplication> future =
+				new AsyncApplication(application, executor).scaleUpAsync().addCallback(callback);
+
+		// verifications
+		assertTrue(callback.await());
+		assertThat(callback.result.get()).isNull();
+		assertTrue(callback.error.get() instanceof OpenShiftEndpointException);
+		try {
+			future.get();
+			fail("Expected an ExecutionException");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof OpenShiftEndpointException);
+		}
+	}
+
+	@Test
+	public void shouldNotifyCallbackThatIsAddedWhenDone() throws Throwable {
+		// pre-conditions
+		IOpenShiftFuture<List<IApplication>> future = new AsyncDomain(domain, executor).getApplicationsAsync();
+		List<IApplication> applications = future.get(TIMEOUT, TimeUnit.MILLISECONDS);
+		RecordingCallback<List<IApplication>> callback = new RecordingCallback<List<IApplication>>();
+
+		// operation
+		future.addCallback(callback);
+
+		// verifications
+		assertThat(callback.latch.getCount()).isEqualTo(0);
+		assertThat(callback.result.get()).isSameAs(applications);
+	}
+
+	@Test
+	public void shouldRunInExecutorOfConnection() throws Throwable {
+		// pre-conditions
+		mockDirector.mockPostApplicationEvent(
+				"foobarz", "springeap6", POST_STOP_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_EVENT);
+		IApplication application = domain.getApplicationByName("springeap6");
+
+		// operation
+		AsyncApplication asyncApplication = new AsyncApplication(application);
+
+		// verifications
+		assertThat(asyncApplication.getExecutorService())
+				.isSameAs(domain.getUser().getConnection().getExecutorService());
+		assertThat(asyncApplication.startAsync().get(TIMEOUT, TimeUnit.MILLISECONDS)).isSameAs(application);
+	}
+
+	@Test
+	public void shouldGetDomainsAsync() throws Throwable {
+		// pre-conditions
+		AsyncConnection connection = new AsyncConnection(domain.getUser().getConnection(), executor);
+
+		// operation
+		List<IDomain> domains = connection.getDomainsAsync().get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+		// verifications
+		assertThat(domains).contains(domain);
+	}
+
+	private static class RecordingCallback<V> implements IFutureCallback<V> {
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+		private final AtomicReference<V> result = new AtomicReference<V>();
+		private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+		@Override
+		public void onSuccess(V result) {
+			this.result.set(result);
+			latch.countDown();
+		}
+
+		@Override
+		public void onFailure(Throwable e) {
+			this.error.set(e);
+			latch.countDown();
+		}
+
+		private boolean await() throws InterruptedException {
+			return latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.net.URL;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+import javax.net.ssl.SSLSession;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.openshift.client.ConnectionBuilder.CredentialsConnectionBuilder;
+import com.openshift.client.IHttpClient.ISSLCertificateCallback;
+import com.openshift.client.IOpenShiftConnection;
+import com.openshift.client.NoopSSLCertificateCallback;
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.client.utils.Samples;
+import com.openshift.client.utils.TestConnectionBuilder;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClient;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClientBuilder;
+
+/**
+ * @author agent
+ */
+public class BrokerContextTest extends TestTimer {
+
+	private static final String SERVER = "https://broker-context.openshift.test";
+
+	@After
+	public void tearDown() {
+		BrokerContext.remove(SERVER);
+	}
+
+	@Test
+	public void shouldShareApiLinks() throws Throwable {
+		// pre-conditions
+		createConnection(new HttpClientMockDirector(), true);
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector();
+
+		// operation
+		createConnection(mockDirector, true);
+
+		// verification
+		verify(mockDirector.client(), never()).get(any(URL.class), anyInt());
+	}
+
+	@Test
+	public void shouldReloadExpiredApiLinks() throws Throwable {
+		// pre-conditions
+		createConnection(new HttpClientMockDirector(), true);
+		BrokerContext.get(SERVER).setCatalogMaxAge(-1);
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector();
+
+		// operation
+		createConnection(mockDirector, true);
+
+		// verification
+		mockDirector.verifyGetAny(1);
+	}
+
+	@Test
+	public void shouldNotShareIfNotEnabled() throws Throwable {
+		// pre-conditions
+		createConnection(new HttpClientMockDirector(), false).getCartridges();
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector();
+
+		// operation
+		createConnection(mockDirector, false).getCartridges();
+
+		// verification
+		mockDirector.verifyGetAny(2);
+	}
+
+	@Test
+	public void shouldShareCartridges() throws Throwable {
+		// pre-conditions
+		List<ICartridge> cartridges = createConnection(new HttpClientMockDirector(), true).getCartridges();
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector();
+
+		// operation
+		List<ICartridge> sharedCartridges = createConnection(mockDirector, true).getCartridges();
+
+		// verification
+		assertThat(sharedCartridges).isSameAs(cartridges);
+		verify(mockDirector.client(), never()).get(any(URL.class), anyInt());
+	}
+
+	@Test
+	public void shouldReloadExpiredCartridges() throws Throwable {
+		// pre-conditions
+		createConnection(new HttpClientMockDirector(), true).getCartridges();
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector();
+		IOpenShiftConnection connection = createConnection(mockDirector, true);
+		BrokerContext.get(SERVER).setCatalogMaxAge(-1);
+
+		// operation
+		connection.getCartridges();
+
+		// verification
+		mockDirector.verifyGetAny(1);
+	}
+
+	@Test
+	public void shouldShareQuickstarts() throws Throwable {
+		// pre-conditions
+		createConnection(new HttpClientMockDirector().mockGetQuickstarts(Samples.GET_API_QUICKSTARTS), true)
+				.getQuickstarts();
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector();
+
+		// operation
+		IOpenShiftConnection connection = createConnection(mockDirector, true);
+
+		// verification
+		assertThat(connection.getQuickstarts()).hasSize(78);
+		verify(mockDirector.client(), never()).get(any(URL.class), anyInt());
+	}
+
+	@Test
+	public void shouldShareSSLSocketFactoryForSameSSLConfiguration() throws Throwable {
+		// pre-conditions
+		BrokerContext context = BrokerContext.get(SERVER);
+		UrlConnectionHttpClient client = createHttpClient(new NoopSSLCertificateCallback(), context);
+
+		// operation
+		UrlConnectionHttpClient otherClient = createHttpClient(new NoopSSLCertificateCallback(), context);
+
+		// verification
+		assertThat(otherClient.getSSLSocketFactory()).isSameAs(client.getSSLSocketFactory());
+	}
+
+	@Test
+	public void shouldNotShareSSLSocketFactoryForDifferentCallbacks() throws Throwable {
+		// pre-conditions
+		BrokerContext context = BrokerContext.get(SERVER);
+		UrlConnectionHttpClient client = createHttpClient(new NoopSSLCertificateCallback(), context);
+
+		// operation
+		UrlConnectionHttpClient otherClient = createHttpClient(new ISSLCertificateCallback() {
+
+			@Override
+			public boolean allowCertificate(X509Certificate[] chain) {
+				return false;
+			}
+
+			@Override
+			public boolean allowHostname(String hostname, SSLSession session) {
+				return false;
+			}
+		}, context);
+
+		// verification
+		assertThat(otherClient.getSSLSocketFactory()).isNotSameAs(client.getSSLSocketFactory());
+	}
+
+	@Test
+	public void shouldReturnSameContextForEquivalentServerUrls() {
+		// pre-conditions
+		// operation
+		BrokerContext context = BrokerContext.get(SERVER);
+
+		// verification
+		assertThat(BrokerContext.get(SERVER + "/")).isSameAs(context);
+		assertThat(BrokerContext.get("broker-context.openshift.test")).isSameAs(context);
+	}
+
+	private IOpenShiftConnection createConnection(HttpClientMockDirector mockDirector, boolean shared)
+			throws Throwable {
+		CredentialsConnectionBuilder builder = new TestConnectionBuilder(SERVER).defaultCredentials();
+		if (shared) {
+			builder.sharedBrokerContext();
+		}
+		return builder.create(mockDirector.client());
+	}
+
+	private UrlConnectionHttpClient createHttpClient(ISSLCertificateCallback callback, BrokerContext context) {
+		UrlConnectionHttpClient client = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setSSLCertificateCallback(callback)
+				.client();
+		context.shareSSLSocketFactory(client, callback, null);
+		return client;
+	}
+}
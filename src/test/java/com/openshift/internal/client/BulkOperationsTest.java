@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.openshift.client.BulkOperationReport;
+import com.openshift.client.BulkOperationReport.Result;
+import com.openshift.client.BulkOperationReport.Status;
+import com.openshift.client.BulkOperations;
+import com.openshift.client.IApplication;
+import com.openshift.client.IBulkOperationListener;
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.utils.CancellationUtils;
+
+/**
+ * @author agent
+ */
+public class BulkOperationsTest extends TestTimer {
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		this.executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void shouldRestartAllApplications() throws Throwable {
+		// pre-conditions
+		List<IApplication> applications = createApplications(5);
+
+		// operation
+		BulkOperationReport report = new BulkOperations(executor, 2, 10 * 1000).restart(applications);
+
+		// verification
+		assertTrue(report.isSuccessful());
+		assertThat(report.getResults()).hasSize(5);
+		for (IApplication application : applications) {
+			verify(application).restart();
+			assertThat(report.getResult(application).getStatus()).isEqualTo(Status.SUCCEEDED);
+		}
+	}
+
+	@Test
+	public void shouldNotExceedConcurrency() throws Throwable {
+		// pre-conditions
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		List<IApplication> applications = createApplications(10);
+		for (IApplication application : applications) {
+			doAnswer(new Answer<Void>() {
+
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					int current = running.incrementAndGet();
+					synchronized (maxRunning) {
+						maxRunning.set(Math.max(maxRunning.get(), current));
+					}
+					Thread.sleep(20);
+					running.decrementAndGet();
+					return null;
+				}
+			}).when(application).start();
+		}
+
+		// operation
+		BulkOperationReport report = new BulkOperations(executor, 3, 10 * 1000).start(applications);
+
+		// verification
+		assertTrue(report.isSuccessful());
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+	}
+
+	@Test
+	public void shouldReportFailuresAndContinue() throws Throwable {
+		// pre-conditions
+		List<IApplication> applications = createApplications(3);
+		OpenShiftException exception = new OpenShiftException("Cannot scale a non-scalable application");
+		doThrow(exception).when(applications.get(1)).scaleUp();
+
+		// operation
+		BulkOperationReport report = new BulkOperations(executor, 1, 10 * 1000).scaleUp(applications);
+
+		// verification
+		assertFalse(report.isSuccessful());
+		assertThat(report.getResults(Status.SUCCEEDED)).hasSize(2);
+		Result failed = report.getResult(applications.get(1));
+		assertThat(failed.getStatus()).isEqualTo(Status.FAILED);
+		assertThat(failed.getError()).isSameAs(exception);
+		verify(applications.get(2)).scaleUp();
+	}
+
+	@Test
+	public void shouldTimeoutSlowApplications() throws Throwable {
+		// pre-conditions
+		List<IApplication> applications = createApplications(2);
+		doAnswer(new Answer<Void>() {
+
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Thread.sleep(10 * 1000);
+				return null;
+			}
+		}).when(applications.get(0)).stop(true);
+
+		// operation
+		BulkOperationReport report = new BulkOperations(executor, 2, 200).stop(applications, true);
+
+		// verification
+		assertThat(report.getResult(applications.get(0)).getStatus()).isEqualTo(Status.TIMED_OUT);
+		assertThat(report.getResult(applications.get(1)).getStatus()).isEqualTo(Status.SUCCEEDED);
+	}
+
+	@Test
+	public void shouldCancelRunningApplicationsIfExecutorRejects() throws Throwable {
+		// pre-conditions
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		List<IApplication> applications = createApplications(3);
+		doAnswer(new Answer<Void>() {
+
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				started.countDown();
+				try {
+					Thread.sleep(10 * 1000);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				return null;
+			}
+		}).when(applications.get(0)).restart();
+		// single thread, no queue: rejects while the first application runs
+		ExecutorService singleThreadExecutor =
+				new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<Runnable>()) {
+
+					@Override
+					public void execute(Runnable command) {
+						super.execute(command);
+						try {
+							started.await(5, TimeUnit.SECONDS);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				};
+
+		try {
+			// operation
+			BulkOperationReport report = new BulkOperations(singleThreadExecutor, 2, 10 * 1000).restart(applications);
+
+			// verification
+			assertThat(report.getResults()).hasSize(3);
+			assertThat(report.getResults(Status.FAILED)).hasSize(3);
+			assertThat(report.getResult(applications.get(1)).getError())
+					.isInstanceOf(RejectedExecutionException.class);
+			assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		} finally {
+			singleThreadExecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldCloseResourcesOfTimedOutApplications() throws Throwable {
+		// pre-conditions
+		List<IApplication> applications = createApplications(1);
+		final CountDownLatch closed = new CountDownLatch(1);
+		doAnswer(new Answer<Void>() {
+
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				Closeable connection = new Closeable() {
+
+					@Override
+					public void close() throws IOException {
+						closed.countDown();
+					}
+				};
+				CancellationUtils.register(connection);
+				try {
+					// blocking io that ignores interrupts
+					while (closed.getCount() > 0) {
+						try {
+							closed.await();
+						} catch (InterruptedException e) {
+							// ignore
+						}
+					}
+				} finally {
+					CancellationUtils.unregister(connection);
+				}
+				return null;
+			}
+		}).when(applications.get(0)).restart();
+
+		// operation
+		BulkOperationReport report = new BulkOperations(executor, 1, 200).restart(applications);
+
+		// verification
+		assertThat(report.getResult(applications.get(0)).getStatus()).isEqualTo(Status.TIMED_OUT);
+		assertTrue(closed.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void shouldNotTimeoutApplicationsWhileQueued() throws Throwable {
+		// pre-conditions
+		ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+		List<IApplication> applications = createApplications(4);
+		for (IApplication application : applications) {
+			doAnswer(new Answer<Void>() {
+
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					Thread.sleep(200);
+					return null;
+				}
+			}).when(application).start();
+		}
+
+		try {
+			// operation
+			BulkOperationReport report = new BulkOperations(singleThreadExecutor, 4, 500).start(applications);
+
+			// verification
+			for (IApplication application : applications) {
+				assertThat(report.getResult(application).getStatus()).isEqualTo(Status.SUCCEEDED);
+			}
+		} finally {
+			singleThreadExecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldNotifyProgress() throws Throwable {
+		// pre-conditions
+		List<IApplication> applications = createApplications(4);
+		final List<Integer> progress = new ArrayList<Integer>();
+
+		// operation
+		new BulkOperations(executor, 2, 10 * 1000)
+				.listener(new IBulkOperationListener() {
+
+					@Override
+					public void onCompleted(Result result, int completed, int total) {
+						assertThat(total).isEqualTo(4);
+						progress.add(completed);
+					}
+				})
+				.scaleDown(applications);
+
+		// verification
+		assertThat(progress).isEqualTo(Arrays.asList(1, 2, 3, 4));
+	}
+
+	private List<IApplication> createApplications(int count) {
+		List<IApplication> applications = new ArrayList<IApplication>();
+		for (int i = 0; i < count; i++) {
+			applications.add(mock(IApplication.class));
+		}
+		return applications;
+	}
+}
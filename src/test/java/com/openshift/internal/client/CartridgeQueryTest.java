@@ -44,6 +44,7 @@ import com.openshift.client.utils.CartridgeAssert;
 import com.openshift.client.utils.CartridgeTestUtils;
 import com.openshift.client.utils.Samples;
 import com.openshift.client.utils.TestConnectionBuilder;
+import com.openshift.internal.client.cartridge.CartridgeCatalog;
 
 /**
  * @author Andre Dietisheim
@@ -213,6 +214,56 @@ public class CartridgeQueryTest extends TestTimer {
 		assertThat(cartridge.getName()).isEqualTo(jenkins2);
 	}
 
+	@Test
+	public void shouldMatchLatestMysqlInCatalog() {
+		// pre-conditions
+		CartridgeCatalog<IEmbeddedCartridge> catalog = new CartridgeCatalog<IEmbeddedCartridge>(
+				CartridgeTestUtils.createEmbeddedCartridgeMocks(
+						"mysql-5.0", CartridgeTestUtils.MYSQL_51_NAME, "jenkins-client-1.4"));
+
+		LatestVersionQuery cartridgeSelector = new LatestVersionQuery("mysql");
+
+		// operation
+		IEmbeddedCartridge latestMysql = cartridgeSelector.get(catalog);
+
+		// verification
+		assertThat(latestMysql).isNotNull();
+		assertThat(latestMysql.getName()).isEqualTo(CartridgeTestUtils.MYSQL_51_NAME);
+		assertThat(catalog.getVersions("mysql")).onProperty("name")
+				.containsExactly(CartridgeTestUtils.MYSQL_51_NAME, "mysql-5.0");
+		assertThat(catalog.getByName("jenkins-client-1.4")).isNotNull();
+		assertThat(catalog.getLatestVersion("fun")).isNull();
+	}
+
+	@Test
+	public void shouldSeparateObsoleteCartridgesInCatalog() {
+		// pre-conditions
+		StandaloneCartridge php53 = new StandaloneCartridge("php-5.3", null, null, true);
+		StandaloneCartridge php54 = new StandaloneCartridge("php-5.4", null, null, false);
+		StandaloneCartridge ruby19 = new StandaloneCartridge("ruby-1.9", null, null, false);
+
+		// operation
+		CartridgeCatalog<StandaloneCartridge> catalog =
+				new CartridgeCatalog<StandaloneCartridge>(Arrays.asList(php53, php54, ruby19));
+
+		// verification
+		assertThat(catalog).containsExactly(php53, php54, ruby19);
+		assertThat(catalog.getObsolete()).containsExactly(php53);
+		assertThat(catalog.getNonObsolete()).containsExactly(php54, ruby19);
+		assertThat(catalog.getNonObsolete().getVersions("php")).containsExactly(php54);
+	}
+
+	@Test
+	public void shouldReturnCatalogFromConnection() {
+		// pre-conditions
+		// operation
+		List<IStandaloneCartridge> cartridges = connection.getStandaloneCartridges();
+
+		// verification
+		assertTrue(cartridges instanceof CartridgeCatalog);
+		assertTrue(connection.getCartridges(true) instanceof CartridgeCatalog);
+	}
+
 	@Test
 	public void shouldMatchingCartridgeName() {
 		// pre-conditions
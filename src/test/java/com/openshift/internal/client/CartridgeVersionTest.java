@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.openshift.client.cartridge.IEmbeddedCartridge;
+import com.openshift.client.cartridge.query.LatestVersionQuery;
+import com.openshift.client.utils.CartridgeTestUtils;
+import com.openshift.internal.client.cartridge.CartridgeCatalog;
+import com.openshift.internal.client.cartridge.CartridgeVersion;
+
+/**
+ * @author agent
+ */
+public class CartridgeVersionTest extends TestTimer {
+
+	@Test
+	public void shouldParseBaseNameAndVersion() {
+		// pre-conditions
+		// operation
+		CartridgeVersion version = CartridgeVersion.parse("jenkins-client-1.4");
+
+		// verification
+		assertThat(version.getBaseName()).isEqualTo("jenkins-client");
+		assertThat(version.getVersion()).isEqualTo("1.4");
+		assertThat(version.hasVersion()).isTrue();
+	}
+
+	@Test
+	public void shouldParseNameWithoutVersion() {
+		// pre-conditions
+		// operation
+		CartridgeVersion version = CartridgeVersion.parse("diy");
+
+		// verification
+		assertThat(version.getBaseName()).isEqualTo("diy");
+		assertThat(version.hasVersion()).isFalse();
+	}
+
+	@Test
+	public void shouldCompareMultiDigitMajorVersionsByValue() {
+		assertGreater("php-10", "php-9");
+		assertGreater("php-10.0", "php-9.9");
+		assertGreater("ruby-100", "ruby-99");
+	}
+
+	@Test
+	public void shouldCompareMultiDigitMinorVersionsByValue() {
+		assertGreater("nodejs-0.10", "nodejs-0.9");
+		assertGreater("python-3.12", "python-3.2");
+		assertGreater("mysql-5.10.1", "mysql-5.9.10");
+	}
+
+	@Test
+	public void shouldCompareAlphanumericVersions() {
+		assertGreater("somecartridge-7b", "somecartridge-7");
+		assertGreater("somecartridge-7b", "somecartridge-7a");
+		assertGreater("somecartridge-10a", "somecartridge-9b");
+	}
+
+	@Test
+	public void shouldCompareVersionWithMoreSegmentsAsGreater() {
+		assertGreater("mysql-5.1", "mysql-5");
+		assertGreater("mysql-5.1.1", "mysql-5.1");
+	}
+
+	@Test
+	public void shouldIgnoreLeadingZeros() {
+		// pre-conditions
+		// operation
+		// verification
+		assertThat(CartridgeVersion.parse("php-05.4").compareTo(CartridgeVersion.parse("php-5.4"))).isEqualTo(0);
+		assertGreater("php-5.010", "php-5.9");
+	}
+
+	@Test
+	public void shouldCompareVeryLongVersionNumbers() {
+		assertGreater("php-123456789012345678901", "php-99999999999999999999");
+	}
+
+	@Test
+	public void shouldSelectLatestMultiDigitVersionInList() {
+		// pre-conditions
+		List<IEmbeddedCartridge> cartridges = CartridgeTestUtils.createEmbeddedCartridgeMocks(
+				"nodejs-0.6", "nodejs-0.10", "nodejs-0.9", "mysql-5.5");
+
+		// operation
+		IEmbeddedCartridge latest = new LatestVersionQuery("nodejs").get(cartridges);
+
+		// verification
+		assertThat(latest.getName()).isEqualTo("nodejs-0.10");
+	}
+
+	@Test
+	public void shouldSelectLatestMultiDigitVersionInCatalog() {
+		// pre-conditions
+		CartridgeCatalog<IEmbeddedCartridge> catalog = new CartridgeCatalog<IEmbeddedCartridge>(
+				CartridgeTestUtils.createEmbeddedCartridgeMocks(
+						"nodejs-0.6", "nodejs-0.10", "nodejs-0.9", "mysql-5.5"));
+
+		// operation
+		IEmbeddedCartridge latest = new LatestVersionQuery("nodejs").get(catalog);
+
+		// verification
+		assertThat(latest.getName()).isEqualTo("nodejs-0.10");
+		assertThat(catalog.getVersions("nodejs")).onProperty("name")
+				.isEqualTo(Arrays.asList("nodejs-0.10", "nodejs-0.9", "nodejs-0.6"));
+	}
+
+	@Test
+	public void shouldSortByVersion() {
+		// pre-conditions
+		List<CartridgeVersion> versions = new ArrayList<CartridgeVersion>();
+		for (String name : new String[] { "php-10", "php-5.4", "php-9", "php-5.10", "php-5.3" }) {
+			versions.add(CartridgeVersion.parse(name));
+		}
+
+		// operation
+		Collections.sort(versions);
+
+		// verification
+		assertThat(versions).onProperty("name")
+				.isEqualTo(Arrays.asList("php-5.3", "php-5.4", "php-5.10", "php-9", "php-10"));
+	}
+
+	private void assertGreater(String greater, String lesser) {
+		CartridgeVersion greaterVersion = CartridgeVersion.parse(greater);
+		CartridgeVersion lesserVersion = CartridgeVersion.parse(lesser);
+		assertThat(greaterVersion.compareTo(lesserVersion)).isEqualTo(1);
+		assertThat(lesserVersion.compareTo(greaterVersion)).isEqualTo(-1);
+	}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.ConnectionBuilder.CredentialsConnectionBuilder;
+import com.openshift.client.IOpenShiftConnection;
+import com.openshift.client.IQuickstart;
+import com.openshift.client.cartridge.ICartridge;
+import com.openshift.client.utils.Samples;
+import com.openshift.client.utils.TestConnectionBuilder;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+
+/**
+ * @author agent
+ */
+public class CatalogCacheTest extends TestTimer {
+
+	private static final String SERVER = "https://openshift.redhat.com";
+
+	private File cacheDirectory;
+
+	@Before
+	public void setUp() throws IOException {
+		this.cacheDirectory = File.createTempFile("catalogcache", null);
+		cacheDirectory.delete();
+		cacheDirectory.mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = cacheDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		cacheDirectory.delete();
+	}
+
+	@Test
+	public void shouldStoreAndLoadCatalog() {
+		// pre-conditions
+		CatalogCache cache = new CatalogCache(cacheDirectory, SERVER, IRestService.SERVICE_VERSION);
+		assertThat(cache.load(CatalogCache.CATALOG_CARTRIDGES)).isNull();
+
+		// operation
+		cache.store(CatalogCache.CATALOG_CARTRIDGES, Samples.GET_CARTRIDGES.getContentAsString());
+
+		// verification
+		assertThat(cache.load(CatalogCache.CATALOG_CARTRIDGES))
+				.isEqualTo(Samples.GET_CARTRIDGES.getContentAsString());
+		assertThat(cache.load(CatalogCache.CATALOG_CARTRIDGES, new OpenShiftJsonDTOFactory())).isNotNull();
+	}
+
+	@Test
+	public void shouldKeyCatalogsByServerAndVersion() {
+		// pre-conditions
+		CatalogCache cache = new CatalogCache(cacheDirectory, SERVER, IRestService.SERVICE_VERSION);
+		cache.store(CatalogCache.CATALOG_CARTRIDGES, Samples.GET_CARTRIDGES.getContentAsString());
+
+		// operation
+		CatalogCache otherServerCache =
+				new CatalogCache(cacheDirectory, "https://broker.acme.com", IRestService.SERVICE_VERSION);
+		CatalogCache otherVersionCache = new CatalogCache(cacheDirectory, SERVER, "1.7");
+
+		// verification
+		assertThat(otherServerCache.load(CatalogCache.CATALOG_CARTRIDGES)).isNull();
+		assertThat(otherVersionCache.load(CatalogCache.CATALOG_CARTRIDGES)).isNull();
+	}
+
+	@Test
+	public void shouldDiscardUnparseableCatalog() {
+		// pre-conditions
+		CatalogCache cache = new CatalogCache(cacheDirectory, SERVER, IRestService.SERVICE_VERSION);
+		cache.store(CatalogCache.CATALOG_CARTRIDGES, "{ corrupt");
+
+		// operation
+		Object response = cache.load(CatalogCache.CATALOG_CARTRIDGES, new OpenShiftJsonDTOFactory());
+
+		// verification
+		assertThat(response).isNull();
+		assertThat(cache.load(CatalogCache.CATALOG_CARTRIDGES)).isNull();
+	}
+
+	@Test
+	public void shouldStoreCartridgesWhenLoaded() throws Throwable {
+		// pre-conditions
+		IOpenShiftConnection connection = createConnection(new HttpClientMockDirector());
+
+		// operation
+		connection.getCartridges();
+
+		// verification
+		CatalogCache cache = new CatalogCache(cacheDirectory, connection.getServer(), IRestService.SERVICE_VERSION);
+		assertThat(cache.load(CatalogCache.CATALOG_CARTRIDGES))
+				.isEqualTo(Samples.GET_CARTRIDGES.getContentAsString());
+	}
+
+	@Test
+	public void shouldServeCartridgesFromCache() throws Throwable {
+		// pre-conditions
+		createConnection(new HttpClientMockDirector()).getCartridges();
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector()
+				.mockGetCartridges(new SocketTimeoutException());
+
+		// operation
+		List<ICartridge> cartridges = createConnection(mockDirector).getCartridges();
+
+		// verification
+		assertThat(cartridges).hasSize(25);
+	}
+
+	@Test
+	public void shouldServeQuickstartsFromCache() throws Throwable {
+		// pre-conditions
+		createConnection(new HttpClientMockDirector().mockGetQuickstarts(Samples.GET_API_QUICKSTARTS))
+				.getQuickstarts();
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector()
+				.mockGetQuickstarts(new SocketTimeoutException());
+
+		// operation
+		List<IQuickstart> quickstarts = createConnection(mockDirector).getQuickstarts();
+
+		// verification
+		assertThat(quickstarts).hasSize(78);
+	}
+
+	private IOpenShiftConnection createConnection(HttpClientMockDirector mockDirector) throws Throwable {
+		CredentialsConnectionBuilder builder = new TestConnectionBuilder().defaultCredentials();
+		builder.catalogCache(cacheDirectory);
+		return builder.create(mockDirector.client());
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+import com.jcraft.jsch.ChannelExec;
+import com.openshift.internal.client.ApplicationSSHSession.ChannelResponse;
+
+/**
+ * Measures the throughput of reading a snapshot sized response of a remote
+ * command through a pipe (as jsch hands it out) in bulk and byte by byte. Not
+ * part of the test suite, run it manually:
+ * 
+ * <pre>
+ * java -cp target/classes:target/test-classes:... com.openshift.internal.client.ChannelResponseBenchmark
+ * </pre>
+ * 
+ * @author agent
+ */
+public class ChannelResponseBenchmark {
+
+	private static final int SNAPSHOT_SIZE = 32 * 1024 * 1024;
+	/** the size of the pipe that jsch creates for the channel output */
+	private static final int PIPE_SIZE = 32 * 1024;
+	private static final int REMOTE_PACKET_SIZE = 32 * 1024;
+	private static final int READ_BUFFER_SIZE = 8 * 1024;
+	private static final int WARMUP_ITERATIONS = 2;
+	private static final int ITERATIONS = 5;
+
+	public static void main(String[] args) throws Exception {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			run(true);
+			run(false);
+		}
+
+		report("bulk", run(true));
+		report("byte by byte", run(false));
+	}
+
+	private static long run(boolean bulk) throws Exception {
+		long duration = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			ChannelResponse response = createResponse();
+			long start = System.nanoTime();
+			long read = bulk ? readBulk(response) : readByteByByte(response);
+			duration += System.nanoTime() - start;
+			if (read != SNAPSHOT_SIZE) {
+				throw new IllegalStateException("read " + read + " bytes instead of " + SNAPSHOT_SIZE);
+			}
+		}
+		return duration / ITERATIONS;
+	}
+
+	private static long readBulk(InputStream in) throws IOException {
+		byte[] buffer = new byte[READ_BUFFER_SIZE];
+		long total = 0;
+		int read = -1;
+		while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+			total += read;
+		}
+		return total;
+	}
+
+	private static long readByteByByte(InputStream in) throws IOException {
+		long total = 0;
+		while (in.read() != -1) {
+			total++;
+		}
+		return total;
+	}
+
+	private static void report(String name, long nanos) {
+		double seconds = nanos / 1000000000d;
+		System.out.println(name + ": " + (nanos / 1000000) + " ms, "
+				+ Math.round(SNAPSHOT_SIZE / (1024 * 1024) / seconds) + " MB/s");
+	}
+
+	private static ChannelResponse createResponse() throws Exception {
+		final PipedOutputStream remoteOutput = new PipedOutputStream();
+		PipedInputStream channelOutput = new PipedInputStream(remoteOutput, PIPE_SIZE);
+		ChannelExec channel = mock(ChannelExec.class);
+		when(channel.isClosed()).thenReturn(true);
+		when(channel.getExitStatus()).thenReturn(0);
+		when(channel.getErrStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+		Thread remote = new Thread("remote") {
+
+			@Override
+			public void run() {
+				byte[] packet = new byte[REMOTE_PACKET_SIZE];
+				try {
+					for (int written = 0; written < SNAPSHOT_SIZE; written += packet.length) {
+						remoteOutput.write(packet, 0, Math.min(packet.length, SNAPSHOT_SIZE - written));
+					}
+					remoteOutput.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		remote.setDaemon(true);
+		remote.start();
+		return new ChannelResponse(channelOutput, channel);
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+import org.junit.Test;
+
+import com.jcraft.jsch.ChannelExec;
+import com.openshift.internal.client.ApplicationSSHSession.ChannelResponse;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * @author agent
+ */
+public class ChannelResponseTest extends TestTimer {
+
+	@Test
+	public void shouldReadAllOutputOfSuccessfulCommand() throws Exception {
+		// pre-conditions
+		ChannelExec channel = createChannel(0, "");
+		final PipedOutputStream remoteOutput = new PipedOutputStream();
+		ChannelResponse response = new ChannelResponse(new PipedInputStream(remoteOutput), channel);
+		Thread remote = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					remoteOutput.write("rhc snapshot\nrestored\n".getBytes());
+					remoteOutput.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		};
+		remote.start();
+
+		// operation
+		String output = StreamUtils.readToString(response);
+
+		// verification
+		assertThat(output).isEqualTo("rhc snapshot\nrestored\n");
+		assertThat(response.read()).isEqualTo(-1);
+	}
+
+	@Test
+	public void shouldThrowErrorOutputIfCommandFailed() throws Exception {
+		// pre-conditions
+		ChannelExec channel = createChannel(1, "no such file");
+		ChannelResponse response = new ChannelResponse(new ByteArrayInputStream("partial".getBytes()), channel);
+		byte[] buffer = new byte[64];
+
+		// operation
+		int read = response.read(buffer, 0, buffer.length);
+		try {
+			response.read(buffer, 0, buffer.length);
+			fail("IOException expected");
+		} catch (IOException e) {
+			// verification
+			assertThat(read).isEqualTo("partial".length());
+			assertThat(e.getMessage()).contains("no such file");
+		}
+	}
+
+	@Test
+	public void shouldReleaseOnceOutputIsRead() throws Exception {
+		// pre-conditions
+		ChannelExec channel = createChannel(0, "");
+		ChannelResponse response = new ChannelResponse(new ByteArrayInputStream("restored".getBytes()), channel);
+		Closeable lease = mock(Closeable.class);
+		response.releaseOnEnd(lease);
+
+		// operation
+		StreamUtils.readToString(response);
+		response.close();
+
+		// verification
+		verify(lease, times(1)).close();
+	}
+
+	private ChannelExec createChannel(int exitStatus, String errorOutput) throws IOException {
+		ChannelExec channel = mock(ChannelExec.class);
+		when(channel.isClosed()).thenReturn(true);
+		when(channel.getExitStatus()).thenReturn(exitStatus);
+		when(channel.getErrStream()).thenReturn(new ByteArrayInputStream(errorOutput.getBytes()));
+		return channel;
+	}
+}
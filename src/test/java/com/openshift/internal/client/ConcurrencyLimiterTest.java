@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class ConcurrencyLimiterTest extends TestTimer {
+
+	private static final long TIMEOUT = 10 * 1000;
+
+	@Test
+	public void shouldIncreaseLimitIfSaturatedAndSuccessful() {
+		// pre-conditions
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 2, 1, 10);
+
+		// operation
+		for (int i = 0; i < 10; i++) {
+			limiter.acquire(TIMEOUT);
+			limiter.acquire(TIMEOUT);
+			limiter.release(false);
+			limiter.release(false);
+		}
+
+		// verification
+		assertThat(limiter.getLimit()).isGreaterThan(2);
+		assertThat(limiter.getInFlight()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldNotIncreaseLimitIfNotSaturated() {
+		// pre-conditions
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 4, 1, 10);
+
+		// operation
+		for (int i = 0; i < 20; i++) {
+			limiter.acquire(TIMEOUT);
+			limiter.release(false);
+		}
+
+		// verification
+		assertThat(limiter.getLimit()).isEqualTo(4);
+	}
+
+	@Test
+	public void shouldHalveLimitOnceIfOverloaded() {
+		// pre-conditions
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 8, 1, 10);
+
+		// operation
+		for (int i = 0; i < 3; i++) {
+			limiter.acquire(TIMEOUT);
+		}
+		for (int i = 0; i < 3; i++) {
+			limiter.release(true);
+		}
+
+		// verification
+		assertThat(limiter.getLimit()).isEqualTo(4);
+	}
+
+	@Test
+	public void shouldNotDecreaseBelowMinimum() {
+		// pre-conditions
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 4, 2, 10);
+
+		// operation
+		for (int i = 0; i < 20; i++) {
+			limiter.acquire(TIMEOUT);
+			limiter.release(true);
+		}
+
+		// verification
+		assertThat(limiter.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldBlockIfLimitIsReached() throws Throwable {
+		// pre-conditions
+		final ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 1, 1);
+		limiter.acquire(TIMEOUT);
+		final CountDownLatch acquired = new CountDownLatch(1);
+		Thread thread = new Thread() {
+
+			@Override
+			public void run() {
+				limiter.acquire(TIMEOUT);
+				acquired.countDown();
+			}
+		};
+
+		// operation
+		thread.start();
+
+		// verification
+		assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+		limiter.release(false);
+		assertTrue(acquired.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void shouldNotAcquireIfTimeoutIsReached() throws Throwable {
+		// pre-conditions
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 1, 1);
+		limiter.acquire(TIMEOUT);
+
+		// operation
+		boolean acquired = limiter.acquire(100);
+
+		// verification
+		assertFalse(acquired);
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+	}
+}
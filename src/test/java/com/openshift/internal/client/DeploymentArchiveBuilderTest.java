@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.utils.DeploymentArchiveBuilder;
+import com.openshift.client.utils.FileUtils;
+import com.openshift.internal.client.utils.ParallelGzipOutputStream;
+
+/**
+ * @author agent
+ */
+public class DeploymentArchiveBuilderTest extends TestTimer {
+
+	private File folder;
+	private File repo;
+	private File dependencies;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() throws IOException {
+		this.folder = FileUtils.createRandomTempFile("");
+		folder.delete();
+		this.repo = new File(folder, "target");
+		this.dependencies = new File(folder, "lib");
+		write(new File(repo, "ROOT.war"), createRandomBytes(300 * 1024, 42));
+		write(new File(repo, "index.html"), "<html/>".getBytes());
+		write(new File(repo, "bin/start.sh"), "#!/bin/sh\n".getBytes()).setExecutable(true);
+		write(new File(dependencies, "jbossas/modules.jar"), createRandomBytes(1000, 43));
+		this.executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+		delete(folder);
+	}
+
+	@Test
+	public void shouldArchiveFoldersInDeploymentLayout() throws Exception {
+		// pre-conditions
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// operation
+		new DeploymentArchiveBuilder()
+				.repo(repo)
+				.dependencies(dependencies)
+				.blockSize(16 * 1024)
+				.threads(4)
+				.executor(executor)
+				.writeTo(out);
+
+		// verification
+		Map<String, TarArchiveEntry> entries = new LinkedHashMap<String, TarArchiveEntry>();
+		Map<String, byte[]> contents = readArchive(new ByteArrayInputStream(out.toByteArray()), entries);
+		assertThat(new ArrayList<String>(entries.keySet())).containsExactly(
+				"build-dependencies/",
+				"dependencies/",
+				"dependencies/jbossas/",
+				"dependencies/jbossas/modules.jar",
+				"repo/",
+				"repo/ROOT.war",
+				"repo/bin/",
+				"repo/bin/start.sh",
+				"repo/index.html");
+		assertThat(contents.get("repo/ROOT.war")).isEqualTo(createRandomBytes(300 * 1024, 42));
+		assertThat(contents.get("repo/index.html")).isEqualTo("<html/>".getBytes());
+		assertThat(entries.get("repo/bin/start.sh").getMode() & 0111).isEqualTo(0111);
+		assertThat(entries.get("repo/index.html").getMode() & 0111).isEqualTo(0);
+		// compressed in several independent members
+		assertThat(countGzipMembers(out.toByteArray())).isGreaterThan(1);
+	}
+
+	@Test
+	public void shouldStreamSameArchiveAsWritten() throws Exception {
+		// pre-conditions
+		DeploymentArchiveBuilder builder = new DeploymentArchiveBuilder()
+				.repo(repo)
+				.blockSize(8 * 1024)
+				.threads(2)
+				.executor(executor);
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		builder.writeTo(written);
+
+		// operation
+		InputStream archive = builder.open();
+
+		// verification
+		assertThat(read(archive)).isEqualTo(written.toByteArray());
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void shouldFailIfFolderDoesNotExist() throws Exception {
+		// pre-conditions
+		// operation
+		new DeploymentArchiveBuilder()
+				.repo(new File(folder, "missing"))
+				.open();
+	}
+
+	@Test
+	public void shouldAbortBuildOnceStreamIsClosed() throws Exception {
+		// pre-conditions
+		ExecutorService singleThread = Executors.newSingleThreadExecutor();
+		try {
+			InputStream archive = new DeploymentArchiveBuilder()
+					.repo(repo)
+					.blockSize(1024)
+					.threads(1)
+					.executor(singleThread)
+					.open();
+			archive.read(new byte[100]);
+
+			// operation
+			archive.close();
+
+			// verification
+			// the thread of the build is released
+			assertThat(singleThread.submit(new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() throws Exception {
+					return Boolean.TRUE;
+				}
+			}).get(10, TimeUnit.SECONDS)).isTrue();
+		} finally {
+			singleThread.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldCompressInWritingThreadIfExecutorIsBusy() throws Exception {
+		// pre-conditions
+		ExecutorService singleThread = Executors.newSingleThreadExecutor();
+		final CountDownLatch busy = new CountDownLatch(1);
+		singleThread.submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				busy.await();
+				return null;
+			}
+		});
+		byte[] data = createRandomBytes(100 * 1024, 44);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// operation
+		try {
+			ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, singleThread, 2, 4096, 1);
+			gzip.write(data);
+			gzip.close();
+		} finally {
+			busy.countDown();
+			singleThread.shutdownNow();
+		}
+
+		// verification
+		assertThat(read(new GzipCompressorInputStream(new ByteArrayInputStream(out.toByteArray()), true)))
+				.isEqualTo(data);
+		assertThat(countGzipMembers(out.toByteArray())).isEqualTo(25);
+	}
+
+	private Map<String, byte[]> readArchive(InputStream in, Map<String, TarArchiveEntry> entries)
+			throws IOException {
+		Map<String, byte[]> contents = new LinkedHashMap<String, byte[]>();
+		TarArchiveInputStream tar = new TarArchiveInputStream(new GzipCompressorInputStream(in, true));
+		try {
+			for (TarArchiveEntry entry = null; (entry = tar.getNextTarEntry()) != null;) {
+				entries.put(entry.getName(), entry);
+				ByteArrayOutputStream content = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				for (int read = 0; (read = tar.read(buffer)) != -1;) {
+					content.write(buffer, 0, read);
+				}
+				contents.put(entry.getName(), content.toByteArray());
+			}
+		} finally {
+			tar.close();
+		}
+		return contents;
+	}
+
+	/**
+	 * Counts the gzip headers (with deflate and no flags) that start a member.
+	 * Good enough for tests, compressed data could match by chance.
+	 */
+	private int countGzipMembers(byte[] gzip) throws IOException {
+		List<Integer> members = new ArrayList<Integer>();
+		for (int i = 0; i < gzip.length - 3; i++) {
+			if ((gzip[i] & 0xff) == 0x1f
+					&& (gzip[i + 1] & 0xff) == 0x8b
+					&& gzip[i + 2] == 8
+					&& gzip[i + 3] == 0) {
+				members.add(i);
+			}
+		}
+		return members.size();
+	}
+
+	private byte[] read(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int read = 0; (read = in.read(buffer)) != -1;) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private File write(File file, byte[] content) throws IOException {
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private byte[] createRandomBytes(int length, long seed) {
+		byte[] bytes = new byte[length];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
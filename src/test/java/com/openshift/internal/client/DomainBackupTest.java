@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.openshift.client.BackupReport;
+import com.openshift.client.BulkOperationReport.Status;
+import com.openshift.client.DomainBackup;
+import com.openshift.client.IApplication;
+import com.openshift.client.IApplicationFilter;
+import com.openshift.client.IDomain;
+import com.openshift.client.ISSHSessionFactory;
+import com.openshift.client.SSHSessionPool;
+import com.openshift.client.utils.SnapshotFileUtils;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * @author agent
+ */
+public class DomainBackupTest extends TestTimer {
+
+	private static final String SNAPSHOT = "snapshot";
+
+	private File directory;
+	private ExecutorService executor;
+	private SessionFactoryFake factory;
+	private SSHSessionPool pool;
+	private IDomain domain;
+
+	@Before
+	public void setUp() throws Exception {
+		this.directory = File.createTempFile("backup", null);
+		directory.delete();
+		this.executor = Executors.newCachedThreadPool();
+		this.factory = new SessionFactoryFake();
+		this.pool = new SSHSessionPool(factory);
+		this.domain = mock(IDomain.class);
+		when(domain.getId()).thenReturn("foobarz");
+	}
+
+	@After
+	public void tearDown() {
+		pool.close();
+		executor.shutdownNow();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void shouldSaveSnapshotsAndManifest() throws Exception {
+		// pre-conditions
+		IApplication springeap6 = createApplication("springeap6");
+		IApplication jekyll = createApplication("jekyll");
+		when(domain.getApplications()).thenReturn(Arrays.asList(springeap6, jekyll));
+
+		// operation
+		BackupReport report = new DomainBackup(executor, pool)
+				.concurrency(2)
+				.bandwidth(1024 * 1024)
+				.backup(domain, directory);
+
+		// verification
+		assertThat(report.isSuccessful()).isTrue();
+		assertThat(report.getSnapshots()).hasSize(2);
+		BackupReport.Snapshot snapshot = report.getSnapshot(springeap6);
+		assertThat(snapshot.getFile()).isEqualTo(new File(directory, "springeap6-foobarz.tar.gz"));
+		assertThat(snapshot.getSize()).isEqualTo(SNAPSHOT.length());
+		assertThat(snapshot.getAttempts()).isEqualTo(1);
+		assertThat(snapshot.getChecksum()).isEqualTo(SnapshotFileUtils.checksum(snapshot.getFile()));
+		assertThat(SnapshotFileUtils.verify(snapshot.getFile())).isTrue();
+
+		ModelNode manifest = ModelNode.fromJSONString(
+				StreamUtils.readToString(new FileInputStream(report.getManifest())));
+		assertThat(manifest.get("snapshots").asList()).hasSize(2);
+		ModelNode entry = manifest.get("snapshots").asList().get(0);
+		assertThat(entry.get("application").asString()).isEqualTo("springeap6");
+		assertThat(entry.get("domain").asString()).isEqualTo("foobarz");
+		assertThat(entry.get("status").asString()).isEqualTo(Status.SUCCEEDED.name());
+		assertThat(entry.get("size").asLong()).isEqualTo(SNAPSHOT.length());
+		assertThat(entry.get("sha256").asString()).isEqualTo(snapshot.getChecksum());
+	}
+
+	@Test
+	public void shouldRetryFailedSnapshot() throws Exception {
+		// pre-conditions
+		IApplication springeap6 = createApplication("springeap6");
+		when(domain.getApplications()).thenReturn(Arrays.<IApplication> asList(springeap6));
+		factory.failures.put(springeap6.getSshUrl(), new AtomicInteger(1));
+
+		// operation
+		BackupReport report = new DomainBackup(executor, pool)
+				.retries(2, 0)
+				.backup(domain, directory);
+
+		// verification
+		assertThat(report.isSuccessful()).isTrue();
+		assertThat(report.getSnapshot(springeap6).getAttempts()).isEqualTo(2);
+		assertThat(report.getSnapshot(springeap6).getFile().length()).isEqualTo(SNAPSHOT.length());
+	}
+
+	@Test
+	public void shouldReportSnapshotThatFailedAllAttempts() throws Exception {
+		// pre-conditions
+		IApplication springeap6 = createApplication("springeap6");
+		IApplication jekyll = createApplication("jekyll");
+		when(domain.getApplications()).thenReturn(Arrays.asList(springeap6, jekyll));
+		factory.failures.put(jekyll.getSshUrl(), new AtomicInteger(Integer.MAX_VALUE));
+
+		// operation
+		BackupReport report = new DomainBackup(executor, pool)
+				.retries(1, 0)
+				.backup(domain, directory);
+
+		// verification
+		assertThat(report.isSuccessful()).isFalse();
+		assertThat(report.getSnapshots(Status.SUCCEEDED)).hasSize(1);
+		BackupReport.Snapshot failed = report.getSnapshot(jekyll);
+		assertThat(failed.getStatus()).isEqualTo(Status.FAILED);
+		assertThat(failed.getAttempts()).isEqualTo(2);
+		assertThat(failed.getError()).isNotNull();
+		assertThat(failed.getFile().exists()).isFalse();
+		assertThat(report.getManifest().exists()).isTrue();
+	}
+
+	@Test
+	public void shouldOnlyBackupFilteredApplications() throws Exception {
+		// pre-conditions
+		IApplication springeap6 = createApplication("springeap6");
+		IApplication jekyll = createApplication("jekyll");
+		when(domain.getApplications()).thenReturn(Arrays.asList(springeap6, jekyll));
+
+		// operation
+		BackupReport report = new DomainBackup(executor, pool)
+				.backup(domain, new IApplicationFilter() {
+
+					@Override
+					public boolean accept(IApplication application) {
+						return "jekyll".equals(application.getName());
+					}
+				}, directory);
+
+		// verification
+		assertThat(report.getSnapshots()).hasSize(1);
+		assertThat(report.getSnapshot(jekyll)).isNotNull();
+		assertThat(report.getSnapshot(springeap6)).isNull();
+		assertThat(new File(directory, "springeap6-foobarz.tar.gz").exists()).isFalse();
+	}
+
+	private IApplication createApplication(String name) {
+		IApplication application = mock(IApplication.class);
+		when(application.getName()).thenReturn(name);
+		when(application.getSshUrl()).thenReturn("ssh://517ff8b9500446729b00008e@" + name + "-foobarz.rhcloud.com");
+		when(application.getDomain()).thenReturn(domain);
+		return application;
+	}
+
+	/**
+	 * Creates sessions whose exec channels respond with a snapshot. Channels
+	 * fail to connect for as many times as there are failures for the url.
+	 */
+	private static class SessionFactoryFake implements ISSHSessionFactory {
+
+		private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<String, AtomicInteger>();
+
+		@Override
+		public Session createSession(final String sshUrl) throws JSchException {
+			Session session = mock(Session.class);
+			when(session.isConnected()).thenReturn(true);
+			when(session.openChannel(anyString())).thenAnswer(new Answer<ChannelExec>() {
+
+				@Override
+				public ChannelExec answer(InvocationOnMock invocation) throws Throwable {
+					return createChannel(failures.get(sshUrl));
+				}
+			});
+			return session;
+		}
+
+		private ChannelExec createChannel(final AtomicInteger failures) throws Exception {
+			ChannelExec channel = mock(ChannelExec.class);
+			when(channel.getInputStream()).thenReturn(new ByteArrayInputStream(SNAPSHOT.getBytes()));
+			when(channel.getErrStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+			when(channel.isClosed()).thenReturn(true);
+			when(channel.getExitStatus()).thenReturn(0);
+			doAnswer(new Answer<Void>() {
+
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					if (failures != null
+							&& failures.getAndDecrement() > 0) {
+						throw new JSchException("connection refused");
+					}
+					return null;
+				}
+			}).when(channel).connect(anyInt());
+			return channel;
+		}
+	}
+}
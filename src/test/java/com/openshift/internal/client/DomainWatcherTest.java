@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED;
+import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED;
+import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_NOAPPS;
+import static com.openshift.client.utils.UrlEndsWithMatcher.urlEndsWith;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.client.IOpenShiftConnection;
+import com.openshift.client.IWatch;
+import com.openshift.client.IWatchListener;
+import com.openshift.client.WatchEvent;
+import com.openshift.client.WatchEvent.Type;
+import com.openshift.client.WatchOptions;
+import com.openshift.client.utils.Samples;
+import com.openshift.client.utils.TestConnectionBuilder;
+import com.openshift.internal.client.DomainWatcher.ApplicationSnapshot;
+import com.openshift.internal.client.DomainWatcher.DomainSnapshot;
+
+/**
+ * @author agent
+ */
+public class DomainWatcherTest extends TestTimer {
+
+	private static final String APPLICATIONS_URL = "/domains/foobarz/applications?include=cartridges";
+
+	private HttpClientMockDirector mockDirector;
+	private IHttpClient clientMock;
+	private IOpenShiftConnection connection;
+	private EventCollector listener;
+	private List<IWatch> watches;
+
+	@Before
+	public void setUp() throws Throwable {
+		this.mockDirector = new HttpClientMockDirector();
+		this.clientMock = mockDirector.mockGetDomains(Samples.GET_DOMAINS).client();
+		this.connection = new TestConnectionBuilder().defaultCredentials().create(clientMock);
+		this.listener = new EventCollector();
+		this.watches = new ArrayList<IWatch>();
+	}
+
+	@After
+	public void tearDown() {
+		for (IWatch watch : watches) {
+			watch.cancel();
+		}
+	}
+
+	@Test
+	public void shouldNotifyAddedCartridge() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(urlEndsWith(APPLICATIONS_URL), anyInt()))
+				.thenReturn(GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString(),
+						GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsString());
+
+		// operation
+		watch(new WatchOptions().domains("foobarz").interval(20, 100));
+
+		// verification
+		WatchEvent event = listener.next();
+		assertNotNull(event);
+		assertThat(event.getType()).isEqualTo(Type.CARTRIDGE_ADDED);
+		assertThat(event.getDomainId()).isEqualTo("foobarz");
+		assertThat(event.getApplicationName()).isEqualTo("springeap6");
+		assertThat(event.getSubject()).isEqualTo("mysql-5.1");
+	}
+
+	@Test
+	public void shouldNotifyRemovedApplications() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(urlEndsWith(APPLICATIONS_URL), anyInt()))
+				.thenReturn(GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString(),
+						GET_DOMAINS_FOOBARZ_APPLICATIONS_NOAPPS.getContentAsString());
+
+		// operation
+		watch(new WatchOptions().interval(20, 100));
+
+		// verification
+		List<String> removed = Arrays.asList(listener.next().getSubject(), listener.next().getSubject());
+		Collections.sort(removed);
+		assertThat(removed).isEqualTo(Arrays.asList("scalable", "springeap6"));
+	}
+
+	@Test
+	public void shouldNotifyAllWatchesOfADomain() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(urlEndsWith(APPLICATIONS_URL), anyInt()))
+				.thenReturn(GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString(),
+						GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsString());
+		EventCollector otherListener = new EventCollector();
+
+		// operation
+		watch(new WatchOptions().domains("foobarz").interval(20, 100));
+		watches.add(connection.watch(otherListener, new WatchOptions().domains("foobarz").interval(20, 100)));
+
+		// verification
+		assertThat(listener.next().getSubject()).isEqualTo("mysql-5.1");
+		assertThat(otherListener.next().getSubject()).isEqualTo("mysql-5.1");
+	}
+
+	@Test
+	public void shouldKeepPollingIfListenerThrowsError() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(urlEndsWith(APPLICATIONS_URL), anyInt()))
+				.thenReturn(GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString(),
+						GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsString(),
+						GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString());
+		this.listener = new EventCollector() {
+
+			private boolean failed;
+
+			@Override
+			public void onEvent(WatchEvent event) {
+				if (!failed) {
+					this.failed = true;
+					throw new Error("listener failed");
+				}
+				super.onEvent(event);
+			}
+		};
+
+		// operation
+		watch(new WatchOptions().domains("foobarz").interval(20, 100));
+
+		// verification
+		WatchEvent event = listener.next();
+		assertNotNull(event);
+		assertThat(event.getType()).isEqualTo(Type.CARTRIDGE_REMOVED);
+		assertThat(event.getSubject()).isEqualTo("mysql-5.1");
+	}
+
+	@Test
+	public void shouldPollAtShorterIntervalOfAddedWatch() throws Throwable {
+		// pre-conditions
+		final CountDownLatch polled = new CountDownLatch(1);
+		when(clientMock.get(urlEndsWith(APPLICATIONS_URL), anyInt()))
+				.thenAnswer(new Answer<String>() {
+
+					@Override
+					public String answer(InvocationOnMock invocation) throws Throwable {
+						if (polled.getCount() > 0) {
+							polled.countDown();
+							return GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString();
+						}
+						return GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsString();
+					}
+				});
+		watches.add(connection.watch(new EventCollector(),
+				new WatchOptions().domains("foobarz").interval(10 * 1000, 20 * 1000)));
+		assertTrue(polled.await(5, TimeUnit.SECONDS));
+		// let the first poll complete and back off
+		Thread.sleep(500);
+
+		// operation
+		watch(new WatchOptions().domains("foobarz").interval(20, 100));
+
+		// verification
+		WatchEvent event = listener.next();
+		assertNotNull(event);
+		assertThat(event.getSubject()).isEqualTo("mysql-5.1");
+	}
+
+	@Test
+	public void shouldNotNotifyCancelledWatch() throws Throwable {
+		// pre-conditions
+		when(clientMock.get(urlEndsWith(APPLICATIONS_URL), anyInt()))
+				.thenReturn(GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED.getContentAsString(),
+						GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsString());
+		IWatch watch = watch(new WatchOptions().domains("foobarz").interval(200, 400));
+
+		// operation
+		watch.cancel();
+
+		// verification
+		assertTrue(watch.isCancelled());
+		assertThat(listener.events.poll(1, TimeUnit.SECONDS)).isNull();
+	}
+
+	@Test
+	public void shouldDiffAliasesAndGearStates() throws Throwable {
+		// pre-conditions
+		Map<String, String> gearStates = new HashMap<String, String>();
+		gearStates.put("gear1", "started");
+		gearStates.put("gear2", "started");
+		DomainSnapshot former = createSnapshot(Arrays.asList("php-5.3"), Arrays.asList("www.redhat.com"), gearStates);
+		Map<String, String> currentGearStates = new HashMap<String, String>(gearStates);
+		currentGearStates.put("gear2", "stopped");
+		DomainSnapshot current = createSnapshot(Arrays.asList("php-5.3"), Arrays.asList("www.jboss.org"), currentGearStates);
+
+		// operation
+		List<WatchEvent> events = former.diff(current);
+
+		// verification
+		assertThat(events).hasSize(3);
+		assertThat(events.get(0).getType()).isEqualTo(Type.ALIAS_REMOVED);
+		assertThat(events.get(0).getSubject()).isEqualTo("www.redhat.com");
+		assertThat(events.get(1).getType()).isEqualTo(Type.ALIAS_ADDED);
+		assertThat(events.get(1).getSubject()).isEqualTo("www.jboss.org");
+		assertThat(events.get(2).getType()).isEqualTo(Type.GEAR_STATE_CHANGED);
+		assertThat(events.get(2).getSubject()).isEqualTo("gear2");
+		assertThat(events.get(2).getOldValue()).isEqualTo("started");
+		assertThat(events.get(2).getNewValue()).isEqualTo("stopped");
+	}
+
+	@Test
+	public void shouldNotDiffGearStatesIfTheyWereNotPolled() throws Throwable {
+		// pre-conditions
+		DomainSnapshot former = createSnapshot(Arrays.asList("php-5.3"), null, null);
+		DomainSnapshot current = createSnapshot(Arrays.asList("php-5.3"), null,
+				Collections.singletonMap("gear1", "started"));
+
+		// operation
+		List<WatchEvent> events = former.diff(current);
+
+		// verification
+		assertThat(events).isEmpty();
+	}
+
+	private IWatch watch(WatchOptions options) {
+		IWatch watch = connection.watch(listener, options);
+		watches.add(watch);
+		return watch;
+	}
+
+	private DomainSnapshot createSnapshot(List<String> cartridges, List<String> aliases, Map<String, String> gearStates) {
+		Map<String, ApplicationSnapshot> applications = new LinkedHashMap<String, ApplicationSnapshot>();
+		applications.put("php", new ApplicationSnapshot(cartridges, aliases, gearStates));
+		return new DomainSnapshot("foobarz", applications);
+	}
+
+	private static class EventCollector implements IWatchListener {
+
+		private final BlockingQueue<WatchEvent> events = new LinkedBlockingQueue<WatchEvent>();
+
+		@Override
+		public void onEvent(WatchEvent event) {
+			events.add(event);
+		}
+
+		@Override
+		public void onError(Throwable error) {
+		}
+
+		private WatchEvent next() throws InterruptedException {
+			return events.poll(5, TimeUnit.SECONDS);
+		}
+	}
+}
@@ -14,6 +14,7 @@ import static com.openshift.client.utils.Samples.GET_DOMAINS;
 import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED;
 import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_1EMBEDDED;
 import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_GEARGROUPS;
+import static com.openshift.client.utils.Samples.POST_STOP_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_EVENT;
 import static org.fest.assertions.Assertions.assertThat;
 
 import java.util.Collection;
@@ -24,9 +25,11 @@ import org.junit.Test;
 import com.openshift.client.GearState;
 import com.openshift.client.IApplication;
 import com.openshift.client.IDomain;
+import com.openshift.client.IGear;
 import com.openshift.client.IGearGroup;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.IUser;
+import com.openshift.client.utils.CartridgeTestUtils;
 import com.openshift.client.utils.GearGroupsAssert;
 import com.openshift.client.utils.TestConnectionBuilder;
 
@@ -37,10 +40,12 @@ import com.openshift.client.utils.TestConnectionBuilder;
 public class GearGroupsResourceTest extends TestTimer {
 
 	private IDomain domain;
+	private HttpClientMockDirector mockDirector;
 
 	@Before
 	public void setup() throws Throwable {
-		IHttpClient client = new HttpClientMockDirector()
+		this.mockDirector = new HttpClientMockDirector();
+		IHttpClient client = mockDirector
 			.mockGetDomains(GET_DOMAINS)
 			.mockGetApplications("foobarz", GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED)
 			.mockGetApplication("foobarz", "springeap6", GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_1EMBEDDED)
@@ -71,4 +76,69 @@ public class GearGroupsResourceTest extends TestTimer {
 				.assertGear("514212ce500446b64e0000b4").inState(new GearState("deploying"))
 				.hasCartridges("mongodb-2.2");
 	}
+
+	@Test
+	public void shouldLoadGearGroupsOnEachRequestByDefault() throws Throwable {
+		// pre-conditions
+		final IApplication app = domain.getApplicationByName("springeap6");
+
+		// operation
+		app.getGearGroups();
+		app.getGearGroups();
+
+		// verifications
+		mockDirector.verifyGetGearGroups(2, "foobarz", "springeap6");
+	}
+
+	@Test
+	public void shouldServeCachedGearGroups() throws Throwable {
+		// pre-conditions
+		final ApplicationResource app = (ApplicationResource) domain.getApplicationByName("springeap6");
+		app.setGearGroupsMaxAge(60 * 1000);
+
+		// operation
+		app.getGearGroups();
+		IGearGroup gearGroup = app.getGearGroup(CartridgeTestUtils.mongodb22());
+		IGear gear = app.getGear("514212ce500446b64e0000b4");
+
+		// verifications
+		mockDirector.verifyGetGearGroups(1, "foobarz", "springeap6");
+		assertThat(gearGroup).isNotNull();
+		assertThat(gearGroup.getUUID()).isEqualTo("514207b84382ec1fef0000ab");
+		assertThat(gear).isNotNull();
+		assertThat(gear.getState()).isEqualTo(new GearState("deploying"));
+		assertThat(app.getGear("non-existing")).isNull();
+	}
+
+	@Test
+	public void shouldReloadCachedGearGroupsWhenOlderThanMaxAge() throws Throwable {
+		// pre-conditions
+		final IApplication app = domain.getApplicationByName("springeap6");
+		app.setGearGroupsMaxAge(1);
+		app.getGearGroups();
+		Thread.sleep(10);
+
+		// operation
+		app.getGearGroups();
+
+		// verifications
+		mockDirector.verifyGetGearGroups(2, "foobarz", "springeap6");
+	}
+
+	@Test
+	public void shouldInvalidateCachedGearGroupsWhenScaling() throws Throwable {
+		// pre-conditions
+		mockDirector.mockPostApplicationEvent(
+				"foobarz", "springeap6", POST_STOP_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_EVENT);
+		final IApplication app = domain.getApplicationByName("springeap6");
+		app.setGearGroupsMaxAge(60 * 1000);
+		app.getGearGroups();
+
+		// operation
+		app.scaleUp();
+		app.getGearGroups();
+
+		// verifications
+		mockDirector.verifyGetGearGroups(2, "foobarz", "springeap6");
+	}
 }
@@ -188,6 +188,15 @@ public class HttpClientMockDirector {
 		return this;
 	}
 
+	public HttpClientMockDirector mockGetCartridges(Exception exception) throws HttpClientException,
+			SocketTimeoutException {
+		when(client.get(
+				urlEndsWith("/cartridges"),
+				anyInt()))
+				.thenThrow(exception);
+		return this;
+	}
+
 	public HttpClientMockDirector mockGetUser(Samples userResourceResponse) throws HttpClientException,
 			SocketTimeoutException {
 		when(client.get(
@@ -436,6 +445,14 @@ public class HttpClientMockDirector {
 
 	}
 
+	public HttpClientMockDirector verifyGetGearGroups(int times, String domainId, String applicationName)
+			throws SocketTimeoutException, HttpClientException {
+		verify(client, times(times)).get(
+				urlEndsWith("/domains/" + domainId + "/applications/" + applicationName + "/gear_groups"),
+				anyInt());
+		return this;
+	}
+
 	public HttpClientMockDirector verifyGetApplicationCartridges(int times, String domainId, String applicationName)
 			throws SocketTimeoutException, HttpClientException {
 		verify(client, times(times)).get(
@@ -655,4 +672,11 @@ public class HttpClientMockDirector {
 				.thenReturn(getQuickstartsResponse.getContentAsString());
 		return this;
 	}
+
+	public HttpClientMockDirector mockGetQuickstarts(Exception exception)
+			throws SocketTimeoutException, HttpClientException {
+		when(client.get(urlEndsWith("api/v1/quickstarts/promoted.json"), anyInt()))
+				.thenThrow(exception);
+		return this;
+	}
 }
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.openshift.client.cartridge.EmbeddableCartridge;
+import com.openshift.client.cartridge.IEmbeddableCartridge;
+import com.openshift.client.cartridge.query.LatestVersionQuery;
+import com.openshift.internal.client.cartridge.CartridgeCatalog;
+
+/**
+ * Measures the latest version resolution on a plain list (single pass) and on
+ * an indexed catalog. Not part of the test suite, run it manually:
+ * 
+ * <pre>
+ * java -cp target/classes:target/test-classes:... com.openshift.internal.client.LatestVersionQueryBenchmark
+ * </pre>
+ * 
+ * @author agent
+ */
+public class LatestVersionQueryBenchmark {
+
+	private static final int NUM_BASE_NAMES = 50;
+	private static final int NUM_VERSIONS = 20;
+	private static final int WARMUP_ITERATIONS = 2000;
+	private static final int ITERATIONS = 20000;
+
+	public static void main(String[] args) {
+		List<IEmbeddableCartridge> cartridges = createCartridges();
+		CartridgeCatalog<IEmbeddableCartridge> catalog = new CartridgeCatalog<IEmbeddableCartridge>(cartridges);
+		LatestVersionQuery query = new LatestVersionQuery("cartridge" + (NUM_BASE_NAMES / 2));
+
+		run("list", query, cartridges, WARMUP_ITERATIONS);
+		run("catalog", query, catalog, WARMUP_ITERATIONS);
+
+		report("list", run("list", query, cartridges, ITERATIONS), cartridges.size());
+		report("catalog", run("catalog", query, catalog, ITERATIONS), cartridges.size());
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS / 100; i++) {
+			new CartridgeCatalog<IEmbeddableCartridge>(cartridges);
+		}
+		System.out.println("catalog creation: " + (System.nanoTime() - start) / (ITERATIONS / 100) + " ns/op");
+	}
+
+	private static long run(String name, LatestVersionQuery query, List<IEmbeddableCartridge> cartridges,
+			int iterations) {
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			if (query.get(cartridges) == null) {
+				throw new IllegalStateException("no latest version found in " + name);
+			}
+		}
+		return (System.nanoTime() - start) / iterations;
+	}
+
+	private static void report(String name, long nanosPerOperation, int numCartridges) {
+		System.out.println(name + " (" + numCartridges + " cartridges): " + nanosPerOperation + " ns/op");
+	}
+
+	private static List<IEmbeddableCartridge> createCartridges() {
+		List<IEmbeddableCartridge> cartridges = new ArrayList<IEmbeddableCartridge>();
+		for (int i = 0; i < NUM_BASE_NAMES; i++) {
+			for (int j = 0; j < NUM_VERSIONS; j++) {
+				cartridges.add(new EmbeddableCartridge("cartridge" + i + "-" + (j % 3) + "." + j));
+			}
+		}
+		return cartridges;
+	}
+}
@@ -50,7 +50,26 @@ import com.openshift.internal.client.response.QuickstartDTOCartridgeQueryTest;
 	EnvironmentVariableResourceTest.class,
 	ApplicationSSHSessionTest.class,
 	QuickstartDTOCartridgeQueryTest.class,
-	AuthorizationTest.class
+	AuthorizationTest.class,
+	CatalogCacheTest.class,
+	CartridgeVersionTest.class,
+	AsyncApplicationTest.class,
+	ReadinessSchedulerTest.class,
+	BulkOperationsTest.class,
+	ConcurrencyLimiterTest.class,
+	BrokerContextTest.class,
+	ApplicationProvisionerTest.class,
+	DomainWatcherTest.class,
+	ChannelResponseTest.class,
+	SSHSessionPoolTest.class,
+	SnapshotFileUtilsTest.class,
+	StreamUtilsTest.class,
+	RateLimiterTest.class,
+	DomainBackupTest.class,
+	SnapshotStoreTest.class,
+	TarFileUtilsTest.class,
+	DeploymentArchiveBuilderTest.class,
+	PortForwardingManagerTest.class
 })
 
 /**
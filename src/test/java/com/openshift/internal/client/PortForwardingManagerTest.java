@@ -0,0 +1,445 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.openshift.client.IApplication;
+import com.openshift.client.IApplicationPortForwarding;
+import com.openshift.client.IPortForwardingListener;
+import com.openshift.client.ISSHSessionFactory;
+import com.openshift.client.PortForwardingManager;
+import com.openshift.client.PortForwardingManager.Forward;
+import com.openshift.client.PortForwardingManager.Forward.Status;
+import com.openshift.client.SSHSessionPool;
+import com.openshift.internal.client.ssh.ApplicationPortForwarding;
+
+/**
+ * @author agent
+ */
+public class PortForwardingManagerTest extends TestTimer {
+
+	private static final String FAILING_ADDRESS = "127.7.151.99";
+
+	private SessionFactoryFake factory;
+	private SSHSessionPool pool;
+	private ExecutorService executor;
+	private IApplication application;
+	private ListenerFake listener;
+	private ApplicationPortForwarding jboss;
+	private ApplicationPortForwarding otherJboss;
+	private ApplicationPortForwarding mysql;
+
+	@Before
+	public void setUp() {
+		this.factory = new SessionFactoryFake();
+		this.pool = new SSHSessionPool(factory);
+		this.executor = Executors.newFixedThreadPool(4);
+		this.application = mock(IApplication.class);
+		when(application.getName()).thenReturn("springeap6");
+		when(application.getSshUrl()).thenReturn("ssh://517ff8b9500446729b00008e@springeap6-foobarz.rhcloud.com");
+		this.listener = new ListenerFake();
+		this.jboss = new ApplicationPortForwarding(application, "java", "127.7.151.1", 8080);
+		this.otherJboss = new ApplicationPortForwarding(application, "java", "127.7.151.2", 8080);
+		this.mysql = new ApplicationPortForwarding(application, "mysql", "127.7.151.3", 3306);
+	}
+
+	@After
+	public void tearDown() {
+		pool.close();
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void shouldAllocateLocalPortsAutomatically() throws Exception {
+		// pre-conditions
+		PortForwardingManager manager = createManager();
+
+		// operation
+		List<Forward> forwards = manager.start(Arrays.asList(jboss, otherJboss, mysql));
+
+		// verification
+		assertThat(forwards).hasSize(3);
+		for (Forward forward : forwards) {
+			assertThat(forward.getStatus()).isEqualTo(Status.STARTED);
+			assertThat(forward.getLocalAddress()).isEqualTo(PortForwardingManager.DEFAULT_LOCAL_ADDRESS);
+		}
+		assertThat(mysql.getLocalPort()).isEqualTo(3306);
+		// 8080 is taken by the first jboss
+		assertThat(new HashSet<Integer>(Arrays.asList(jboss.getLocalPort(), otherJboss.getLocalPort())))
+				.containsOnly(8080, SessionFactoryFake.FIRST_FREE_PORT);
+		assertThat(manager.getForward(mysql).getLocalPort()).isEqualTo(3306);
+		assertThat(listener.started).hasSize(3);
+		assertThat(factory.sessions).hasSize(1);
+	}
+
+	@Test
+	public void shouldNotForwardReloadedPortsTwice() throws Exception {
+		// pre-conditions
+		PortForwardingManager manager = new PortForwardingManager(application, pool) {
+
+			@Override
+			protected List<IApplicationPortForwarding> loadForwardablePorts() {
+				// new instances on each load
+				return Arrays.<IApplicationPortForwarding> asList(
+						new ApplicationPortForwarding(application, "java", "127.7.151.1", 8080),
+						new ApplicationPortForwarding(application, "mysql", "127.7.151.3", 3306));
+			}
+		}
+				.executor(executor)
+				.monitorInterval(0)
+				.listener(listener);
+		manager.start();
+
+		// operation
+		List<Forward> forwards = manager.start();
+
+		// verification
+		assertThat(forwards).hasSize(2);
+		assertThat(factory.sessions.get(0).getPortForwardingL()).hasSize(2);
+		verify(factory.sessions.get(0), times(2)).setPortForwardingL(anyString(), anyInt(), anyString(), anyInt());
+		assertThat(listener.started).hasSize(2);
+		assertThat(manager.isStarted(new ApplicationPortForwarding(application, "mysql", "127.7.151.3", 3306))).isTrue();
+	}
+
+	@Test
+	public void shouldReportFailuresPerPort() throws Exception {
+		// pre-conditions
+		ApplicationPortForwarding failing = new ApplicationPortForwarding(application, "mongodb", FAILING_ADDRESS, 27017);
+		PortForwardingManager manager = createManager();
+
+		// operation
+		manager.start(Arrays.asList(jboss, failing, mysql));
+
+		// verification
+		Forward failed = manager.getForward(failing);
+		assertThat(failed.getStatus()).isEqualTo(Status.FAILED);
+		assertThat(failed.getError()).isInstanceOf(JSchException.class);
+		assertThat(manager.isStarted(failing)).isFalse();
+		assertThat(manager.isStarted(jboss)).isTrue();
+		assertThat(manager.isStarted(mysql)).isTrue();
+		assertThat(listener.failed).containsOnly(failing);
+
+		// operation
+		manager.check();
+
+		// verification
+		// retried but not reported again
+		assertThat(manager.isStarted(failing)).isFalse();
+		assertThat(listener.failed).hasSize(1);
+	}
+
+	@Test
+	public void shouldNotQuerySessionForForwardState() throws Exception {
+		// pre-conditions
+		PortForwardingManager manager = createManager();
+		manager.start(Arrays.asList(jboss, mysql));
+
+		// operation
+		for (int i = 0; i < 100; i++) {
+			assertThat(manager.isStarted(jboss)).isTrue();
+		}
+
+		// verification
+		verify(factory.sessions.get(0), never()).getPortForwardingL();
+	}
+
+	@Test
+	public void shouldReestablishForwardsOnceSessionDropped() throws Exception {
+		// pre-conditions
+		PortForwardingManager manager = createManager();
+		manager.start(Arrays.asList(jboss, otherJboss, mysql));
+		int otherJbossPort = otherJboss.getLocalPort();
+		listener.started.clear();
+		factory.drop(0);
+
+		// operation
+		manager.check();
+
+		// verification
+		assertThat(factory.sessions).hasSize(2);
+		Session session = factory.sessions.get(1);
+		assertThat(session.getPortForwardingL()).hasSize(3);
+		assertThat(manager.getForward(otherJboss).getLocalPort()).isEqualTo(otherJbossPort);
+		assertThat(manager.isStarted(jboss)).isTrue();
+		assertThat(listener.started).hasSize(3);
+	}
+
+	@Test
+	public void shouldRestartForwardThatIsGone() throws Exception {
+		// pre-conditions
+		PortForwardingManager manager = createManager();
+		manager.start(Arrays.asList(jboss, mysql));
+		Session session = factory.sessions.get(0);
+		session.delPortForwardingL(PortForwardingManager.DEFAULT_LOCAL_ADDRESS, mysql.getLocalPort());
+		listener.started.clear();
+
+		// operation
+		manager.check();
+
+		// verification
+		assertThat(session.getPortForwardingL()).hasSize(2);
+		assertThat(listener.started).containsOnly(mysql);
+		assertThat(factory.sessions).hasSize(1);
+	}
+
+	@Test
+	public void shouldNotBlockQueriesWhileLeasing() throws Exception {
+		// pre-conditions
+		final PortForwardingManager manager = createManager();
+		factory.blockConnect();
+		Future<List<Forward>> start = executor.submit(new Callable<List<Forward>>() {
+
+			@Override
+			public List<Forward> call() throws Exception {
+				return manager.start(Arrays.asList(jboss));
+			}
+		});
+		assertTrue(factory.connecting.await(10, TimeUnit.SECONDS));
+
+		// operation
+		Future<Boolean> isStarted = executor.submit(new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() throws Exception {
+				return manager.isStarted(jboss);
+			}
+		});
+
+		// verification
+		assertFalse(isStarted.get(1, TimeUnit.SECONDS));
+		factory.connect.countDown();
+		assertThat(start.get(10, TimeUnit.SECONDS)).hasSize(1);
+		assertTrue(manager.isStarted(jboss));
+	}
+
+	@Test
+	public void shouldStopForwardsThatStartedWhileStopping() throws Exception {
+		// pre-conditions
+		final PortForwardingManager manager = createManager();
+		factory.blockBind();
+		Future<List<Forward>> start = executor.submit(new Callable<List<Forward>>() {
+
+			@Override
+			public List<Forward> call() throws Exception {
+				return manager.start(Arrays.asList(jboss));
+			}
+		});
+		assertTrue(factory.binding.await(10, TimeUnit.SECONDS));
+
+		// operation
+		manager.stop();
+		factory.bind.countDown();
+
+		// verification
+		assertThat(start.get(10, TimeUnit.SECONDS)).isEmpty();
+		assertFalse(manager.isStarted(jboss));
+		assertThat(factory.sessions.get(0).getPortForwardingL()).isEmpty();
+	}
+
+	@Test
+	public void shouldStopAllForwards() throws Exception {
+		// pre-conditions
+		PortForwardingManager manager = createManager();
+		manager.start(Arrays.asList(jboss, mysql));
+		Session session = factory.sessions.get(0);
+
+		// operation
+		manager.close();
+
+		// verification
+		assertThat(session.getPortForwardingL()).isEmpty();
+		assertThat(manager.getForwards()).isEmpty();
+		assertThat(manager.isStarted(jboss)).isFalse();
+		assertThat(manager.isClosed()).isTrue();
+	}
+
+	private PortForwardingManager createManager() {
+		return new PortForwardingManager(application, pool)
+				.executor(executor)
+				.monitorInterval(0)
+				.listener(listener);
+	}
+
+	private static class ListenerFake implements IPortForwardingListener {
+
+		private final List<IApplicationPortForwarding> started =
+				Collections.synchronizedList(new ArrayList<IApplicationPortForwarding>());
+		private final List<IApplicationPortForwarding> failed =
+				Collections.synchronizedList(new ArrayList<IApplicationPortForwarding>());
+
+		@Override
+		public void onStarted(Forward forward) {
+			started.add(forward.getPort());
+		}
+
+		@Override
+		public void onFailed(Forward forward) {
+			failed.add(forward.getPort());
+		}
+	}
+
+	/**
+	 * Creates sessions that bind local ports like jsch does: a port may only
+	 * be bound once (across sessions), port 0 binds any free port. Binding
+	 * fails for the failing address.
+	 */
+	private static class SessionFactoryFake implements ISSHSessionFactory {
+
+		private static final int FIRST_FREE_PORT = 50000;
+
+		private final List<Session> sessions = Collections.synchronizedList(new ArrayList<Session>());
+		private final Set<Integer> boundPorts = Collections.synchronizedSet(new HashSet<Integer>());
+		private final AtomicInteger freePort = new AtomicInteger(FIRST_FREE_PORT);
+		private final CountDownLatch connecting = new CountDownLatch(1);
+		private volatile CountDownLatch connect;
+		private final CountDownLatch binding = new CountDownLatch(1);
+		private volatile CountDownLatch bind;
+
+		@Override
+		public Session createSession(String sshUrl) throws JSchException {
+			Session session = mock(Session.class);
+			final AtomicBoolean isConnected = new AtomicBoolean();
+			final Map<Integer, String> forwards = new ConcurrentHashMap<Integer, String>();
+			when(session.isConnected()).thenAnswer(new Answer<Boolean>() {
+
+				@Override
+				public Boolean answer(InvocationOnMock invocation) throws Throwable {
+					return isConnected.get();
+				}
+			});
+			doAnswer(new Answer<Void>() {
+
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					if (connect != null) {
+						connecting.countDown();
+						connect.await(10, TimeUnit.SECONDS);
+					}
+					isConnected.set(true);
+					return null;
+				}
+			}).when(session).connect(anyInt());
+			when(session.setPortForwardingL(anyString(), anyInt(), anyString(), anyInt())).thenAnswer(
+					new Answer<Integer>() {
+
+						@Override
+						public Integer answer(InvocationOnMock invocation) throws Throwable {
+							if (bind != null) {
+								binding.countDown();
+								bind.await(10, TimeUnit.SECONDS);
+							}
+							Object[] arguments = invocation.getArguments();
+							int localPort = (Integer) arguments[1];
+							String remoteAddress = (String) arguments[2];
+							if (FAILING_ADDRESS.equals(remoteAddress)) {
+								throw new JSchException("PortForwardingL: local port cannot be bound");
+							}
+							if (localPort == 0) {
+								localPort = freePort.getAndIncrement();
+							}
+							if (!boundPorts.add(localPort)) {
+								throw new JSchException("PortForwardingL: local port " + localPort + " cannot be bound");
+							}
+							forwards.put(localPort, localPort + ":" + remoteAddress + ":" + arguments[3]);
+							return localPort;
+						}
+					});
+			doAnswer(new Answer<Void>() {
+
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					int localPort = (Integer) invocation.getArguments()[1];
+					if (forwards.remove(localPort) != null) {
+						boundPorts.remove(localPort);
+					}
+					return null;
+				}
+			}).when(session).delPortForwardingL(anyString(), anyInt());
+			when(session.getPortForwardingL()).thenAnswer(new Answer<String[]>() {
+
+				@Override
+				public String[] answer(InvocationOnMock invocation) throws Throwable {
+					return forwards.values().toArray(new String[forwards.size()]);
+				}
+			});
+			doAnswer(new Answer<Void>() {
+
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					isConnected.set(false);
+					// ports are released with the session
+					for (Integer localPort : forwards.keySet()) {
+						boundPorts.remove(localPort);
+					}
+					forwards.clear();
+					return null;
+				}
+			}).when(session).disconnect();
+			sessions.add(session);
+			return session;
+		}
+
+		/**
+		 * Blocks connecting the sessions until {@link #connect} is counted
+		 * down.
+		 */
+		private void blockConnect() {
+			this.connect = new CountDownLatch(1);
+		}
+
+		/**
+		 * Blocks binding the local ports until {@link #bind} is counted down.
+		 */
+		private void blockBind() {
+			this.bind = new CountDownLatch(1);
+		}
+
+		private void drop(int index) {
+			sessions.get(index).disconnect();
+		}
+	}
+}
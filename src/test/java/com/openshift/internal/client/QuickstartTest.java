@@ -343,4 +343,53 @@ public class QuickstartTest extends TestTimer {
 				.contains(CartridgeTestUtils.PHP_53_NAME, CartridgeTestUtils.ZEND_61_NAME);
 	}
 
+	@Test
+	public void shouldMemoizeAlternatives() throws Throwable {
+		// pre-conditions
+		IQuickstart textpress = QuickstartTestUtils.getByName(QuickstartTestUtils.TEXTPRESS,
+				connection.getQuickstarts());
+		AlternativeCartridges alternatives = textpress.getSuitableCartridges().get(0);
+
+		// operation
+		List<ICartridge> resolved = alternatives.get();
+
+		// verification
+		assertThat(alternatives.get()).isSameAs(resolved);
+		assertThat(alternatives.contains(CartridgeTestUtils.php53())).isTrue();
+	}
+
+	@Test
+	public void shouldIndexQuickstartsByLanguageProviderAndTag() throws Throwable {
+		// pre-conditions
+
+		// operation
+		QuickstartIndex index = connection.getQuickstartIndex();
+
+		// verification
+		assertThat(index.getAll()).hasSize(78);
+		assertThat(index.getByLanguage("php")).hasSize(23);
+		assertThat(index.getByLanguage("PHP")).hasSize(23);
+		assertThat(index.getByProvider("partner")).hasSize(16);
+		assertThat(index.getByTag("instant_app")).hasSize(22);
+		assertThat(index.getByTag("non-existing")).isEmpty();
+		assertThat(index.getByName(QuickstartTestUtils.CAKEPHP)).isNotNull();
+	}
+
+	@Test
+	public void shouldIndexQuickstartsByCartridge() throws Throwable {
+		// pre-conditions
+		QuickstartIndex index = connection.getQuickstartIndex();
+
+		// operation
+		List<IQuickstart> quickstarts = index.getByCartridge(CartridgeTestUtils.php53());
+
+		// verification
+		assertThat(quickstarts)
+				.onProperty("name")
+				.contains(QuickstartTestUtils.TEXTPRESS, QuickstartTestUtils.LARAVEL_41)
+				.excludes(QuickstartTestUtils.WILDFLY_8);
+		assertThat(index.getByCartridge(CartridgeTestUtils.as7()))
+				.onProperty("name")
+				.excludes(QuickstartTestUtils.TEXTPRESS);
+	}
 }
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.InterruptedIOException;
+
+import org.junit.Test;
+
+import com.openshift.internal.client.utils.RateLimiter;
+
+/**
+ * @author agent
+ */
+public class RateLimiterTest extends TestTimer {
+
+	@Test
+	public void shouldHoldBackTransferThatIsAheadOfRate() throws Exception {
+		// pre-conditions
+		RateLimiter limiter = new RateLimiter(100 * 1000);
+		long start = System.currentTimeMillis();
+
+		// operation
+		for (int i = 0; i < 10; i++) {
+			limiter.acquire(5 * 1000);
+		}
+
+		// verification
+		// 50K at 100K/s, the first chunk passes right away
+		assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(440);
+	}
+
+	@Test
+	public void shouldNotHoldBackTransferWithinRate() throws Exception {
+		// pre-conditions
+		RateLimiter limiter = new RateLimiter(100 * 1000 * 1000);
+		long start = System.currentTimeMillis();
+
+		// operation
+		for (int i = 0; i < 10; i++) {
+			limiter.acquire(1000);
+		}
+
+		// verification
+		assertThat(System.currentTimeMillis() - start).isLessThan(100);
+	}
+
+	@Test(expected = InterruptedIOException.class)
+	public void shouldThrowIfInterruptedWhileHeldBack() throws Exception {
+		// pre-conditions
+		RateLimiter limiter = new RateLimiter(1000);
+		limiter.acquire(1000);
+		Thread.currentThread().interrupt();
+
+		// operation
+		try {
+			limiter.acquire(1000);
+		} finally {
+			// verification
+			assertThat(Thread.interrupted()).isTrue();
+		}
+	}
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.IOpenShiftFuture;
+import com.openshift.client.OpenShiftException;
+
+/**
+ * @author agent
+ */
+public class ReadinessSchedulerTest extends TestTimer {
+
+	private static final long TIMEOUT = 10 * 1000;
+
+	private ScheduledThreadPoolExecutor executor;
+	private ReadinessScheduler scheduler;
+
+	@Before
+	public void setUp() {
+		this.executor = new ScheduledThreadPoolExecutor(1);
+		this.scheduler = new ReadinessScheduler(executor, 10, 40);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void shouldBeReadyOnceProbeSucceeds() throws Throwable {
+		// pre-conditions
+		CountingProbe probe = new CountingProbe(3);
+
+		// operation
+		Boolean ready = scheduler.waitFor(probe, TIMEOUT).get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+		// verification
+		assertTrue(ready);
+		assertThat(probe.probes.get()).isEqualTo(3);
+		assertThat(waitForNoPending()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldNotBeReadyIfTimeouted() throws Throwable {
+		// pre-conditions
+		CountingProbe probe = new CountingProbe(Integer.MAX_VALUE);
+		long timeout = 200;
+		long startTime = System.currentTimeMillis();
+
+		// operation
+		Boolean ready = scheduler.waitFor(probe, timeout).get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+		// verification
+		assertFalse(ready);
+		assertTrue(System.currentTimeMillis() >= startTime + timeout);
+		// backoff: delays grow up to the max delay of 40ms
+		assertThat(probe.probes.get()).isLessThan((int) (timeout / 10));
+	}
+
+	@Test
+	public void shouldWaitForManyProbesInASingleThread() throws Throwable {
+		// pre-conditions
+		List<IOpenShiftFuture<Boolean>> waits = new ArrayList<IOpenShiftFuture<Boolean>>();
+
+		// operation
+		for (int i = 0; i < 200; i++) {
+			waits.add(scheduler.waitFor(new CountingProbe(i % 5 + 1), TIMEOUT));
+		}
+
+		// verification
+		for (IOpenShiftFuture<Boolean> wait : waits) {
+			assertTrue(wait.get(TIMEOUT, TimeUnit.MILLISECONDS));
+		}
+		assertThat(executor.getLargestPoolSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldFailIfProbeThrows() throws Throwable {
+		// pre-conditions
+		ReadinessProbe probe = new ReadinessProbe() {
+
+			@Override
+			public boolean isReady() throws Exception {
+				throw new OpenShiftException("invalid url");
+			}
+		};
+
+		// operation
+		try {
+			scheduler.waitFor(probe, TIMEOUT).get(TIMEOUT, TimeUnit.MILLISECONDS);
+			fail("Expected an ExecutionException");
+		} catch (ExecutionException e) {
+			// verification
+			assertTrue(e.getCause() instanceof OpenShiftException);
+		}
+	}
+
+	@Test
+	public void shouldStopProbingIfCancelled() throws Throwable {
+		// pre-conditions
+		CountingProbe probe = new CountingProbe(Integer.MAX_VALUE);
+		IOpenShiftFuture<Boolean> wait = scheduler.waitFor(probe, TIMEOUT);
+
+		// operation
+		wait.cancel(false);
+		int probes = probe.probes.get();
+		Thread.sleep(100);
+
+		// verification
+		assertTrue(wait.isCancelled());
+		assertThat(probe.probes.get()).isLessThanOrEqualTo(probes + 1);
+		assertThat(waitForNoPending()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldBeReadyOnlyIfAllProbesAreReady() throws Throwable {
+		// pre-conditions
+		CountingProbe first = new CountingProbe(1);
+		CountingProbe second = new CountingProbe(2);
+
+		// operation
+		Boolean ready = scheduler.waitFor(ReadinessProbe.all(first, second), TIMEOUT)
+				.get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+		// verification
+		assertTrue(ready);
+		assertThat(first.probes.get()).isEqualTo(2);
+		assertThat(second.probes.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldRunProbesInExecutor() throws Throwable {
+		// pre-conditions
+		ExecutorService probeExecutor = Executors.newSingleThreadExecutor();
+		try {
+			ReadinessScheduler scheduler = new ReadinessScheduler(executor, probeExecutor, 10, 40);
+			final List<Thread> probingThreads = new ArrayList<Thread>();
+			final Thread probeThread = probeExecutor.submit(new Callable<Thread>() {
+
+				@Override
+				public Thread call() throws Exception {
+					return Thread.currentThread();
+				}
+			}).get();
+			ReadinessProbe probe = new CountingProbe(3) {
+
+				@Override
+				public boolean isReady() {
+					synchronized (probingThreads) {
+						probingThreads.add(Thread.currentThread());
+					}
+					return super.isReady();
+				}
+			};
+
+			// operation
+			Boolean ready = scheduler.waitFor(probe, TIMEOUT).get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+			// verification
+			assertTrue(ready);
+			assertThat(probingThreads).hasSize(3);
+			for (Thread thread : probingThreads) {
+				assertThat(thread).isSameAs(probeThread);
+			}
+		} finally {
+			probeExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Waiters are released before the wait is accounted as done.
+	 */
+	private int waitForNoPending() throws InterruptedException {
+		for (int i = 0; i < 100 && scheduler.getPendingCount() > 0; i++) {
+			Thread.sleep(10);
+		}
+		return scheduler.getPendingCount();
+	}
+
+	private static class CountingProbe extends ReadinessProbe {
+
+		private final int readyAt;
+		private final AtomicInteger probes = new AtomicInteger();
+
+		private CountingProbe(int readyAt) {
+			this.readyAt = readyAt;
+		}
+
+		@Override
+		public boolean isReady() {
+			return probes.incrementAndGet() >= readyAt;
+		}
+	}
+}
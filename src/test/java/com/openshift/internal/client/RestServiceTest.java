@@ -12,29 +12,45 @@ package com.openshift.internal.client;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.openshift.client.HttpMethod;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.Message;
 import com.openshift.client.OpenShiftEndpointException;
 import com.openshift.client.OpenShiftRequestException;
+import com.openshift.client.OpenShiftTimeoutException;
 import com.openshift.client.utils.MessageAssert;
 import com.openshift.client.utils.OpenShiftTestConfiguration;
 import com.openshift.client.utils.Samples;
 import com.openshift.internal.client.httpclient.HttpClientException;
 import com.openshift.internal.client.httpclient.NotFoundException;
+import com.openshift.internal.client.httpclient.request.IMediaType;
 import com.openshift.internal.client.httpclient.request.JsonMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.StringParameter;
@@ -413,6 +429,124 @@ public class RestServiceTest extends TestTimer {
 		verify(httpClientMock, times(1)).setAcceptVersion("4.2");
 	}
 
+	@Test
+	public void shouldCoalesceConcurrentIdenticalGetRequests() throws Throwable {
+		// pre-conditions
+		final CountDownLatch requestStarted = new CountDownLatch(1);
+		final CountDownLatch releaseRequest = new CountDownLatch(1);
+		doAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				requestStarted.countDown();
+				releaseRequest.await(10, TimeUnit.SECONDS);
+				return "{}";
+			}
+		}).when(clientMock).get(any(URL.class), anyInt());
+		final Link link = new TestLink("0 required parameter", "/dummy", HttpMethod.GET);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<RestResponse>> responses = new ArrayList<Future<RestResponse>>();
+
+		// operation
+		try {
+			for (int i = 0; i < 4; i++) {
+				responses.add(executor.submit(new Callable<RestResponse>() {
+
+					@Override
+					public RestResponse call() throws Exception {
+						return service.request(link, IHttpClient.NO_TIMEOUT,
+								Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+					}
+				}));
+				if (i == 0) {
+					requestStarted.await(10, TimeUnit.SECONDS);
+				}
+			}
+			for (int i = 0; i < 100 && service.getCoalescedRequestCount() < 3; i++) {
+				Thread.sleep(10);
+			}
+			releaseRequest.countDown();
+
+			// verifications
+			RestResponse response = responses.get(0).get(10, TimeUnit.SECONDS);
+			for (Future<RestResponse> otherResponse : responses) {
+				assertThat(otherResponse.get(10, TimeUnit.SECONDS)).isSameAs(response);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		mockDirector.verifyGetAny(1);
+		assertThat(service.getCoalescedRequestCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void shouldNotCoalesceSubsequentGetRequests() throws Throwable {
+		// pre-conditions
+		Link link = new TestLink("0 required parameter", "/dummy", HttpMethod.GET);
+
+		// operation
+		RestResponse response = service.request(link, IHttpClient.NO_TIMEOUT,
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+		RestResponse otherResponse = service.request(link, IHttpClient.NO_TIMEOUT,
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+
+		// verifications
+		assertThat(otherResponse).isNotSameAs(response);
+		mockDirector.verifyGetAny(2);
+		assertThat(service.getCoalescedRequestCount()).isEqualTo(0);
+	}
+
+	@Test(expected = OpenShiftEndpointException.class)
+	public void shouldThrowIfCoalescedGetRequestFails() throws Throwable {
+		// pre-conditions
+		mockDirector.mockGetAny(new HttpClientException("failed"));
+		Link link = new TestLink("0 required parameter", "/dummy", HttpMethod.GET);
+
+		// operation
+		service.request(link, IHttpClient.NO_TIMEOUT,
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+	}
+
+	@Test
+	public void shouldNotLimitRequestsByDefault() throws Throwable {
+		// pre-conditions
+		// operation
+		RestService service = (RestService) this.service;
+
+		// verifications
+		assertThat(service.getReadLimiter()).isNull();
+		assertThat(service.getMutationLimiter()).isNull();
+	}
+
+	@Test
+	public void shouldTimeoutIfLimitIsReachedForTheRequestTimeout() throws Throwable {
+		// pre-conditions
+		ConcurrencyLimiter mutationLimiter = new ConcurrencyLimiter("test", 1, 1, 1);
+		OpenShiftTestConfiguration configuration = new OpenShiftTestConfiguration();
+		IRestService service = new RestService(
+				configuration.getStagingServer(),
+				configuration.getClientId(),
+				new JsonMediaType(),
+				IHttpClient.MEDIATYPE_APPLICATION_JSON,
+				new OpenShiftJsonDTOFactory(),
+				clientMock,
+				null,
+				mutationLimiter);
+		// other request in flight
+		mutationLimiter.acquire(10 * 1000);
+		Link link = new TestLink("0 required parameter", "/dummy", HttpMethod.POST);
+
+		// operation
+		try {
+			service.request(link, 100, Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			fail("OpenShiftTimeoutException expected");
+		} catch (OpenShiftTimeoutException e) {
+			// verifications
+			verify(clientMock, never()).post(any(URL.class), any(IMediaType.class), anyInt(), any(Parameter[].class));
+			assertThat(mutationLimiter.getInFlight()).isEqualTo(1);
+		}
+	}
+
 	public class TestLink extends Link {
 
 		public TestLink(String rel, String href, HttpMethod httpMethod, List<LinkParameter> requiredParams,
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.openshift.client.ISSHSessionFactory;
+import com.openshift.client.OpenShiftTimeoutException;
+import com.openshift.client.SSHSessionPool;
+import com.openshift.client.SSHSessionPool.Lease;
+
+/**
+ * @author agent
+ */
+public class SSHSessionPoolTest extends TestTimer {
+
+	private static final String SSH_URL = "ssh://517ff8b9500446729b00008e@springeap6-foobarz.rhcloud.com";
+	private static final String OTHER_SSH_URL = "ssh://5183b49f4382ec9a0e000001@scalable-foobarz.rhcloud.com";
+	private static final String THIRD_SSH_URL = "ssh://51d602b1e0b8cd5c74000241@jekyll-foobarz.rhcloud.com";
+
+	private SessionFactoryFake factory = new SessionFactoryFake();
+	private SSHSessionPool pool;
+
+	@After
+	public void tearDown() {
+		if (pool != null) {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void shouldShareSessionAmongLeasesOfSameUrl() throws Exception {
+		// pre-conditions
+		this.pool = new SSHSessionPool(factory);
+
+		// operation
+		Lease lease = pool.lease(SSH_URL);
+		Lease otherLease = pool.lease(SSH_URL);
+
+		// verification
+		assertThat(lease.getSession()).isSameAs(otherLease.getSession());
+		assertThat(factory.sessions).hasSize(1);
+		assertThat(pool.getSessionCount()).isEqualTo(1);
+		verify(lease.getSession()).connect(anyInt());
+		verify(lease.getSession()).setServerAliveInterval((int) SSHSessionPool.DEFAULT_KEEP_ALIVE_INTERVAL);
+	}
+
+	@Test
+	public void shouldKeepSessionConnectedOnceLeaseIsClosed() throws Exception {
+		// pre-conditions
+		this.pool = new SSHSessionPool(factory);
+		Lease lease = pool.lease(SSH_URL);
+
+		// operation
+		lease.close();
+		Lease otherLease = pool.lease(SSH_URL);
+
+		// verification
+		assertThat(otherLease.getSession()).isSameAs(lease.getSession());
+		assertThat(otherLease.getSession().isConnected()).isTrue();
+		assertThat(factory.sessions).hasSize(1);
+	}
+
+	@Test
+	public void shouldReconnectDroppedSession() throws Exception {
+		// pre-conditions
+		this.pool = new SSHSessionPool(factory);
+		Lease lease = pool.lease(SSH_URL);
+		lease.close();
+		lease.getSession().disconnect();
+
+		// operation
+		Lease otherLease = pool.lease(SSH_URL);
+
+		// verification
+		assertThat(otherLease.getSession()).isNotSameAs(lease.getSession());
+		assertThat(otherLease.getSession().isConnected()).isTrue();
+		assertThat(factory.sessions).hasSize(2);
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedIdleSessionIfFull() throws Exception {
+		// pre-conditions
+		this.pool = new SSHSessionPool(factory, 2, 60 * 1000, 0, 0);
+		Lease lease = pool.lease(SSH_URL);
+		Lease otherLease = pool.lease(OTHER_SSH_URL);
+		lease.close();
+		Thread.sleep(10);
+		otherLease.close();
+
+		// operation
+		Lease thirdLease = pool.lease(THIRD_SSH_URL);
+
+		// verification
+		assertThat(pool.getSessionCount()).isEqualTo(2);
+		assertThat(thirdLease.getSession().isConnected()).isTrue();
+		assertThat(lease.getSession().isConnected()).isFalse();
+		assertThat(otherLease.getSession().isConnected()).isTrue();
+	}
+
+	@Test
+	public void shouldTimeoutIfFullAndNoSessionIsIdle() throws Exception {
+		// pre-conditions
+		this.pool = new SSHSessionPool(factory, 1, 60 * 1000, 0, 100);
+		Lease lease = pool.lease(SSH_URL);
+
+		// operation
+		try {
+			pool.lease(OTHER_SSH_URL);
+			fail("OpenShiftTimeoutException expected");
+		} catch (OpenShiftTimeoutException e) {
+			// verification
+			assertThat(lease.getSession().isConnected()).isTrue();
+			assertThat(factory.sessions).hasSize(1);
+		}
+	}
+
+	@Test
+	public void shouldLeaseOnceSessionIsReleasedIfFull() throws Exception {
+		// pre-conditions
+		this.pool = new SSHSessionPool(factory, 1, 60 * 1000, 0, 10 * 1000);
+		final Lease lease = pool.lease(SSH_URL);
+		new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+				lease.close();
+			}
+		}.start();
+
+		// operation
+		Lease otherLease = pool.lease(OTHER_SSH_URL);
+
+		// verification
+		assertThat(otherLease.getSession().isConnected()).isTrue();
+		assertThat(lease.getSession().isConnected()).isFalse();
+		assertThat(pool.getSessionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldEvictSessionsThatAreIdleForLongerThanTimeout() throws Exception {
+		// pre-conditions
+		this.pool = new SSHSessionPool(factory, 2, 50, 0, 0);
+		Lease lease = pool.lease(SSH_URL);
+		Lease otherLease = pool.lease(OTHER_SSH_URL);
+		lease.close();
+		Thread.sleep(100);
+
+		// operation
+		pool.evictIdle();
+
+		// verification
+		assertThat(pool.getSessionCount()).isEqualTo(1);
+		assertThat(lease.getSession().isConnected()).isFalse();
+		assertThat(otherLease.getSession().isConnected()).isTrue();
+	}
+
+	@Test
+	public void shouldDisconnectAllSessionsWhenClosed() throws Exception {
+		// pre-conditions
+		this.pool = new SSHSessionPool(factory);
+		Lease lease = pool.lease(SSH_URL);
+		Lease otherLease = pool.lease(OTHER_SSH_URL);
+		otherLease.close();
+
+		// operation
+		pool.close();
+
+		// verification
+		assertThat(pool.getSessionCount()).isEqualTo(0);
+		assertThat(lease.getSession().isConnected()).isFalse();
+		assertThat(otherLease.getSession().isConnected()).isFalse();
+	}
+
+	@Test
+	public void shouldNotConnectSessionThatFactoryConnected() throws Exception {
+		// pre-conditions
+		factory.connected = true;
+		this.pool = new SSHSessionPool(factory);
+
+		// operation
+		Lease lease = pool.lease(SSH_URL);
+
+		// verification
+		verify(lease.getSession(), never()).connect(anyInt());
+	}
+
+	private static class SessionFactoryFake implements ISSHSessionFactory {
+
+		private final List<Session> sessions = new ArrayList<Session>();
+		private boolean connected;
+
+		@Override
+		public synchronized Session createSession(String sshUrl) throws JSchException {
+			Session session = mock(Session.class);
+			final AtomicBoolean isConnected = new AtomicBoolean(connected);
+			when(session.isConnected()).thenAnswer(new Answer<Boolean>() {
+
+				@Override
+				public Boolean answer(InvocationOnMock invocation) throws Throwable {
+					return isConnected.get();
+				}
+			});
+			doAnswer(new Answer<Void>() {
+
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					isConnected.set(true);
+					return null;
+				}
+			}).when(session).connect(anyInt());
+			doAnswer(new Answer<Void>() {
+
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					isConnected.set(false);
+					return null;
+				}
+			}).when(session).disconnect();
+			sessions.add(session);
+			return session;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.IProgressListener;
+import com.openshift.client.utils.FileUtils;
+import com.openshift.client.utils.SnapshotFileUtils;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * @author agent
+ */
+public class SnapshotFileUtilsTest extends TestTimer {
+
+	/** sha256sum of "snapshot" */
+	private static final String SNAPSHOT_CHECKSUM = "16a0eeb0791b6c92451fd284dd9f599e0a7dbe7f6ebea6e2d2d06c7f74aec112";
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		this.file = FileUtils.createRandomTempFile(".tar.gz");
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+		SnapshotFileUtils.getChecksumFile(file).delete();
+	}
+
+	@Test
+	public void shouldSaveSnapshotAndItsChecksum() throws Exception {
+		// pre-conditions
+		// operation
+		String checksum = SnapshotFileUtils.save(new ByteArrayInputStream("snapshot".getBytes()), file, null);
+
+		// verification
+		assertThat(checksum).isEqualTo(SNAPSHOT_CHECKSUM);
+		assertThat(StreamUtils.readToString(SnapshotFileUtils.open(file, null))).isEqualTo("snapshot\n");
+		assertThat(SnapshotFileUtils.readChecksum(file)).isEqualTo(SNAPSHOT_CHECKSUM);
+		assertThat(SnapshotFileUtils.verify(file)).isTrue();
+	}
+
+	@Test
+	public void shouldSaveSnapshotThatSpansSeveralBuffers() throws Exception {
+		// pre-conditions
+		byte[] snapshot = new byte[SnapshotFileUtils.BUFFER_SIZE * 3 + 17];
+		new Random(42).nextBytes(snapshot);
+		ProgressListenerFake listener = new ProgressListenerFake();
+
+		// operation
+		SnapshotFileUtils.save(new ByteArrayInputStream(snapshot), file, listener);
+
+		// verification
+		assertThat(file.length()).isEqualTo(snapshot.length);
+		assertThat(listener.transferred).isEqualTo(snapshot.length);
+		assertThat(listener.total).isEqualTo(IProgressListener.UNKNOWN_TOTAL);
+		assertThat(listener.notifications).isEqualTo(4);
+		assertThat(SnapshotFileUtils.checksum(file)).isEqualTo(SnapshotFileUtils.readChecksum(file));
+		byte[] saved = new byte[snapshot.length];
+		RandomAccessFile savedFile = new RandomAccessFile(file, "r");
+		savedFile.readFully(saved);
+		savedFile.close();
+		assertThat(Arrays.equals(saved, snapshot)).isTrue();
+	}
+
+	@Test
+	public void shouldNotVerifyAlteredSnapshot() throws Exception {
+		// pre-conditions
+		SnapshotFileUtils.save(new ByteArrayInputStream("snapshot".getBytes()), file, null);
+		FileOutputStream out = new FileOutputStream(file, true);
+		out.write('!');
+		out.close();
+
+		// operation
+		boolean verified = SnapshotFileUtils.verify(file);
+
+		// verification
+		assertThat(verified).isFalse();
+	}
+
+	@Test
+	public void shouldKeepExistingFileIfSavingFails() throws Exception {
+		// pre-conditions
+		SnapshotFileUtils.save(new ByteArrayInputStream("snapshot".getBytes()), file, null);
+		InputStream failingSnapshot = new InputStream() {
+
+			private int read;
+
+			@Override
+			public int read() throws IOException {
+				if (read++ > 3) {
+					throw new IOException("connection reset");
+				}
+				return 'x';
+			}
+		};
+
+		// operation
+		try {
+			SnapshotFileUtils.save(failingSnapshot, file, null);
+			fail("IOException expected");
+		} catch (IOException e) {
+			// verification
+			assertThat(SnapshotFileUtils.verify(file)).isTrue();
+			assertThat(new File(file.getPath() + ".part").exists()).isFalse();
+		}
+	}
+
+	@Test
+	public void shouldReplaceExistingFileAndItsChecksum() throws Exception {
+		// pre-conditions
+		SnapshotFileUtils.save(new ByteArrayInputStream("old snapshot".getBytes()), file, null);
+
+		// operation
+		String checksum = SnapshotFileUtils.save(new ByteArrayInputStream("snapshot".getBytes()), file, null);
+
+		// verification
+		assertThat(checksum).isEqualTo(SNAPSHOT_CHECKSUM);
+		assertThat(SnapshotFileUtils.readChecksum(file)).isEqualTo(SNAPSHOT_CHECKSUM);
+		assertThat(SnapshotFileUtils.verify(file)).isTrue();
+		assertThat(new File(file.getPath() + ".bak").exists()).isFalse();
+		assertThat(SnapshotFileUtils.getChecksumFile(new File(file.getPath() + ".bak")).exists()).isFalse();
+		assertThat(SnapshotFileUtils.getChecksumFile(new File(file.getPath() + ".part")).exists()).isFalse();
+	}
+
+	@Test
+	public void shouldRestoreExistingFileAndItsChecksumIfReplacingFails() throws Exception {
+		// pre-conditions
+		SnapshotFileUtils.save(new ByteArrayInputStream("old snapshot".getBytes()), file, null);
+		String oldChecksum = SnapshotFileUtils.readChecksum(file);
+		// a stale backup of the checksum that cant be deleted
+		File staleBackup = SnapshotFileUtils.getChecksumFile(new File(file.getPath() + ".bak"));
+		File staleBackupContent = new File(staleBackup, "content");
+		assertThat(staleBackup.mkdir()).isTrue();
+		assertThat(staleBackupContent.createNewFile()).isTrue();
+
+		// operation
+		try {
+			SnapshotFileUtils.save(new ByteArrayInputStream("snapshot".getBytes()), file, null);
+			fail("IOException expected");
+		} catch (IOException e) {
+			// verification
+			assertThat(SnapshotFileUtils.readChecksum(file)).isEqualTo(oldChecksum);
+			assertThat(SnapshotFileUtils.verify(file)).isTrue();
+			assertThat(new File(file.getPath() + ".bak").exists()).isFalse();
+			assertThat(new File(file.getPath() + ".part").exists()).isFalse();
+			assertThat(SnapshotFileUtils.getChecksumFile(new File(file.getPath() + ".part")).exists()).isFalse();
+		} finally {
+			staleBackupContent.delete();
+			staleBackup.delete();
+		}
+	}
+
+	@Test
+	public void shouldReportProgressOfReadingSnapshot() throws Exception {
+		// pre-conditions
+		SnapshotFileUtils.save(new ByteArrayInputStream("snapshot".getBytes()), file, null);
+		ProgressListenerFake listener = new ProgressListenerFake();
+
+		// operation
+		StreamUtils.readToString(SnapshotFileUtils.open(file, listener));
+
+		// verification
+		assertThat(listener.transferred).isEqualTo(8);
+		assertThat(listener.total).isEqualTo(8);
+	}
+
+	private static class ProgressListenerFake implements IProgressListener {
+
+		private long transferred;
+		private long total;
+		private int notifications;
+
+		@Override
+		public void onProgress(long transferred, long total) {
+			this.transferred = transferred;
+			this.total = total;
+			this.notifications++;
+		}
+	}
+}
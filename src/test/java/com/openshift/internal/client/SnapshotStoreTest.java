@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.utils.FileUtils;
+import com.openshift.client.utils.SnapshotStore;
+import com.openshift.client.utils.SnapshotStore.StoredSnapshot;
+
+/**
+ * @author agent
+ */
+public class SnapshotStoreTest extends TestTimer {
+
+	private static final String LONG_NAME =
+			"app-root/data/a-folder-with-a-name-that-is-longer-than-the-one-hundred-characters-that-fit-into-the-header/file";
+
+	private File folder;
+	private SnapshotStore store;
+	private Map<String, byte[]> files;
+
+	@Before
+	public void setUp() throws IOException {
+		this.folder = FileUtils.createRandomTempFile("");
+		folder.delete();
+		this.store = new SnapshotStore(folder);
+		this.files = new LinkedHashMap<String, byte[]>();
+		files.put("git/", null);
+		files.put("git/springeap6.git/HEAD", "ref: refs/heads/master\n".getBytes());
+		files.put("app-root/data/large.bin", createRandomBytes(SnapshotStore.CHUNK_SIZE * 2 + 513, 42));
+		files.put(LONG_NAME, createRandomBytes(1000, 43));
+		files.put("app-root/data/empty", new byte[0]);
+	}
+
+	@After
+	public void tearDown() {
+		delete(folder);
+	}
+
+	@Test
+	public void shouldReassembleByteIdenticalTar() throws Exception {
+		// pre-conditions
+		byte[] tar = createTar(files, TarArchiveOutputStream.LONGFILE_GNU);
+
+		// operation
+		StoredSnapshot stored = store.store("monday", new ByteArrayInputStream(gzip(tar)));
+
+		// verification
+		assertThat(stored.getSize()).isEqualTo(tar.length);
+		assertThat(stored.getChunks()).isEqualTo(5);
+		assertThat(stored.getNewChunks()).isEqualTo(stored.getChunks());
+		assertThat(read(store.openTar("monday"))).isEqualTo(tar);
+		assertThat(read(new GZIPInputStream(store.open("monday")))).isEqualTo(tar);
+	}
+
+	@Test
+	public void shouldReassembleTarWithPaxHeaders() throws Exception {
+		// pre-conditions
+		byte[] tar = createTar(files, TarArchiveOutputStream.LONGFILE_POSIX);
+
+		// operation
+		store.store("monday", new ByteArrayInputStream(gzip(tar)));
+
+		// verification
+		assertThat(read(store.openTar("monday"))).isEqualTo(tar);
+	}
+
+	@Test
+	public void shouldOnlyStoreChangedContent() throws Exception {
+		// pre-conditions
+		StoredSnapshot monday = store.store("monday", new ByteArrayInputStream(gzip(createTar(files))));
+		files.put("git/springeap6.git/HEAD", "ref: refs/heads/release\n".getBytes());
+		byte[] tuesdayTar = createTar(files);
+
+		// operation
+		StoredSnapshot tuesday = store.store("tuesday", new ByteArrayInputStream(gzip(tuesdayTar)));
+
+		// verification
+		assertThat(tuesday.getChunks()).isEqualTo(monday.getChunks());
+		assertThat(tuesday.getNewChunks()).isEqualTo(1);
+		assertThat(tuesday.getStoredSize()).isLessThan(monday.getStoredSize() / 100);
+		assertThat(read(store.openTar("tuesday"))).isEqualTo(tuesdayTar);
+		assertThat(store.getNames()).containsExactly("monday", "tuesday");
+	}
+
+	@Test
+	public void shouldCollectChunksOfDeletedSnapshots() throws Exception {
+		// pre-conditions
+		store.store("monday", new ByteArrayInputStream(gzip(createTar(files))));
+		files.put("git/springeap6.git/HEAD", "ref: refs/heads/release\n".getBytes());
+		byte[] tuesdayTar = createTar(files);
+		store.store("tuesday", new ByteArrayInputStream(gzip(tuesdayTar)));
+
+		// operation
+		store.delete("monday");
+		int deleted = store.collectGarbage();
+
+		// verification
+		assertThat(deleted).isEqualTo(1);
+		assertThat(store.exists("monday")).isFalse();
+		assertThat(read(store.openTar("tuesday"))).isEqualTo(tuesdayTar);
+	}
+
+	@Test
+	public void shouldFailToReadSnapshotWithMissingChunk() throws Exception {
+		// pre-conditions
+		store.store("monday", new ByteArrayInputStream(gzip(createTar(files))));
+		delete(new File(folder, "chunks"));
+
+		// operation
+		try {
+			read(store.openTar("monday"));
+			fail("expected IOException");
+		} catch (IOException e) {
+			// verification
+		}
+	}
+
+	@Test
+	public void shouldNotStoreInvalidSnapshot() throws Exception {
+		// pre-conditions
+		byte[] garbage = createRandomBytes(2048, 44);
+
+		// operation
+		try {
+			store.store("monday", new ByteArrayInputStream(gzip(garbage)));
+			fail("expected IOException");
+		} catch (IOException e) {
+			// verification
+			assertThat(store.exists("monday")).isFalse();
+			assertThat(store.getNames()).isEmpty();
+		}
+	}
+
+	private byte[] createTar(Map<String, byte[]> files) throws IOException {
+		return createTar(files, TarArchiveOutputStream.LONGFILE_GNU);
+	}
+
+	private byte[] createTar(Map<String, byte[]> files, int longFileMode) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TarArchiveOutputStream tar = new TarArchiveOutputStream(out);
+		tar.setLongFileMode(longFileMode);
+		for (Map.Entry<String, byte[]> file : files.entrySet()) {
+			TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+			entry.setModTime(1401580800000l);
+			if (file.getValue() != null) {
+				entry.setSize(file.getValue().length);
+			}
+			tar.putArchiveEntry(entry);
+			if (file.getValue() != null) {
+				tar.write(file.getValue());
+			}
+			tar.closeArchiveEntry();
+		}
+		tar.close();
+		return out.toByteArray();
+	}
+
+	private byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GzipCompressorOutputStream gzip = new GzipCompressorOutputStream(out);
+		gzip.write(data);
+		gzip.close();
+		return out.toByteArray();
+	}
+
+	private byte[] read(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int read = 0; (read = in.read(buffer)) != -1;) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private byte[] createRandomBytes(int length, long seed) {
+		byte[] bytes = new byte[length];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
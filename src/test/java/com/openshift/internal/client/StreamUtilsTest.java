@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * @author agent
+ */
+public class StreamUtilsTest extends TestTimer {
+
+	private static final int NUM_THREADS = 8;
+	private static final int DATA_SIZE = 1024 * 1024;
+
+	@Test
+	public void shouldNotMixDataOfConcurrentCopies() throws Exception {
+		// pre-conditions
+		ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+		List<Future<Boolean>> copies = new ArrayList<Future<Boolean>>();
+
+		// operation
+		for (int i = 0; i < NUM_THREADS; i++) {
+			final byte[] data = new byte[DATA_SIZE];
+			Arrays.fill(data, (byte) i);
+			copies.add(executor.submit(new Callable<Boolean>() {
+
+				@Override
+				public Boolean call() throws Exception {
+					ByteArrayOutputStream out = new ByteArrayOutputStream(DATA_SIZE);
+					StreamUtils.writeTo(new ByteArrayInputStream(data), out);
+					return Arrays.equals(data, out.toByteArray());
+				}
+			}));
+		}
+
+		// verification
+		for (Future<Boolean> copy : copies) {
+			assertThat(copy.get()).isTrue();
+		}
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.utils.TarFileUtils;
+import com.openshift.client.utils.TarIndex;
+import com.openshift.client.utils.TarIndex.Entry;
+import com.openshift.client.utils.TarIndex.EntryType;
+import com.openshift.client.utils.TarInspectingInputStream;
+
+/**
+ * @author agent
+ */
+public class TarFileUtilsTest extends TestTimer {
+
+	private static final String LONG_NAME =
+			"app-root/data/a-folder-with-a-name-that-is-longer-than-the-one-hundred-characters-that-fit-into-the-header/file";
+
+	private Map<String, byte[]> files;
+
+	@Before
+	public void setUp() {
+		this.files = new LinkedHashMap<String, byte[]>();
+		files.put("./git/", null);
+		files.put("./git/springeap6.git/HEAD", "ref: refs/heads/master\n".getBytes());
+		files.put("./app-root/data/large.bin", createRandomBytes(100 * 1024 + 13, 42));
+		files.put(LONG_NAME, createRandomBytes(1000, 43));
+		files.put("./app-root/data/empty", new byte[0]);
+	}
+
+	@Test
+	public void shouldIndexEntriesInSinglePass() throws Exception {
+		// pre-conditions
+		byte[] tar = createTar(files, TarArchiveOutputStream.LONGFILE_GNU);
+
+		// operation
+		TarIndex index = TarFileUtils.index(new ByteArrayInputStream(gzip(tar)));
+
+		// verification
+		assertThat(index.isComplete()).isTrue();
+		assertThat(index.size()).isEqualTo(files.size());
+		assertThat(index.hasGitFolder()).isTrue();
+		assertThat(index.getEntry("git").getType()).isEqualTo(EntryType.DIRECTORY);
+		assertThat(index.getTotalSize()).isEqualTo(23 + 100 * 1024 + 13 + 1000);
+		for (Map.Entry<String, byte[]> file : files.entrySet()) {
+			Entry entry = index.getEntry(file.getKey());
+			assertThat(entry).isNotNull();
+			if (file.getValue() != null) {
+				assertThat(entry.getType()).isEqualTo(EntryType.FILE);
+				assertThat(entry.getSize()).isEqualTo(file.getValue().length);
+				assertThat(Arrays.copyOfRange(tar, (int) entry.getDataOffset(),
+						(int) entry.getDataOffset() + file.getValue().length)).isEqualTo(file.getValue());
+			}
+		}
+		// long name header precedes the entry
+		assertThat(index.getEntry(LONG_NAME).getDataOffset() - index.getEntry(LONG_NAME).getOffset())
+				.isEqualTo(3 * 512);
+	}
+
+	@Test
+	public void shouldIndexEntriesWithPaxHeaders() throws Exception {
+		// pre-conditions
+		byte[] tar = createTar(files, TarArchiveOutputStream.LONGFILE_POSIX);
+
+		// operation
+		TarIndex index = TarFileUtils.index(new ByteArrayInputStream(gzip(tar)));
+
+		// verification
+		Entry entry = index.getEntry(LONG_NAME);
+		assertThat(entry.getName()).isEqualTo(LONG_NAME);
+		assertThat(Arrays.copyOfRange(tar, (int) entry.getDataOffset(), (int) entry.getDataOffset() + 1000))
+				.isEqualTo(files.get(LONG_NAME));
+	}
+
+	@Test
+	public void shouldIndexConcatenatedGzipMembers() throws Exception {
+		// pre-conditions
+		byte[] tar = createTar(files, TarArchiveOutputStream.LONGFILE_GNU);
+		int half = tar.length / 2;
+		ByteArrayOutputStream members = new ByteArrayOutputStream();
+		members.write(gzip(Arrays.copyOfRange(tar, 0, half)));
+		members.write(gzip(Arrays.copyOfRange(tar, half, tar.length)));
+
+		// operation
+		TarIndex index = TarFileUtils.index(new ByteArrayInputStream(members.toByteArray()));
+
+		// verification
+		assertThat(index.isComplete()).isTrue();
+		assertThat(index.size()).isEqualTo(files.size());
+	}
+
+	@Test
+	public void shouldStopReadingOnceGitFolderIsFound() throws Exception {
+		// pre-conditions
+		byte[] snapshot = gzip(createTar(files, TarArchiveOutputStream.LONGFILE_GNU));
+		// cut off after the git folder, the remainder would not be valid
+		CloseTrackingInputStream in = new CloseTrackingInputStream(Arrays.copyOf(snapshot, snapshot.length / 3));
+
+		// operation
+		boolean hasGitFolder = TarFileUtils.hasGitFolder(in);
+
+		// verification
+		assertThat(hasGitFolder).isTrue();
+		assertThat(in.closed).isTrue();
+	}
+
+	@Test
+	public void shouldNotFindMissingGitFolder() throws Exception {
+		// pre-conditions
+		files.remove("./git/");
+		files.remove("./git/springeap6.git/HEAD");
+		byte[] snapshot = gzip(createTar(files, TarArchiveOutputStream.LONGFILE_GNU));
+
+		// operation
+		boolean hasGitFolder = TarFileUtils.hasGitFolder(new ByteArrayInputStream(snapshot));
+
+		// verification
+		assertThat(hasGitFolder).isFalse();
+	}
+
+	@Test
+	public void shouldInspectWhileSnapshotIsRead() throws Exception {
+		// pre-conditions
+		byte[] snapshot = gzip(createTar(files, TarArchiveOutputStream.LONGFILE_GNU));
+		TarInspectingInputStream in = TarFileUtils.inspect(new ByteArrayInputStream(snapshot));
+
+		// operation
+		byte[] read = readInRandomPackets(in);
+
+		// verification
+		assertThat(read).isEqualTo(snapshot);
+		TarIndex index = in.getIndex();
+		assertThat(index.isComplete()).isTrue();
+		assertThat(index.hasGitFolder()).isTrue();
+		assertThat(index.contains(LONG_NAME)).isTrue();
+		assertThat(index.getTotalSize()).isEqualTo(23 + 100 * 1024 + 13 + 1000);
+	}
+
+	@Test
+	public void shouldHandOutBytesOfInvalidSnapshot() throws Exception {
+		// pre-conditions
+		byte[] garbage = createRandomBytes(4096, 44);
+		TarInspectingInputStream in = TarFileUtils.inspect(new ByteArrayInputStream(garbage));
+
+		// operation
+		byte[] read = readInRandomPackets(in);
+
+		// verification
+		assertThat(read).isEqualTo(garbage);
+		try {
+			in.getIndex();
+			fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void shouldFailToIndexTruncatedSnapshot() throws Exception {
+		// pre-conditions
+		byte[] snapshot = gzip(createTar(files, TarArchiveOutputStream.LONGFILE_GNU));
+
+		// operation
+		TarFileUtils.index(new ByteArrayInputStream(Arrays.copyOf(snapshot, snapshot.length / 2)));
+	}
+
+	private byte[] readInRandomPackets(InputStream in) throws IOException {
+		Random random = new Random(45);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for (int read = 0; (read = in.read(buffer, 0, 1 + random.nextInt(buffer.length))) != -1;) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private byte[] createTar(Map<String, byte[]> files, int longFileMode) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		TarArchiveOutputStream tar = new TarArchiveOutputStream(out);
+		tar.setLongFileMode(longFileMode);
+		for (Map.Entry<String, byte[]> file : files.entrySet()) {
+			TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+			if (file.getValue() != null) {
+				entry.setSize(file.getValue().length);
+			}
+			tar.putArchiveEntry(entry);
+			if (file.getValue() != null) {
+				tar.write(file.getValue());
+			}
+			tar.closeArchiveEntry();
+		}
+		tar.close();
+		return out.toByteArray();
+	}
+
+	private byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GzipCompressorOutputStream gzip = new GzipCompressorOutputStream(out);
+		gzip.write(data);
+		gzip.close();
+		return out.toByteArray();
+	}
+
+	private byte[] createRandomBytes(int length, long seed) {
+		byte[] bytes = new byte[length];
+		new Random(seed).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static class CloseTrackingInputStream extends ByteArrayInputStream {
+
+		private boolean closed;
+
+		private CloseTrackingInputStream(byte[] bytes) {
+			super(bytes);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.closed = true;
+			super.close();
+		}
+	}
+}
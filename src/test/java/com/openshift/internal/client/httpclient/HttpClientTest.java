@@ -27,11 +27,13 @@ import java.security.KeyStoreException;
 import java.security.cert.X509Certificate;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,6 +62,7 @@ import com.openshift.client.fakes.WaitingHttpServerFake;
 import com.openshift.client.utils.Base64Coder;
 import com.openshift.client.utils.ExceptionCauseMatcher;
 import com.openshift.client.utils.SSLUtils;
+import com.openshift.internal.client.OpenShiftFutureTask;
 import com.openshift.internal.client.TestTimer;
 import com.openshift.internal.client.httpclient.request.FormUrlEncodedMediaType;
 import com.openshift.internal.client.httpclient.request.StringParameter;
@@ -435,6 +438,49 @@ public class HttpClientTest extends TestTimer {
 		}
 	}
 
+	@Test
+	public void shouldAbortRequestWhenItsTaskIsCancelled() throws Throwable {
+		// pre-conditions
+		final int serverDelay = 10 * 1000;
+		final WaitingHttpServerFake serverFake = startWaitingHttpServerFake(serverDelay);
+		final CountDownLatch sending = new CountDownLatch(1);
+		final CountDownLatch aborted = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		OpenShiftFutureTask<String> request = new OpenShiftFutureTask<String>(new Callable<String>() {
+
+			@Override
+			public String call() throws Exception {
+				sending.countDown();
+				try {
+					return httpClient.get(serverFake.getUrl(), serverDelay * 2);
+				} catch (RuntimeException e) {
+					failure.set(e);
+					throw e;
+				} finally {
+					aborted.countDown();
+				}
+			}
+		});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			executor.execute(request);
+			sending.await();
+			Thread.sleep(200);
+			long startTime = System.currentTimeMillis();
+
+			// operation
+			request.cancel(true);
+
+			// verification
+			assertTrue(aborted.await(serverDelay / 2, TimeUnit.MILLISECONDS));
+			assertThat(System.currentTimeMillis() - startTime).isLessThan(serverDelay / 2);
+			assertTrue(failure.get() instanceof RequestCancelledException);
+		} finally {
+			executor.shutdownNow();
+			serverFake.stop();
+		}
+	}
+
 	@Test
 	public void shouldFallbackToOpenShiftTimeout() throws Throwable {
 		// pre-conditions